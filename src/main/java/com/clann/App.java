@@ -1,10 +1,39 @@
 package com.clann;
 
+import com.clann.checkpoint.ScanCheckpoint;
+import com.clann.index.AnnotationIndex;
+import com.clann.index.AnnotationIndexWriter;
+import com.clann.maven.MavenRepositoryIndexer;
+import com.clann.module.ModuleScanner;
+import com.clann.output.OutputTarget;
+import com.clann.plugin.ClannPlugins;
+import com.clann.query.AnnotationBitmapIndex;
+import com.clann.query.AnnotationQuery;
+import com.clann.resolve.AnnotationOriginIndex;
+import com.clann.resolve.ClasspathClassBytesSource;
+import com.clann.resolve.InheritedAnnotationResolver;
+import com.clann.resolve.MetaAnnotationResolver;
+import com.clann.shard.PartialResultFile;
+import com.clann.shard.ShardCoordinator;
+import com.clann.stats.AnnotationSampler;
+import com.clann.stats.AnnotationStatistics;
+import com.clann.store.ColumnarResultStore;
+import com.clann.visitor.AnnotationLevel;
 import com.clann.visitor.ClassAnnotationInfo;
+import java.io.BufferedWriter;
 import java.io.File;
 import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Locale;
 import java.util.concurrent.Callable;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
 import org.jetbrains.annotations.NotNull;
 import org.slf4j.LoggerFactory;
 import picocli.CommandLine;
@@ -17,16 +46,214 @@ import picocli.CommandLine;
         name = "clann",
         mixinStandardHelpOptions = true,
         version = "1.0.0",
-        description = "Analyze class files in a JAR file and print a report on annotation usage.")
+        description =
+                "Analyze class files in one or more JAR files and print a report on annotation"
+                        + " usage.")
 public class App implements Callable<Integer> {
     private static final org.slf4j.Logger LOGGER =
             LoggerFactory.getLogger(App.class.getSimpleName());
 
+    /**
+     * The path that stands for a JAR file read from standard input.
+     */
+    private static final String STANDARD_INPUT = "-";
+
     @CommandLine.Parameters(
-            arity = "1",
-            description = "Path to jar file to analyze",
+            arity = "1..*",
+            description =
+                    "Paths to jar files to analyze, or - to read a JAR file from standard input."
+                            + " .tar.gz and .tgz bundles are read as a stream and the JAR files"
+                            + " they contain are analyzed. Alternatively, jrt:/ or jrt:/<module>"
+                            + " for the modules of the current Java runtime, the directory of a"
+                            + " JDK or jlink image, or .jmod files, to report the classes of each"
+                            + " module.",
             paramLabel = "<path-to-jar-file>")
-    private File jarFile;
+    private List<File> jarFiles;
+
+    @CommandLine.Option(
+            names = "--sample",
+            description =
+                    "Analyze only this fraction of the class files, between 0 and 1, and report"
+                            + " estimated annotation usage with 95% confidence intervals.",
+            paramLabel = "<fraction>")
+    private Double sampleFraction;
+
+    @CommandLine.Option(
+            names = "--seed",
+            description = "Seed that determines which class files are sampled with --sample.",
+            defaultValue = "0",
+            paramLabel = "<seed>")
+    private long seed;
+
+    @CommandLine.Option(
+            names = "--aggregate",
+            description =
+                    "Report, for each annotation, how many classes and packages use it at each"
+                            + " level instead of the annotations of each class, followed by how"
+                            + " evenly the scan was balanced across worker threads.")
+    private boolean aggregate;
+
+    @CommandLine.Option(
+            names = "--checkpoint",
+            description =
+                    "With --aggregate, periodically save the ranges of entries of the JAR"
+                            + " files scanned so far, and the statistics counted from them, to this"
+                            + " file.",
+            paramLabel = "<file>")
+    private Path checkpointFile;
+
+    @CommandLine.Option(
+            names = "--resume",
+            description =
+                    "Continue the scan saved in the --checkpoint file, skipping the ranges of"
+                            + " entries it completed. Starts a new scan if the file does not exist"
+                            + " yet.")
+    private boolean resume;
+
+    @CommandLine.Option(
+            names = "--maven-index",
+            description =
+                    "Treat the positional paths as local Maven repositories, such as"
+                            + " ~/.m2/repository, and write the annotation usage of each artifact"
+                            + " to this index directory, keyed by its coordinates. Artifacts that"
+                            + " are already indexed with the checksum of their .sha1 file are"
+                            + " skipped.",
+            paramLabel = "<index-dir>")
+    private Path mavenIndexDir;
+
+    @CommandLine.Option(
+            names = "--lookup",
+            description =
+                    "Treat the positional paths as index directories written by --maven-index and"
+                            + " list the artifacts that use this annotation, optionally at a"
+                            + " level, for example @org.example.X:CLASS. Only the index files of"
+                            + " artifacts whose Bloom filter may contain the annotation are read.",
+            paramLabel = "<annotation>[:<level>]")
+    private String lookup;
+
+    @CommandLine.Option(
+            names = "--query",
+            description =
+                    "Print only the classes matching this boolean query over annotations, for"
+                            + " example '@Entity:CLASS AND NOT @Table AND @Id:FIELD'. Supports AND,"
+                            + " OR, NOT, parentheses and an optional :LEVEL after each annotation.",
+            paramLabel = "<query>")
+    private String query;
+
+    @CommandLine.Option(
+            names = "--meta-annotations",
+            description =
+                    "Also report annotations that apply to classes through meta-annotations,"
+                            + " such as @Component for classes annotated with @Service.")
+    private boolean metaAnnotations;
+
+    @CommandLine.Option(
+            names = "--inherited-annotations",
+            description =
+                    "Also report @Inherited annotations that classes inherit from their"
+                            + " superclasses.")
+    private boolean inheritedAnnotations;
+
+    @CommandLine.Option(
+            names = "--annotation-origins",
+            description =
+                    "Also report which JAR file or class directory on the analyzed JAR files and"
+                            + " the --classpath defines each annotation type, and its retention, or"
+                            + " MISSING if none does.")
+    private boolean annotationOrigins;
+
+    @CommandLine.Option(
+            names = "--off-heap",
+            description =
+                    "Store the scan results in columns outside the Java heap instead of as objects,"
+                            + " for scans with tens of millions of annotation occurrences.")
+    private boolean offHeap;
+
+    @CommandLine.Option(
+            names = "--off-heap-dir",
+            description =
+                    "Like --off-heap, but memory-map the columns from temporary files in this"
+                            + " directory so that they can be paged out.",
+            paramLabel = "<dir>")
+    private Path offHeapDir;
+
+    @CommandLine.Option(
+            names = "--shards",
+            description =
+                    "Split the JAR files into this many shards of similar size, scan each shard in"
+                            + " its own worker JVM, and merge their results into the report. Shards"
+                            + " whose worker fails are retried.",
+            paramLabel = "<count>")
+    private Integer shardCount;
+
+    @CommandLine.Option(
+            names = "--shard-timeout",
+            description =
+                    "With --shards, kill the worker of a shard that has not finished after this"
+                            + " many seconds and retry the shard. Defaults to one hour.",
+            paramLabel = "<seconds>")
+    private Long shardTimeoutSeconds;
+
+    @CommandLine.Option(
+            names = "--shard-heap",
+            description =
+                    "With --shards, the maximum heap size of each worker JVM, such as 2g. Defaults"
+                            + " to the maximum heap size of this JVM divided by the number of"
+                            + " shards.",
+            paramLabel = "<size>")
+    private String shardHeapSize;
+
+    /**
+     * The partial result file a worker JVM writes the results of its shard to, instead of printing the report.
+     */
+    @CommandLine.Option(names = "--shard-output", hidden = true, paramLabel = "<file>")
+    private Path shardOutput;
+
+    @CommandLine.Option(
+            names = "--write-index",
+            description =
+                    "Write a compact index from annotation names to the classes that use them to"
+                            + " this file, for example META-INF/clann/annotations.idx in a class"
+                            + " directory, instead of printing the report. Applications read it at"
+                            + " startup with com.clann.index.AnnotationIndex.",
+            paramLabel = "<file>")
+    private Path indexFile;
+
+    @CommandLine.Option(
+            names = "--output",
+            description =
+                    "Write the results in a format to a file instead of printing the report, where"
+                            + " the format is text, jsonl, csv, index or shapes and the file - is"
+                            + " standard output. The shapes format lists each distinct set of"
+                            + " annotations and levels once, with the classes that have it. Can be"
+                            + " repeated to write several formats from one scan.",
+            paramLabel = "<format>=<file>")
+    private List<String> outputs = new ArrayList<>();
+
+    @CommandLine.Option(
+            names = "--plugin",
+            description =
+                    "Run the analysis plugin of this name in the same pass as the annotation"
+                            + " scan, and report its facts about each class. Plugins are"
+                            + " discovered on the classpath; clann ships the classfile plugin."
+                            + " Can be repeated.",
+            paramLabel = "<name>")
+    private List<String> pluginNames = new ArrayList<>();
+
+    @CommandLine.Option(
+            names = "--classpath",
+            split = "${sys:path.separator}",
+            description =
+                    "JAR files and class directories used to resolve annotation types that are not"
+                            + " defined in the analyzed JAR file, and superclasses for"
+                            + " --inherited-annotations.",
+            paramLabel = "<path>")
+    private List<Path> classpath = new ArrayList<>();
+
+    /**
+     * The limits of the scans of this command, which carry the plugins selected with {@code --plugin}.
+     */
+    private ScanLimits scanLimits = ScanLimits.DEFAULT;
 
     /**
      * Implements this command line app conforming to the Callable interface.
@@ -35,24 +262,812 @@ public class App implements Callable<Integer> {
      */
     @NotNull
     @Override
-    @SuppressWarnings({"PMD.OnlyOneReturn", "PMD.SystemPrintln"})
     public Integer call() {
-        if (!jarFile.isFile()) {
-            App.LOGGER.error("JAR file not found: {}", jarFile);
+        return analyze();
+    }
+
+    /**
+     * Analyze the JAR files as requested by the options.
+     *
+     * @return Exit code produced by the app.
+     */
+    @SuppressWarnings({"PMD.OnlyOneReturn", "PMD.SystemPrintln"})
+    private int analyze() {
+        final AnnotationQuery annotationQuery;
+        final List<OutputTarget> outputTargets = new ArrayList<>();
+        try {
+            annotationQuery = query == null ? null : AnnotationQuery.parse(query);
+            for (final String output : outputs) {
+                outputTargets.add(OutputTarget.parse(output));
+            }
+            OutputTarget.checkStandardOutput(outputTargets);
+            if (!pluginNames.isEmpty()) {
+                scanLimits =
+                        ScanLimits.DEFAULT.withPlugins(
+                                ClannPlugins.select(
+                                        ClannPlugins.discover(App.class.getClassLoader()),
+                                        pluginNames));
+            }
+        } catch (final IllegalArgumentException e) {
+            App.LOGGER.error("{}", e.getMessage());
+            return 1;
+        }
+        if (annotationQuery != null
+                && (sampleFraction != null || aggregate || mavenIndexDir != null)) {
+            App.LOGGER.error(
+                    "--query cannot be combined with --sample, --aggregate or --maven-index");
+            return 1;
+        }
+        if (indexFile != null
+                && (annotationQuery != null
+                        || sampleFraction != null
+                        || aggregate
+                        || mavenIndexDir != null
+                        || offHeap
+                        || offHeapDir != null
+                        || shardCount != null
+                        || shardOutput != null)) {
+            App.LOGGER.error(
+                    "--write-index cannot be combined with --query, --sample, --aggregate,"
+                            + " --maven-index, --off-heap or --shards");
+            return 1;
+        }
+        if (!pluginNames.isEmpty()
+                && (annotationQuery != null
+                        || sampleFraction != null
+                        || aggregate
+                        || mavenIndexDir != null
+                        || offHeap
+                        || offHeapDir != null
+                        || shardCount != null)) {
+            App.LOGGER.error(
+                    "--plugin cannot be combined with --query, --sample, --aggregate,"
+                            + " --maven-index, --off-heap or --shards");
+            return 1;
+        }
+        if (!outputTargets.isEmpty()
+                && (annotationQuery != null
+                        || sampleFraction != null
+                        || aggregate
+                        || mavenIndexDir != null
+                        || offHeap
+                        || offHeapDir != null
+                        || shardCount != null
+                        || shardOutput != null
+                        || indexFile != null)) {
+            App.LOGGER.error(
+                    "--output cannot be combined with --query, --sample, --aggregate,"
+                            + " --maven-index, --off-heap, --shards or --write-index");
+            return 1;
+        }
+        if (shardCount == null && (shardTimeoutSeconds != null || shardHeapSize != null)) {
+            App.LOGGER.error("--shard-timeout and --shard-heap require --shards");
+            return 1;
+        }
+        if (resume && checkpointFile == null) {
+            App.LOGGER.error("--resume requires --checkpoint");
+            return 1;
+        }
+        if (checkpointFile != null
+                && (!aggregate
+                        || sampleFraction != null
+                        || mavenIndexDir != null
+                        || shardCount != null)) {
+            App.LOGGER.error(
+                    "--checkpoint requires --aggregate and cannot be combined with --sample,"
+                            + " --maven-index or --shards");
+            return 1;
+        }
+        if (mavenIndexDir != null
+                && (sampleFraction != null
+                        || aggregate
+                        || metaAnnotations
+                        || inheritedAnnotations
+                        || annotationOrigins
+                        || offHeap
+                        || offHeapDir != null
+                        || shardCount != null
+                        || resume)) {
+            App.LOGGER.error(
+                    "--maven-index cannot be combined with --sample, --aggregate,"
+                            + " --meta-annotations, --inherited-annotations, --annotation-origins,"
+                            + " --off-heap, --shards or --resume");
+            return 1;
+        }
+        if (lookup != null
+                && (annotationQuery != null
+                        || sampleFraction != null
+                        || aggregate
+                        || mavenIndexDir != null
+                        || metaAnnotations
+                        || inheritedAnnotations
+                        || annotationOrigins
+                        || offHeap
+                        || offHeapDir != null
+                        || shardCount != null
+                        || indexFile != null
+                        || !outputTargets.isEmpty()
+                        || !pluginNames.isEmpty()
+                        || checkpointFile != null)) {
+            App.LOGGER.error(
+                    "--lookup cannot be combined with --query, --sample, --aggregate,"
+                            + " --maven-index, --meta-annotations, --inherited-annotations,"
+                            + " --annotation-origins, --off-heap, --shards, --write-index,"
+                            + " --output, --plugin or --checkpoint");
+            return 1;
+        }
+        if (lookup != null) {
+            return lookupArtifacts();
+        }
+        if (mavenIndexDir != null) {
+            return indexMavenRepositories();
+        }
+        if (jarFiles.stream()
+                .anyMatch(jarFile -> ModuleScanner.isModuleSource(jarFile.getPath()))) {
+            return scanModules(annotationQuery);
+        }
+
+        int standardInputCount = 0;
+        for (final File jarFile : jarFiles) {
+            if (App.isStandardInput(jarFile)) {
+                standardInputCount++;
+            } else if (!jarFile.isFile()) {
+                App.LOGGER.error("JAR file not found: {}", jarFile);
+                return 1;
+            }
+        }
+        if (standardInputCount > 1) {
+            App.LOGGER.error("Standard input can only be analyzed once");
+            return 1;
+        }
+        final boolean streamed =
+                standardInputCount > 0 || jarFiles.stream().anyMatch(JarAnalyzer::isTarGz);
+        if (streamed && sampleFraction != null) {
+            App.LOGGER.error(
+                    "--sample needs the central directory and cannot read standard input or"
+                            + " .tar.gz bundles");
+            return 1;
+        }
+
+        if (shardCount != null) {
+            return scanShards(annotationQuery, streamed);
+        }
+        if (sampleFraction != null) {
+            return sampleJars();
+        }
+        if (aggregate) {
+            return aggregateJars();
+        }
+        if (offHeap || offHeapDir != null) {
+            return storeJars(annotationQuery);
+        }
+
+        final AnnotationOriginIndex originIndex =
+                annotationOrigins ? new AnnotationOriginIndex() : null;
+        final List<ClassAnnotationInfo> annotations = new ArrayList<>();
+        try {
+            // The classes of each JAR file are registered as it is scanned, so origins are
+            // resolved without opening any JAR file a second time
+            IntStream.range(0, jarFiles.size())
+                    .parallel()
+                    .mapToObj(i -> analyzeJar(i, originIndex))
+                    .toList()
+                    .forEach(annotations::addAll);
+            if (originIndex != null) {
+                indexClasspath(originIndex);
+            }
+        } catch (final UncheckedIOException e) {
+            App.LOGGER.error("{}", e.getMessage(), e.getCause());
+            return 2;
+        }
+
+        if (metaAnnotations || inheritedAnnotations) {
+            final List<Path> resolutionClasspath = getResolutionClasspath();
+            try (ClasspathClassBytesSource source =
+                    new ClasspathClassBytesSource(resolutionClasspath)) {
+                // Both resolvers share the cache of annotation types
+                final MetaAnnotationResolver metaAnnotationResolver =
+                        new MetaAnnotationResolver(source);
+                if (inheritedAnnotations) {
+                    new InheritedAnnotationResolver(source, metaAnnotationResolver)
+                            .resolve(annotations);
+                }
+                if (metaAnnotations) {
+                    metaAnnotationResolver.resolve(annotations);
+                }
+            } catch (final IOException e) {
+                App.LOGGER.error("Error resolving annotation types: {}", resolutionClasspath, e);
+                return 2;
+            }
+        }
+
+        if (shardOutput != null) {
+            try {
+                PartialResultFile.write(shardOutput, annotations);
+            } catch (final IOException e) {
+                App.LOGGER.error("Error writing partial result file: {}", shardOutput, e);
+                return 2;
+            }
+        } else if (!outputTargets.isEmpty()) {
+            try {
+                OutputTarget.writeAll(outputTargets, annotations);
+            } catch (final IOException e) {
+                App.LOGGER.error("Error writing output: {}", e.getMessage(), e);
+                return 2;
+            }
+        } else if (indexFile != null) {
+            try {
+                AnnotationIndexWriter.write(indexFile, annotations);
+                final AnnotationIndex index = AnnotationIndex.open(indexFile);
+                System.out.println(
+                        "\nindex: "
+                                + indexFile
+                                + "\nannotations: "
+                                + index.getAnnotationCount()
+                                + "\nclasses: "
+                                + index.getClassCount());
+            } catch (final IOException e) {
+                App.LOGGER.error("Error writing annotation index: {}", indexFile, e);
+                return 2;
+            }
+        } else if (annotationQuery == null) {
+            final String result = JarAnalyzer.getClassAnnotationUsageReport(annotations);
+            System.out.println(result);
+        } else {
+            final AnnotationBitmapIndex index = AnnotationBitmapIndex.build(annotations);
+            final List<String> classNames =
+                    index.getClassNames(annotationQuery.evaluate(index));
+            final StringBuilder stringBuilder = new StringBuilder();
+            stringBuilder.append("\nquery: ").append(annotationQuery);
+            stringBuilder.append("\nmatches: ").append(classNames.size());
+            classNames.forEach(className -> stringBuilder.append("\n- class: ").append(className));
+            System.out.println(stringBuilder);
+        }
+        if (originIndex != null) {
+            System.out.println(
+                    AnnotationOriginIndex.getReport(originIndex.resolveAll(annotations)));
+        }
+
+        return 0;
+    }
+
+    /**
+     * Analyze one of the JAR files and register its classes in the given origin index.
+     *
+     * @param jarIndex    The position of the JAR file among the analyzed JAR files.
+     * @param originIndex The index of annotation origins, or {@code null} if origins are not reported.
+     * @return Information about the annotations for each class in the JAR file.
+     * @throws UncheckedIOException If there is an I/O or ZIP file error when reading the JAR file.
+     */
+    @NotNull
+    private List<ClassAnnotationInfo> analyzeJar(
+            final int jarIndex, final AnnotationOriginIndex originIndex) {
+        final File jarFile = jarFiles.get(jarIndex);
+        try {
+            final List<ClassAnnotationInfo> classAnnotationInfos;
+            if (App.isStandardInput(jarFile)) {
+                classAnnotationInfos = new ArrayList<>();
+                JarAnalyzer.scanJar(System.in, scanLimits, classAnnotationInfos::add);
+            } else if (JarAnalyzer.isTarGz(jarFile)) {
+                classAnnotationInfos = new ArrayList<>();
+                JarAnalyzer.scanTarGz(jarFile, scanLimits, classAnnotationInfos::add);
+            } else {
+                classAnnotationInfos =
+                        JarAnalyzer.scanJar(jarFile, scanLimits).getClassAnnotationInfos();
+            }
+            if (originIndex != null) {
+                originIndex.registerAll(jarFile.toPath(), jarIndex, classAnnotationInfos);
+            }
+            return classAnnotationInfos;
+        } catch (final IOException e) {
+            throw new UncheckedIOException("Error analyzing JAR file: " + jarFile, e);
+        }
+    }
+
+    /**
+     * Scan the {@code --classpath} entries in parallel and register their classes in the given origin index,
+     * after the analyzed JAR files in lookup order.
+     *
+     * @param originIndex The index of annotation origins.
+     * @throws UncheckedIOException If a classpath entry cannot be read.
+     */
+    private void indexClasspath(@NotNull final AnnotationOriginIndex originIndex) {
+        IntStream.range(0, classpath.size())
+                .parallel()
+                .forEach(
+                        i -> {
+                            final Path entry = classpath.get(i);
+                            try {
+                                originIndex.index(entry, jarFiles.size() + i, scanLimits);
+                            } catch (final IOException e) {
+                                throw new UncheckedIOException(
+                                        "Error indexing classpath entry: " + entry, e);
+                            }
+                        });
+    }
+
+    /**
+     * Scan all JAR files in parallel and print the aggregated statistics of each annotation.
+     * <p>
+     * Classes are counted as they are parsed and never retained. Meta-annotations are therefore resolved for each
+     * class on the fly, while inherited annotations, which need the whole class hierarchy, are not supported.
+     *
+     * @return Exit code produced by the app.
+     */
+    @SuppressWarnings({"PMD.OnlyOneReturn", "PMD.SystemPrintln"})
+    private int aggregateJars() {
+        if (inheritedAnnotations || annotationOrigins || offHeap || offHeapDir != null) {
+            App.LOGGER.error(
+                    "--inherited-annotations, --annotation-origins and --off-heap cannot be"
+                            + " combined with --aggregate");
+            return 1;
+        }
+
+        final AnnotationStatistics statistics = new AnnotationStatistics();
+        final JarScanScheduler.ScheduledScan scheduledScan;
+        final List<Path> resolutionClasspath = getResolutionClasspath();
+        try (ClasspathClassBytesSource source =
+                new ClasspathClassBytesSource(metaAnnotations ? resolutionClasspath : List.of())) {
+            final MetaAnnotationResolver metaAnnotationResolver =
+                    new MetaAnnotationResolver(source);
+            if (checkpointFile != null) {
+                return aggregateJarsWithCheckpoint(
+                        metaAnnotations
+                                ? metaAnnotationResolver::addMetaAnnotations
+                                : classAnnotationInfo -> {},
+                        resolutionClasspath);
+            }
+            final Consumer<ClassAnnotationInfo> consumer =
+                    metaAnnotations
+                            ? classAnnotationInfo -> {
+                                metaAnnotationResolver.addMetaAnnotations(classAnnotationInfo);
+                                statistics.accept(classAnnotationInfo);
+                            }
+                            : statistics;
+            scheduledScan = scheduleJars(consumer);
+        } catch (final UncheckedIOException e) {
+            App.LOGGER.error("{}", e.getMessage(), e.getCause());
+            return 2;
+        } catch (final IOException e) {
+            App.LOGGER.error("Error resolving annotation types: {}", resolutionClasspath, e);
+            return 2;
+        }
+
+        System.out.println(statistics.getReport() + scheduledScan.getBalanceReport());
+        return 0;
+    }
+
+    /**
+     * Scan the JAR files on a {@link JarScanScheduler} while checkpointing the ranges of entries completed and the
+     * statistics counted from them, and print the aggregated statistics.
+     * <p>
+     * With {@code --resume}, the ranges that the checkpoint lists as completed are not scanned again. Standard input,
+     * which cannot be read again, is not supported.
+     *
+     * @param processor           Processes each class before it is counted.
+     * @param resolutionClasspath The classpath meta-annotations are resolved against, which must not change when
+     *                            the scan is resumed.
+     * @return Exit code produced by the app.
+     */
+    @SuppressWarnings({"PMD.OnlyOneReturn", "PMD.SystemPrintln"})
+    private int aggregateJarsWithCheckpoint(
+            @NotNull final Consumer<ClassAnnotationInfo> processor,
+            @NotNull final List<Path> resolutionClasspath) {
+        if (jarFiles.stream().anyMatch(App::isStandardInput)) {
+            App.LOGGER.error("--checkpoint cannot read standard input, which cannot be resumed");
+            return 1;
+        }
+        if (jarFiles.stream().anyMatch(JarAnalyzer::isTarGz)) {
+            App.LOGGER.error(
+                    "--checkpoint cannot read .tar.gz bundles, which have no ranges of entries to"
+                            + " resume from");
+            return 1;
+        }
+        final String scanOptions =
+                "splitBytes="
+                        + JarScanScheduler.DEFAULT_SPLIT_BYTES
+                        + " metaAnnotations="
+                        + metaAnnotations
+                        + (metaAnnotations ? " classpath=" + resolutionClasspath : "");
+        final ScanCheckpoint checkpoint;
+        try {
+            checkpoint =
+                    resume
+                            ? ScanCheckpoint.resume(
+                                    checkpointFile,
+                                    jarFiles,
+                                    scanOptions,
+                                    ScanCheckpoint.DEFAULT_INTERVAL,
+                                    processor)
+                            : ScanCheckpoint.start(
+                                    checkpointFile,
+                                    scanOptions,
+                                    ScanCheckpoint.DEFAULT_INTERVAL,
+                                    processor);
+        } catch (final IOException e) {
+            App.LOGGER.error("Error reading checkpoint: {}", e.getMessage());
+            return 1;
+        }
+
+        final JarScanScheduler.ScheduledScan scheduledScan;
+        // The scheduler is closed first, so no range completes after the last checkpoint is written
+        try (checkpoint;
+                JarScanScheduler scheduler =
+                        new JarScanScheduler(
+                                Runtime.getRuntime().availableProcessors(),
+                                ScanLimits.DEFAULT,
+                                JarScanScheduler.DEFAULT_SPLIT_BYTES)) {
+            scheduledScan = scheduler.scan(jarFiles, checkpoint);
+        } catch (final IOException e) {
+            App.LOGGER.error("{}", e.getMessage(), e.getCause());
+            return 2;
+        }
+
+        System.out.println(
+                checkpoint.getStatistics().getReport() + scheduledScan.getBalanceReport());
+        return 0;
+    }
+
+    /**
+     * Scan the JAR files on a {@link JarScanScheduler}, which balances JAR files of very different sizes across
+     * the available processors. Standard input and {@code .tar.gz} bundles have no central directory to schedule
+     * by and are scanned first, as streams.
+     *
+     * @param consumer Receives the annotation information of each class file parsed, concurrently.
+     * @return the status of the scan of each JAR file and the load of each worker.
+     * @throws UncheckedIOException If there is an I/O or ZIP file error when reading a JAR file.
+     */
+    @NotNull
+    private JarScanScheduler.ScheduledScan scheduleJars(
+            @NotNull final Consumer<ClassAnnotationInfo> consumer) {
+        final List<File> files = new ArrayList<>();
+        for (final File jarFile : jarFiles) {
+            if (App.isStandardInput(jarFile) || JarAnalyzer.isTarGz(jarFile)) {
+                try {
+                    App.scanJar(jarFile, consumer);
+                } catch (final IOException e) {
+                    throw new UncheckedIOException("Error analyzing JAR file: " + jarFile, e);
+                }
+            } else {
+                files.add(jarFile);
+            }
+        }
+        try (JarScanScheduler scheduler =
+                new JarScanScheduler(
+                        Runtime.getRuntime().availableProcessors(),
+                        ScanLimits.DEFAULT,
+                        JarScanScheduler.DEFAULT_SPLIT_BYTES)) {
+            return scheduler.scan(files, consumer);
+        } catch (final IOException e) {
+            throw new UncheckedIOException(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Scan all JAR files into an off-heap result store and print the report from the store.
+     * <p>
+     * JAR files are scanned in order so that the report lists classes in the same order as without a store.
+     * Meta-annotations are resolved for each class before it is stored, while options that need all classes as
+     * objects after the scan are not supported.
+     *
+     * @param annotationQuery The query given with {@code --query}, which is not supported.
+     * @return Exit code produced by the app.
+     */
+    @SuppressWarnings({"PMD.OnlyOneReturn", "PMD.SystemPrintln"})
+    private int storeJars(final AnnotationQuery annotationQuery) {
+        if (inheritedAnnotations || annotationOrigins || annotationQuery != null) {
+            App.LOGGER.error(
+                    "--inherited-annotations, --annotation-origins and --query cannot be combined"
+                            + " with --off-heap");
+            return 1;
+        }
+
+        final List<Path> resolutionClasspath = getResolutionClasspath();
+        try (ColumnarResultStore store =
+                        offHeapDir == null
+                                ? ColumnarResultStore.allocateDirect()
+                                : ColumnarResultStore.map(offHeapDir);
+                ClasspathClassBytesSource source =
+                        new ClasspathClassBytesSource(
+                                metaAnnotations ? resolutionClasspath : List.of())) {
+            final MetaAnnotationResolver metaAnnotationResolver =
+                    new MetaAnnotationResolver(source);
+            final Consumer<ClassAnnotationInfo> consumer =
+                    metaAnnotations
+                            ? classAnnotationInfo -> {
+                                metaAnnotationResolver.addMetaAnnotations(classAnnotationInfo);
+                                store.accept(classAnnotationInfo);
+                            }
+                            : store;
+            for (final File jarFile : jarFiles) {
+                try {
+                    App.scanJar(jarFile, consumer);
+                } catch (final IOException e) {
+                    App.LOGGER.error("Error analyzing JAR file: {}", jarFile, e);
+                    return 2;
+                }
+            }
+            System.out.println(JarAnalyzer.getClassAnnotationUsageReport(store));
+        } catch (final IOException | UncheckedIOException e) {
+            App.LOGGER.error("Error storing scan results: {}", e.getMessage(), e);
+            return 2;
+        }
+        return 0;
+    }
+
+    /**
+     * Scan the modules of runtime images and JMOD files, in parallel, and print the report grouped by module.
+     *
+     * @param annotationQuery The query given with {@code --query}, which is not supported.
+     * @return Exit code produced by the app.
+     */
+    @SuppressWarnings({"PMD.OnlyOneReturn", "PMD.SystemPrintln"})
+    private int scanModules(final AnnotationQuery annotationQuery) {
+        if (!jarFiles.stream()
+                .allMatch(jarFile -> ModuleScanner.isModuleSource(jarFile.getPath()))) {
+            App.LOGGER.error("Modules and JAR files cannot be analyzed together");
+            return 1;
+        }
+        if (sampleFraction != null
+                || aggregate
+                || annotationQuery != null
+                || metaAnnotations
+                || inheritedAnnotations
+                || annotationOrigins
+                || offHeap
+                || offHeapDir != null
+                || shardCount != null
+                || indexFile != null
+                || !outputs.isEmpty()) {
+            App.LOGGER.error(
+                    "Modules can only be analyzed without --sample, --aggregate, --query,"
+                            + " --meta-annotations, --inherited-annotations, --annotation-origins,"
+                            + " --off-heap, --shards, --write-index and --output");
             return 1;
         }
 
-        final List<ClassAnnotationInfo> annotations;
+        final List<String> sources = jarFiles.stream().map(File::getPath).toList();
         try {
-            annotations = JarAnalyzer.analyzeJar(jarFile);
+            System.out.println(
+                    ModuleScanner.getReport(ModuleScanner.scan(sources, scanLimits)));
         } catch (final IOException e) {
-            App.LOGGER.error("Error analyzing JAR file: {}", jarFile, e);
+            App.LOGGER.error("Error analyzing modules: {}", e.getMessage(), e);
             return 2;
         }
+        return 0;
+    }
 
-        final String result = JarAnalyzer.getClassAnnotationUsageReport(annotations);
-        System.out.println(result);
+    /**
+     * Print the artifacts of the index directories written by {@code --maven-index} that use the annotation given
+     * with {@code --lookup}, testing the Bloom filter of each artifact before reading its index file.
+     *
+     * @return Exit code produced by the app.
+     */
+    @SuppressWarnings({"PMD.OnlyOneReturn", "PMD.SystemPrintln"})
+    private int lookupArtifacts() {
+        final int separator = lookup.lastIndexOf(':');
+        final String annotationName = separator < 0 ? lookup : lookup.substring(0, separator);
+        AnnotationLevel level = null;
+        if (separator >= 0) {
+            try {
+                level =
+                        AnnotationLevel.valueOf(
+                                lookup.substring(separator + 1).toUpperCase(Locale.ROOT));
+            } catch (final IllegalArgumentException e) {
+                App.LOGGER.error("Unknown annotation level in --lookup: {}", lookup);
+                return 1;
+            }
+        }
+
+        for (final File indexDir : jarFiles) {
+            if (!indexDir.isDirectory()) {
+                App.LOGGER.error("Index directory not found: {}", indexDir);
+                return 1;
+            }
+            try {
+                System.out.println(
+                        MavenRepositoryIndexer.lookup(
+                                        indexDir.toPath(),
+                                        annotationName.startsWith("@")
+                                                ? annotationName
+                                                : "@" + annotationName,
+                                        level)
+                                .format());
+            } catch (final IOException e) {
+                App.LOGGER.error("Error reading index directory: {}", indexDir, e);
+                return 2;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Scan the JAR files in worker JVMs, one per shard, and print the merged report.
+     * <p>
+     * Workers resolve meta-annotations and inherited annotations against the JAR files of their own shard and the
+     * {@code --classpath}, so that each worker opens only its share of the corpus. Annotation types and
+     * superclasses defined in other shards must therefore be on the {@code --classpath} for the report to be the
+     * same as when scanning in this JVM. Options that need all classes in one JVM, and streams, which cannot be
+     * split into shards, are not supported.
+     *
+     * @param annotationQuery The query given with {@code --query}, which is not supported.
+     * @param streamed        Whether a JAR file is read from standard input or a {@code .tar.gz} bundle, which is
+     *                        not supported.
+     * @return Exit code produced by the app.
+     */
+    @SuppressWarnings({"PMD.OnlyOneReturn", "PMD.SystemPrintln"})
+    private int scanShards(final AnnotationQuery annotationQuery, final boolean streamed) {
+        if (sampleFraction != null
+                || aggregate
+                || annotationQuery != null
+                || annotationOrigins
+                || offHeap
+                || offHeapDir != null
+                || shardOutput != null
+                || streamed) {
+            App.LOGGER.error(
+                    "--shards cannot be combined with --sample, --aggregate, --query,"
+                            + " --annotation-origins, --off-heap, standard input or .tar.gz"
+                            + " bundles");
+            return 1;
+        }
+
+        final List<Path> jarPaths = jarFiles.stream().map(File::toPath).toList();
+        final List<String> workerOptions = new ArrayList<>();
+        if (metaAnnotations) {
+            workerOptions.add("--meta-annotations");
+        }
+        if (inheritedAnnotations) {
+            workerOptions.add("--inherited-annotations");
+        }
+
+        final ShardCoordinator coordinator;
+        try {
+            coordinator =
+                    new ShardCoordinator(
+                            shardCount,
+                            ShardCoordinator.DEFAULT_MAX_ATTEMPTS,
+                            shardTimeoutSeconds == null
+                                    ? ShardCoordinator.DEFAULT_SHARD_TIMEOUT
+                                    : Duration.ofSeconds(shardTimeoutSeconds),
+                            shardHeapSize == null
+                                    ? ShardCoordinator.getDefaultWorkerHeapSize(shardCount)
+                                    : shardHeapSize,
+                            workerOptions,
+                            metaAnnotations || inheritedAnnotations ? classpath : null);
+        } catch (final IllegalArgumentException e) {
+            App.LOGGER.error("{}", e.getMessage());
+            return 1;
+        }
+        // Partial result files are streamed to standard output instead of being merged in memory
+        final BufferedWriter report =
+                new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8));
+        try {
+            coordinator.scan(jarPaths, report);
+            report.newLine();
+            report.flush();
+        } catch (final IOException e) {
+            App.LOGGER.error("Error scanning shards: {}", e.getMessage(), e);
+            return 2;
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            App.LOGGER.error("Interrupted while scanning shards", e);
+            return 2;
+        }
+        return 0;
+    }
+
+    /**
+     * Index the artifacts of each Maven repository given as a positional path.
+     *
+     * @return Exit code produced by the app.
+     */
+    @SuppressWarnings({"PMD.OnlyOneReturn", "PMD.SystemPrintln"})
+    private int indexMavenRepositories() {
+        for (final File repositoryRoot : jarFiles) {
+            if (!repositoryRoot.isDirectory()) {
+                App.LOGGER.error("Maven repository not found: {}", repositoryRoot);
+                return 1;
+            }
+            try {
+                final MavenRepositoryIndexer.IndexSummary summary =
+                        new MavenRepositoryIndexer(
+                                        repositoryRoot.toPath(), mavenIndexDir, ScanLimits.DEFAULT)
+                                .index();
+                System.out.println(summary.format());
+            } catch (final IOException e) {
+                App.LOGGER.error("Error indexing Maven repository: {}", repositoryRoot, e);
+                return 2;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Returns the paths used to resolve annotation types and superclasses: the analyzed JAR files followed by the
+     * {@code --classpath}.
+     *
+     * @return the resolution classpath.
+     */
+    @NotNull
+    private List<Path> getResolutionClasspath() {
+        final List<Path> resolutionClasspath = new ArrayList<>();
+        jarFiles.stream()
+                .filter(jarFile -> !App.isStandardInput(jarFile) && !JarAnalyzer.isTarGz(jarFile))
+                .forEach(jarFile -> resolutionClasspath.add(jarFile.toPath()));
+        resolutionClasspath.addAll(classpath);
+        return resolutionClasspath;
+    }
+
+    /**
+     * Scan a JAR file, standard input for {@code -}, or the JAR files of a {@code .tar.gz} bundle, passing each
+     * parsed class to the given consumer.
+     *
+     * @param jarFile  The JAR file to scan.
+     * @param consumer Receives the annotation information of each class file parsed.
+     * @throws IOException If there is an I/O or ZIP file error when reading the JAR file.
+     */
+    private static void scanJar(
+            @NotNull final File jarFile,
+            @NotNull final Consumer<? super ClassAnnotationInfo> consumer)
+            throws IOException {
+        if (App.isStandardInput(jarFile)) {
+            JarAnalyzer.scanJar(System.in, ScanLimits.DEFAULT, consumer);
+        } else if (JarAnalyzer.isTarGz(jarFile)) {
+            JarAnalyzer.scanTarGz(jarFile, ScanLimits.DEFAULT, consumer);
+        } else {
+            JarAnalyzer.scanJar(jarFile, ScanLimits.DEFAULT, consumer);
+        }
+    }
+
+    private static boolean isStandardInput(@NotNull final File jarFile) {
+        return App.STANDARD_INPUT.equals(jarFile.getPath());
+    }
+
+    /**
+     * Sample the class files of all JAR files in parallel and print the estimated annotation usage.
+     *
+     * @return Exit code produced by the app.
+     */
+    @SuppressWarnings({"PMD.OnlyOneReturn", "PMD.SystemPrintln"})
+    private int sampleJars() {
+        if (aggregate
+                || metaAnnotations
+                || inheritedAnnotations
+                || annotationOrigins
+                || offHeap
+                || offHeapDir != null) {
+            App.LOGGER.error(
+                    "--sample cannot be combined with --aggregate, --meta-annotations,"
+                            + " --inherited-annotations, --annotation-origins or --off-heap");
+            return 1;
+        }
+
+        final AnnotationSampler sampler;
+        try {
+            sampler = new AnnotationSampler(sampleFraction, seed, ScanLimits.DEFAULT);
+        } catch (final IllegalArgumentException e) {
+            App.LOGGER.error("Invalid sampling fraction: {}", e.getMessage());
+            return 1;
+        }
+
+        try {
+            jarFiles.parallelStream()
+                    .forEach(
+                            jarFile -> {
+                                try {
+                                    sampler.sampleJar(jarFile.toPath());
+                                } catch (final IOException e) {
+                                    throw new UncheckedIOException(
+                                            "Error sampling JAR file: " + jarFile, e);
+                                }
+                            });
+        } catch (final UncheckedIOException e) {
+            App.LOGGER.error("{}", e.getMessage(), e.getCause());
+            return 2;
+        }
 
+        System.out.println(sampler.toReport().format());
         return 0;
     }
 
@@ -0,0 +1,293 @@
+package com.clann;
+
+import com.clann.visitor.ClassAnnotationInfo;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.jar.JarEntry;
+import java.util.jar.JarInputStream;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * An analyzer that scans JAR files asynchronously on a pool of worker threads and can be shared by many
+ * concurrent callers, for example the requests of a service.
+ * <p>
+ * Each scan returns a {@link CompletableFuture} that can be cancelled at any time and that fails with a
+ * {@link TimeoutException} when its deadline passes, even if the scan is still waiting for a worker thread. The scan
+ * itself notices cancellation and deadlines between JAR entries, and each entry is bounded by the
+ * {@link ScanLimits} of the analyzer.
+ * <p>
+ * Scans do not occupy a worker thread until they complete. A scan processes a slice of entries and is then
+ * resubmitted to the back of the queue of the worker pool, so concurrent scans share the workers in a round-robin
+ * fashion and a large JAR file cannot starve the scans queued behind it. Each worker thread keeps its own
+ * {@link ClassBytesBuffer}, which is therefore reused across scans instead of being allocated per request.
+ * <p>
+ * This class is thread-safe. Close it to shut down the worker pool.
+ */
+public final class ClannAnalyzer implements AutoCloseable {
+    private static final Logger LOGGER =
+            LoggerFactory.getLogger(ClannAnalyzer.class.getSimpleName());
+
+    /**
+     * The number of JAR entries processed before a scan yields its worker thread to other scans.
+     */
+    static final int ENTRIES_PER_SLICE = 64;
+
+    private static final AtomicInteger POOL_COUNT = new AtomicInteger();
+
+    @NotNull private final ExecutorService executor;
+    @NotNull private final ScanLimits limits;
+    private final long progressIntervalNanos;
+
+    /**
+     * Creates an analyzer with its own pool of daemon worker threads.
+     *
+     * @param parallelism      The number of worker threads.
+     * @param limits           The limits to enforce during each scan.
+     * @param progressInterval The minimum time between two progress reports of a scan.
+     * @throws IllegalArgumentException If the parallelism is not positive or the progress interval is negative.
+     */
+    public ClannAnalyzer(
+            final int parallelism,
+            @NotNull final ScanLimits limits,
+            @NotNull final Duration progressInterval) {
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException("parallelism must be positive: " + parallelism);
+        }
+        if (progressInterval.isNegative()) {
+            throw new IllegalArgumentException(
+                    "progressInterval must not be negative: " + progressInterval);
+        }
+        this.executor =
+                Executors.newFixedThreadPool(parallelism, ClannAnalyzer.newThreadFactory());
+        this.limits = limits;
+        this.progressIntervalNanos = progressInterval.toNanos();
+    }
+
+    @NotNull
+    private static ThreadFactory newThreadFactory() {
+        final int poolNumber = ClannAnalyzer.POOL_COUNT.incrementAndGet();
+        final AtomicInteger threadCount = new AtomicInteger();
+        return runnable -> {
+            final Thread thread =
+                    new Thread(
+                            runnable,
+                            "clann-analyzer-" + poolNumber + "-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * Scan a Java JAR file asynchronously. See {@link #analyze(File, Duration, Consumer)}.
+     *
+     * @param jarFile The JAR file to parse and analyze. The file is assumed to exist.
+     * @return A future of the annotation information collected and the status of the scan.
+     */
+    @NotNull
+    public CompletableFuture<ScanResult> analyze(@NotNull final File jarFile) {
+        return analyze(jarFile, null, null);
+    }
+
+    /**
+     * Scan a Java JAR file asynchronously.
+     *
+     * @param jarFile          The JAR file to parse and analyze. The file is assumed to exist.
+     * @param timeout          The maximum time the scan may take from now, or {@code null} for no deadline.
+     * @param progressListener Receives progress reports on a worker thread, at most once per progress interval
+     *                         and once more when the scan completes, or {@code null}. If it throws, the scan
+     *                         fails with the exception.
+     * @return A future of the annotation information collected and the status of the scan. It fails with an
+     *         {@link IOException} if the JAR file cannot be read and with a {@link TimeoutException} if the
+     *         deadline passes. Cancelling it stops the scan and closes the JAR file.
+     */
+    @NotNull
+    public CompletableFuture<ScanResult> analyze(
+            @NotNull final File jarFile,
+            @Nullable final Duration timeout,
+            @Nullable final Consumer<? super ScanProgress> progressListener) {
+        return submit(() -> Files.newInputStream(jarFile.toPath()), timeout, progressListener);
+    }
+
+    /**
+     * Scan the bytes of a Java JAR file asynchronously. See {@link #analyze(File, Duration, Consumer)}.
+     *
+     * @param jarBytes         The JAR file bytes to parse and analyze.
+     * @param timeout          The maximum time the scan may take from now, or {@code null} for no deadline.
+     * @param progressListener Receives progress reports on a worker thread, or {@code null}.
+     * @return A future of the annotation information collected and the status of the scan.
+     */
+    @NotNull
+    public CompletableFuture<ScanResult> analyze(
+            @NotNull final byte[] jarBytes,
+            @Nullable final Duration timeout,
+            @Nullable final Consumer<? super ScanProgress> progressListener) {
+        return submit(() -> new ByteArrayInputStream(jarBytes), timeout, progressListener);
+    }
+
+    @NotNull
+    private CompletableFuture<ScanResult> submit(
+            @NotNull final InputStreamOpener opener,
+            @Nullable final Duration timeout,
+            @Nullable final Consumer<? super ScanProgress> progressListener) {
+        final ScanJob job = new ScanJob(opener, timeout, progressListener);
+        if (timeout != null) {
+            // Fails the future on time while the scan is queued; the scan stops once it sees the failure
+            job.future.orTimeout(timeout.toNanos(), TimeUnit.NANOSECONDS);
+        }
+        job.schedule();
+        return job.future;
+    }
+
+    /**
+     * Shut down the worker pool. Scans waiting for a worker fail with a {@link CancellationException}, and scans
+     * that are running fail with a {@link RejectedExecutionException} once their current slice is done.
+     */
+    @Override
+    public void close() {
+        for (final Runnable queued : executor.shutdownNow()) {
+            if (queued instanceof ScanJob job) {
+                job.finish(null, new CancellationException("Analyzer closed"));
+            }
+        }
+    }
+
+    /**
+     * Opens the input stream of a JAR file on a worker thread.
+     */
+    @FunctionalInterface
+    private interface InputStreamOpener {
+        @NotNull
+        InputStream open() throws IOException;
+    }
+
+    /**
+     * The state of one scan. Slices of the scan run one after the other, possibly on different worker threads,
+     * and each slice is submitted only after the previous one has finished, so the state needs no locking.
+     */
+    private final class ScanJob implements Runnable {
+        @NotNull private final CompletableFuture<ScanResult> future = new CompletableFuture<>();
+        @NotNull private final List<ClassAnnotationInfo> classAnnotationInfos = new ArrayList<>();
+        @NotNull private final ScanSession session =
+                new ScanSession(ClannAnalyzer.this.limits, classAnnotationInfos::add);
+        @NotNull private final InputStreamOpener opener;
+        private final boolean hasDeadline;
+        private final long deadlineNanos;
+        @Nullable private final Consumer<? super ScanProgress> progressListener;
+        @Nullable private JarInputStream jarIn;
+        @Nullable private JarEntry entry;
+        private long lastProgressNanos = System.nanoTime();
+
+        ScanJob(
+                @NotNull final InputStreamOpener opener,
+                @Nullable final Duration timeout,
+                @Nullable final Consumer<? super ScanProgress> progressListener) {
+            this.opener = opener;
+            this.hasDeadline = timeout != null;
+            this.deadlineNanos = hasDeadline ? System.nanoTime() + timeout.toNanos() : 0;
+            this.progressListener = progressListener;
+        }
+
+        void schedule() {
+            try {
+                executor.execute(this);
+            } catch (final RejectedExecutionException e) {
+                finish(null, e);
+            }
+        }
+
+        @Override
+        @SuppressWarnings({"PMD.OnlyOneReturn", "PMD.AvoidCatchingGenericException"})
+        public void run() {
+            if (jarIn == null && future.isDone()) {
+                // Cancelled or timed out before the JAR file was opened
+                return;
+            }
+            try {
+                if (jarIn == null) {
+                    // May throw IOException
+                    jarIn = new JarInputStream(opener.open());
+                    entry = jarIn.getNextJarEntry();
+                }
+
+                for (int i = 0; i < ClannAnalyzer.ENTRIES_PER_SLICE; i++) {
+                    if (future.isDone()) {
+                        // Cancelled by the caller or timed out
+                        finish(null, null);
+                        return;
+                    }
+                    if (hasDeadline && System.nanoTime() - deadlineNanos >= 0) {
+                        finish(
+                                null,
+                                new TimeoutException(
+                                        "Scan deadline passed after "
+                                                + session.getEntryCount()
+                                                + " entries"));
+                        return;
+                    }
+                    if (entry == null
+                            || !session.processEntry(entry.getName(), jarIn, entry.getSize())) {
+                        final ScanResult result = session.toResult(classAnnotationInfos);
+                        JarAnalyzer.logScanResult(result);
+                        reportProgress(true);
+                        finish(result, null);
+                        return;
+                    }
+                    // May throw IOException
+                    jarIn.closeEntry();
+                    entry = jarIn.getNextJarEntry();
+                    reportProgress(false);
+                }
+            } catch (final IOException | RuntimeException e) {
+                finish(null, e);
+                return;
+            }
+
+            // Yield to other scans queued on the worker pool
+            schedule();
+        }
+
+        private void reportProgress(final boolean done) {
+            final long now = System.nanoTime();
+            if (progressListener != null
+                    && (done || now - lastProgressNanos >= progressIntervalNanos)) {
+                lastProgressNanos = now;
+                progressListener.accept(
+                        new ScanProgress(session.getEntryCount(), session.getBytesRead(), done));
+            }
+        }
+
+        void finish(@Nullable final ScanResult result, @Nullable final Throwable failure) {
+            if (jarIn != null) {
+                try {
+                    jarIn.close();
+                } catch (final IOException e) {
+                    ClannAnalyzer.LOGGER.debug("Failed to close jar file", e);
+                }
+            }
+            if (result != null) {
+                future.complete(result);
+            } else if (failure != null) {
+                future.completeExceptionally(failure);
+            }
+        }
+    }
+}
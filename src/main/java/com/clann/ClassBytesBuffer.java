@@ -0,0 +1,126 @@
+package com.clann;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Reusable, growable buffer that holds the bytes of one class file at a time.
+ * <p>
+ * Reading each JAR entry with {@link InputStream#readAllBytes()} allocates a fresh array (and intermediate
+ * chunks) per class file. Instead, entries are read into a buffer that is kept for the lifetime of the reading
+ * thread and only grows when an entry larger than any previously seen entry is encountered. Consumers get an
+ * offset/length view of the buffer through {@link #array()} and {@link #length()} instead of an exact-sized copy.
+ * <p>
+ * Instances are not thread-safe. Use {@link #forCurrentThread()} to obtain the buffer owned by the calling thread.
+ */
+public final class ClassBytesBuffer {
+    /**
+     * Initial capacity that fits the majority of class files without growing.
+     */
+    static final int INITIAL_CAPACITY = 16 * 1024;
+
+    private static final ThreadLocal<ClassBytesBuffer> PER_THREAD =
+            ThreadLocal.withInitial(ClassBytesBuffer::new);
+
+    private byte[] array = new byte[ClassBytesBuffer.INITIAL_CAPACITY];
+    private int length;
+
+    /**
+     * Returns the buffer owned by the calling thread, creating it on first use.
+     *
+     * @return the buffer owned by the calling thread.
+     */
+    @NotNull
+    public static ClassBytesBuffer forCurrentThread() {
+        return ClassBytesBuffer.PER_THREAD.get();
+    }
+
+    /**
+     * Replaces the contents of this buffer with the remaining bytes of the given input stream.
+     * <p>
+     * The size hint, typically the uncompressed size recorded for a JAR entry, is used to grow the buffer once
+     * up front. A negative size hint means the size is unknown, in which case the buffer grows geometrically.
+     *
+     * @param inputStream The input stream to read until end of stream. The stream is not closed.
+     * @param sizeHint    The expected number of bytes or a negative value if unknown.
+     * @return the number of bytes read, which is also the new {@link #length()}.
+     * @throws IOException If reading from the input stream fails.
+     */
+    public int readFully(@NotNull final InputStream inputStream, final long sizeHint)
+            throws IOException {
+        return readFully(inputStream, sizeHint, Integer.MAX_VALUE - 8);
+    }
+
+    /**
+     * Replaces the contents of this buffer with the remaining bytes of the given input stream,
+     * reading no more than the given maximum number of bytes.
+     * <p>
+     * This bounds the memory a single oversized or malicious entry can make the buffer retain.
+     *
+     * @param inputStream The input stream to read until end of stream. The stream is not closed.
+     * @param sizeHint    The expected number of bytes or a negative value if unknown.
+     * @param maxLength   The maximum number of bytes to accept from the input stream.
+     * @return the number of bytes read, which is also the new {@link #length()}, or {@code -1} if the input
+     *         stream holds more than {@code maxLength} bytes. In that case the stream is left partially read.
+     * @throws IOException If reading from the input stream fails.
+     */
+    @SuppressWarnings("PMD.OnlyOneReturn")
+    public int readFully(
+            @NotNull final InputStream inputStream, final long sizeHint, final int maxLength)
+            throws IOException {
+        length = 0;
+        if (sizeHint > maxLength) {
+            return -1;
+        }
+        // One spare byte lets us observe the end of stream without growing when the hint is exact
+        if (sizeHint >= 0) {
+            ensureCapacity((int) sizeHint + 1);
+        }
+
+        while (true) {
+            if (length == array.length) {
+                if (length > maxLength) {
+                    length = 0;
+                    return -1;
+                }
+                ensureCapacity((int) Math.min(array.length * 2L, maxLength + 1L));
+            }
+            final int read = inputStream.read(array, length, array.length - length);
+            if (read < 0) {
+                if (length > maxLength) {
+                    length = 0;
+                    return -1;
+                }
+                return length;
+            }
+            length += read;
+        }
+    }
+
+    /**
+     * Returns the backing array of this buffer. Only the first {@link #length()} bytes are valid.
+     *
+     * @return the backing array of this buffer.
+     */
+    @SuppressWarnings("PMD.MethodReturnsInternalArray")
+    public byte[] array() {
+        return array;
+    }
+
+    /**
+     * Returns the number of valid bytes in the backing array.
+     *
+     * @return the number of valid bytes in the backing array.
+     */
+    public int length() {
+        return length;
+    }
+
+    private void ensureCapacity(final int capacity) {
+        if (capacity > array.length) {
+            array = Arrays.copyOf(array, capacity);
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.clann;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * The failure budget of the scan of one JAR file, which the {@link ScanSession}s of the ranges of its entries share
+ * when they are scanned concurrently.
+ * <p>
+ * Every session counts its class files and failures into the budget, so {@link ScanLimits#maxFailures()} and
+ * {@link ScanLimits#maxFailureRatio()} apply to the JAR file as a whole however it is split, and once the budget is
+ * exhausted every session of the JAR file stops. This class is thread-safe.
+ */
+final class FailureBudget {
+    @NotNull private final ScanLimits limits;
+    @NotNull private final AtomicInteger classFileCount = new AtomicInteger();
+    @NotNull private final AtomicInteger failureCount = new AtomicInteger();
+    private volatile boolean exhausted;
+
+    /**
+     * Creates an unspent budget.
+     *
+     * @param limits The limits that set the budget.
+     */
+    FailureBudget(@NotNull final ScanLimits limits) {
+        this.limits = limits;
+    }
+
+    /**
+     * Count a class file that is about to be parsed.
+     */
+    void addClassFile() {
+        classFileCount.incrementAndGet();
+    }
+
+    /**
+     * Count a failed class file and check the budget.
+     *
+     * @return whether the budget is exhausted.
+     */
+    boolean addFailure() {
+        final int failures = failureCount.incrementAndGet();
+        final int classFiles = classFileCount.get();
+        if (failures > limits.maxFailures()
+                || classFiles >= ScanSession.MIN_CLASS_FILES_FOR_FAILURE_RATIO
+                        && (double) failures / classFiles > limits.maxFailureRatio()) {
+            exhausted = true;
+        }
+        return exhausted;
+    }
+
+    /**
+     * Count the class files and failures of a range that an earlier scan completed.
+     *
+     * @param result The result of the range.
+     */
+    void addCompleted(@NotNull final ScanResult result) {
+        classFileCount.addAndGet(result.getClassFileCount());
+        failureCount.addAndGet(result.getFailureCount());
+        if (result.getStatus() == ScanStatus.ABORTED) {
+            exhausted = true;
+        }
+    }
+
+    /**
+     * Returns whether the budget is exhausted, by any session that shares it.
+     *
+     * @return whether the budget is exhausted.
+     */
+    boolean isExhausted() {
+        return exhausted;
+    }
+}
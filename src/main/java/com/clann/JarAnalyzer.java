@@ -1,13 +1,17 @@
 package com.clann;
 
+import com.clann.store.ColumnarResultStore;
 import com.clann.visitor.AnnotationCollector;
 import com.clann.visitor.ClassAnnotationInfo;
 import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.file.Files;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Locale;
+import java.util.function.Consumer;
 import java.util.jar.JarEntry;
 import java.util.jar.JarInputStream;
 import org.jetbrains.annotations.NotNull;
@@ -80,11 +84,205 @@ public final class JarAnalyzer {
         }
     }
 
+    /**
+     * Analyze a Java JAR file read from a stream, such as standard input, and produce information about the
+     * annotations in each valid Java class file.
+     * <p>
+     * Unlike {@link #analyzeJar(byte[])}, the JAR file is never held in memory: entries are decompressed on
+     * another thread as they arrive and parsed while the next ones are decompressed, with a bounded amount of
+     * decompressed content buffered in between.
+     *
+     * @param inputStream The stream of the JAR file to parse and analyze. It is read to the end of the JAR file
+     *                    but not closed.
+     * @return Information about the annotations for each class in the JAR file that was successfully parsed.
+     * @throws IOException If there is an I/O or ZIP file error when reading the JAR file.
+     */
+    @NotNull
+    public static List<ClassAnnotationInfo> analyzeJar(@NotNull final InputStream inputStream)
+            throws IOException {
+        final List<ClassAnnotationInfo> classAnnotationInfos = new ArrayList<>();
+        final ScanResult result =
+                StreamingJarScanner.scan(
+                        inputStream,
+                        ScanLimits.DEFAULT,
+                        StreamingJarScanner.DEFAULT_BUFFER_BYTES,
+                        classAnnotationInfos::add,
+                        classAnnotationInfos);
+        JarAnalyzer.logScanResult(result);
+        return result.getClassAnnotationInfos();
+    }
+
+    /**
+     * Scan a Java JAR file within the given limits and produce information about the annotations in each valid
+     * Java class file, together with a summary of how the scan went.
+     * <p>
+     * Unlike {@link #analyzeJar(File)}, a pathological JAR file cannot stall the scan: oversized or slow class
+     * files are recorded as failures and the scan stops early once the failure budget is exhausted. In that case
+     * the annotation information collected so far is returned with status {@link ScanStatus#ABORTED}.
+     *
+     * @param jarFile The JAR file to parse and analyze. The file is assumed to exist.
+     * @param limits  The limits to enforce during the scan.
+     * @return The annotation information collected and the status of the scan.
+     * @throws IOException If there is an I/O or ZIP file error when reading the JAR file.
+     */
+    @NotNull
+    public static ScanResult scanJar(@NotNull final File jarFile, @NotNull final ScanLimits limits)
+            throws IOException {
+        try (final JarInputStream jarInputStream =
+                new JarInputStream(Files.newInputStream(jarFile.toPath()))) {
+            return JarAnalyzer.scanJar(jarInputStream, limits);
+        }
+    }
+
+    /**
+     * Scan a Java JAR file within the given limits and pass the annotation information of each valid Java class
+     * file to the given consumer as soon as it is parsed, instead of collecting it.
+     * <p>
+     * This keeps memory use independent of the size of the JAR file when only aggregates are needed.
+     *
+     * @param jarFile  The JAR file to parse and analyze. The file is assumed to exist.
+     * @param limits   The limits to enforce during the scan.
+     * @param consumer Receives the annotation information of each class file parsed.
+     * @return The status of the scan, with no annotation information.
+     * @throws IOException If there is an I/O or ZIP file error when reading the JAR file.
+     */
+    @NotNull
+    public static ScanResult scanJar(
+            @NotNull final File jarFile,
+            @NotNull final ScanLimits limits,
+            @NotNull final Consumer<? super ClassAnnotationInfo> consumer)
+            throws IOException {
+        try (final JarInputStream jarInputStream =
+                new JarInputStream(Files.newInputStream(jarFile.toPath()))) {
+            return JarAnalyzer.scanJar(jarInputStream, limits, consumer, List.of());
+        }
+    }
+
+    /**
+     * Scan a Java JAR file read from a stream within the given limits, passing each parsed class to the given
+     * consumer instead of collecting the annotation information. See {@link #analyzeJar(InputStream)}.
+     *
+     * @param inputStream The stream of the JAR file to parse and analyze. It is read to the end of the JAR file
+     *                    but not closed.
+     * @param limits      The limits to enforce during the scan.
+     * @param consumer    Receives the annotation information of each class file parsed, on the calling thread.
+     * @return The status of the scan, with no annotation information.
+     * @throws IOException If there is an I/O or ZIP file error when reading the JAR file.
+     */
+    @NotNull
+    public static ScanResult scanJar(
+            @NotNull final InputStream inputStream,
+            @NotNull final ScanLimits limits,
+            @NotNull final Consumer<? super ClassAnnotationInfo> consumer)
+            throws IOException {
+        final ScanResult result =
+                StreamingJarScanner.scan(
+                        inputStream,
+                        limits,
+                        StreamingJarScanner.DEFAULT_BUFFER_BYTES,
+                        consumer,
+                        List.of());
+        JarAnalyzer.logScanResult(result);
+        return result;
+    }
+
+    /**
+     * Returns whether a file is a gzip-compressed tar archive, such as a distribution bundle, by its extension:
+     * {@code .tar.gz} or {@code .tgz}.
+     *
+     * @param file The file to check.
+     * @return whether the file is a gzip-compressed tar archive.
+     */
+    public static boolean isTarGz(@NotNull final File file) {
+        final String name = file.getName().toLowerCase(Locale.ROOT);
+        return name.endsWith(".tar.gz") || name.endsWith(".tgz");
+    }
+
+    /**
+     * Analyze the Java JAR files embedded in a {@code .tar.gz} or {@code .tgz} archive and produce information about
+     * the annotations in each valid Java class file, in the order of the archive.
+     * <p>
+     * The archive is never extracted and no JAR file is held in memory: the archive is decompressed on one thread,
+     * the entries of each JAR file on another, and class files are parsed on the calling thread as they arrive.
+     *
+     * @param archiveFile The archive to read. The file is assumed to exist.
+     * @return Information about the annotations for each class in the embedded JAR files.
+     * @throws IOException If there is an I/O, gzip, tar or ZIP file error when reading the archive.
+     */
+    @NotNull
+    public static List<ClassAnnotationInfo> analyzeTarGz(@NotNull final File archiveFile)
+            throws IOException {
+        final List<ClassAnnotationInfo> classAnnotationInfos = new ArrayList<>();
+        JarAnalyzer.scanTarGz(archiveFile, ScanLimits.DEFAULT, classAnnotationInfos::add);
+        return classAnnotationInfos;
+    }
+
+    /**
+     * Scan the Java JAR files embedded in a {@code .tar.gz} or {@code .tgz} archive, each within the given limits,
+     * passing each parsed class to the given consumer. See {@link #analyzeTarGz(File)}.
+     *
+     * @param archiveFile The archive to read. The file is assumed to exist.
+     * @param limits      The limits to enforce during the scan of each embedded JAR file.
+     * @param consumer    Receives the annotation information of each class file parsed, on the calling thread.
+     * @return The status of the scan of each embedded JAR file, with no annotation information.
+     * @throws IOException If there is an I/O, gzip, tar or ZIP file error when reading the archive.
+     */
+    @NotNull
+    public static List<ScanResult> scanTarGz(
+            @NotNull final File archiveFile,
+            @NotNull final ScanLimits limits,
+            @NotNull final Consumer<? super ClassAnnotationInfo> consumer)
+            throws IOException {
+        final List<ScanResult> results;
+        try (InputStream inputStream = Files.newInputStream(archiveFile.toPath())) {
+            results =
+                    TarGzScanner.scan(
+                            inputStream,
+                            limits,
+                            StreamingJarScanner.DEFAULT_BUFFER_BYTES,
+                            consumer);
+        }
+        results.forEach(JarAnalyzer::logScanResult);
+        return results;
+    }
+
+    /**
+     * Scan a Java JAR file within the given limits. See {@link #scanJar(File, ScanLimits)}.
+     *
+     * @param jarBytes The JAR file bytes to parse and analyze.
+     * @param limits   The limits to enforce during the scan.
+     * @return The annotation information collected and the status of the scan.
+     * @throws IOException If there is an I/O or ZIP file error when reading the JAR file.
+     */
+    @NotNull
+    public static ScanResult scanJar(
+            @NotNull final byte[] jarBytes, @NotNull final ScanLimits limits) throws IOException {
+        try (final JarInputStream jarIn = new JarInputStream(new ByteArrayInputStream(jarBytes))) {
+            return JarAnalyzer.scanJar(jarIn, limits);
+        }
+    }
+
     /**
      * Analyze a Java JAR file and produce information about the annotations in each valid Java class file.
      * <p>
      * This method is private to ensure public alternatives guarantee the given {@code JarInputStream} is properly
      * constructed and closed.
+     *
+     * @param jarIn The JAR file input stream to parse and analyze.
+     * @return Information about the annotations for each class in the JAR file that was successfully parsed.
+     * @throws IOException If there is an I/O or ZIP file error when reading the JAR file.
+     */
+    @NotNull
+    private static List<ClassAnnotationInfo> analyzeJar(@NotNull final JarInputStream jarIn)
+            throws IOException {
+        return JarAnalyzer.scanJar(jarIn, ScanLimits.DEFAULT).getClassAnnotationInfos();
+    }
+
+    /**
+     * Scan a Java JAR file within the given limits.
+     * <p>
+     * This method is private to ensure public alternatives guarantee the given {@code JarInputStream} is properly
+     * constructed and closed.
      * <p>
      * Java class files are identified by their extension: {@code class}.
      * This is a reasonable heuristic to avoid trying to parse files that are unlikely to be class files.
@@ -93,16 +291,37 @@ public final class JarAnalyzer {
      * cannot be constructed with a byte array directly (that is without having to create a
      * temporary file) which is useful in tests.
      *
-     * @param jarIn The JAR file input stream to parse and analyze.
-     * @return Information about the annotations for each class in the JAR file that was successfully parsed.
+     * @param jarIn  The JAR file input stream to parse and analyze.
+     * @param limits The limits to enforce during the scan.
+     * @return The annotation information collected and the status of the scan.
      * @throws IOException If there is an I/O or ZIP file error when reading the JAR file.
      */
     @NotNull
-    private static List<ClassAnnotationInfo> analyzeJar(@NotNull final JarInputStream jarIn)
+    private static ScanResult scanJar(
+            @NotNull final JarInputStream jarIn, @NotNull final ScanLimits limits)
             throws IOException {
         final List<ClassAnnotationInfo> classAnnotationInfos = new ArrayList<>();
-        final List<String> failedClassFiles = new ArrayList<>();
-        int entryCount = 0;
+        return JarAnalyzer.scanJar(jarIn, limits, classAnnotationInfos::add, classAnnotationInfos);
+    }
+
+    /**
+     * Scan a Java JAR file within the given limits, passing each parsed class to the given consumer.
+     *
+     * @param jarIn                The JAR file input stream to parse and analyze.
+     * @param limits               The limits to enforce during the scan.
+     * @param consumer             Receives the annotation information of each class file parsed.
+     * @param classAnnotationInfos The annotation information to include in the result.
+     * @return The status of the scan.
+     * @throws IOException If there is an I/O or ZIP file error when reading the JAR file.
+     */
+    @NotNull
+    private static ScanResult scanJar(
+            @NotNull final JarInputStream jarIn,
+            @NotNull final ScanLimits limits,
+            @NotNull final Consumer<? super ClassAnnotationInfo> consumer,
+            @NotNull final List<ClassAnnotationInfo> classAnnotationInfos)
+            throws IOException {
+        final ScanSession session = new ScanSession(limits, consumer);
 
         // May throw IOException
         JarEntry entry = jarIn.getNextJarEntry();
@@ -111,22 +330,11 @@ public final class JarAnalyzer {
         // For each entry in the JarInputStream, if the entry is a class file, we read the file and
         // collect its annotations.
         while (entry != null) {
-            entryCount++;
-
-            final String entryName = entry.getName();
-            JarAnalyzer.LOGGER.trace("got jar entry {}", entryName);
-
-            if (entryName.endsWith(".class")) {
-                // May throw IOException
-                final byte[] buffer = jarIn.readAllBytes();
-
-                try {
-                    final ClassAnnotationInfo classAnnotationInfo =
-                            AnnotationCollector.collectAnnotations(buffer);
-                    classAnnotationInfos.add(classAnnotationInfo);
-                } catch (final AnnotationCollector.ClannClassReaderException e) {
-                    failedClassFiles.add(entryName + ": " + e.getMessage());
-                }
+            JarAnalyzer.LOGGER.trace("got jar entry {}", entry.getName());
+
+            // May throw IOException
+            if (!session.processEntry(entry.getName(), jarIn, entry.getSize())) {
+                break;
             }
 
             // May throw IOException
@@ -135,24 +343,41 @@ public final class JarAnalyzer {
             entry = jarIn.getNextJarEntry();
         }
 
-        if (entryCount == 0) {
+        final ScanResult result = session.toResult(classAnnotationInfos);
+        JarAnalyzer.logScanResult(result);
+        return result;
+    }
+
+    /**
+     * Log a summary of the given scan result.
+     *
+     * @param result The scan result to summarize.
+     */
+    static void logScanResult(@NotNull final ScanResult result) {
+        if (result.getEntryCount() == 0) {
             JarAnalyzer.LOGGER.error(
                     "Failed to parse jar file. Found zero entries in jar file. Please check that"
                             + " the provided jar file is valid and has one or more class files.");
         } else {
-            if (!failedClassFiles.isEmpty()) {
+            if (result.getFailureCount() > 0) {
+                JarAnalyzer.LOGGER.warn(
+                        "Failed to parse annotations from 1 or more class files: failureCount={}"
+                                + " sampledFailures={}",
+                        result.getFailureCount(),
+                        result.getSampledFailures());
+            }
+            if (result.getStatus() == ScanStatus.ABORTED) {
                 JarAnalyzer.LOGGER.warn(
-                        "Failed to parse annotations from 1 or more class files: {}",
-                        failedClassFiles);
+                        "Aborted scan early because the failure budget was exhausted"
+                                + " numberOfClassFilesAttempted={}",
+                        result.getClassFileCount());
             }
 
             JarAnalyzer.LOGGER.info(
                     "Successfully parsed annotations from class files"
                             + " numberOfClassFilesSuccessfullyParsed={}",
-                    classAnnotationInfos.size());
+                    result.getClassFileCount() - result.getFailureCount());
         }
-
-        return classAnnotationInfos;
     }
 
     /**
@@ -160,6 +385,8 @@ public final class JarAnalyzer {
      * <p>
      * Currently, a simple YAML-like format is manually constructed.
      * TODO: Consider using a serialization library like Jackson to serialize formally to JSON/YAML
+     * <p>
+     * Facts contributed by analysis plugins follow the annotations of each class as {@code name: value} lines.
      *
      * @param classAnnotationInfos The annotation usage information for some Java classes.
      * @return The report.
@@ -170,10 +397,11 @@ public final class JarAnalyzer {
         final StringBuilder stringBuilder = new StringBuilder();
 
         for (final ClassAnnotationInfo classAnnotationInfo : classAnnotationInfos) {
-            if (classAnnotationInfo.getAnnotations().isEmpty()) {
+            if (classAnnotationInfo.getAnnotations().isEmpty()
+                    && classAnnotationInfo.getFacts().isEmpty()) {
                 continue;
             }
-            stringBuilder.append("\n- class: ").append(classAnnotationInfo.getClassName());
+            classAnnotationInfo.appendClassName(stringBuilder.append("\n- class: "));
             classAnnotationInfo
                     .getAnnotations()
                     .forEach(
@@ -181,6 +409,40 @@ public final class JarAnalyzer {
                                 stringBuilder.append("\n\t - ").append(annotationName);
                                 stringBuilder.append("\n\t\t - ").append(myAnnotation.toString());
                             });
+            classAnnotationInfo
+                    .getFacts()
+                    .forEach(
+                            (factName, value) ->
+                                    stringBuilder
+                                            .append("\n\t - ")
+                                            .append(factName)
+                                            .append(": ")
+                                            .append(value));
+        }
+        return stringBuilder.toString();
+    }
+
+    /**
+     * Produce a report detailing the usage of annotations by the Java classes in a result store, in the same
+     * format as {@link #getClassAnnotationUsageReport(List)} but without the facts of analysis plugins, which the
+     * store does not keep. The command line therefore rejects {@code --plugin} with {@code --off-heap}.
+     *
+     * @param store The result store of some Java classes.
+     * @return The report.
+     */
+    @NotNull
+    public static String getClassAnnotationUsageReport(@NotNull final ColumnarResultStore store) {
+        final StringBuilder stringBuilder = new StringBuilder();
+
+        for (final ColumnarResultStore.ClassView classView : store) {
+            if (classView.getAnnotationCount() == 0) {
+                continue;
+            }
+            stringBuilder.append("\n- class: ").append(classView.getClassName());
+            for (int i = 0; i < classView.getAnnotationCount(); i++) {
+                stringBuilder.append("\n\t - ").append(classView.getAnnotationName(i));
+                stringBuilder.append("\n\t\t - ").append(classView.getAnnotationLevels(i));
+            }
         }
         return stringBuilder.toString();
     }
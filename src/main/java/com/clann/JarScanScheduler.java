@@ -0,0 +1,467 @@
+package com.clann;
+
+import com.clann.visitor.ClassAnnotationInfo;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Scans many JAR files of very different sizes on a work-stealing pool so that the wall time of the scan is not set
+ * by a large JAR file that happens to start last.
+ * <p>
+ * The central directory of each JAR file is read first, in parallel, to learn the uncompressed size of its class
+ * files without decompressing anything. A JAR file whose class files add up to more than the split size is split
+ * into contiguous ranges of entries of about that size, each scanned as a separate task. All tasks are then
+ * submitted to a {@link ForkJoinPool} largest first, so the largest pieces of work start early and idle workers
+ * steal the small ones at the end. The results of the ranges of a JAR file are merged back into one
+ * {@link ScanResult} per JAR file, and the time each worker spent scanning is reported to show how evenly the work
+ * was balanced.
+ * <p>
+ * The {@link ScanLimits} apply to a split JAR file as they do to a whole JAR file: its ranges share one
+ * {@link FailureBudget}, and once a range exhausts it, the other ranges of the JAR file stop too and the JAR file
+ * is {@link ScanStatus#ABORTED}. The consumer is called concurrently from the worker threads, in no particular
+ * order, so it must be thread-safe.
+ * <p>
+ * A {@link RangeTracker} can instead give each range its own consumer and learn when the range is complete, to
+ * checkpoint a long scan and to skip the ranges completed by an earlier run when it is resumed.
+ * <p>
+ * This class is thread-safe. Close it to shut down the worker pool.
+ */
+public final class JarScanScheduler implements AutoCloseable {
+    /**
+     * The default uncompressed size of class files above which a JAR file is split into ranges of entries.
+     */
+    public static final long DEFAULT_SPLIT_BYTES = 8L * 1024 * 1024;
+
+    private static final AtomicInteger POOL_COUNT = new AtomicInteger();
+
+    @NotNull private final ForkJoinPool pool;
+    @NotNull private final ScanLimits limits;
+    private final long splitBytes;
+
+    /**
+     * Creates a scheduler with its own pool of worker threads.
+     *
+     * @param parallelism The number of worker threads.
+     * @param limits      The limits to enforce for each JAR file, across the ranges of a split JAR file.
+     * @param splitBytes  The uncompressed size of class files above which a JAR file is split.
+     * @throws IllegalArgumentException If the parallelism or the split size is not positive.
+     */
+    public JarScanScheduler(
+            final int parallelism, @NotNull final ScanLimits limits, final long splitBytes) {
+        if (splitBytes <= 0) {
+            throw new IllegalArgumentException("splitBytes must be positive: " + splitBytes);
+        }
+        final int poolNumber = JarScanScheduler.POOL_COUNT.incrementAndGet();
+        final AtomicInteger threadCount = new AtomicInteger();
+        this.pool =
+                new ForkJoinPool(
+                        parallelism,
+                        forkJoinPool -> {
+                            final ForkJoinWorkerThread thread =
+                                    ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(
+                                            forkJoinPool);
+                            thread.setName(
+                                    "clann-scheduler-"
+                                            + poolNumber
+                                            + "-"
+                                            + threadCount.incrementAndGet());
+                            return thread;
+                        },
+                        null,
+                        false);
+        this.limits = limits;
+        this.splitBytes = splitBytes;
+    }
+
+    /**
+     * Scan JAR files, passing the annotation information of each parsed class to the given consumer.
+     *
+     * @param jarFiles The JAR files to scan.
+     * @param consumer Receives the annotation information of each class file parsed, concurrently.
+     * @return The status of the scan of each JAR file, in the order of the JAR files, and the load of each worker.
+     * @throws IOException If there is an I/O or ZIP file error when reading a JAR file. Tasks that have not
+     *                     started yet are cancelled.
+     */
+    @NotNull
+    public ScheduledScan scan(
+            @NotNull final List<File> jarFiles,
+            @NotNull final Consumer<? super ClassAnnotationInfo> consumer)
+            throws IOException {
+        return scan(
+                jarFiles,
+                new RangeTracker<Consumer<? super ClassAnnotationInfo>>() {
+                    @Nullable
+                    @Override
+                    public ScanResult getCompletedRange(@NotNull final RangeKey range) {
+                        return null;
+                    }
+
+                    @NotNull
+                    @Override
+                    public Consumer<? super ClassAnnotationInfo> startRange(
+                            @NotNull final RangeKey range) {
+                        return consumer;
+                    }
+
+                    @Override
+                    public void completeRange(
+                            @NotNull final RangeKey range,
+                            @NotNull final Consumer<? super ClassAnnotationInfo> rangeConsumer,
+                            @NotNull final ScanResult result) {
+                        // Nothing to track
+                    }
+                });
+    }
+
+    /**
+     * Scan JAR files, passing the annotation information of the classes of each range of entries to the consumer
+     * the tracker starts for it. Ranges that the tracker reports as completed are not scanned again.
+     *
+     * @param jarFiles The JAR files to scan.
+     * @param tracker  Starts and completes each range of entries, concurrently.
+     * @param <C>      The type of the consumer of a range.
+     * @return The status of the scan of each JAR file, in the order of the JAR files, and the load of each worker.
+     * @throws IOException If there is an I/O or ZIP file error when reading a JAR file. Tasks that have not
+     *                     started yet are cancelled, and the ranges already completed stay completed.
+     */
+    @NotNull
+    public <C extends Consumer<? super ClassAnnotationInfo>> ScheduledScan scan(
+            @NotNull final List<File> jarFiles, @NotNull final RangeTracker<C> tracker)
+            throws IOException {
+        final List<EntryRange> ranges;
+        try {
+            ranges =
+                    pool.submit(
+                                    () ->
+                                            IntStream.range(0, jarFiles.size())
+                                                    .parallel()
+                                                    .mapToObj(i -> plan(i, jarFiles.get(i)))
+                                                    .flatMap(List::stream)
+                                                    .toList())
+                            .join();
+        } catch (final UncheckedIOException e) {
+            throw new IOException(e.getMessage(), e.getCause());
+        }
+
+        final Map<String, WorkerCounter> counters = new ConcurrentHashMap<>();
+        final List<FailureBudget> budgets = new ArrayList<>(jarFiles.size());
+        jarFiles.forEach(jarFile -> budgets.add(new FailureBudget(limits)));
+        // Ranges completed by an earlier scan are charged to the budget before any range runs
+        final ScanResult[] completedResults = new ScanResult[ranges.size()];
+        for (int i = 0; i < ranges.size(); i++) {
+            completedResults[i] = tracker.getCompletedRange(ranges.get(i).toKey());
+            if (completedResults[i] != null) {
+                budgets.get(ranges.get(i).jarIndex()).addCompleted(completedResults[i]);
+            }
+        }
+        @SuppressWarnings({"rawtypes", "unchecked"})
+        final ForkJoinTask<ScanResult>[] tasks = new ForkJoinTask[ranges.size()];
+        // Workers take external submissions in order, so the largest ranges start first
+        IntStream.range(0, ranges.size())
+                .filter(i -> completedResults[i] == null)
+                .boxed()
+                .sorted(
+                        Comparator.comparingLong((Integer i) -> ranges.get(i).classBytes())
+                                .reversed())
+                .forEach(
+                        i -> {
+                            final EntryRange range = ranges.get(i);
+                            final FailureBudget budget = budgets.get(range.jarIndex());
+                            tasks[i] = pool.submit(() -> run(range, budget, tracker, counters));
+                        });
+
+        // The ranges are in the order of the JAR files, and of the entries within each JAR file
+        final List<List<ScanResult>> rangeResults = new ArrayList<>();
+        jarFiles.forEach(jarFile -> rangeResults.add(new ArrayList<>()));
+        try {
+            for (int i = 0; i < tasks.length; i++) {
+                rangeResults
+                        .get(ranges.get(i).jarIndex())
+                        .add(tasks[i] == null ? completedResults[i] : tasks[i].join());
+            }
+        } catch (final UncheckedIOException e) {
+            for (final ForkJoinTask<ScanResult> task : tasks) {
+                if (task != null) {
+                    task.cancel(false);
+                }
+            }
+            throw new IOException(e.getMessage(), e.getCause());
+        }
+
+        final List<ScanResult> results = new ArrayList<>(jarFiles.size());
+        for (final List<ScanResult> parts : rangeResults) {
+            final ScanResult result = merge(parts);
+            JarAnalyzer.logScanResult(result);
+            results.add(result);
+        }
+        final List<WorkerLoad> workerLoads =
+                counters.entrySet().stream()
+                        .map(entry -> entry.getValue().toLoad(entry.getKey()))
+                        .sorted(Comparator.comparing(WorkerLoad::workerName))
+                        .toList();
+        return new ScheduledScan(results, workerLoads);
+    }
+
+    @Override
+    public void close() {
+        pool.shutdownNow();
+    }
+
+    /**
+     * Read the central directory of a JAR file and split its entries into ranges of about the split size.
+     *
+     * @param jarIndex The position of the JAR file among the scanned JAR files.
+     * @param jarFile  The JAR file.
+     * @return the ranges of entries, in entry order, at least one even for an empty JAR file.
+     * @throws UncheckedIOException If the central directory cannot be read.
+     */
+    @NotNull
+    private List<EntryRange> plan(final int jarIndex, @NotNull final File jarFile) {
+        final List<EntryRange> ranges = new ArrayList<>();
+        try (ZipFile zipFile = new ZipFile(jarFile)) {
+            final Enumeration<? extends ZipEntry> entries = zipFile.entries();
+            int rangeStart = 0;
+            int entryIndex = 0;
+            long rangeBytes = 0;
+            while (entries.hasMoreElements()) {
+                final ZipEntry entry = entries.nextElement();
+                entryIndex++;
+                if (entry.getName().endsWith(".class")) {
+                    rangeBytes += Math.max(0, entry.getSize());
+                }
+                if (rangeBytes >= splitBytes && entries.hasMoreElements()) {
+                    ranges.add(
+                            new EntryRange(jarIndex, jarFile, rangeStart, entryIndex, rangeBytes));
+                    rangeStart = entryIndex;
+                    rangeBytes = 0;
+                }
+            }
+            ranges.add(new EntryRange(jarIndex, jarFile, rangeStart, entryIndex, rangeBytes));
+        } catch (final IOException e) {
+            throw new UncheckedIOException("Error analyzing JAR file: " + jarFile, e);
+        }
+        return ranges;
+    }
+
+    /**
+     * Scan a range of entries of a JAR file. Runs on a worker thread.
+     */
+    @NotNull
+    private <C extends Consumer<? super ClassAnnotationInfo>> ScanResult run(
+            @NotNull final EntryRange range,
+            @NotNull final FailureBudget budget,
+            @NotNull final RangeTracker<C> tracker,
+            @NotNull final Map<String, WorkerCounter> counters) {
+        final long start = System.nanoTime();
+        final RangeKey key = range.toKey();
+        final C consumer = tracker.startRange(key);
+        final ScanSession session = new ScanSession(limits, consumer, budget);
+        // Instances of a ZIP file share the central directory, so ranges of one JAR file only read it once
+        try (ZipFile zipFile = new ZipFile(range.jarFile())) {
+            final Enumeration<? extends ZipEntry> entries = zipFile.entries();
+            for (int i = 0; i < range.toEntry() && entries.hasMoreElements(); i++) {
+                final ZipEntry entry = entries.nextElement();
+                if (i < range.fromEntry()) {
+                    continue;
+                }
+                try (InputStream inputStream = zipFile.getInputStream(entry)) {
+                    if (!session.processEntry(entry.getName(), inputStream, entry.getSize())) {
+                        break;
+                    }
+                }
+            }
+        } catch (final IOException e) {
+            throw new UncheckedIOException("Error analyzing JAR file: " + range.jarFile(), e);
+        }
+        counters.computeIfAbsent(Thread.currentThread().getName(), name -> new WorkerCounter())
+                .add(range.classBytes(), System.nanoTime() - start);
+        final ScanResult result = session.toResult(List.of());
+        tracker.completeRange(key, consumer, result);
+        return result;
+    }
+
+    /**
+     * Merge the results of the ranges of a JAR file: the counts add up, the status is the worst one, and failure
+     * samples are kept up to the sample size.
+     */
+    @NotNull
+    private ScanResult merge(@NotNull final List<ScanResult> parts) {
+        ScanStatus status = ScanStatus.COMPLETE;
+        int entryCount = 0;
+        int classFileCount = 0;
+        int failureCount = 0;
+        final List<String> sampledFailures = new ArrayList<>();
+        for (final ScanResult part : parts) {
+            if (part.getStatus().compareTo(status) > 0) {
+                status = part.getStatus();
+            }
+            entryCount += part.getEntryCount();
+            classFileCount += part.getClassFileCount();
+            failureCount += part.getFailureCount();
+            part.getSampledFailures().stream()
+                    .limit(Math.max(0, limits.failureSampleSize() - sampledFailures.size()))
+                    .forEach(sampledFailures::add);
+        }
+        return new ScanResult(
+                List.of(), status, entryCount, classFileCount, failureCount, sampledFailures);
+    }
+
+    /**
+     * A contiguous range of the entries of a JAR file, in central directory order.
+     *
+     * @param jarIndex   The position of the JAR file among the scanned JAR files.
+     * @param jarFile    The JAR file.
+     * @param fromEntry  The index of the first entry of the range.
+     * @param toEntry    The index after the last entry of the range.
+     * @param classBytes The uncompressed size of the class files of the range.
+     */
+    private record EntryRange(
+            int jarIndex, @NotNull File jarFile, int fromEntry, int toEntry, long classBytes) {
+        @NotNull
+        RangeKey toKey() {
+            return new RangeKey(jarFile, fromEntry, toEntry);
+        }
+    }
+
+    /**
+     * Identifies a contiguous range of the entries of a JAR file, in central directory order. JAR files are split
+     * into the same ranges by every scan with the same split size.
+     *
+     * @param jarFile   The JAR file.
+     * @param fromEntry The index of the first entry of the range.
+     * @param toEntry   The index after the last entry of the range.
+     */
+    public record RangeKey(@NotNull File jarFile, int fromEntry, int toEntry) {}
+
+    /**
+     * Starts and completes the ranges of entries of a scan, each with its own consumer.
+     * <p>
+     * Methods are called concurrently. {@link #startRange(RangeKey)} and
+     * {@link #completeRange(RangeKey, Consumer, ScanResult)} run on the worker thread that scans the range, so they
+     * should return quickly and never wait for other threads.
+     *
+     * @param <C> The type of the consumer of a range.
+     */
+    public interface RangeTracker<C extends Consumer<? super ClassAnnotationInfo>> {
+        /**
+         * Returns the result of a range that an earlier scan completed, which is then not scanned again.
+         *
+         * @param range The range.
+         * @return the result of the range without annotation information, or {@code null} to scan the range.
+         */
+        @Nullable
+        ScanResult getCompletedRange(@NotNull RangeKey range);
+
+        /**
+         * Returns the consumer of the classes of a range, before the range is scanned.
+         *
+         * @param range The range.
+         * @return the consumer of the classes of the range.
+         */
+        @NotNull
+        C startRange(@NotNull RangeKey range);
+
+        /**
+         * Called once every entry of a range was scanned. Ranges whose scan fails are never completed.
+         *
+         * @param range    The range.
+         * @param consumer The consumer returned by {@link #startRange(RangeKey)} for the range.
+         * @param result   The result of the range, without annotation information.
+         */
+        void completeRange(
+                @NotNull RangeKey range, @NotNull C consumer, @NotNull ScanResult result);
+    }
+
+    /**
+     * Counts the work done by one worker thread.
+     */
+    private static final class WorkerCounter {
+        @NotNull private final LongAdder tasks = new LongAdder();
+        @NotNull private final LongAdder classBytes = new LongAdder();
+        @NotNull private final LongAdder busyNanos = new LongAdder();
+
+        void add(final long rangeClassBytes, final long rangeNanos) {
+            tasks.increment();
+            classBytes.add(rangeClassBytes);
+            busyNanos.add(rangeNanos);
+        }
+
+        @NotNull
+        WorkerLoad toLoad(@NotNull final String workerName) {
+            return new WorkerLoad(workerName, tasks.sum(), classBytes.sum(), busyNanos.sum());
+        }
+    }
+
+    /**
+     * The work done by one worker thread during a scan.
+     *
+     * @param workerName The name of the worker thread.
+     * @param tasks      The number of JAR files and ranges of entries the worker scanned.
+     * @param classBytes The uncompressed size of the class files the worker scanned.
+     * @param busyNanos  The time the worker spent scanning.
+     */
+    public record WorkerLoad(
+            @NotNull String workerName, long tasks, long classBytes, long busyNanos) {}
+
+    /**
+     * The outcome of a scheduled scan.
+     *
+     * @param results     The status of the scan of each JAR file, in the order of the JAR files, without
+     *                    annotation information, which was passed to the consumer.
+     * @param workerLoads The work done by each worker thread that scanned anything, by worker name.
+     */
+    public record ScheduledScan(
+            @NotNull List<ScanResult> results, @NotNull List<WorkerLoad> workerLoads) {
+        /**
+         * Returns how evenly the work was balanced: the number of tasks, the busy time of the busiest worker
+         * divided by the mean busy time, where 1.00 is a perfect balance, and the load of each worker.
+         *
+         * @return the balance report.
+         */
+        @NotNull
+        public String getBalanceReport() {
+            final long totalTasks = workerLoads.stream().mapToLong(WorkerLoad::tasks).sum();
+            final long maxBusyNanos =
+                    workerLoads.stream().mapToLong(WorkerLoad::busyNanos).max().orElse(0);
+            final double meanBusyNanos =
+                    workerLoads.stream().mapToLong(WorkerLoad::busyNanos).average().orElse(0);
+            final StringBuilder stringBuilder = new StringBuilder();
+            stringBuilder.append("\nscheduledTasks: ").append(totalTasks);
+            stringBuilder
+                    .append("\nworkerImbalance: ")
+                    .append(
+                            String.format(
+                                    Locale.ROOT,
+                                    "%.2f",
+                                    meanBusyNanos == 0 ? 1.0 : maxBusyNanos / meanBusyNanos));
+            stringBuilder.append("\nworkers:");
+            for (final WorkerLoad load : workerLoads) {
+                stringBuilder.append("\n- worker: ").append(load.workerName());
+                stringBuilder.append("\n\t - tasks: ").append(load.tasks());
+                stringBuilder.append("\n\t - classBytes: ").append(load.classBytes());
+                stringBuilder.append("\n\t - busyMillis: ").append(load.busyNanos() / 1_000_000);
+            }
+            return stringBuilder.toString();
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package com.clann;
+
+import com.clann.plugin.ClannPlugin;
+import com.clann.visitor.ClassNameTable;
+import java.time.Duration;
+import java.util.List;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Limits that protect a scan from pathological or malicious JAR files.
+ * <p>
+ * A class file that exceeds the per-entry limits is recorded as a failure. Once the failure budget is exhausted,
+ * the scan stops early and returns a partial {@link ScanResult} with status {@link ScanStatus#ABORTED}.
+ * <p>
+ * The limits also carry the analysis plugins that the scan runs on each class file and the {@link ClassNameTable}
+ * that stores the packages of the scanned classes, so that every scanner that enforces them runs the same plugins
+ * and names classes in the same table without any global state.
+ *
+ * @param maxEntryBytes      The maximum uncompressed size in bytes of a single class file.
+ * @param maxEntryParseTime  The maximum time spent parsing a single class file.
+ * @param maxFailures        The maximum number of class files that may fail before the scan is aborted.
+ * @param maxFailureRatio    The maximum ratio of failed to attempted class files before the scan is aborted.
+ *                           The ratio is only enforced once a minimum number of class files has been attempted
+ *                           so that one early failure does not abort a scan.
+ * @param failureSampleSize  The maximum number of failure messages retained in a {@link ScanResult}.
+ * @param plugins            The plugins that run on each class file, in the order they run.
+ * @param classNameTable     The table that stores the packages of the scanned classes.
+ */
+public record ScanLimits(
+        long maxEntryBytes,
+        @NotNull Duration maxEntryParseTime,
+        int maxFailures,
+        double maxFailureRatio,
+        int failureSampleSize,
+        @NotNull List<ClannPlugin> plugins,
+        @NotNull ClassNameTable classNameTable) {
+
+    /**
+     * Limits that are generous enough for any class file produced by a well-known Java compiler
+     * and that never abort a scan because of failures.
+     */
+    public static final ScanLimits DEFAULT =
+            new ScanLimits(64L * 1024 * 1024, Duration.ofSeconds(10), Integer.MAX_VALUE, 1.0, 100);
+
+    /**
+     * Validates the limits.
+     *
+     * @throws IllegalArgumentException If any limit is negative or the failure ratio is not in [0, 1].
+     */
+    public ScanLimits {
+        if (maxEntryBytes < 0
+                || maxEntryParseTime.isNegative()
+                || maxFailures < 0
+                || failureSampleSize < 0) {
+            throw new IllegalArgumentException("Scan limits must not be negative");
+        }
+        if (maxFailureRatio < 0 || maxFailureRatio > 1) {
+            throw new IllegalArgumentException(
+                    "Maximum failure ratio must be between 0 and 1: " + maxFailureRatio);
+        }
+        plugins = List.copyOf(plugins);
+    }
+
+    /**
+     * Creates limits that run no plugins and name classes in {@link ClassNameTable#SHARED}.
+     *
+     * @param maxEntryBytes     The maximum uncompressed size in bytes of a single class file.
+     * @param maxEntryParseTime The maximum time spent parsing a single class file.
+     * @param maxFailures       The maximum number of class files that may fail before the scan is aborted.
+     * @param maxFailureRatio   The maximum ratio of failed to attempted class files before the scan is aborted.
+     * @param failureSampleSize The maximum number of failure messages retained in a {@link ScanResult}.
+     */
+    public ScanLimits(
+            final long maxEntryBytes,
+            @NotNull final Duration maxEntryParseTime,
+            final int maxFailures,
+            final double maxFailureRatio,
+            final int failureSampleSize) {
+        this(
+                maxEntryBytes,
+                maxEntryParseTime,
+                maxFailures,
+                maxFailureRatio,
+                failureSampleSize,
+                List.of(),
+                ClassNameTable.SHARED);
+    }
+
+    /**
+     * Returns the same limits running the given plugins instead.
+     *
+     * @param plugins The plugins that run on each class file, in the order they run.
+     * @return the limits with the plugins.
+     */
+    @NotNull
+    public ScanLimits withPlugins(@NotNull final List<ClannPlugin> plugins) {
+        return new ScanLimits(
+                maxEntryBytes,
+                maxEntryParseTime,
+                maxFailures,
+                maxFailureRatio,
+                failureSampleSize,
+                plugins,
+                classNameTable);
+    }
+
+    /**
+     * Returns the same limits storing the packages of the scanned classes in the given table instead, for example
+     * to keep the packages of one scan apart from those of other scans of the JVM.
+     *
+     * @param classNameTable The table that stores the packages of the scanned classes.
+     * @return the limits with the table.
+     */
+    @NotNull
+    public ScanLimits withClassNameTable(@NotNull final ClassNameTable classNameTable) {
+        return new ScanLimits(
+                maxEntryBytes,
+                maxEntryParseTime,
+                maxFailures,
+                maxFailureRatio,
+                failureSampleSize,
+                plugins,
+                classNameTable);
+    }
+}
@@ -0,0 +1,10 @@
+package com.clann;
+
+/**
+ * A snapshot of how far a scan has progressed, reported periodically by {@link ClannAnalyzer}.
+ *
+ * @param entryCount The number of JAR entries seen so far.
+ * @param bytesRead  The number of uncompressed class file bytes read so far.
+ * @param done       Whether this is the final snapshot of the scan.
+ */
+public record ScanProgress(int entryCount, long bytesRead, boolean done) {}
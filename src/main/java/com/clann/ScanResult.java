@@ -0,0 +1,101 @@
+package com.clann;
+
+import com.clann.visitor.ClassAnnotationInfo;
+import java.util.Collections;
+import java.util.List;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Groups the annotation information collected by a scan with a summary of how the scan went.
+ */
+public final class ScanResult {
+    @NotNull private final List<ClassAnnotationInfo> classAnnotationInfos;
+    @NotNull private final ScanStatus status;
+    private final int entryCount;
+    private final int classFileCount;
+    private final int failureCount;
+    @NotNull private final List<String> sampledFailures;
+
+    /**
+     * Creates a scan result.
+     *
+     * @param classAnnotationInfos Information about the annotations for each successfully parsed class.
+     * @param status               How completely the JAR file was scanned.
+     * @param entryCount           The number of JAR entries seen.
+     * @param classFileCount       The number of class files attempted.
+     * @param failureCount         The number of class files that failed to parse.
+     * @param sampledFailures      A bounded sample of failure messages.
+     */
+    public ScanResult(
+            @NotNull final List<ClassAnnotationInfo> classAnnotationInfos,
+            @NotNull final ScanStatus status,
+            final int entryCount,
+            final int classFileCount,
+            final int failureCount,
+            @NotNull final List<String> sampledFailures) {
+        this.classAnnotationInfos = Collections.unmodifiableList(classAnnotationInfos);
+        this.status = status;
+        this.entryCount = entryCount;
+        this.classFileCount = classFileCount;
+        this.failureCount = failureCount;
+        this.sampledFailures = List.copyOf(sampledFailures);
+    }
+
+    /**
+     * Returns information about the annotations for each class that was successfully parsed.
+     *
+     * @return Information about the annotations for each class that was successfully parsed.
+     */
+    @NotNull
+    public List<ClassAnnotationInfo> getClassAnnotationInfos() {
+        return classAnnotationInfos;
+    }
+
+    /**
+     * Returns how completely the JAR file was scanned.
+     *
+     * @return how completely the JAR file was scanned.
+     */
+    @NotNull
+    public ScanStatus getStatus() {
+        return status;
+    }
+
+    /**
+     * Returns the number of JAR entries seen, including entries that are not class files.
+     *
+     * @return the number of JAR entries seen.
+     */
+    public int getEntryCount() {
+        return entryCount;
+    }
+
+    /**
+     * Returns the number of class files that were attempted.
+     *
+     * @return the number of class files that were attempted.
+     */
+    public int getClassFileCount() {
+        return classFileCount;
+    }
+
+    /**
+     * Returns the number of class files that failed to parse or exceeded a per-entry limit.
+     *
+     * @return the number of class files that failed.
+     */
+    public int getFailureCount() {
+        return failureCount;
+    }
+
+    /**
+     * Returns a uniformly random sample of at most {@link ScanLimits#failureSampleSize()} failure messages.
+     * Each message is prefixed with the name of the JAR entry that failed.
+     *
+     * @return a bounded sample of failure messages.
+     */
+    @NotNull
+    public List<String> getSampledFailures() {
+        return sampledFailures;
+    }
+}
@@ -0,0 +1,255 @@
+package com.clann;
+
+import com.clann.visitor.AnnotationCollector;
+import com.clann.visitor.ClassAnnotationInfo;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Consumer;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Tracks the state of scanning the entries of one JAR file and enforces its {@link ScanLimits}.
+ * <p>
+ * Each class file entry is read into the {@link ClassBytesBuffer} of the calling thread, parsed, and the resulting
+ * annotation information is handed to a consumer. Failures are counted against the failure budget and a bounded,
+ * uniformly random sample of failure messages is kept using reservoir sampling.
+ * <p>
+ * Instances are not thread-safe and are meant to be used by one thread for one JAR file, or for one range of the
+ * entries of a JAR file, whose sessions then share one {@link FailureBudget}.
+ */
+public final class ScanSession {
+    /**
+     * The number of class files that must be attempted before the maximum failure ratio is enforced.
+     */
+    static final int MIN_CLASS_FILES_FOR_FAILURE_RATIO = 20;
+
+    @NotNull private final ScanLimits limits;
+    @NotNull private final Consumer<? super ClassAnnotationInfo> consumer;
+    @NotNull private final FailureBudget budget;
+    @NotNull private final List<String> sampledFailures = new ArrayList<>();
+    @NotNull private final Random random = new Random();
+    private int entryCount;
+    private int classFileCount;
+    private int failureCount;
+    private long bytesRead;
+    private boolean aborted;
+
+    /**
+     * Creates a scan session.
+     *
+     * @param limits   The limits to enforce.
+     * @param consumer Receives the annotation information of each successfully parsed class file.
+     */
+    public ScanSession(
+            @NotNull final ScanLimits limits,
+            @NotNull final Consumer<? super ClassAnnotationInfo> consumer) {
+        this(limits, consumer, new FailureBudget(limits));
+    }
+
+    /**
+     * Creates a scan session that shares the failure budget of a JAR file with the sessions of its other ranges.
+     *
+     * @param limits   The limits to enforce.
+     * @param consumer Receives the annotation information of each successfully parsed class file.
+     * @param budget   The failure budget of the JAR file.
+     */
+    ScanSession(
+            @NotNull final ScanLimits limits,
+            @NotNull final Consumer<? super ClassAnnotationInfo> consumer,
+            @NotNull final FailureBudget budget) {
+        this.limits = limits;
+        this.consumer = consumer;
+        this.budget = budget;
+    }
+
+    /**
+     * Process one JAR entry. Entries whose names do not end with {@code .class} are only counted.
+     *
+     * @param entryName   The name of the JAR entry.
+     * @param inputStream The input stream positioned at the start of the entry's content.
+     * @param sizeHint    The uncompressed size of the entry or a negative value if unknown.
+     * @return {@code true} if the scan should continue or {@code false} if the failure budget is exhausted.
+     * @throws IOException If reading the entry from the input stream fails.
+     */
+    public boolean processEntry(
+            @NotNull final String entryName,
+            @NotNull final InputStream inputStream,
+            final long sizeHint)
+            throws IOException {
+        if (stopIfExhausted()) {
+            return false;
+        }
+        entryCount++;
+        if (entryName.endsWith(".class")) {
+            processClassFile(entryName, inputStream, sizeHint);
+        }
+        return !aborted;
+    }
+
+    /**
+     * Process one JAR entry whose content was already read, for example by another thread. Entries whose names do
+     * not end with {@code .class} are only counted.
+     *
+     * @param entryName  The name of the JAR entry.
+     * @param classBytes The content of the class file, or {@code null} if the entry is not a class file or if its
+     *                   content exceeds {@link #getMaxEntryLength(ScanLimits)}.
+     * @return {@code true} if the scan should continue or {@code false} if the failure budget is exhausted.
+     */
+    public boolean processEntry(
+            @NotNull final String entryName, @Nullable final byte[] classBytes) {
+        if (stopIfExhausted()) {
+            return false;
+        }
+        entryCount++;
+        if (entryName.endsWith(".class")) {
+            classFileCount++;
+            budget.addClassFile();
+            if (classBytes == null) {
+                recordOversizedClassFile(entryName);
+            } else {
+                parseClassFile(entryName, classBytes, classBytes.length);
+            }
+        }
+        return !aborted;
+    }
+
+    /**
+     * Returns the maximum length of a class file under the given limits.
+     *
+     * @param limits The limits of a scan.
+     * @return the maximum length in bytes.
+     */
+    static int getMaxEntryLength(@NotNull final ScanLimits limits) {
+        return (int) Math.min(limits.maxEntryBytes(), Integer.MAX_VALUE - 8);
+    }
+
+    /**
+     * Abort the session if another session that shares its failure budget exhausted it.
+     */
+    private boolean stopIfExhausted() {
+        if (budget.isExhausted()) {
+            aborted = true;
+        }
+        return aborted;
+    }
+
+    private void processClassFile(
+            @NotNull final String entryName,
+            @NotNull final InputStream inputStream,
+            final long sizeHint)
+            throws IOException {
+        classFileCount++;
+        budget.addClassFile();
+        final ClassBytesBuffer buffer = ClassBytesBuffer.forCurrentThread();
+
+        // May throw IOException
+        final int length =
+                buffer.readFully(inputStream, sizeHint, ScanSession.getMaxEntryLength(limits));
+        if (length < 0) {
+            recordOversizedClassFile(entryName);
+            return;
+        }
+        parseClassFile(entryName, buffer.array(), length);
+    }
+
+    private void parseClassFile(
+            @NotNull final String entryName, @NotNull final byte[] classBytes, final int length) {
+        bytesRead += length;
+
+        try {
+            consumer.accept(
+                    AnnotationCollector.collectAnnotations(
+                            classBytes,
+                            0,
+                            length,
+                            limits.maxEntryParseTime().toNanos(),
+                            limits.plugins(),
+                            limits.classNameTable()));
+        } catch (final AnnotationCollector.ClannClassReaderException e) {
+            recordFailure(entryName, e.getMessage());
+        }
+    }
+
+    private void recordOversizedClassFile(@NotNull final String entryName) {
+        recordFailure(
+                entryName,
+                "Class file exceeds the size limit of "
+                        + ScanSession.getMaxEntryLength(limits)
+                        + " bytes");
+    }
+
+    private void recordFailure(@NotNull final String entryName, final String message) {
+        failureCount++;
+
+        // Reservoir sampling keeps every failure with equal probability in a bounded list
+        final String failure = entryName + ": " + message;
+        if (sampledFailures.size() < limits.failureSampleSize()) {
+            sampledFailures.add(failure);
+        } else {
+            final int index = random.nextInt(failureCount);
+            if (index < limits.failureSampleSize()) {
+                sampledFailures.set(index, failure);
+            }
+        }
+
+        if (budget.addFailure()) {
+            aborted = true;
+        }
+    }
+
+    /**
+     * Returns whether the failure budget has been exhausted.
+     *
+     * @return whether the failure budget has been exhausted.
+     */
+    public boolean isAborted() {
+        return aborted;
+    }
+
+    /**
+     * Returns the number of entries seen so far.
+     *
+     * @return the number of entries seen so far.
+     */
+    public int getEntryCount() {
+        return entryCount;
+    }
+
+    /**
+     * Returns the number of uncompressed class file bytes read so far.
+     *
+     * @return the number of uncompressed class file bytes read so far.
+     */
+    public long getBytesRead() {
+        return bytesRead;
+    }
+
+    /**
+     * Summarize the session as a scan result.
+     *
+     * @param classAnnotationInfos The annotation information collected by the consumer, if any was retained.
+     * @return the scan result.
+     */
+    @NotNull
+    public ScanResult toResult(@NotNull final List<ClassAnnotationInfo> classAnnotationInfos) {
+        final ScanStatus status;
+        if (aborted) {
+            status = ScanStatus.ABORTED;
+        } else if (failureCount > 0) {
+            status = ScanStatus.PARTIAL;
+        } else {
+            status = ScanStatus.COMPLETE;
+        }
+        return new ScanResult(
+                classAnnotationInfos,
+                status,
+                entryCount,
+                classFileCount,
+                failureCount,
+                sampledFailures);
+    }
+}
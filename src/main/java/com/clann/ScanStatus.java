@@ -0,0 +1,20 @@
+package com.clann;
+
+/**
+ * Indicates how completely a JAR file was scanned.
+ */
+public enum ScanStatus {
+    /**
+     * Every class file in the JAR file was parsed successfully.
+     */
+    COMPLETE,
+    /**
+     * Every class file in the JAR file was attempted but one or more class files failed to parse.
+     */
+    PARTIAL,
+    /**
+     * The scan stopped early because the failure budget of its {@link ScanLimits} was exhausted.
+     * Class files after the point of abortion were not attempted.
+     */
+    ABORTED,
+}
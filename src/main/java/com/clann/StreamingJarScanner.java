@@ -0,0 +1,197 @@
+package com.clann;
+
+import com.clann.visitor.ClassAnnotationInfo;
+import java.io.BufferedInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.jar.JarEntry;
+import java.util.jar.JarInputStream;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Scans a JAR file from a non-seekable stream, such as standard input or a pipe, as its entries arrive.
+ * <p>
+ * Decompression and parsing overlap: an inflater thread reads and decompresses the entries of the stream and
+ * hands the content of each class file to the calling thread, which parses it while the next entries are being
+ * decompressed. At most a fixed number of bytes of decompressed content is in flight between the two threads, so
+ * memory use does not depend on the size of the JAR file, and a slow parser applies back pressure to the stream.
+ * Entries are parsed in the order of the stream, on a single thread, so results are the same as a sequential scan.
+ */
+final class StreamingJarScanner {
+    /**
+     * The default number of bytes of decompressed content that may be in flight.
+     */
+    static final int DEFAULT_BUFFER_BYTES = 8 * 1024 * 1024;
+
+    private static final int STREAM_BUFFER_BYTES = 64 * 1024;
+    private static final AtomicInteger THREAD_COUNT = new AtomicInteger();
+
+    /**
+     * Marks the end of the stream.
+     */
+    private static final Item END = new Item("", null, 0, null);
+
+    /**
+     * Prevents instantiation of utility class with a private constructor.
+     */
+    private StreamingJarScanner() {}
+
+    /**
+     * Scan a JAR file from a stream, which is read to the end of the JAR file but not closed.
+     *
+     * @param inputStream          The stream of the JAR file.
+     * @param limits               The limits to enforce during the scan.
+     * @param bufferBytes          The number of bytes of decompressed content that may be in flight.
+     * @param consumer             Receives the annotation information of each class file parsed.
+     * @param classAnnotationInfos The annotation information to include in the result.
+     * @return The status of the scan.
+     * @throws IOException If there is an I/O or ZIP file error when reading the stream.
+     */
+    @NotNull
+    static ScanResult scan(
+            @NotNull final InputStream inputStream,
+            @NotNull final ScanLimits limits,
+            final int bufferBytes,
+            @NotNull final Consumer<? super ClassAnnotationInfo> consumer,
+            @NotNull final List<ClassAnnotationInfo> classAnnotationInfos)
+            throws IOException {
+        if (bufferBytes <= 0) {
+            throw new IllegalArgumentException("bufferBytes must be positive: " + bufferBytes);
+        }
+        final BlockingQueue<Item> queue = new LinkedBlockingQueue<>();
+        final Semaphore budget = new Semaphore(bufferBytes);
+        final Thread inflater =
+                new Thread(
+                        () ->
+                                StreamingJarScanner.inflate(
+                                        inputStream, limits, bufferBytes, queue, budget),
+                        "clann-inflater-" + StreamingJarScanner.THREAD_COUNT.incrementAndGet());
+        // A stream that blocks forever must not keep the JVM alive
+        inflater.setDaemon(true);
+        inflater.start();
+
+        final ScanSession session = new ScanSession(limits, consumer);
+        boolean streamEnded = false;
+        try {
+            Item item = queue.take();
+            while (item != StreamingJarScanner.END) {
+                if (item.failure() != null) {
+                    streamEnded = true;
+                    StreamingJarScanner.rethrow(item.failure());
+                }
+                final boolean proceed = session.processEntry(item.entryName(), item.classBytes());
+                budget.release(item.weight());
+                if (!proceed) {
+                    break;
+                }
+                item = queue.take();
+            }
+            streamEnded = item == StreamingJarScanner.END;
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw (InterruptedIOException)
+                    new InterruptedIOException("Interrupted while scanning a JAR stream")
+                            .initCause(e);
+        } finally {
+            // Stops the inflater if the scan ends early, once it next waits for buffer space
+            if (!streamEnded) {
+                inflater.interrupt();
+            }
+        }
+        return session.toResult(classAnnotationInfos);
+    }
+
+    /**
+     * Rethrow the failure of the inflater thread on the scanning thread, with its original type.
+     */
+    private static void rethrow(@NotNull final Throwable failure) throws IOException {
+        if (failure instanceof IOException ioException) {
+            throw ioException;
+        }
+        if (failure instanceof RuntimeException runtimeException) {
+            throw runtimeException;
+        }
+        throw (Error) failure;
+    }
+
+    /**
+     * Decompress the entries of a JAR stream and hand them to the scanning thread. Runs on the inflater thread.
+     */
+    private static void inflate(
+            @NotNull final InputStream inputStream,
+            @NotNull final ScanLimits limits,
+            final int bufferBytes,
+            @NotNull final BlockingQueue<Item> queue,
+            @NotNull final Semaphore budget) {
+        final int maxLength = ScanSession.getMaxEntryLength(limits);
+        // The stream belongs to the caller, so closing the JarInputStream must not close it
+        final InputStream unclosable =
+                new FilterInputStream(inputStream) {
+                    @Override
+                    public void close() {
+                        // Leave the stream open
+                    }
+                };
+        // The scanning thread waits for a terminal item, so one is queued however the inflater ends
+        Throwable failure = null;
+        try (JarInputStream jarIn =
+                new JarInputStream(
+                        new BufferedInputStream(
+                                unclosable, StreamingJarScanner.STREAM_BUFFER_BYTES))) {
+            JarEntry entry = jarIn.getNextJarEntry();
+            while (entry != null) {
+                byte[] classBytes = null;
+                if (entry.getName().endsWith(".class")) {
+                    final ClassBytesBuffer buffer = ClassBytesBuffer.forCurrentThread();
+                    final int length = buffer.readFully(jarIn, entry.getSize(), maxLength);
+                    // Oversized class files are handed over without content to be recorded as failures
+                    classBytes = length < 0 ? null : Arrays.copyOf(buffer.array(), length);
+                }
+                // An entry larger than the whole budget waits until all others are parsed
+                final int weight =
+                        Math.min(
+                                bufferBytes,
+                                entry.getName().length()
+                                        + (classBytes == null ? 0 : classBytes.length));
+                budget.acquire(weight);
+                queue.add(new Item(entry.getName(), classBytes, weight, null));
+                jarIn.closeEntry();
+                entry = jarIn.getNextJarEntry();
+            }
+        } catch (final IOException | RuntimeException | Error e) {
+            // Includes the SecurityException of a JAR file whose signature does not match its content
+            failure = e;
+        } catch (final InterruptedException e) {
+            // The scan ended early and no longer reads the queue
+            Thread.currentThread().interrupt();
+        } finally {
+            queue.add(failure == null ? StreamingJarScanner.END : new Item("", null, 0, failure));
+        }
+    }
+
+    /**
+     * An entry handed from the inflater thread to the scanning thread, or the failure that ended the stream.
+     *
+     * @param entryName  The name of the JAR entry.
+     * @param classBytes The content of the class file, or {@code null} if the entry is not a class file or if its
+     *                   content exceeds the size limit.
+     * @param weight     The number of permits of the buffer budget held by the entry.
+     * @param failure    The failure reading the stream, an {@link IOException}, {@link RuntimeException} or
+     *                   {@link Error}, or {@code null}.
+     */
+    private record Item(
+            @NotNull String entryName,
+            @Nullable byte[] classBytes,
+            int weight,
+            @Nullable Throwable failure) {}
+}
@@ -0,0 +1,521 @@
+package com.clann;
+
+import com.clann.visitor.ClassAnnotationInfo;
+import java.io.EOFException;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.zip.GZIPInputStream;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Scans the JAR files embedded in a gzip-compressed tar archive, such as a {@code .tar.gz} or {@code .tgz}
+ * distribution bundle, straight from the decompression stream.
+ * <p>
+ * Nothing is extracted and no JAR file is held in memory. A gunzip thread decompresses the archive into a fixed
+ * ring of reusable buffers, the calling thread reads the tar headers from them, and each embedded JAR file is
+ * scanned by {@link StreamingJarScanner}, whose inflater thread reads the JAR entries from the same buffers while
+ * the calling thread parses their class files. Gzip decompression, JAR decompression and class parsing therefore
+ * overlap on three threads, and each stage holds a bounded amount of data, so a slow stage applies back pressure
+ * to the ones before it. Embedded JAR files are scanned one after another, in the order of the archive.
+ */
+final class TarGzScanner {
+    /**
+     * The number of bytes of a buffer of decompressed archive content.
+     */
+    static final int CHUNK_BYTES = 64 * 1024;
+
+    /**
+     * The number of buffers of decompressed archive content, which bounds how far the gunzip thread runs ahead.
+     */
+    static final int CHUNK_COUNT = 16;
+
+    private static final int BLOCK_BYTES = 512;
+
+    /**
+     * The largest GNU long name or PAX extended header that is read, which guards against corrupt sizes.
+     */
+    private static final int MAX_EXTENDED_HEADER_BYTES = 1024 * 1024;
+
+    private static final int NAME_OFFSET = 0;
+    private static final int NAME_LENGTH = 100;
+    private static final int SIZE_OFFSET = 124;
+    private static final int SIZE_LENGTH = 12;
+    private static final int CHECKSUM_OFFSET = 148;
+    private static final int CHECKSUM_LENGTH = 8;
+    private static final int TYPE_OFFSET = 156;
+    private static final int MAGIC_OFFSET = 257;
+    private static final int PREFIX_OFFSET = 345;
+    private static final int PREFIX_LENGTH = 155;
+
+    private static final AtomicInteger THREAD_COUNT = new AtomicInteger();
+
+    /**
+     * Prevents instantiation of utility class with a private constructor.
+     */
+    private TarGzScanner() {}
+
+    /**
+     * Scan the JAR files embedded in a gzip-compressed tar archive read from a stream, which is not closed.
+     *
+     * @param inputStream The stream of the compressed archive.
+     * @param limits      The limits to enforce during the scan of each JAR file.
+     * @param bufferBytes The number of bytes of decompressed class file content that may be in flight.
+     * @param consumer    Receives the annotation information of each class file parsed.
+     * @return The status of the scan of each embedded JAR file, in the order of the archive.
+     * @throws IOException If there is an I/O, gzip, tar or ZIP file error when reading the stream.
+     */
+    @NotNull
+    static List<ScanResult> scan(
+            @NotNull final InputStream inputStream,
+            @NotNull final ScanLimits limits,
+            final int bufferBytes,
+            @NotNull final Consumer<? super ClassAnnotationInfo> consumer)
+            throws IOException {
+        final List<ScanResult> results = new ArrayList<>();
+        try (GunzipPipe archive = new GunzipPipe(inputStream)) {
+            final byte[] header = new byte[TarGzScanner.BLOCK_BYTES];
+            String pendingName = null;
+            long pendingSize = -1;
+            while (TarGzScanner.readHeader(archive, header)) {
+                final String name =
+                        pendingName == null ? TarGzScanner.getEntryName(header) : pendingName;
+                final long size =
+                        pendingSize < 0
+                                ? TarGzScanner.parseNumber(
+                                        header, TarGzScanner.SIZE_OFFSET, TarGzScanner.SIZE_LENGTH)
+                                : pendingSize;
+                pendingName = null;
+                pendingSize = -1;
+                switch (header[TarGzScanner.TYPE_OFFSET]) {
+                    case 'L' -> pendingName = TarGzScanner.readLongName(archive, size);
+                    case 'x' -> {
+                        final String records = TarGzScanner.readExtendedHeader(archive, size);
+                        pendingName = TarGzScanner.getPaxValue(records, "path");
+                        final String paxSize = TarGzScanner.getPaxValue(records, "size");
+                        pendingSize = paxSize == null ? -1 : Long.parseLong(paxSize);
+                    }
+                    case '0', '\0', '7' -> {
+                        if (name.endsWith(".jar")) {
+                            results.add(
+                                    TarGzScanner.scanJar(
+                                            archive, name, size, limits, bufferBytes, consumer));
+                        } else {
+                            archive.skipNBytes(size);
+                        }
+                    }
+                    default -> archive.skipNBytes(size);
+                }
+                archive.skipNBytes(TarGzScanner.getPadding(size));
+            }
+        } catch (final NumberFormatException e) {
+            throw new IOException("Invalid number in tar header: " + e.getMessage(), e);
+        }
+        return results;
+    }
+
+    /**
+     * Scan the JAR file in the current entry of the archive and skip the rest of the entry.
+     */
+    @NotNull
+    private static ScanResult scanJar(
+            @NotNull final InputStream archive,
+            @NotNull final String name,
+            final long size,
+            @NotNull final ScanLimits limits,
+            final int bufferBytes,
+            @NotNull final Consumer<? super ClassAnnotationInfo> consumer)
+            throws IOException {
+        final EntryInputStream entry = new EntryInputStream(archive, size);
+        final ScanResult result;
+        try {
+            result = StreamingJarScanner.scan(entry, limits, bufferBytes, consumer, List.of());
+        } catch (final InterruptedIOException e) {
+            throw e;
+        } catch (final IOException e) {
+            throw new IOException("Error scanning embedded JAR file: " + name, e);
+        }
+        // The central directory, or the rest of a scan that ended early, is not needed
+        archive.skipNBytes(entry.detach());
+        return result;
+    }
+
+    /**
+     * Read the next header block, returning {@code false} at the end of the archive.
+     */
+    @SuppressWarnings("PMD.OnlyOneReturn")
+    private static boolean readHeader(
+            @NotNull final InputStream archive, @NotNull final byte[] header) throws IOException {
+        final int length = archive.readNBytes(header, 0, header.length);
+        if (length == 0) {
+            // Some writers omit the two zero blocks that end the archive
+            return false;
+        }
+        if (length < header.length) {
+            throw new EOFException("Unexpected end of tar archive in a header");
+        }
+        boolean zero = true;
+        for (final byte b : header) {
+            if (b != 0) {
+                zero = false;
+                break;
+            }
+        }
+        if (zero) {
+            return false;
+        }
+        final long checksum =
+                TarGzScanner.parseNumber(
+                        header, TarGzScanner.CHECKSUM_OFFSET, TarGzScanner.CHECKSUM_LENGTH);
+        long unsignedSum = 0;
+        long signedSum = 0;
+        for (int i = 0; i < header.length; i++) {
+            final boolean inChecksum =
+                    i >= TarGzScanner.CHECKSUM_OFFSET
+                            && i < TarGzScanner.CHECKSUM_OFFSET + TarGzScanner.CHECKSUM_LENGTH;
+            // The checksum field is summed as spaces, and old writers summed signed bytes
+            unsignedSum += inChecksum ? ' ' : header[i] & 0xFF;
+            signedSum += inChecksum ? ' ' : header[i];
+        }
+        if (checksum != unsignedSum && checksum != signedSum) {
+            throw new IOException("Not a tar archive, or a corrupt tar header");
+        }
+        return true;
+    }
+
+    /**
+     * Returns the name of the entry of a header, joining the ustar prefix and name fields.
+     */
+    @NotNull
+    private static String getEntryName(@NotNull final byte[] header) {
+        final String name =
+                TarGzScanner.parseString(
+                        header, TarGzScanner.NAME_OFFSET, TarGzScanner.NAME_LENGTH);
+        // Only POSIX headers have a prefix field, and GNU headers end their magic with a space
+        final String magic = TarGzScanner.parseString(header, TarGzScanner.MAGIC_OFFSET, 6);
+        if (!"ustar".equals(magic)) {
+            return name;
+        }
+        final String prefix =
+                TarGzScanner.parseString(
+                        header, TarGzScanner.PREFIX_OFFSET, TarGzScanner.PREFIX_LENGTH);
+        return prefix.isEmpty() ? name : prefix + '/' + name;
+    }
+
+    /**
+     * Read the content of a GNU long name entry, which is the name of the next entry.
+     */
+    @NotNull
+    private static String readLongName(@NotNull final InputStream archive, final long size)
+            throws IOException {
+        final byte[] content = TarGzScanner.readExtendedContent(archive, size);
+        return TarGzScanner.parseString(content, 0, content.length);
+    }
+
+    /**
+     * Read the records of a PAX extended header, which apply to the next entry.
+     */
+    @NotNull
+    private static String readExtendedHeader(@NotNull final InputStream archive, final long size)
+            throws IOException {
+        return new String(
+                TarGzScanner.readExtendedContent(archive, size), StandardCharsets.UTF_8);
+    }
+
+    @NotNull
+    private static byte[] readExtendedContent(@NotNull final InputStream archive, final long size)
+            throws IOException {
+        if (size < 0 || size > TarGzScanner.MAX_EXTENDED_HEADER_BYTES) {
+            throw new IOException("Invalid size of extended tar header: " + size);
+        }
+        final byte[] content = archive.readNBytes((int) size);
+        if (content.length < size) {
+            throw new EOFException("Unexpected end of tar archive in an extended header");
+        }
+        return content;
+    }
+
+    /**
+     * Returns the value of a key in PAX records of the form {@code "<length> <key>=<value>\n"}, or {@code null}.
+     */
+    @Nullable
+    @SuppressWarnings("PMD.OnlyOneReturn")
+    private static String getPaxValue(@NotNull final String records, @NotNull final String key) {
+        for (final String record : records.split("\n")) {
+            final int space = record.indexOf(' ');
+            final int equals = record.indexOf('=', space + 1);
+            if (space >= 0
+                    && equals > space
+                    && record.regionMatches(space + 1, key, 0, key.length())
+                    && equals == space + 1 + key.length()) {
+                return record.substring(equals + 1);
+            }
+        }
+        return null;
+    }
+
+    @NotNull
+    private static String parseString(
+            @NotNull final byte[] bytes, final int offset, final int length) {
+        int end = offset;
+        while (end < offset + length && bytes[end] != 0) {
+            end++;
+        }
+        return new String(bytes, offset, end - offset, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Parse an octal number field, or a base-256 number field as written by GNU tar for large sizes.
+     */
+    private static long parseNumber(
+            @NotNull final byte[] header, final int offset, final int length) {
+        long value = 0;
+        if ((header[offset] & 0x80) != 0) {
+            value = header[offset] & 0x7F;
+            for (int i = offset + 1; i < offset + length; i++) {
+                value = value << 8 | header[i] & 0xFF;
+            }
+        } else {
+            final String octal =
+                    new String(header, offset, length, StandardCharsets.US_ASCII)
+                            .replace('\0', ' ')
+                            .trim();
+            value = octal.isEmpty() ? 0 : Long.parseLong(octal, 8);
+        }
+        return value;
+    }
+
+    private static long getPadding(final long size) {
+        return (TarGzScanner.BLOCK_BYTES - size % TarGzScanner.BLOCK_BYTES)
+                % TarGzScanner.BLOCK_BYTES;
+    }
+
+    /**
+     * The decompressed content of a compressed archive, decompressed ahead of the reader on a gunzip thread.
+     * <p>
+     * The gunzip thread fills buffers taken from a pool of {@link #CHUNK_COUNT} buffers and queues them for the
+     * reader, which returns each buffer to the pool once it is consumed, so no buffer is allocated after the pool.
+     * The stream may be read by one thread at a time.
+     */
+    private static final class GunzipPipe extends InputStream {
+        /**
+         * Marks the end of the decompressed content.
+         */
+        private static final Chunk END = new Chunk(new byte[0], 0, null);
+
+        @NotNull private final BlockingQueue<byte[]> free = new LinkedBlockingQueue<>();
+        @NotNull private final BlockingQueue<Chunk> filled = new LinkedBlockingQueue<>();
+        @NotNull private final Thread gunzip;
+        @Nullable private Chunk chunk;
+        private int position;
+
+        GunzipPipe(@NotNull final InputStream inputStream) {
+            for (int i = 0; i < TarGzScanner.CHUNK_COUNT; i++) {
+                free.add(new byte[TarGzScanner.CHUNK_BYTES]);
+            }
+            gunzip =
+                    new Thread(
+                            () -> decompress(inputStream),
+                            "clann-gunzip-" + TarGzScanner.THREAD_COUNT.incrementAndGet());
+            // A stream that blocks forever must not keep the JVM alive
+            gunzip.setDaemon(true);
+            gunzip.start();
+        }
+
+        /**
+         * Decompress the archive into buffers of the pool. Runs on the gunzip thread.
+         */
+        private void decompress(@NotNull final InputStream inputStream) {
+            // The stream belongs to the caller, so closing the GZIPInputStream must not close it
+            final InputStream unclosable =
+                    new FilterInputStream(inputStream) {
+                        @Override
+                        public void close() {
+                            // Leave the stream open
+                        }
+                    };
+            // The reader waits for a terminal chunk, so one is queued however the decompression ends
+            Throwable failure = null;
+            try (GZIPInputStream gzipIn =
+                    new GZIPInputStream(unclosable, TarGzScanner.CHUNK_BYTES)) {
+                byte[] buffer = free.take();
+                int length = gzipIn.readNBytes(buffer, 0, buffer.length);
+                while (length > 0) {
+                    filled.add(new Chunk(buffer, length, null));
+                    buffer = free.take();
+                    length = gzipIn.readNBytes(buffer, 0, buffer.length);
+                }
+            } catch (final IOException | RuntimeException | Error e) {
+                failure = e;
+            } catch (final InterruptedException e) {
+                // The reader is closed and no longer reads the queue
+                Thread.currentThread().interrupt();
+            } finally {
+                filled.add(failure == null ? GunzipPipe.END : new Chunk(new byte[0], 0, failure));
+            }
+        }
+
+        @Override
+        public int read() throws IOException {
+            final int b;
+            if (fill()) {
+                b = chunk.bytes()[position++] & 0xFF;
+            } else {
+                b = -1;
+            }
+            return b;
+        }
+
+        @Override
+        @SuppressWarnings("PMD.OnlyOneReturn")
+        public int read(@NotNull final byte[] b, final int off, final int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            if (!fill()) {
+                return -1;
+            }
+            final int count = Math.min(len, chunk.length() - position);
+            System.arraycopy(chunk.bytes(), position, b, off, count);
+            position += count;
+            return count;
+        }
+
+        @Override
+        public long skip(final long n) throws IOException {
+            long count = 0;
+            if (n > 0 && fill()) {
+                count = Math.min(n, chunk.length() - position);
+                position += (int) count;
+            }
+            return count;
+        }
+
+        /**
+         * Make the current chunk hold unread content, returning {@code false} at the end of the content.
+         */
+        @SuppressWarnings("PMD.OnlyOneReturn")
+        private boolean fill() throws IOException {
+            if (chunk == GunzipPipe.END) {
+                return false;
+            }
+            if (chunk != null && position < chunk.length()) {
+                return true;
+            }
+            if (chunk != null) {
+                free.add(chunk.bytes());
+                chunk = null;
+            }
+            final Chunk next;
+            try {
+                next = filled.take();
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw (InterruptedIOException)
+                        new InterruptedIOException("Interrupted while reading a tar.gz archive")
+                                .initCause(e);
+            }
+            if (next.failure() != null) {
+                // Queue the failure again so that later reads fail the same way
+                filled.add(next);
+                if (next.failure() instanceof RuntimeException runtimeException) {
+                    throw runtimeException;
+                }
+                if (next.failure() instanceof Error error) {
+                    throw error;
+                }
+                throw new IOException(
+                        "Error decompressing tar.gz archive: " + next.failure().getMessage(),
+                        next.failure());
+            }
+            chunk = next;
+            position = 0;
+            return next != GunzipPipe.END;
+        }
+
+        @Override
+        public void close() {
+            // Stops the gunzip thread once it next waits for a free buffer
+            gunzip.interrupt();
+        }
+    }
+
+    /**
+     * A buffer of decompressed content handed from the gunzip thread to the reader, or the failure that ended the
+     * decompression.
+     *
+     * @param bytes   The buffer, taken from the pool.
+     * @param length  The number of bytes of content in the buffer.
+     * @param failure The failure decompressing the archive, an {@link IOException}, {@link RuntimeException} or
+     *                {@link Error}, or {@code null}.
+     */
+    private record Chunk(@NotNull byte[] bytes, int length, @Nullable Throwable failure) {}
+
+    /**
+     * The content of an embedded JAR file, read by the inflater thread of {@link StreamingJarScanner}.
+     * <p>
+     * A scan that ends early may leave its inflater thread reading, so the entry is detached before the calling
+     * thread reads the archive again: reads hold the lock of the entry, and fail once it is detached.
+     */
+    private static final class EntryInputStream extends InputStream {
+        @NotNull private final InputStream archive;
+        private long remaining;
+        private boolean detached;
+
+        EntryInputStream(@NotNull final InputStream archive, final long size) {
+            this.archive = archive;
+            this.remaining = size;
+        }
+
+        @Override
+        public synchronized int read() throws IOException {
+            final byte[] b = new byte[1];
+            return read(b, 0, 1) < 0 ? -1 : b[0] & 0xFF;
+        }
+
+        @Override
+        @SuppressWarnings("PMD.OnlyOneReturn")
+        public synchronized int read(@NotNull final byte[] b, final int off, final int len)
+                throws IOException {
+            if (detached) {
+                throw new IOException("The scan of the embedded JAR file has ended");
+            }
+            if (remaining == 0) {
+                return -1;
+            }
+            if (len == 0) {
+                return 0;
+            }
+            final int count = archive.read(b, off, (int) Math.min(len, remaining));
+            if (count < 0) {
+                throw new EOFException("Unexpected end of tar archive in an embedded JAR file");
+            }
+            remaining -= count;
+            return count;
+        }
+
+        /**
+         * Detach the entry from the archive, waiting for a read in progress on another thread.
+         *
+         * @return the number of bytes of the entry that were not read.
+         */
+        synchronized long detach() {
+            detached = true;
+            return remaining;
+        }
+
+        @Override
+        public void close() {
+            // The archive is read on after the entry
+        }
+    }
+}
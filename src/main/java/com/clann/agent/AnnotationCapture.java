@@ -0,0 +1,201 @@
+package com.clann.agent;
+
+import com.clann.stats.AnnotationStatistics;
+import com.clann.visitor.AnnotationCollector;
+import java.lang.instrument.ClassFileTransformer;
+import java.lang.management.ManagementFactory;
+import java.security.ProtectionDomain;
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.ObjectName;
+import org.jetbrains.annotations.NotNull;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Captures the annotations of classes as they are loaded, as a {@link ClassFileTransformer} that never transforms.
+ * <p>
+ * The class-loading thread only offers the class file bytes to a bounded queue, which never blocks: when the
+ * queue is full the class is dropped and counted instead. A single daemon collector thread parses the queued class
+ * files with {@link AnnotationCollector} and aggregates them into {@link AnnotationStatistics}, so parsing never
+ * slows down class loading. The collector thread also registers the {@link AnnotationCaptureMXBean} once it starts,
+ * so that initializing JMX does not add to the startup time of the application.
+ * <p>
+ * This class is thread-safe.
+ */
+public final class AnnotationCapture implements ClassFileTransformer, AnnotationCaptureMXBean {
+    /**
+     * The name under which the management interface is registered.
+     */
+    public static final String OBJECT_NAME = "com.clann:type=AnnotationCapture";
+
+    /**
+     * The prefix of the internal names of the classes of clann itself, which are not captured.
+     */
+    private static final String CLANN_PACKAGE_PREFIX = "com/clann/";
+
+    @NotNull private final BlockingQueue<byte[]> queue;
+
+    /**
+     * The statistics of the captured classes, created by the collector thread so that loading and initializing
+     * clann's classes does not add to the startup time of the application.
+     */
+    @SuppressWarnings("PMD.AvoidUsingVolatile")
+    private volatile AnnotationStatistics statistics;
+
+    @NotNull private final LongAdder queuedCount = new LongAdder();
+    @NotNull private final LongAdder droppedCount = new LongAdder();
+    @NotNull private final LongAdder capturedCount = new LongAdder();
+    @NotNull private final LongAdder failedCount = new LongAdder();
+    @NotNull private final Thread collector;
+
+    /**
+     * Creates a capture whose collector thread is not started yet.
+     *
+     * @param queueCapacity The maximum number of class files waiting to be parsed.
+     * @throws IllegalArgumentException If the queue capacity is not positive.
+     */
+    public AnnotationCapture(final int queueCapacity) {
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        // A lambda would initialize method handles on the thread starting the agent, which takes milliseconds
+        this.collector =
+                new Thread("clann-agent-collector") {
+                    @Override
+                    public void run() {
+                        collect();
+                    }
+                };
+        this.collector.setDaemon(true);
+        // Touch the counters once so that their classes are not loaded on a class-loading thread
+        queuedCount.add(0);
+        droppedCount.add(0);
+    }
+
+    /**
+     * Start the collector thread.
+     */
+    public void start() {
+        collector.start();
+    }
+
+    /**
+     * Queue the bytes of a class being loaded for capture. Classes being redefined or retransformed were already
+     * queued when they were first loaded and are ignored, as are the classes of clann itself.
+     *
+     * @return {@code null}, as the class file is never transformed.
+     */
+    @Override
+    public byte[] transform(
+            final ClassLoader loader,
+            final String className,
+            final Class<?> classBeingRedefined,
+            final ProtectionDomain protectionDomain,
+            final byte[] classfileBuffer) {
+        // The buffer is a new array for each call that no transformer may modify, so it is not copied
+        if (classBeingRedefined == null
+                && classfileBuffer != null
+                && (className == null
+                        || !className.startsWith(AnnotationCapture.CLANN_PACKAGE_PREFIX))) {
+            if (queue.offer(classfileBuffer)) {
+                queuedCount.increment();
+            } else {
+                droppedCount.increment();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Wait until every queued class has been captured or has failed.
+     *
+     * @param timeout The maximum time to wait.
+     * @return whether all queued classes were processed within the timeout.
+     * @throws InterruptedException If the current thread is interrupted while waiting.
+     */
+    @SuppressWarnings("PMD.OnlyOneReturn")
+    public boolean awaitIdle(@NotNull final Duration timeout) throws InterruptedException {
+        final long deadline = System.nanoTime() + timeout.toNanos();
+        while (capturedCount.sum() + failedCount.sum() < queuedCount.sum()) {
+            if (System.nanoTime() - deadline >= 0) {
+                return false;
+            }
+            Thread.sleep(1);
+        }
+        return true;
+    }
+
+    @Override
+    public long getQueuedClassCount() {
+        return queuedCount.sum();
+    }
+
+    @Override
+    public long getDroppedClassCount() {
+        return droppedCount.sum();
+    }
+
+    @Override
+    public long getCapturedClassCount() {
+        return capturedCount.sum();
+    }
+
+    @Override
+    public long getFailedClassCount() {
+        return failedCount.sum();
+    }
+
+    @Override
+    public int getPendingClassCount() {
+        return queue.size();
+    }
+
+    @Override
+    @NotNull
+    public String getReport() {
+        final StringBuilder stringBuilder = new StringBuilder();
+        stringBuilder.append("\nqueuedClasses: ").append(getQueuedClassCount());
+        stringBuilder.append("\ndroppedClasses: ").append(getDroppedClassCount());
+        stringBuilder.append("\ncapturedClasses: ").append(getCapturedClassCount());
+        stringBuilder.append("\nfailedClasses: ").append(getFailedClassCount());
+        final AnnotationStatistics current = statistics;
+        if (current != null) {
+            stringBuilder.append(current.getReport());
+        }
+        return stringBuilder.toString();
+    }
+
+    /**
+     * Parse queued class files until the JVM exits. Runs on the collector thread.
+     */
+    private void collect() {
+        final AnnotationStatistics collected = new AnnotationStatistics();
+        statistics = collected;
+        registerMXBean();
+        try {
+            while (true) {
+                final byte[] classBytes = queue.take();
+                try {
+                    collected.accept(AnnotationCollector.collectAnnotations(classBytes));
+                    capturedCount.increment();
+                } catch (final AnnotationCollector.ClannClassReaderException e) {
+                    failedCount.increment();
+                }
+            }
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void registerMXBean() {
+        try {
+            ManagementFactory.getPlatformMBeanServer()
+                    .registerMBean(this, new ObjectName(AnnotationCapture.OBJECT_NAME));
+        } catch (final JMException e) {
+            // The logger is only created on failure so that logging is not initialized at startup
+            LoggerFactory.getLogger(AnnotationCapture.class.getSimpleName())
+                    .warn("Failed to register {}", AnnotationCapture.OBJECT_NAME, e);
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.clann.agent;
+
+/**
+ * The management interface of an {@link AnnotationCapture}, through which the aggregated report of the classes
+ * loaded so far can be read on demand, for example with JConsole.
+ */
+public interface AnnotationCaptureMXBean {
+    /**
+     * Returns the number of loaded classes queued for capture.
+     *
+     * @return the number of classes queued.
+     */
+    long getQueuedClassCount();
+
+    /**
+     * Returns the number of loaded classes that were not captured because the queue was full.
+     *
+     * @return the number of classes dropped.
+     */
+    long getDroppedClassCount();
+
+    /**
+     * Returns the number of queued classes whose annotations were captured.
+     *
+     * @return the number of classes captured.
+     */
+    long getCapturedClassCount();
+
+    /**
+     * Returns the number of queued classes that could not be parsed.
+     *
+     * @return the number of classes that failed.
+     */
+    long getFailedClassCount();
+
+    /**
+     * Returns the number of classes waiting in the queue.
+     *
+     * @return the number of classes pending.
+     */
+    int getPendingClassCount();
+
+    /**
+     * Returns the counters and the aggregated statistics of each annotation of the captured classes.
+     *
+     * @return the report.
+     */
+    String getReport();
+}
@@ -0,0 +1,114 @@
+package com.clann.agent;
+
+import java.io.IOException;
+import java.lang.instrument.Instrumentation;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The entry point of the clann Java agent, which captures the annotations of the classes an application loads,
+ * including proxies, plugins and other classes generated or loaded at runtime.
+ * <p>
+ * Start an application with the agent, optionally with comma-separated options:
+ * <pre>
+ * java -javaagent:clann-all.jar=queue=4096,report=/tmp/annotations.txt -jar app.jar
+ * </pre>
+ * {@code queue} is the maximum number of loaded classes waiting to be parsed, beyond which classes are dropped and
+ * counted, and {@code report} is a file the report is written to when the application exits. The report can also be
+ * read at any time from the {@code getReport} operation of the {@value AnnotationCapture#OBJECT_NAME} MXBean. The
+ * agent can also be attached to a running application, in which case only classes loaded after attaching are
+ * captured.
+ * <p>
+ * Starting the agent only registers a transformer and starts a thread, so it adds next to nothing to the startup
+ * time of the application.
+ */
+public final class ClannAgent {
+    /**
+     * The default maximum number of loaded classes waiting to be parsed.
+     */
+    public static final int DEFAULT_QUEUE_CAPACITY = 4096;
+
+    /**
+     * Prevents instantiation of utility class with a private constructor.
+     */
+    private ClannAgent() {}
+
+    /**
+     * Start the agent before the main method of the application.
+     *
+     * @param agentArgs       The options of the agent, or {@code null}.
+     * @param instrumentation The instrumentation of the JVM.
+     */
+    public static void premain(
+            @Nullable final String agentArgs, @NotNull final Instrumentation instrumentation) {
+        ClannAgent.start(agentArgs, instrumentation);
+    }
+
+    /**
+     * Start the agent in a running application.
+     *
+     * @param agentArgs       The options of the agent, or {@code null}.
+     * @param instrumentation The instrumentation of the JVM.
+     */
+    public static void agentmain(
+            @Nullable final String agentArgs, @NotNull final Instrumentation instrumentation) {
+        ClannAgent.start(agentArgs, instrumentation);
+    }
+
+    /**
+     * Start capturing the annotations of the classes loaded from now on.
+     *
+     * @param agentArgs       The options of the agent, or {@code null}.
+     * @param instrumentation The instrumentation of the JVM.
+     * @return the started capture.
+     * @throws IllegalArgumentException If the options are not valid.
+     */
+    @NotNull
+    public static AnnotationCapture start(
+            @Nullable final String agentArgs, @NotNull final Instrumentation instrumentation) {
+        int queueCapacity = ClannAgent.DEFAULT_QUEUE_CAPACITY;
+        Path reportFile = null;
+        if (agentArgs != null && !agentArgs.isBlank()) {
+            for (final String option : agentArgs.split(",")) {
+                final int separator = option.indexOf('=');
+                final String name = separator < 0 ? option : option.substring(0, separator);
+                final String value = separator < 0 ? "" : option.substring(separator + 1);
+                switch (name.strip()) {
+                    case "queue" -> queueCapacity = Integer.parseInt(value.strip());
+                    case "report" -> reportFile = Path.of(value.strip());
+                    default -> throw new IllegalArgumentException(
+                            "Unknown clann agent option: " + option);
+                }
+            }
+        }
+
+        final AnnotationCapture capture = new AnnotationCapture(queueCapacity);
+        capture.start();
+        instrumentation.addTransformer(capture);
+        if (reportFile != null) {
+            final Path file = reportFile;
+            Runtime.getRuntime()
+                    .addShutdownHook(
+                            new Thread("clann-agent-report") {
+                                @Override
+                                public void run() {
+                                    ClannAgent.writeReport(capture, file);
+                                }
+                            });
+        }
+        return capture;
+    }
+
+    private static void writeReport(
+            @NotNull final AnnotationCapture capture, @NotNull final Path reportFile) {
+        try {
+            Files.writeString(reportFile, capture.getReport());
+        } catch (final IOException e) {
+            LoggerFactory.getLogger(ClannAgent.class.getSimpleName())
+                    .error("Failed to write the agent report: {}", reportFile, e);
+        }
+    }
+}
@@ -0,0 +1,5 @@
+/**
+ * Groups classes of the Java agent that captures the annotations of classes as they are loaded by a running
+ * application, including classes generated at runtime that never appear in a JAR file.
+ */
+package com.clann.agent;
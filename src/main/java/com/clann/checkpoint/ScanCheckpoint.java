@@ -0,0 +1,464 @@
+package com.clann.checkpoint;
+
+import com.clann.JarScanScheduler;
+import com.clann.ScanResult;
+import com.clann.ScanStatus;
+import com.clann.stats.AnnotationStatistics;
+import com.clann.visitor.ClassAnnotationInfo;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Periodically saves the progress of an aggregated scan on a {@link JarScanScheduler} to a compact file, so that a
+ * scan that is interrupted can be resumed without scanning again what it completed.
+ * <p>
+ * Each range of entries is counted into its own {@link AnnotationStatistics}. When a range is complete, the worker
+ * thread only queues its statistics, without waiting for anything. A single writer thread merges the queued ranges
+ * into the statistics of the scan and, at most once per interval, writes the completed ranges and the merged
+ * statistics to a temporary file that is then moved over the checkpoint file. The checkpoint therefore always
+ * counts exactly the classes of the ranges it lists as completed, and a scan that dies while writing it leaves the
+ * previous checkpoint in place.
+ * <p>
+ * The file starts with a magic number and a version, followed by the scan options, the completed ranges with the
+ * size and modification time of their JAR file and the outcome of their scan, and the statistics.
+ */
+public final class ScanCheckpoint
+        implements JarScanScheduler.RangeTracker<ScanCheckpoint.RangeStatistics>, Closeable {
+    /**
+     * The default interval between two writes of the checkpoint file.
+     */
+    public static final Duration DEFAULT_INTERVAL = Duration.ofSeconds(30);
+
+    private static final org.slf4j.Logger LOGGER =
+            LoggerFactory.getLogger(ScanCheckpoint.class.getSimpleName());
+
+    /**
+     * The first four bytes of a checkpoint file, {@code CLCK}.
+     */
+    private static final int MAGIC = 0x434C434B;
+
+    private static final int VERSION = 1;
+    private static final int BUFFER_BYTES = 64 * 1024;
+    private static final ScanStatus[] STATUSES = ScanStatus.values();
+
+    /**
+     * Queued after the last completed range to stop the writer thread.
+     */
+    private static final CompletedRange STOP = new CompletedRange(null, null, null);
+
+    @NotNull private final Path file;
+    @NotNull private final String scanOptions;
+    private final long intervalNanos;
+    @NotNull private final Consumer<ClassAnnotationInfo> processor;
+
+    /**
+     * The ranges completed by an earlier scan, by range with an absolute JAR file. Never changes.
+     */
+    @NotNull private final Map<JarScanScheduler.RangeKey, RangeRecord> resumedRanges;
+
+    @NotNull private final BlockingQueue<CompletedRange> queue = new LinkedBlockingQueue<>();
+    @NotNull private final Thread writer;
+
+    /**
+     * The completed ranges and the statistics of their classes, only accessed by the writer thread until it ends.
+     */
+    @NotNull private final List<RangeRecord> completedRanges;
+
+    @NotNull private final AnnotationStatistics statistics;
+
+    /**
+     * The error of the last write of the checkpoint file, if it failed, only accessed by the writer thread until it
+     * ends.
+     */
+    @Nullable private IOException writeFailure;
+
+    private boolean closed;
+
+    private ScanCheckpoint(
+            @NotNull final Path file,
+            @NotNull final String scanOptions,
+            @NotNull final Duration interval,
+            @NotNull final Consumer<ClassAnnotationInfo> processor,
+            @NotNull final List<RangeRecord> resumedRanges,
+            @NotNull final AnnotationStatistics statistics) {
+        this.file = file;
+        this.scanOptions = scanOptions;
+        this.intervalNanos = interval.toNanos();
+        this.processor = processor;
+        this.resumedRanges = new HashMap<>();
+        resumedRanges.forEach(range -> this.resumedRanges.put(range.key(), range));
+        this.completedRanges = new ArrayList<>(resumedRanges);
+        this.statistics = statistics;
+        this.writer = new Thread(this::writeCheckpoints, "clann-checkpoint");
+        this.writer.setDaemon(true);
+    }
+
+    /**
+     * Start checkpointing a new scan, replacing any earlier checkpoint file.
+     *
+     * @param file        The checkpoint file.
+     * @param scanOptions Identifies the options that change how JAR files are split into ranges and how classes are
+     *                    counted, which must be the same to resume the scan.
+     * @param interval    The interval between two writes of the checkpoint file.
+     * @param processor   Processes each class before it is counted, for example to add meta-annotations.
+     * @return the checkpoint, which must be closed after the scan.
+     */
+    @NotNull
+    public static ScanCheckpoint start(
+            @NotNull final Path file,
+            @NotNull final String scanOptions,
+            @NotNull final Duration interval,
+            @NotNull final Consumer<ClassAnnotationInfo> processor) {
+        final ScanCheckpoint checkpoint =
+                new ScanCheckpoint(
+                        file,
+                        scanOptions,
+                        interval,
+                        processor,
+                        List.of(),
+                        new AnnotationStatistics());
+        checkpoint.writer.start();
+        return checkpoint;
+    }
+
+    /**
+     * Resume the scan saved in a checkpoint file, or start a new scan if there is no checkpoint file yet.
+     *
+     * @param file        The checkpoint file.
+     * @param jarFiles    The JAR files of the scan, which must include every JAR file of the checkpoint.
+     * @param scanOptions Identifies the options of the scan, which must be those of the checkpoint.
+     * @param interval    The interval between two writes of the checkpoint file.
+     * @param processor   Processes each class before it is counted, for example to add meta-annotations.
+     * @return the checkpoint, which must be closed after the scan.
+     * @throws IOException If the checkpoint file cannot be read, was written with other scan options, or lists a
+     *                     JAR file that is not scanned or that changed since.
+     */
+    @NotNull
+    @SuppressWarnings("PMD.OnlyOneReturn")
+    public static ScanCheckpoint resume(
+            @NotNull final Path file,
+            @NotNull final List<File> jarFiles,
+            @NotNull final String scanOptions,
+            @NotNull final Duration interval,
+            @NotNull final Consumer<ClassAnnotationInfo> processor)
+            throws IOException {
+        if (!Files.exists(file)) {
+            ScanCheckpoint.LOGGER.info("No checkpoint {} yet, starting a new scan", file);
+            return ScanCheckpoint.start(file, scanOptions, interval, processor);
+        }
+
+        final Set<File> scannedJarFiles = new HashSet<>();
+        jarFiles.forEach(jarFile -> scannedJarFiles.add(jarFile.getAbsoluteFile()));
+        final List<RangeRecord> resumedRanges = new ArrayList<>();
+        final AnnotationStatistics statistics;
+        try (DataInputStream in =
+                new DataInputStream(
+                        new BufferedInputStream(
+                                Files.newInputStream(file), ScanCheckpoint.BUFFER_BYTES))) {
+            if (in.readInt() != ScanCheckpoint.MAGIC) {
+                throw new IOException("Not a clann checkpoint: " + file);
+            }
+            final int version = in.readInt();
+            if (version != ScanCheckpoint.VERSION) {
+                throw new IOException(
+                        "Unsupported clann checkpoint version " + version + ": " + file);
+            }
+            final byte[] checkpointOptions = new byte[in.readInt()];
+            in.readFully(checkpointOptions);
+            if (!scanOptions.equals(new String(checkpointOptions, StandardCharsets.UTF_8))) {
+                throw new IOException(
+                        "The checkpoint was written with other scan options: " + file);
+            }
+            final int rangeCount = in.readInt();
+            for (int i = 0; i < rangeCount; i++) {
+                final RangeRecord range = RangeRecord.readFrom(in);
+                final File jarFile = range.key().jarFile();
+                if (!scannedJarFiles.contains(jarFile)) {
+                    throw new IOException(
+                            "The checkpoint includes a JAR file that is not scanned: " + jarFile);
+                }
+                if (jarFile.length() != range.jarLength()
+                        || jarFile.lastModified() != range.jarLastModified()) {
+                    throw new IOException("The JAR file changed after the checkpoint: " + jarFile);
+                }
+                resumedRanges.add(range);
+            }
+            statistics = AnnotationStatistics.readFrom(in);
+        }
+
+        ScanCheckpoint.LOGGER.info(
+                "Resuming the scan of {} with {} completed ranges of entries",
+                file,
+                resumedRanges.size());
+        final ScanCheckpoint checkpoint =
+                new ScanCheckpoint(
+                        file, scanOptions, interval, processor, resumedRanges, statistics);
+        checkpoint.writer.start();
+        return checkpoint;
+    }
+
+    /**
+     * Returns the number of ranges of entries that were completed by an earlier scan.
+     *
+     * @return the number of resumed ranges.
+     */
+    public int getResumedRangeCount() {
+        return resumedRanges.size();
+    }
+
+    @Nullable
+    @Override
+    public ScanResult getCompletedRange(@NotNull final JarScanScheduler.RangeKey range) {
+        final RangeRecord completed = resumedRanges.get(ScanCheckpoint.toAbsoluteKey(range));
+        return completed == null ? null : completed.toResult();
+    }
+
+    @NotNull
+    @Override
+    public RangeStatistics startRange(@NotNull final JarScanScheduler.RangeKey range) {
+        return new RangeStatistics(processor);
+    }
+
+    @Override
+    public void completeRange(
+            @NotNull final JarScanScheduler.RangeKey range,
+            @NotNull final RangeStatistics consumer,
+            @NotNull final ScanResult result) {
+        // The queue is unbounded, so a worker never waits for the writer thread
+        queue.add(new CompletedRange(range, consumer.statistics, result));
+    }
+
+    /**
+     * Returns the statistics of the classes of every completed range, including those of an earlier scan.
+     *
+     * @return the statistics.
+     * @throws IllegalStateException If the checkpoint is not closed yet.
+     */
+    @NotNull
+    public AnnotationStatistics getStatistics() {
+        if (!closed) {
+            throw new IllegalStateException("The checkpoint is not closed");
+        }
+        return statistics;
+    }
+
+    /**
+     * Merge the ranges completed so far, write the checkpoint file a last time, and stop the writer thread.
+     *
+     * @throws IOException If the last write of the checkpoint file fails.
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        queue.add(ScanCheckpoint.STOP);
+        try {
+            writer.join();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted writing the checkpoint: " + file);
+        }
+        closed = true;
+        if (writeFailure != null) {
+            throw writeFailure;
+        }
+    }
+
+    /**
+     * Merge completed ranges as they are queued and write the checkpoint file at most once per interval. Runs on
+     * the writer thread.
+     */
+    private void writeCheckpoints() {
+        long nextWrite = System.nanoTime() + intervalNanos;
+        boolean changed = false;
+        try {
+            while (true) {
+                final CompletedRange completed =
+                        queue.poll(
+                                Math.max(0, nextWrite - System.nanoTime()), TimeUnit.NANOSECONDS);
+                if (completed == ScanCheckpoint.STOP) {
+                    break;
+                }
+                if (completed != null) {
+                    statistics.merge(completed.statistics());
+                    completedRanges.add(RangeRecord.of(completed.range(), completed.result()));
+                    changed = true;
+                }
+                if (changed && System.nanoTime() - nextWrite >= 0) {
+                    writeFile();
+                    changed = false;
+                    nextWrite = System.nanoTime() + intervalNanos;
+                }
+            }
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        writeFile();
+    }
+
+    /**
+     * Write the checkpoint file, logging a failure, which the next write may fix. Runs on the writer thread.
+     */
+    private void writeFile() {
+        try {
+            final Path directory = file.toAbsolutePath().getParent();
+            Files.createDirectories(directory);
+            final Path tempFile =
+                    Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+            try {
+                try (DataOutputStream out =
+                        new DataOutputStream(
+                                new BufferedOutputStream(
+                                        Files.newOutputStream(tempFile),
+                                        ScanCheckpoint.BUFFER_BYTES))) {
+                    out.writeInt(ScanCheckpoint.MAGIC);
+                    out.writeInt(ScanCheckpoint.VERSION);
+                    final byte[] options = scanOptions.getBytes(StandardCharsets.UTF_8);
+                    out.writeInt(options.length);
+                    out.write(options);
+                    out.writeInt(completedRanges.size());
+                    for (final RangeRecord range : completedRanges) {
+                        range.writeTo(out);
+                    }
+                    statistics.writeTo(out);
+                }
+                Files.move(
+                        tempFile,
+                        file,
+                        StandardCopyOption.REPLACE_EXISTING,
+                        StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(tempFile);
+            }
+            writeFailure = null;
+        } catch (final IOException e) {
+            ScanCheckpoint.LOGGER.warn("Error writing checkpoint: {}", file, e);
+            writeFailure = e;
+        }
+    }
+
+    @NotNull
+    private static JarScanScheduler.RangeKey toAbsoluteKey(
+            @NotNull final JarScanScheduler.RangeKey range) {
+        return new JarScanScheduler.RangeKey(
+                range.jarFile().getAbsoluteFile(), range.fromEntry(), range.toEntry());
+    }
+
+    /**
+     * Counts the classes of one range of entries.
+     */
+    public static final class RangeStatistics implements Consumer<ClassAnnotationInfo> {
+        @NotNull private final Consumer<ClassAnnotationInfo> processor;
+        @NotNull private final AnnotationStatistics statistics = new AnnotationStatistics();
+
+        RangeStatistics(@NotNull final Consumer<ClassAnnotationInfo> processor) {
+            this.processor = processor;
+        }
+
+        @Override
+        public void accept(@NotNull final ClassAnnotationInfo classAnnotationInfo) {
+            processor.accept(classAnnotationInfo);
+            statistics.accept(classAnnotationInfo);
+        }
+    }
+
+    /**
+     * A range that a worker completed and queued for the writer thread.
+     */
+    private record CompletedRange(
+            JarScanScheduler.RangeKey range, AnnotationStatistics statistics, ScanResult result) {}
+
+    /**
+     * A completed range as stored in the checkpoint file.
+     *
+     * @param key             The range, with an absolute JAR file.
+     * @param jarLength       The size of the JAR file when the range was scanned.
+     * @param jarLastModified The modification time of the JAR file when the range was scanned.
+     * @param status          How completely the range was scanned.
+     * @param entryCount      The number of entries of the range.
+     * @param classFileCount  The number of class files attempted.
+     * @param failureCount    The number of class files that failed to parse.
+     */
+    private record RangeRecord(
+            @NotNull JarScanScheduler.RangeKey key,
+            long jarLength,
+            long jarLastModified,
+            @NotNull ScanStatus status,
+            int entryCount,
+            int classFileCount,
+            int failureCount) {
+        @NotNull
+        static RangeRecord of(
+                @NotNull final JarScanScheduler.RangeKey range, @NotNull final ScanResult result) {
+            final JarScanScheduler.RangeKey key = ScanCheckpoint.toAbsoluteKey(range);
+            return new RangeRecord(
+                    key,
+                    key.jarFile().length(),
+                    key.jarFile().lastModified(),
+                    result.getStatus(),
+                    result.getEntryCount(),
+                    result.getClassFileCount(),
+                    result.getFailureCount());
+        }
+
+        @NotNull
+        static RangeRecord readFrom(@NotNull final DataInputStream in) throws IOException {
+            final File jarFile = new File(in.readUTF());
+            return new RangeRecord(
+                    new JarScanScheduler.RangeKey(jarFile, in.readInt(), in.readInt()),
+                    in.readLong(),
+                    in.readLong(),
+                    ScanCheckpoint.STATUSES[in.readUnsignedByte()],
+                    in.readInt(),
+                    in.readInt(),
+                    in.readInt());
+        }
+
+        void writeTo(@NotNull final DataOutputStream out) throws IOException {
+            out.writeUTF(key.jarFile().getPath());
+            out.writeInt(key.fromEntry());
+            out.writeInt(key.toEntry());
+            out.writeLong(jarLength);
+            out.writeLong(jarLastModified);
+            out.writeByte(status.ordinal());
+            out.writeInt(entryCount);
+            out.writeInt(classFileCount);
+            out.writeInt(failureCount);
+        }
+
+        /**
+         * Returns the result of the range, without annotation information or sampled failures, which are not
+         * stored.
+         */
+        @NotNull
+        ScanResult toResult() {
+            return new ScanResult(
+                    List.of(), status, entryCount, classFileCount, failureCount, List.of());
+        }
+    }
+}
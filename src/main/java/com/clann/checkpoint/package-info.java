@@ -0,0 +1,4 @@
+/**
+ * Groups classes that checkpoint the progress of long scans so that they can be resumed.
+ */
+package com.clann.checkpoint;
@@ -0,0 +1,312 @@
+package com.clann.index;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.annotation.Annotation;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
+
+/**
+ * Reads an annotation index written by {@link AnnotationIndexWriter}, to find the classes that use an annotation
+ * without scanning the classpath.
+ * <p>
+ * This class only depends on the JDK, so that applications can use it at startup without pulling in the
+ * dependencies of clann, and can even copy it into their own code. An index file is memory-mapped and read in
+ * place: opening it reads a fixed-size header, and looking up an annotation is a binary search over a table of
+ * fixed-size entries that only decodes the class names it returns.
+ * <p>
+ * Annotation and class names are binary names, such as {@code jakarta.persistence.Entity}, as returned by
+ * {@link Class#getName()}. Instances are immutable and thread-safe.
+ */
+public final class AnnotationIndex {
+    /**
+     * The name of the resource that holds the annotation index of a JAR file or class directory.
+     */
+    public static final String RESOURCE_NAME = "META-INF/clann/annotations.idx";
+
+    /**
+     * The first four bytes of an index file, {@code CLIX}.
+     */
+    static final int MAGIC = 0x434C4958;
+
+    /**
+     * The version of the index file format, incremented whenever the format changes.
+     */
+    static final int VERSION = 1;
+
+    /**
+     * The size of the header: magic, version, level count, annotation count, class count and string pool offset.
+     */
+    static final int HEADER_BYTES = 6 * Integer.BYTES;
+
+    /**
+     * The size of an entry of the annotation table: name offset, first posting and posting count.
+     */
+    static final int ANNOTATION_ENTRY_BYTES = 3 * Integer.BYTES;
+
+    /**
+     * The size of a posting: class id and bit mask of levels.
+     */
+    static final int POSTING_BYTES = 2 * Integer.BYTES;
+
+    private final ByteBuffer buffer;
+    private final int levelCount;
+    private final int annotationCount;
+    private final int classCount;
+    private final int annotationsOffset;
+    private final int classesOffset;
+    private final int postingsOffset;
+    private final int stringsOffset;
+
+    private AnnotationIndex(final ByteBuffer buffer) throws IOException {
+        this.buffer = buffer;
+        if (buffer.capacity() < AnnotationIndex.HEADER_BYTES
+                || buffer.getInt(0) != AnnotationIndex.MAGIC) {
+            throw new IOException("Not a clann annotation index");
+        }
+        final int version = buffer.getInt(Integer.BYTES);
+        if (version != AnnotationIndex.VERSION) {
+            throw new IOException("Unsupported clann annotation index version: " + version);
+        }
+        this.levelCount = buffer.getInt(2 * Integer.BYTES);
+        this.annotationCount = buffer.getInt(3 * Integer.BYTES);
+        this.classCount = buffer.getInt(4 * Integer.BYTES);
+        this.stringsOffset = buffer.getInt(5 * Integer.BYTES);
+        this.annotationsOffset = AnnotationIndex.HEADER_BYTES + levelCount * Integer.BYTES;
+        this.classesOffset =
+                annotationsOffset + annotationCount * AnnotationIndex.ANNOTATION_ENTRY_BYTES;
+        this.postingsOffset = classesOffset + classCount * Integer.BYTES;
+        if (stringsOffset < postingsOffset || stringsOffset > buffer.capacity()) {
+            throw new IOException("Truncated clann annotation index");
+        }
+    }
+
+    /**
+     * Memory-map an index file.
+     *
+     * @param file The index file.
+     * @return the index.
+     * @throws IOException If the file cannot be read or is not an index of a supported version.
+     */
+    public static AnnotationIndex open(final Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            // The mapping stays valid after the channel is closed
+            return new AnnotationIndex(
+                    channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /**
+     * Read an index from a stream, for indexes that cannot be memory-mapped, such as resources inside JAR files.
+     *
+     * @param inputStream The stream of the index, which is read to the end but not closed.
+     * @return the index.
+     * @throws IOException If the stream cannot be read or is not an index of a supported version.
+     */
+    public static AnnotationIndex read(final InputStream inputStream) throws IOException {
+        return new AnnotationIndex(ByteBuffer.wrap(inputStream.readAllBytes()));
+    }
+
+    /**
+     * Load the index resource of every JAR file and class directory of a class loader. Indexes in directories are
+     * memory-mapped and those inside JAR files are read into memory.
+     *
+     * @param classLoader The class loader.
+     * @return the indexes, in the resource order of the class loader.
+     * @throws IOException If an index cannot be read or is not an index of a supported version.
+     */
+    public static List<AnnotationIndex> loadAll(final ClassLoader classLoader) throws IOException {
+        final List<AnnotationIndex> indexes = new ArrayList<>();
+        final Enumeration<URL> resources = classLoader.getResources(AnnotationIndex.RESOURCE_NAME);
+        while (resources.hasMoreElements()) {
+            final URL resource = resources.nextElement();
+            if ("file".equals(resource.getProtocol())) {
+                try {
+                    indexes.add(AnnotationIndex.open(Path.of(resource.toURI())));
+                } catch (final URISyntaxException e) {
+                    throw new IOException("Invalid annotation index location: " + resource, e);
+                }
+            } else {
+                try (InputStream inputStream = resource.openStream()) {
+                    indexes.add(AnnotationIndex.read(inputStream));
+                }
+            }
+        }
+        return indexes;
+    }
+
+    /**
+     * Returns the number of annotations in the index.
+     *
+     * @return the number of annotations.
+     */
+    public int getAnnotationCount() {
+        return annotationCount;
+    }
+
+    /**
+     * Returns the number of classes that use at least one annotation of the index.
+     *
+     * @return the number of classes.
+     */
+    public int getClassCount() {
+        return classCount;
+    }
+
+    /**
+     * Returns the names of the levels that annotations are used at, such as {@code CLASS} or {@code METHOD}.
+     *
+     * @return the level names.
+     */
+    public List<String> getLevelNames() {
+        final List<String> levelNames = new ArrayList<>(levelCount);
+        for (int i = 0; i < levelCount; i++) {
+            levelNames.add(
+                    readString(buffer.getInt(AnnotationIndex.HEADER_BYTES + i * Integer.BYTES)));
+        }
+        return levelNames;
+    }
+
+    /**
+     * Returns the names of the annotations in the index, sorted.
+     *
+     * @return the annotation names.
+     */
+    public List<String> getAnnotationNames() {
+        final List<String> annotationNames = new ArrayList<>(annotationCount);
+        for (int i = 0; i < annotationCount; i++) {
+            annotationNames.add(readString(buffer.getInt(getAnnotationEntryOffset(i))));
+        }
+        return annotationNames;
+    }
+
+    /**
+     * Returns the classes that use an annotation at any level.
+     *
+     * @param annotationType The annotation type.
+     * @return the names of the classes, sorted, or an empty list if no class uses the annotation.
+     */
+    public List<String> getClassNames(final Class<? extends Annotation> annotationType) {
+        return getClassNames(annotationType.getName());
+    }
+
+    /**
+     * Returns the classes that use an annotation at any level.
+     *
+     * @param annotationName The binary name of the annotation type.
+     * @return the names of the classes, sorted, or an empty list if no class uses the annotation.
+     */
+    public List<String> getClassNames(final String annotationName) {
+        return getClassNames(annotationName, -1);
+    }
+
+    /**
+     * Returns the classes that use an annotation at the given level, for example the classes annotated with
+     * {@code @Entity} at the {@code CLASS} level.
+     *
+     * @param annotationName The binary name of the annotation type.
+     * @param levelName      The name of the level, see {@link #getLevelNames()}.
+     * @return the names of the classes, sorted, or an empty list if no class uses the annotation at that level.
+     * @throws IllegalArgumentException If the level is not a level of the index.
+     */
+    public List<String> getClassNames(final String annotationName, final String levelName) {
+        final int level = getLevelNames().indexOf(levelName);
+        if (level < 0) {
+            throw new IllegalArgumentException("Unknown annotation level: " + levelName);
+        }
+        return getClassNames(annotationName, 1 << level);
+    }
+
+    /**
+     * Returns the classes that use an annotation at one of the levels of a mask.
+     *
+     * @param annotationName The binary name of the annotation type.
+     * @param levelMask      The bit mask of levels, or -1 for all levels.
+     * @return the names of the classes, sorted.
+     */
+    @SuppressWarnings("PMD.OnlyOneReturn")
+    private List<String> getClassNames(final String annotationName, final int levelMask) {
+        final int annotation = findAnnotation(annotationName.getBytes(StandardCharsets.UTF_8));
+        if (annotation < 0) {
+            return Collections.emptyList();
+        }
+        final int entryOffset = getAnnotationEntryOffset(annotation);
+        final int firstPosting = buffer.getInt(entryOffset + Integer.BYTES);
+        final int postingCount = buffer.getInt(entryOffset + 2 * Integer.BYTES);
+        final List<String> classNames = new ArrayList<>(postingCount);
+        for (int i = 0; i < postingCount; i++) {
+            final int postingOffset =
+                    postingsOffset + (firstPosting + i) * AnnotationIndex.POSTING_BYTES;
+            if ((buffer.getInt(postingOffset + Integer.BYTES) & levelMask) != 0) {
+                final int classId = buffer.getInt(postingOffset);
+                classNames.add(readString(buffer.getInt(classesOffset + classId * Integer.BYTES)));
+            }
+        }
+        return classNames;
+    }
+
+    /**
+     * Binary search the annotation table, which is sorted by the UTF-8 bytes of the names.
+     *
+     * @return the position of the annotation, or -1 if it is not in the index.
+     */
+    @SuppressWarnings("PMD.OnlyOneReturn")
+    private int findAnnotation(final byte[] name) {
+        int low = 0;
+        int high = annotationCount - 1;
+        while (low <= high) {
+            final int middle = (low + high) >>> 1;
+            final int comparison =
+                    compareString(buffer.getInt(getAnnotationEntryOffset(middle)), name);
+            if (comparison < 0) {
+                low = middle + 1;
+            } else if (comparison > 0) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return -1;
+    }
+
+    private int getAnnotationEntryOffset(final int annotation) {
+        return annotationsOffset + annotation * AnnotationIndex.ANNOTATION_ENTRY_BYTES;
+    }
+
+    /**
+     * Compare the string at an offset of the string pool to the given UTF-8 bytes, as unsigned bytes, without
+     * decoding it.
+     */
+    @SuppressWarnings("PMD.OnlyOneReturn")
+    private int compareString(final int stringOffset, final byte[] name) {
+        final int position = stringsOffset + stringOffset;
+        final int length = Short.toUnsignedInt(buffer.getShort(position));
+        final int commonLength = Math.min(length, name.length);
+        for (int i = 0; i < commonLength; i++) {
+            final int comparison =
+                    Integer.compare(
+                            Byte.toUnsignedInt(buffer.get(position + Short.BYTES + i)),
+                            Byte.toUnsignedInt(name[i]));
+            if (comparison != 0) {
+                return comparison;
+            }
+        }
+        return Integer.compare(length, name.length);
+    }
+
+    private String readString(final int stringOffset) {
+        final int position = stringsOffset + stringOffset;
+        final byte[] bytes = new byte[Short.toUnsignedInt(buffer.getShort(position))];
+        buffer.get(position + Short.BYTES, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
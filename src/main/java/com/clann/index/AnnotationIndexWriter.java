@@ -0,0 +1,207 @@
+package com.clann.index;
+
+import com.clann.visitor.AnnotationLevel;
+import com.clann.visitor.ClassAnnotationInfo;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Writes the annotation index that {@link AnnotationIndex} reads, from the annotation information of some classes.
+ * <p>
+ * The index is a big-endian file made of:
+ * <ol>
+ *     <li>a header: the magic number, the version, the number of levels, annotations and classes, and the offset
+ *     of the string pool,</li>
+ *     <li>the levels, as the offset of each level name in the string pool,</li>
+ *     <li>the annotations, sorted by the UTF-8 bytes of their names, each as the offset of its name, its first
+ *     posting and its number of postings,</li>
+ *     <li>the classes, sorted by name, each as the offset of its name,</li>
+ *     <li>the postings, each as a class id and a bit mask of the levels the annotation is used at, grouped by
+ *     annotation and sorted by class id, and</li>
+ *     <li>the string pool, in which each distinct name is stored once as an unsigned 16-bit length followed by
+ *     its UTF-8 bytes.</li>
+ * </ol>
+ * Every table has fixed-size entries, so the reader looks up an annotation with a binary search in place, without
+ * parsing the file when it is opened. Only classes that use at least one annotation are indexed, and names are
+ * stored as binary names, such as {@code io.netty.util.Recycler$Handle}.
+ */
+public final class AnnotationIndexWriter {
+    private static final AnnotationLevel[] LEVELS = AnnotationLevel.values();
+    private static final int BUFFER_BYTES = 64 * 1024;
+
+    /**
+     * Prevents instantiation of utility class with a private constructor.
+     */
+    private AnnotationIndexWriter() {}
+
+    /**
+     * Write the annotation index of some classes. Missing parent directories are created, so the index can be
+     * written to {@link AnnotationIndex#RESOURCE_NAME} under a class directory. The file is written to a temporary
+     * file first and then moved into place, so a reader never sees a partial index.
+     *
+     * @param file                 The index file to write.
+     * @param classAnnotationInfos The annotation information of the classes.
+     * @throws IOException If the file cannot be written.
+     */
+    public static void write(
+            @NotNull final Path file,
+            @NotNull final List<? extends ClassAnnotationInfo> classAnnotationInfos)
+            throws IOException {
+        // Sorted maps make the index, and therefore the build output, reproducible
+        final Map<String, ClassAnnotationInfo> classes = new TreeMap<>();
+        for (final ClassAnnotationInfo classAnnotationInfo : classAnnotationInfos) {
+            if (!classAnnotationInfo.getAnnotations().isEmpty()) {
+                classes.put(classAnnotationInfo.getClassName(), classAnnotationInfo);
+            }
+        }
+        final Map<String, List<int[]>> postings =
+                new TreeMap<>(AnnotationIndexWriter::compareUtf8);
+        int classId = 0;
+        for (final ClassAnnotationInfo classAnnotationInfo : classes.values()) {
+            for (final Map.Entry<String, ClassAnnotationInfo.AnnotationDetails> entry :
+                    classAnnotationInfo.getAnnotations().entrySet()) {
+                postings.computeIfAbsent(
+                                entry.getKey().substring(1), name -> new ArrayList<>())
+                        .add(
+                                new int[] {
+                                    classId,
+                                    AnnotationLevel.toMask(
+                                            entry.getValue().getAnnotationLevels())
+                                });
+            }
+            classId++;
+        }
+
+        final StringPool strings = new StringPool();
+        final int[] levelOffsets = new int[AnnotationIndexWriter.LEVELS.length];
+        for (final AnnotationLevel level : AnnotationIndexWriter.LEVELS) {
+            levelOffsets[level.ordinal()] = strings.add(level.name());
+        }
+        final List<Integer> annotationOffsets = new ArrayList<>();
+        for (final String annotationName : postings.keySet()) {
+            annotationOffsets.add(strings.add(annotationName));
+        }
+        final List<Integer> classOffsets = new ArrayList<>();
+        for (final String className : classes.keySet()) {
+            classOffsets.add(strings.add(className));
+        }
+        final int postingCount = postings.values().stream().mapToInt(List::size).sum();
+        final long stringsOffset =
+                AnnotationIndex.HEADER_BYTES
+                        + (long) levelOffsets.length * Integer.BYTES
+                        + (long) postings.size() * AnnotationIndex.ANNOTATION_ENTRY_BYTES
+                        + (long) classes.size() * Integer.BYTES
+                        + (long) postingCount * AnnotationIndex.POSTING_BYTES;
+        if (stringsOffset + strings.size() > Integer.MAX_VALUE) {
+            throw new IOException("Annotation index exceeds 2 GiB: " + file);
+        }
+
+        final Path directory = file.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        final Path tempFile =
+                Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+        try {
+            try (DataOutputStream out =
+                    new DataOutputStream(
+                            new BufferedOutputStream(
+                                    Files.newOutputStream(tempFile),
+                                    AnnotationIndexWriter.BUFFER_BYTES))) {
+                out.writeInt(AnnotationIndex.MAGIC);
+                out.writeInt(AnnotationIndex.VERSION);
+                out.writeInt(levelOffsets.length);
+                out.writeInt(postings.size());
+                out.writeInt(classes.size());
+                out.writeInt((int) stringsOffset);
+                for (final int levelOffset : levelOffsets) {
+                    out.writeInt(levelOffset);
+                }
+                int firstPosting = 0;
+                int annotation = 0;
+                for (final List<int[]> annotationPostings : postings.values()) {
+                    out.writeInt(annotationOffsets.get(annotation++));
+                    out.writeInt(firstPosting);
+                    out.writeInt(annotationPostings.size());
+                    firstPosting += annotationPostings.size();
+                }
+                for (final int classOffset : classOffsets) {
+                    out.writeInt(classOffset);
+                }
+                for (final List<int[]> annotationPostings : postings.values()) {
+                    for (final int[] posting : annotationPostings) {
+                        out.writeInt(posting[0]);
+                        out.writeInt(posting[1]);
+                    }
+                }
+                strings.writeTo(out);
+            }
+            Files.move(
+                    tempFile,
+                    file,
+                    StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+    }
+
+    /**
+     * Compare two strings by their UTF-8 bytes, as unsigned bytes, which is the order the reader searches in and
+     * differs from {@link String#compareTo(String)} for characters outside the basic multilingual plane.
+     */
+    private static int compareUtf8(@NotNull final String left, @NotNull final String right) {
+        return Arrays.compareUnsigned(
+                left.getBytes(StandardCharsets.UTF_8), right.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * The string pool of an index, which stores each distinct string once.
+     */
+    private static final class StringPool {
+        private final Map<String, Integer> offsets = new HashMap<>();
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+        /**
+         * Add a string to the pool, unless it is already in it.
+         *
+         * @return the offset of the string in the pool.
+         */
+        @SuppressWarnings("PMD.OnlyOneReturn")
+        private int add(@NotNull final String string) throws IOException {
+            final Integer existingOffset = offsets.get(string);
+            if (existingOffset != null) {
+                return existingOffset;
+            }
+            final byte[] utf8 = string.getBytes(StandardCharsets.UTF_8);
+            if (utf8.length > 0xFFFF) {
+                throw new IOException("Name too long for an annotation index: " + string);
+            }
+            final int offset = bytes.size();
+            bytes.write(utf8.length >>> 8);
+            bytes.write(utf8.length);
+            bytes.write(utf8);
+            offsets.put(string, offset);
+            return offset;
+        }
+
+        private int size() {
+            return bytes.size();
+        }
+
+        private void writeTo(@NotNull final DataOutputStream out) throws IOException {
+            bytes.writeTo(out);
+        }
+    }
+}
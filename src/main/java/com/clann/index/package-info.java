@@ -0,0 +1,5 @@
+/**
+ * Groups classes that write and read a build-time index from annotation names to the classes using them, so that
+ * applications can find annotated types at startup without scanning their classpath.
+ */
+package com.clann.index;
@@ -0,0 +1,101 @@
+package com.clann.maven;
+
+import java.nio.file.Path;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * The Maven coordinates of an artifact: group, artifact, version and optional classifier.
+ *
+ * @param groupId    The group id, for example {@code io.netty}.
+ * @param artifactId The artifact id, for example {@code netty-common}.
+ * @param version    The version, for example {@code 4.2.0.Final}.
+ * @param classifier The classifier, for example {@code linux-x86_64}, or {@code null} for the main artifact.
+ */
+public record Gav(
+        @NotNull String groupId,
+        @NotNull String artifactId,
+        @NotNull String version,
+        @Nullable String classifier) {
+
+    /**
+     * The timestamp and build number that replace {@code SNAPSHOT} in the file names of snapshot versions, such as
+     * {@code 20240101.120000-3}, followed by an optional classifier.
+     */
+    private static final Pattern SNAPSHOT_TIMESTAMP =
+            Pattern.compile("(\\d{8}\\.\\d{6}-\\d+)(?:-(.+))?");
+
+    /**
+     * Derive the coordinates of a JAR file from its location in a Maven repository, which follows the layout
+     * {@code group/path/artifactId/version/artifactId-version[-classifier].jar}.
+     * <p>
+     * For snapshot versions, the file name may carry a timestamped version instead of {@code -SNAPSHOT}, such as
+     * {@code lib-1.0-20240101.120000-3-tests.jar}. The file name version, {@code 1.0-20240101.120000-3}, is used in
+     * that case, and the rest of the file name is the classifier.
+     *
+     * @param repositoryRoot The root directory of the repository.
+     * @param jarPath        The path of a JAR file within the repository.
+     * @return the coordinates, or {@code null} if the path does not follow the repository layout.
+     */
+    @Nullable
+    @SuppressWarnings("PMD.OnlyOneReturn")
+    public static Gav fromPath(@NotNull final Path repositoryRoot, @NotNull final Path jarPath) {
+        final Path relative = repositoryRoot.relativize(jarPath);
+        final int nameCount = relative.getNameCount();
+        final String fileName = relative.getFileName().toString();
+        if (nameCount < 4 || !fileName.endsWith(".jar")) {
+            return null;
+        }
+
+        final String artifactId = relative.getName(nameCount - 3).toString();
+        final String directoryVersion = relative.getName(nameCount - 2).toString();
+        final String groupId =
+                relative.subpath(0, nameCount - 3)
+                        .toString()
+                        .replace(relative.getFileSystem().getSeparator(), ".");
+        final String baseName = fileName.substring(0, fileName.length() - ".jar".length());
+        if (!baseName.startsWith(artifactId + "-")) {
+            return null;
+        }
+        final String versionAndClassifier = baseName.substring(artifactId.length() + 1);
+
+        if (versionAndClassifier.equals(directoryVersion)) {
+            return new Gav(groupId, artifactId, directoryVersion, null);
+        }
+        if (versionAndClassifier.startsWith(directoryVersion + "-")) {
+            return new Gav(
+                    groupId,
+                    artifactId,
+                    directoryVersion,
+                    versionAndClassifier.substring(directoryVersion.length() + 1));
+        }
+        final int snapshotSuffix = directoryVersion.length() - "SNAPSHOT".length();
+        if (directoryVersion.endsWith("-SNAPSHOT")
+                && versionAndClassifier.startsWith(directoryVersion.substring(0, snapshotSuffix))) {
+            final Matcher matcher =
+                    Gav.SNAPSHOT_TIMESTAMP.matcher(versionAndClassifier.substring(snapshotSuffix));
+            if (matcher.matches()) {
+                return new Gav(
+                        groupId,
+                        artifactId,
+                        versionAndClassifier.substring(0, snapshotSuffix + matcher.end(1)),
+                        matcher.group(2));
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the coordinates in the usual {@code groupId:artifactId:version[:classifier]} notation.
+     *
+     * @return the coordinates in the usual notation.
+     */
+    @Override
+    @NotNull
+    public String toString() {
+        final String gav = groupId + ":" + artifactId + ":" + version;
+        return classifier == null ? gav : gav + ":" + classifier;
+    }
+}
@@ -0,0 +1,544 @@
+package com.clann.maven;
+
+import com.clann.JarAnalyzer;
+import com.clann.ScanLimits;
+import com.clann.ScanResult;
+import com.clann.stats.AnnotationStatistics;
+import com.clann.stats.BloomFilter;
+import com.clann.visitor.AnnotationLevel;
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Indexes the annotation usage of every JAR artifact in a local Maven repository, such as
+ * {@code ~/.m2/repository}, without any network access.
+ * <p>
+ * The repository layout is walked, the coordinates of each artifact are derived from its path and its
+ * annotation statistics are written to an index file keyed by those coordinates. The index directory mirrors
+ * the repository layout, with each {@code artifactId-version[-classifier].jar} indexed as
+ * {@code artifactId-version[-classifier].annotations}.
+ * <p>
+ * Each index file records the SHA-1 checksum of the artifact it was built from, taken from the {@code .sha1}
+ * file that Maven stores next to the artifact or, if there is none, computed locally. Artifacts whose checksum
+ * matches their index file are skipped, so re-indexing a repository only scans new or changed artifacts. New
+ * artifacts are scanned in parallel, and each index file is written atomically so that an interrupted run never
+ * leaves a truncated index file that would be skipped.
+ * <p>
+ * Next to each index file, a filter file holds a small {@link BloomFilter} of the annotation names of the artifact
+ * and of its pairs of annotation name and level. Finding the artifacts that use an annotation first tests the
+ * filters of all artifacts in memory, and only reads the index files of the few candidate artifacts whose filter
+ * may contain the annotation, to rule out false positives.
+ */
+public final class MavenRepositoryIndexer {
+    private static final Logger LOGGER =
+            LoggerFactory.getLogger(MavenRepositoryIndexer.class.getSimpleName());
+
+    /**
+     * The extension of index files, which replaces the {@code .jar} extension of the indexed artifact.
+     */
+    public static final String INDEX_FILE_EXTENSION = ".annotations";
+
+    /**
+     * The extension of filter files, which replaces the {@code .jar} extension of the indexed artifact.
+     */
+    public static final String FILTER_FILE_EXTENSION = ".bloom";
+
+    /**
+     * The first four bytes of a filter file, {@code CLBF}.
+     */
+    private static final int FILTER_MAGIC = 0x434C4246;
+
+    private static final int FILTER_VERSION = 1;
+
+    /**
+     * Classifiers of artifacts that never contain class files.
+     */
+    private static final Set<String> SKIPPED_CLASSIFIERS = Set.of("sources", "javadoc");
+
+    private static final Pattern SHA1 = Pattern.compile("[0-9a-f]{40}");
+    private static final String GAV_PREFIX = "gav: ";
+    private static final String SHA1_PREFIX = "sha1: ";
+    private static final String ANNOTATION_PREFIX = "- annotation: ";
+
+    @NotNull private final Path repositoryRoot;
+    @NotNull private final Path indexDir;
+    @NotNull private final ScanLimits limits;
+
+    /**
+     * Creates an indexer.
+     *
+     * @param repositoryRoot The root directory of the Maven repository.
+     * @param indexDir       The directory to write index files to. It may be reused across runs.
+     * @param limits         The limits to enforce when scanning each artifact.
+     */
+    public MavenRepositoryIndexer(
+            @NotNull final Path repositoryRoot,
+            @NotNull final Path indexDir,
+            @NotNull final ScanLimits limits) {
+        this.repositoryRoot = repositoryRoot;
+        this.indexDir = indexDir;
+        this.limits = limits;
+    }
+
+    /**
+     * Index all JAR artifacts in the repository that have not been indexed with their current checksum.
+     *
+     * @return How many artifacts were found, indexed, skipped and failed.
+     * @throws IOException If the repository cannot be walked.
+     */
+    @NotNull
+    public IndexSummary index() throws IOException {
+        final List<Path> jarPaths;
+        try (Stream<Path> paths = Files.walk(repositoryRoot)) {
+            jarPaths =
+                    paths.filter(path -> path.getFileName().toString().endsWith(".jar"))
+                            .filter(Files::isRegularFile)
+                            .toList();
+        }
+
+        final AtomicInteger artifacts = new AtomicInteger();
+        final AtomicInteger indexed = new AtomicInteger();
+        final AtomicInteger skipped = new AtomicInteger();
+        final AtomicInteger failed = new AtomicInteger();
+        jarPaths.parallelStream()
+                .forEach(
+                        jarPath -> {
+                            final Gav gav = Gav.fromPath(repositoryRoot, jarPath);
+                            if (gav == null
+                                    || gav.classifier() != null
+                                            && MavenRepositoryIndexer.SKIPPED_CLASSIFIERS.contains(
+                                                    gav.classifier())) {
+                                MavenRepositoryIndexer.LOGGER.debug(
+                                        "Ignoring jar file that is not an artifact: {}", jarPath);
+                            } else {
+                                artifacts.incrementAndGet();
+                                indexArtifact(gav, jarPath, indexed, skipped, failed);
+                            }
+                        });
+
+        return new IndexSummary(artifacts.get(), indexed.get(), skipped.get(), failed.get());
+    }
+
+    /**
+     * Index one artifact unless it has already been indexed with the same checksum, and count the outcome. An
+     * artifact that cannot be read, such as a signed JAR file whose signature does not match, counts as failed and
+     * does not stop the other artifacts.
+     */
+    @SuppressWarnings("PMD.AvoidCatchingGenericException")
+    private void indexArtifact(
+            @NotNull final Gav gav,
+            @NotNull final Path jarPath,
+            @NotNull final AtomicInteger indexed,
+            @NotNull final AtomicInteger skipped,
+            @NotNull final AtomicInteger failed) {
+        try {
+            if (indexArtifact(gav, jarPath)) {
+                indexed.incrementAndGet();
+            } else {
+                skipped.incrementAndGet();
+            }
+        } catch (final IOException | RuntimeException e) {
+            // The index file is left untouched so the artifact is retried next time
+            MavenRepositoryIndexer.LOGGER.warn("Failed to index artifact: {}", gav, e);
+            failed.incrementAndGet();
+        }
+    }
+
+    /**
+     * Index one artifact unless it has already been indexed with the same checksum.
+     *
+     * @return {@code true} if the artifact was scanned or {@code false} if it was skipped.
+     */
+    private boolean indexArtifact(@NotNull final Gav gav, @NotNull final Path jarPath)
+            throws IOException {
+        final String checksum = MavenRepositoryIndexer.readChecksum(jarPath);
+        final Path indexFile = getIndexFile(jarPath);
+        // Artifacts indexed before filter files existed are indexed again to add their filter
+        final boolean changed =
+                !checksum.equals(MavenRepositoryIndexer.readIndexedChecksum(indexFile))
+                        || !Files.isRegularFile(MavenRepositoryIndexer.toFilterFile(indexFile));
+
+        if (changed) {
+            final AnnotationStatistics statistics = new AnnotationStatistics();
+            final ScanResult result = JarAnalyzer.scanJar(jarPath.toFile(), limits, statistics);
+
+            final String content =
+                    MavenRepositoryIndexer.GAV_PREFIX
+                            + gav
+                            + "\n"
+                            + MavenRepositoryIndexer.SHA1_PREFIX
+                            + checksum
+                            + "\nstatus: "
+                            + result.getStatus()
+                            + statistics.getReport()
+                            + "\n";
+            Files.createDirectories(indexFile.getParent());
+            // The index file is written last, as its checksum marks the artifact as indexed
+            MavenRepositoryIndexer.writeAtomically(
+                    MavenRepositoryIndexer.toFilterFile(indexFile),
+                    MavenRepositoryIndexer.toFilterBytes(statistics));
+            MavenRepositoryIndexer.writeAtomically(
+                    indexFile, content.getBytes(StandardCharsets.UTF_8));
+        }
+        return changed;
+    }
+
+    /**
+     * Build the filter file content of an artifact from its statistics: the names of its annotations and the pairs
+     * of annotation name and level, such as {@code @java.lang.Deprecated:CLASS}.
+     */
+    @NotNull
+    private static byte[] toFilterBytes(@NotNull final AnnotationStatistics statistics)
+            throws IOException {
+        final List<AnnotationStatistics.AnnotationSummary> summaries =
+                statistics.getAnnotationSummaries();
+        int keyCount = 0;
+        for (final AnnotationStatistics.AnnotationSummary summary : summaries) {
+            keyCount += 1 + summary.levels().size();
+        }
+        final BloomFilter filter = new BloomFilter(keyCount);
+        for (final AnnotationStatistics.AnnotationSummary summary : summaries) {
+            filter.add(summary.annotationName());
+            for (final AnnotationLevel level : summary.levels().keySet()) {
+                filter.add(MavenRepositoryIndexer.toFilterKey(summary.annotationName(), level));
+            }
+        }
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(MavenRepositoryIndexer.FILTER_MAGIC);
+            out.writeInt(MavenRepositoryIndexer.FILTER_VERSION);
+            filter.writeTo(out);
+        }
+        return bytes.toByteArray();
+    }
+
+    @NotNull
+    private static String toFilterKey(
+            @NotNull final String annotationName, @Nullable final AnnotationLevel level) {
+        return level == null ? annotationName : annotationName + ":" + level.name();
+    }
+
+    /**
+     * Write a file through a temporary file that is then moved into place.
+     */
+    private static void writeAtomically(@NotNull final Path file, @NotNull final byte[] content)
+            throws IOException {
+        final Path tempFile =
+                Files.createTempFile(file.getParent(), file.getFileName().toString(), ".tmp");
+        try {
+            Files.write(tempFile, content);
+            Files.move(
+                    tempFile,
+                    file,
+                    StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+    }
+
+    /**
+     * Returns the index file of the given artifact.
+     *
+     * @param jarPath The path of a JAR file within the repository.
+     * @return the index file of the artifact.
+     */
+    @NotNull
+    public Path getIndexFile(@NotNull final Path jarPath) {
+        final Path relative = repositoryRoot.relativize(jarPath);
+        final String fileName = relative.getFileName().toString();
+        return indexDir.resolve(relative.toString())
+                .resolveSibling(
+                        fileName.substring(0, fileName.length() - ".jar".length())
+                                + MavenRepositoryIndexer.INDEX_FILE_EXTENSION);
+    }
+
+    /**
+     * Find the artifacts whose index files record any use of the given annotation.
+     *
+     * @param indexDir       The index directory written by {@link #index()}.
+     * @param annotationName The friendly annotation name, for example {@code @java.lang.Deprecated}.
+     * @return The coordinates of the artifacts, as written by {@link Gav#toString()}, in no particular order.
+     * @throws IOException If the index directory cannot be read.
+     */
+    @NotNull
+    public static List<String> findArtifactsUsing(
+            @NotNull final Path indexDir, @NotNull final String annotationName)
+            throws IOException {
+        return MavenRepositoryIndexer.lookup(indexDir, annotationName, null).artifacts();
+    }
+
+    /**
+     * Find the artifacts whose index files record a use of the given annotation, optionally at a given level.
+     * <p>
+     * The filter files of all artifacts are loaded and tested first. Only the index files of the candidate artifacts
+     * whose filter may contain the annotation, and of artifacts without a filter file, are read.
+     *
+     * @param indexDir       The index directory written by {@link #index()}.
+     * @param annotationName The friendly annotation name, for example {@code @java.lang.Deprecated}.
+     * @param level          The level the annotation must be used at, or {@code null} for any level.
+     * @return The coordinates of the artifacts, sorted, and how many index files were read.
+     * @throws IOException If the index directory, a filter file or a candidate index file cannot be read.
+     */
+    @NotNull
+    public static LookupResult lookup(
+            @NotNull final Path indexDir,
+            @NotNull final String annotationName,
+            @Nullable final AnnotationLevel level)
+            throws IOException {
+        final List<Path> indexFiles;
+        try (Stream<Path> paths = Files.walk(indexDir)) {
+            indexFiles =
+                    paths.filter(
+                                    path ->
+                                            path.getFileName()
+                                                    .toString()
+                                                    .endsWith(
+                                                            MavenRepositoryIndexer
+                                                                    .INDEX_FILE_EXTENSION))
+                            .toList();
+        }
+
+        try {
+            // Filters are a few hundred bytes each, so all of them are held in memory at once
+            final List<BloomFilter> filters =
+                    indexFiles.parallelStream().map(MavenRepositoryIndexer::readFilter).toList();
+            final String filterKey = MavenRepositoryIndexer.toFilterKey(annotationName, level);
+            final List<Path> candidates = new ArrayList<>();
+            for (int i = 0; i < indexFiles.size(); i++) {
+                if (filters.get(i) == null || filters.get(i).mightContain(filterKey)) {
+                    candidates.add(indexFiles.get(i));
+                }
+            }
+            final List<String> artifacts =
+                    candidates.parallelStream()
+                            .map(
+                                    indexFile ->
+                                            MavenRepositoryIndexer.readArtifactUsing(
+                                                    indexFile, annotationName, level))
+                            .filter(Objects::nonNull)
+                            .sorted()
+                            .toList();
+            return new LookupResult(indexFiles.size(), candidates.size(), artifacts);
+        } catch (final UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    @NotNull
+    private static Path toFilterFile(@NotNull final Path indexFile) {
+        final String fileName = indexFile.getFileName().toString();
+        return indexFile.resolveSibling(
+                fileName.substring(
+                                0,
+                                fileName.length()
+                                        - MavenRepositoryIndexer.INDEX_FILE_EXTENSION.length())
+                        + MavenRepositoryIndexer.FILTER_FILE_EXTENSION);
+    }
+
+    /**
+     * Returns the filter of an index file, or {@code null} if it has no filter file.
+     *
+     * @throws UncheckedIOException If the filter file cannot be read.
+     */
+    @Nullable
+    @SuppressWarnings("PMD.OnlyOneReturn")
+    private static BloomFilter readFilter(@NotNull final Path indexFile) {
+        final Path filterFile = MavenRepositoryIndexer.toFilterFile(indexFile);
+        try {
+            if (!Files.isRegularFile(filterFile)) {
+                return null;
+            }
+            try (DataInputStream in =
+                    new DataInputStream(new ByteArrayInputStream(Files.readAllBytes(filterFile)))) {
+                if (in.readInt() != MavenRepositoryIndexer.FILTER_MAGIC
+                        || in.readInt() != MavenRepositoryIndexer.FILTER_VERSION) {
+                    throw new IOException("Not a clann filter file: " + filterFile);
+                }
+                return BloomFilter.readFrom(in);
+            }
+        } catch (final IOException e) {
+            throw new UncheckedIOException("Error reading filter file: " + filterFile, e);
+        }
+    }
+
+    /**
+     * Returns the coordinates of the artifact of an index file if it records a use of the annotation at the level,
+     * or {@code null} if it does not.
+     *
+     * @throws UncheckedIOException If the index file cannot be read.
+     */
+    @Nullable
+    private static String readArtifactUsing(
+            @NotNull final Path indexFile,
+            @NotNull final String annotationName,
+            @Nullable final AnnotationLevel level) {
+        final List<String> lines;
+        try {
+            lines = Files.readAllLines(indexFile, StandardCharsets.UTF_8);
+        } catch (final IOException e) {
+            throw new UncheckedIOException("Error reading index file: " + indexFile, e);
+        }
+        final int annotationLine =
+                lines.indexOf(MavenRepositoryIndexer.ANNOTATION_PREFIX + annotationName);
+        boolean used = annotationLine >= 0 && level == null;
+        if (annotationLine >= 0 && level != null) {
+            // The levels of the annotation follow it until the next annotation
+            final String levelPrefix = "\t - " + level.name() + ":";
+            for (int i = annotationLine + 1;
+                    i < lines.size() && !used && !lines.get(i).startsWith("- ");
+                    i++) {
+                used = lines.get(i).startsWith(levelPrefix);
+            }
+        }
+        return used
+                ? lines.get(0).substring(MavenRepositoryIndexer.GAV_PREFIX.length())
+                : null;
+    }
+
+    /**
+     * Returns the SHA-1 checksum of an artifact from the neighbouring {@code .sha1} file, or computes it if that
+     * file is missing or malformed.
+     */
+    @NotNull
+    private static String readChecksum(@NotNull final Path jarPath) throws IOException {
+        final Path sha1File = jarPath.resolveSibling(jarPath.getFileName() + ".sha1");
+        if (Files.isRegularFile(sha1File)) {
+            // The file holds the checksum, optionally followed by the file name
+            final String content = Files.readString(sha1File, StandardCharsets.US_ASCII).trim();
+            final String checksum = content.split("\\s+", 2)[0].toLowerCase(Locale.ROOT);
+            if (MavenRepositoryIndexer.SHA1.matcher(checksum).matches()) {
+                return checksum;
+            }
+            MavenRepositoryIndexer.LOGGER.debug("Ignoring malformed checksum file: {}", sha1File);
+        }
+        return MavenRepositoryIndexer.computeChecksum(jarPath);
+    }
+
+    @NotNull
+    private static String computeChecksum(@NotNull final Path jarPath) throws IOException {
+        final MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-1");
+        } catch (final NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-1 is supported by every Java platform", e);
+        }
+        try (InputStream inputStream = Files.newInputStream(jarPath)) {
+            final byte[] buffer = new byte[64 * 1024];
+            int read = inputStream.read(buffer);
+            while (read >= 0) {
+                digest.update(buffer, 0, read);
+                read = inputStream.read(buffer);
+            }
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    /**
+     * Returns the checksum recorded in an index file, or {@code null} if there is no valid index file.
+     */
+    @Nullable
+    @SuppressWarnings("PMD.OnlyOneReturn")
+    private static String readIndexedChecksum(@NotNull final Path indexFile) throws IOException {
+        if (!Files.isRegularFile(indexFile)) {
+            return null;
+        }
+        try (BufferedReader reader = Files.newBufferedReader(indexFile, StandardCharsets.UTF_8)) {
+            final String gavLine = reader.readLine();
+            final String sha1Line = reader.readLine();
+            if (gavLine == null
+                    || sha1Line == null
+                    || !sha1Line.startsWith(MavenRepositoryIndexer.SHA1_PREFIX)) {
+                return null;
+            }
+            return sha1Line.substring(MavenRepositoryIndexer.SHA1_PREFIX.length());
+        }
+    }
+
+    /**
+     * The outcome of a lookup of the artifacts that use an annotation.
+     *
+     * @param indexedArtifacts The number of artifacts in the index directory.
+     * @param candidates       The number of artifacts whose index file was read because their filter may contain
+     *                         the annotation or because they have no filter.
+     * @param artifacts        The coordinates of the artifacts that use the annotation, sorted.
+     */
+    public record LookupResult(
+            int indexedArtifacts, int candidates, @NotNull List<String> artifacts) {
+
+        /**
+         * Format the result in the YAML-like style of the other reports.
+         *
+         * @return The formatted result.
+         */
+        @NotNull
+        public String format() {
+            final StringBuilder stringBuilder = new StringBuilder(64);
+            stringBuilder
+                    .append("\nindexed: ")
+                    .append(indexedArtifacts)
+                    .append("\ncandidates: ")
+                    .append(candidates)
+                    .append("\nartifacts: ")
+                    .append(artifacts.size());
+            artifacts.forEach(artifact -> stringBuilder.append("\n- artifact: ").append(artifact));
+            return stringBuilder.toString();
+        }
+    }
+
+    /**
+     * A summary of indexing a repository.
+     *
+     * @param artifacts The number of JAR artifacts found in the repository.
+     * @param indexed   The number of artifacts scanned because they were new or changed.
+     * @param skipped   The number of artifacts skipped because they were already indexed.
+     * @param failed    The number of artifacts that could not be read.
+     */
+    public record IndexSummary(int artifacts, int indexed, int skipped, int failed) {
+
+        /**
+         * Format the summary in the YAML-like style of the other reports.
+         *
+         * @return The formatted summary.
+         */
+        @NotNull
+        public String format() {
+            final StringBuilder stringBuilder = new StringBuilder(64);
+            stringBuilder
+                    .append("\nartifacts: ")
+                    .append(artifacts)
+                    .append("\nindexed: ")
+                    .append(indexed)
+                    .append("\nskipped: ")
+                    .append(skipped)
+                    .append("\nfailed: ")
+                    .append(failed);
+            return stringBuilder.toString();
+        }
+    }
+}
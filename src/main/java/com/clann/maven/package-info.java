@@ -0,0 +1,4 @@
+/**
+ * Groups classes that index annotation usage across the artifacts of a local Maven repository.
+ */
+package com.clann.maven;
@@ -0,0 +1,34 @@
+package com.clann.module;
+
+import com.clann.JarAnalyzer;
+import com.clann.ScanResult;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * The result of scanning one module.
+ *
+ * @param moduleName The name of the module.
+ * @param source     Where the module was read from, such as {@code jrt:/java.base} or a JMOD file.
+ * @param result     The annotation information collected and the status of the scan.
+ */
+public record ModuleScanResult(
+        @NotNull String moduleName, @NotNull String source, @NotNull ScanResult result) {
+    /**
+     * Returns the report of this module: its name, source, status and number of class files, followed by its
+     * classes in the same format as {@link JarAnalyzer#getClassAnnotationUsageReport(java.util.List)}.
+     *
+     * @return the report.
+     */
+    @NotNull
+    public String getReport() {
+        return "\nmodule: "
+                + moduleName
+                + "\nsource: "
+                + source
+                + "\nstatus: "
+                + result.getStatus()
+                + "\nclassFiles: "
+                + result.getClassFileCount()
+                + JarAnalyzer.getClassAnnotationUsageReport(result.getClassAnnotationInfos());
+    }
+}
@@ -0,0 +1,336 @@
+package com.clann.module;
+
+import com.clann.JarAnalyzer;
+import com.clann.ScanLimits;
+import com.clann.ScanResult;
+import com.clann.ScanSession;
+import com.clann.visitor.ClassAnnotationInfo;
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.jar.JarEntry;
+import java.util.jar.JarInputStream;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Scans the modules of Java runtime images, through the {@code jrt:/} file system, and of JMOD files.
+ * <p>
+ * A module source is one of:
+ * <ul>
+ *     <li>{@code jrt:/}, for all modules of the runtime image of the current JVM,</li>
+ *     <li>{@code jrt:/<module>}, for one module of the runtime image of the current JVM,</li>
+ *     <li>the directory of a JDK or of a custom {@code jlink} image, for all of its modules, or</li>
+ *     <li>a {@code .jmod} file, for the module it packages.</li>
+ * </ul>
+ * Modules are scanned in parallel, submitted to a {@link ForkJoinPool} largest first, so that the largest module,
+ * usually {@code java.base}, does not start last and delay the end of the scan. Within a module, class files are scanned in name order on one thread,
+ * with the {@link ScanLimits} applying to each module as they do to each JAR file. Results are returned grouped by
+ * module, in the order of the sources and then of module names.
+ */
+public final class ModuleScanner {
+    /**
+     * The scheme of the file system of Java runtime images.
+     */
+    private static final String JRT_SCHEME = "jrt:";
+
+    /**
+     * The file name extension of JMOD files.
+     */
+    private static final String JMOD_EXTENSION = ".jmod";
+
+    /**
+     * The first four bytes of a JMOD file, {@code JM} followed by the major and minor version, which precede a
+     * ZIP file.
+     */
+    private static final byte[] JMOD_MAGIC = {'J', 'M', 1, 0};
+
+    /**
+     * The directory of the classes in a JMOD file.
+     */
+    private static final String JMOD_CLASSES_PREFIX = "classes/";
+
+    /**
+     * Prevents instantiation of utility class with a private constructor.
+     */
+    private ModuleScanner() {}
+
+    /**
+     * Returns whether the given path names a module source rather than a JAR file.
+     *
+     * @param source A path given on the command line.
+     * @return whether the path is a module source.
+     */
+    public static boolean isModuleSource(@NotNull final String source) {
+        return source.startsWith(ModuleScanner.JRT_SCHEME)
+                || source.endsWith(ModuleScanner.JMOD_EXTENSION)
+                || ModuleScanner.isRuntimeImage(Path.of(source));
+    }
+
+    /**
+     * Scan the modules of the given module sources.
+     *
+     * @param sources The module sources, see {@link ModuleScanner}.
+     * @param limits  The limits to enforce for each module.
+     * @return the result of each module, in the order of the sources and then of module names.
+     * @throws IOException If a module source does not exist or cannot be read.
+     */
+    @NotNull
+    public static List<ModuleScanResult> scan(
+            @NotNull final List<String> sources, @NotNull final ScanLimits limits)
+            throws IOException {
+        final List<Closeable> fileSystems = new ArrayList<>();
+        try {
+            final List<ModuleTask> tasks = new ArrayList<>();
+            for (final String source : sources) {
+                ModuleScanner.addTasks(source, limits, tasks, fileSystems);
+            }
+
+            final ForkJoinPool pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+            try {
+                @SuppressWarnings({"rawtypes", "unchecked"})
+                final ForkJoinTask<ModuleScanResult>[] results = new ForkJoinTask[tasks.size()];
+                // Workers take external submissions in order, so the largest modules start first
+                IntStream.range(0, tasks.size())
+                        .boxed()
+                        .sorted(
+                                Comparator.comparingLong((Integer i) -> tasks.get(i).size())
+                                        .reversed())
+                        .forEach(
+                                i ->
+                                        results[i] =
+                                                pool.submit(() -> ModuleScanner.run(tasks.get(i))));
+                return Arrays.stream(results).map(ForkJoinTask::join).toList();
+            } catch (final UncheckedIOException e) {
+                throw e.getCause();
+            } finally {
+                pool.shutdownNow();
+            }
+        } finally {
+            for (final Closeable fileSystem : fileSystems) {
+                fileSystem.close();
+            }
+        }
+    }
+
+    /**
+     * Returns the report of some module results: each module with its status and number of class files, followed
+     * by its classes in the same format as {@link JarAnalyzer#getClassAnnotationUsageReport(List)}.
+     *
+     * @param results The module results.
+     * @return the report.
+     */
+    @NotNull
+    public static String getReport(@NotNull final List<ModuleScanResult> results) {
+        final StringBuilder stringBuilder = new StringBuilder();
+        results.forEach(result -> stringBuilder.append(result.getReport()));
+        return stringBuilder.toString();
+    }
+
+    private static boolean isRuntimeImage(@NotNull final Path directory) {
+        return Files.isRegularFile(directory.resolve("lib").resolve("modules"));
+    }
+
+    private static void addTasks(
+            @NotNull final String source,
+            @NotNull final ScanLimits limits,
+            @NotNull final List<ModuleTask> tasks,
+            @NotNull final List<Closeable> fileSystems)
+            throws IOException {
+        if (source.startsWith(ModuleScanner.JRT_SCHEME)) {
+            // A File turns jrt:/ into jrt: and keeps jrt:/<module> as is
+            final String moduleName =
+                    source.substring(ModuleScanner.JRT_SCHEME.length()).replaceFirst("^/", "");
+            final FileSystem fileSystem = FileSystems.getFileSystem(URI.create("jrt:/"));
+            ModuleScanner.addRuntimeImageTasks(fileSystem, "jrt:/", moduleName, limits, tasks);
+        } else if (source.endsWith(ModuleScanner.JMOD_EXTENSION)) {
+            final Path jmodFile = Path.of(source);
+            final String fileName = jmodFile.getFileName().toString();
+            final String moduleName =
+                    fileName.substring(
+                            0, fileName.length() - ModuleScanner.JMOD_EXTENSION.length());
+            tasks.add(
+                    new ModuleTask(
+                            moduleName,
+                            source,
+                            Files.size(jmodFile),
+                            () -> ModuleScanner.scanJmod(jmodFile, limits)));
+        } else {
+            final Path imageDirectory = Path.of(source);
+            if (!ModuleScanner.isRuntimeImage(imageDirectory)) {
+                throw new IOException("Not a Java runtime image: " + source);
+            }
+            final FileSystem fileSystem =
+                    FileSystems.newFileSystem(
+                            URI.create("jrt:/"),
+                            Map.of("java.home", imageDirectory.toAbsolutePath().toString()));
+            fileSystems.add(fileSystem);
+            ModuleScanner.addRuntimeImageTasks(
+                    fileSystem, imageDirectory + "!/", "", limits, tasks);
+        }
+    }
+
+    /**
+     * Add a task for each module of a runtime image, or for the given module only.
+     *
+     * @param fileSystem The {@code jrt:/} file system of the runtime image.
+     * @param prefix     The prefix of the module name in the source of each result.
+     * @param moduleName The name of the only module to scan, or an empty string for all modules.
+     * @param limits     The limits to enforce for each module.
+     * @param tasks      The tasks to add to.
+     * @throws IOException If the runtime image cannot be read or has no such module.
+     */
+    private static void addRuntimeImageTasks(
+            @NotNull final FileSystem fileSystem,
+            @NotNull final String prefix,
+            @NotNull final String moduleName,
+            @NotNull final ScanLimits limits,
+            @NotNull final List<ModuleTask> tasks)
+            throws IOException {
+        final Path modulesRoot = fileSystem.getPath("/modules");
+        final List<Path> moduleDirectories;
+        if (moduleName.isEmpty()) {
+            try (Stream<Path> paths = Files.list(modulesRoot)) {
+                moduleDirectories =
+                        paths.sorted(Comparator.comparing(Path::toString)).toList();
+            }
+        } else {
+            final Path moduleDirectory = modulesRoot.resolve(moduleName);
+            if (!Files.isDirectory(moduleDirectory)) {
+                throw new IOException("Module not found in runtime image: " + moduleName);
+            }
+            moduleDirectories = List.of(moduleDirectory);
+        }
+
+        for (final Path moduleDirectory : moduleDirectories) {
+            final List<Path> files;
+            try (Stream<Path> paths = Files.walk(moduleDirectory)) {
+                files =
+                        paths.filter(Files::isRegularFile)
+                                .sorted(Comparator.comparing(Path::toString))
+                                .toList();
+            }
+            long size = 0;
+            for (final Path file : files) {
+                size += Files.size(file);
+            }
+            final String name = moduleDirectory.getFileName().toString();
+            tasks.add(
+                    new ModuleTask(
+                            name,
+                            prefix + name,
+                            size,
+                            () ->
+                                    ModuleScanner.scanRuntimeModule(
+                                            moduleDirectory, files, limits)));
+        }
+    }
+
+    @NotNull
+    private static ModuleScanResult run(@NotNull final ModuleTask task) {
+        try {
+            return new ModuleScanResult(task.moduleName(), task.source(), task.scan().call());
+        } catch (final IOException e) {
+            throw new UncheckedIOException("Error scanning module " + task.source(), e);
+        }
+    }
+
+    @NotNull
+    private static ScanResult scanRuntimeModule(
+            @NotNull final Path moduleDirectory,
+            @NotNull final List<Path> files,
+            @NotNull final ScanLimits limits)
+            throws IOException {
+        final List<ClassAnnotationInfo> classAnnotationInfos = new ArrayList<>();
+        final ScanSession session = new ScanSession(limits, classAnnotationInfos::add);
+        for (final Path file : files) {
+            final String entryName = moduleDirectory.relativize(file).toString();
+            final boolean proceed;
+            if (entryName.endsWith(".class")) {
+                try (InputStream inputStream = Files.newInputStream(file)) {
+                    proceed = session.processEntry(entryName, inputStream, Files.size(file));
+                }
+            } else {
+                proceed = session.processEntry(entryName, null);
+            }
+            if (!proceed) {
+                break;
+            }
+        }
+        return session.toResult(classAnnotationInfos);
+    }
+
+    @NotNull
+    private static ScanResult scanJmod(
+            @NotNull final Path jmodFile, @NotNull final ScanLimits limits) throws IOException {
+        try (InputStream inputStream =
+                new BufferedInputStream(Files.newInputStream(jmodFile))) {
+            if (!Arrays.equals(
+                    inputStream.readNBytes(ModuleScanner.JMOD_MAGIC.length),
+                    ModuleScanner.JMOD_MAGIC)) {
+                throw new IOException("Not a JMOD file: " + jmodFile);
+            }
+            final List<ClassAnnotationInfo> classAnnotationInfos = new ArrayList<>();
+            final ScanSession session = new ScanSession(limits, classAnnotationInfos::add);
+            try (JarInputStream jarIn = new JarInputStream(inputStream)) {
+                JarEntry entry = jarIn.getNextJarEntry();
+                while (entry != null) {
+                    // Only the classes section holds class files, the others hold native code and resources
+                    final String entryName = entry.getName();
+                    final boolean proceed =
+                            entryName.startsWith(ModuleScanner.JMOD_CLASSES_PREFIX)
+                                    ? session.processEntry(
+                                            entryName.substring(
+                                                    ModuleScanner.JMOD_CLASSES_PREFIX.length()),
+                                            jarIn,
+                                            entry.getSize())
+                                    : session.processEntry(entryName, null);
+                    if (!proceed) {
+                        break;
+                    }
+                    jarIn.closeEntry();
+                    entry = jarIn.getNextJarEntry();
+                }
+            }
+            return session.toResult(classAnnotationInfos);
+        }
+    }
+
+    /**
+     * Scans one module.
+     */
+    @FunctionalInterface
+    private interface ModuleScan {
+        @NotNull
+        ScanResult call() throws IOException;
+    }
+
+    /**
+     * A module to scan.
+     *
+     * @param moduleName The name of the module.
+     * @param source     Where the module is read from.
+     * @param size       The number of bytes to scan, to start the largest modules first.
+     * @param scan       Scans the module.
+     */
+    private record ModuleTask(
+            @NotNull String moduleName,
+            @NotNull String source,
+            long size,
+            @NotNull ModuleScan scan) {}
+}
@@ -0,0 +1,4 @@
+/**
+ * Groups classes that scan the modules of Java runtime images and of JMOD files.
+ */
+package com.clann.module;
@@ -0,0 +1,54 @@
+package com.clann.output;
+
+import com.clann.visitor.AnnotationLevel;
+import com.clann.visitor.ClassAnnotationInfo;
+import java.io.IOException;
+import java.util.Map;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Writes a CSV file with a header and one row per class and annotation, with the levels the annotation is used at
+ * separated by semicolons, for example:
+ * <pre>
+ * class,annotation,levels
+ * io.netty.util.Recycler,@java.lang.Deprecated,METHOD;FIELD
+ * </pre>
+ * Facts of analysis plugins are not written, as rows are per annotation.
+ */
+final class CsvOutputSink implements OutputSink {
+    @NotNull private final Utf8Output output;
+    @NotNull private final StringBuilder className = new StringBuilder();
+
+    CsvOutputSink(@NotNull final Utf8Output output) throws IOException {
+        this.output = output;
+        output.append("class,annotation,levels\r\n");
+    }
+
+    @Override
+    @SuppressWarnings("PMD.OnlyOneReturn")
+    public void write(@NotNull final ClassAnnotationInfo classAnnotationInfo) throws IOException {
+        if (classAnnotationInfo.getAnnotations().isEmpty()) {
+            return;
+        }
+        className.setLength(0);
+        classAnnotationInfo.appendClassName(className);
+        for (final Map.Entry<String, ClassAnnotationInfo.AnnotationDetails> entry :
+                classAnnotationInfo.getAnnotations().entrySet()) {
+            output.appendCsvField(className).append(',').appendCsvField(entry.getKey()).append(',');
+            boolean first = true;
+            for (final AnnotationLevel level : entry.getValue().getAnnotationLevels()) {
+                if (!first) {
+                    output.append(';');
+                }
+                output.append(level.name());
+                first = false;
+            }
+            output.append("\r\n");
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        output.close();
+    }
+}
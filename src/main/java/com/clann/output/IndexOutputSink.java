@@ -0,0 +1,32 @@
+package com.clann.output;
+
+import com.clann.index.AnnotationIndexWriter;
+import com.clann.visitor.ClassAnnotationInfo;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Writes an annotation index with {@link AnnotationIndexWriter}. The index is sorted, so the classes are kept
+ * until the sink is closed; they are already in memory for the other sinks and are not copied.
+ */
+final class IndexOutputSink implements OutputSink {
+    @NotNull private final Path file;
+    @NotNull private final List<ClassAnnotationInfo> classAnnotationInfos = new ArrayList<>();
+
+    IndexOutputSink(@NotNull final Path file) {
+        this.file = file;
+    }
+
+    @Override
+    public void write(@NotNull final ClassAnnotationInfo classAnnotationInfo) {
+        classAnnotationInfos.add(classAnnotationInfo);
+    }
+
+    @Override
+    public void close() throws IOException {
+        AnnotationIndexWriter.write(file, classAnnotationInfos);
+    }
+}
@@ -0,0 +1,83 @@
+package com.clann.output;
+
+import com.clann.visitor.AnnotationLevel;
+import com.clann.visitor.ClassAnnotationInfo;
+import java.io.IOException;
+import java.util.Map;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Writes one JSON object per line for each class that uses annotations or has facts from analysis plugins, for
+ * example:
+ * <pre>
+ * {"class":"io.netty.util.Recycler","annotations":[{"name":"@java.lang.Deprecated","levels":["METHOD"]}]}
+ * </pre>
+ * Facts are written as a {@code facts} object after the annotations.
+ */
+final class JsonLinesOutputSink implements OutputSink {
+    @NotNull private final Utf8Output output;
+    @NotNull private final StringBuilder className = new StringBuilder();
+
+    JsonLinesOutputSink(@NotNull final Utf8Output output) {
+        this.output = output;
+    }
+
+    @Override
+    @SuppressWarnings("PMD.OnlyOneReturn")
+    public void write(@NotNull final ClassAnnotationInfo classAnnotationInfo) throws IOException {
+        if (classAnnotationInfo.getAnnotations().isEmpty()
+                && classAnnotationInfo.getFacts().isEmpty()) {
+            return;
+        }
+        className.setLength(0);
+        output.append("{\"class\":")
+                .appendJsonString(classAnnotationInfo.appendClassName(className))
+                .append(",\"annotations\":[");
+        boolean firstAnnotation = true;
+        for (final Map.Entry<String, ClassAnnotationInfo.AnnotationDetails> entry :
+                classAnnotationInfo.getAnnotations().entrySet()) {
+            if (!firstAnnotation) {
+                output.append(',');
+            }
+            output.append("{\"name\":").appendJsonString(entry.getKey()).append(",\"levels\":[");
+            boolean firstLevel = true;
+            for (final AnnotationLevel level : entry.getValue().getAnnotationLevels()) {
+                if (!firstLevel) {
+                    output.append(',');
+                }
+                output.append('"').append(level.name()).append('"');
+                firstLevel = false;
+            }
+            output.append("]}");
+            firstAnnotation = false;
+        }
+        output.append(']');
+        if (!classAnnotationInfo.getFacts().isEmpty()) {
+            output.append(",\"facts\":{");
+            boolean firstFact = true;
+            for (final Map.Entry<String, Object> fact :
+                    classAnnotationInfo.getFacts().entrySet()) {
+                if (!firstFact) {
+                    output.append(',');
+                }
+                output.appendJsonString(fact.getKey()).append(':');
+                // Finite numbers and booleans are JSON values as they are, anything else is a string
+                final Object value = fact.getValue();
+                if (value instanceof Number number && Double.isFinite(number.doubleValue())
+                        || value instanceof Boolean) {
+                    output.append(value.toString());
+                } else {
+                    output.appendJsonString(String.valueOf(value));
+                }
+                firstFact = false;
+            }
+            output.append('}');
+        }
+        output.append("}\n");
+    }
+
+    @Override
+    public void close() throws IOException {
+        output.close();
+    }
+}
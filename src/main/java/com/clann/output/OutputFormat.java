@@ -0,0 +1,44 @@
+package com.clann.output;
+
+import java.util.Locale;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * The formats that scan results can be written in.
+ */
+public enum OutputFormat {
+    /**
+     * The YAML-like report that clann prints by default.
+     */
+    TEXT,
+
+    /**
+     * One JSON object per class, per line.
+     */
+    JSONL,
+
+    /**
+     * One CSV row per class and annotation.
+     */
+    CSV,
+
+    /**
+     * The binary annotation index read by {@link com.clann.index.AnnotationIndex}.
+     */
+    INDEX,
+
+    /**
+     * Each distinct set of annotations and levels once, with the classes that have it.
+     */
+    SHAPES;
+
+    /**
+     * Returns the name of the format on the command line.
+     *
+     * @return the name of the format, such as {@code jsonl}.
+     */
+    @NotNull
+    public String getOptionName() {
+        return name().toLowerCase(Locale.ROOT);
+    }
+}
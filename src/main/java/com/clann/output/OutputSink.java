@@ -0,0 +1,20 @@
+package com.clann.output;
+
+import com.clann.visitor.ClassAnnotationInfo;
+import java.io.Closeable;
+import java.io.IOException;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Writes the scan results of classes in one output format. Classes are written one at a time, in report order,
+ * and closing the sink completes the output.
+ */
+public interface OutputSink extends Closeable {
+    /**
+     * Write the annotation information of a class.
+     *
+     * @param classAnnotationInfo The annotation information of the class.
+     * @throws IOException If the output cannot be written.
+     */
+    void write(@NotNull ClassAnnotationInfo classAnnotationInfo) throws IOException;
+}
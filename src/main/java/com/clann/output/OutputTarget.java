@@ -0,0 +1,158 @@
+package com.clann.output;
+
+import com.clann.visitor.ClassAnnotationInfo;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * An output format and the file it is written to, given on the command line as {@code <format>=<file>}, where
+ * {@code -} is standard output.
+ *
+ * @param format The output format.
+ * @param file   The file to write to.
+ */
+public record OutputTarget(@NotNull OutputFormat format, @NotNull Path file) {
+    /**
+     * The file name that stands for standard output.
+     */
+    private static final String STANDARD_OUTPUT = "-";
+
+    /**
+     * Parse an output target.
+     *
+     * @param output The output target, such as {@code jsonl=classes.jsonl}.
+     * @return the output target.
+     * @throws IllegalArgumentException If the output target is not valid.
+     */
+    @NotNull
+    public static OutputTarget parse(@NotNull final String output) {
+        final int separator = output.indexOf('=');
+        if (separator <= 0 || separator == output.length() - 1) {
+            throw new IllegalArgumentException(
+                    "Invalid output, expected <format>=<file>: " + output);
+        }
+        final String formatName = output.substring(0, separator);
+        OutputFormat format = null;
+        for (final OutputFormat candidate : OutputFormat.values()) {
+            if (candidate.getOptionName().equals(formatName)) {
+                format = candidate;
+            }
+        }
+        if (format == null) {
+            throw new IllegalArgumentException(
+                    "Unknown output format "
+                            + formatName
+                            + ", expected one of "
+                            + Arrays.stream(OutputFormat.values())
+                                    .map(OutputFormat::getOptionName)
+                                    .collect(Collectors.joining(", ")));
+        }
+        final String fileName = output.substring(separator + 1);
+        if (format == OutputFormat.INDEX && OutputTarget.STANDARD_OUTPUT.equals(fileName)) {
+            throw new IllegalArgumentException("The index output cannot be standard output");
+        }
+        return new OutputTarget(format, Path.of(fileName));
+    }
+
+    /**
+     * Check that at most one of several output targets is standard output, as the sinks of other targets would
+     * interleave their formats on it.
+     *
+     * @param targets The output targets.
+     * @throws IllegalArgumentException If more than one output target is standard output.
+     */
+    public static void checkStandardOutput(@NotNull final List<OutputTarget> targets) {
+        final List<OutputTarget> standardOutputTargets =
+                targets.stream().filter(OutputTarget::isStandardOutput).toList();
+        if (standardOutputTargets.size() > 1) {
+            throw new IllegalArgumentException(
+                    "Only one output can be standard output: "
+                            + standardOutputTargets.stream()
+                                    .map(target -> target.format().getOptionName() + "=-")
+                                    .collect(Collectors.joining(", ")));
+        }
+    }
+
+    /**
+     * Write the annotation information of some classes to several output targets in one pass: each class is
+     * written to every sink before the next class is.
+     *
+     * @param targets              The output targets, of which at most one is standard output.
+     * @param classAnnotationInfos The annotation information of the classes, in report order.
+     * @throws IOException              If an output cannot be written. The other outputs are still closed.
+     * @throws IllegalArgumentException If more than one output target is standard output.
+     */
+    public static void writeAll(
+            @NotNull final List<OutputTarget> targets,
+            @NotNull final List<? extends ClassAnnotationInfo> classAnnotationInfos)
+            throws IOException {
+        OutputTarget.checkStandardOutput(targets);
+        final List<OutputSink> sinks = new ArrayList<>();
+        IOException failure = null;
+        try {
+            for (final OutputTarget target : targets) {
+                sinks.add(target.open());
+            }
+            for (final ClassAnnotationInfo classAnnotationInfo : classAnnotationInfos) {
+                for (final OutputSink sink : sinks) {
+                    sink.write(classAnnotationInfo);
+                }
+            }
+        } catch (final IOException e) {
+            failure = e;
+        }
+        for (final OutputSink sink : sinks) {
+            try {
+                sink.close();
+            } catch (final IOException e) {
+                if (failure == null) {
+                    failure = e;
+                } else {
+                    failure.addSuppressed(e);
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * Returns whether this target is standard output.
+     *
+     * @return whether this target is standard output.
+     */
+    public boolean isStandardOutput() {
+        return OutputTarget.STANDARD_OUTPUT.equals(file.toString());
+    }
+
+    /**
+     * Open a sink that writes to this target.
+     *
+     * @return the sink.
+     * @throws IOException If the file cannot be created.
+     */
+    @NotNull
+    public OutputSink open() throws IOException {
+        if (format == OutputFormat.INDEX) {
+            return new IndexOutputSink(file);
+        }
+        final Utf8Output output =
+                isStandardOutput()
+                        ? new Utf8Output(System.out, false)
+                        : new Utf8Output(Files.newOutputStream(file), true);
+        return switch (format) {
+            case TEXT -> new TextOutputSink(output);
+            case JSONL -> new JsonLinesOutputSink(output);
+            case CSV -> new CsvOutputSink(output);
+            case SHAPES -> new ShapesOutputSink(output);
+            case INDEX -> throw new IllegalStateException("Unexpected output format: " + format);
+        };
+    }
+}
@@ -0,0 +1,130 @@
+package com.clann.output;
+
+import com.clann.visitor.AnnotationLevel;
+import com.clann.visitor.ClassAnnotationInfo;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Writes each distinct annotation shape once, followed by the classes that have it, for example:
+ * <pre>
+ * shapes: 1
+ * classes: 2
+ * - shape: 1
+ *      - @javax.annotation.processing.Generated
+ *          - [CLASS]
+ *      - classes: 2
+ *          - com.example.Foo
+ *          - com.example.Bar
+ * </pre>
+ * The shape of a class is its set of annotations with the levels each is used at. Generated code often gives
+ * thousands of classes the same shape, which the per-class report repeats for each of them. Classes are interned
+ * into a table of shapes as they are written and the table is written when the sink is closed, with shapes in the
+ * order in which they first occur. Classes without annotations, and the facts of analysis plugins, are not written.
+ */
+final class ShapesOutputSink implements OutputSink {
+
+    @NotNull private final Utf8Output output;
+
+    /**
+     * The classes of each distinct shape, in the order in which the shapes first occur.
+     */
+    @NotNull private final Map<Shape, List<ClassAnnotationInfo>> shapes = new LinkedHashMap<>();
+
+    private int classCount;
+
+    ShapesOutputSink(@NotNull final Utf8Output output) {
+        this.output = output;
+    }
+
+    @Override
+    @SuppressWarnings("PMD.OnlyOneReturn")
+    public void write(@NotNull final ClassAnnotationInfo classAnnotationInfo) {
+        final Map<String, ClassAnnotationInfo.AnnotationDetails> annotations =
+                classAnnotationInfo.getAnnotations();
+        if (annotations.isEmpty()) {
+            return;
+        }
+        // Annotations are not stored in a sorted map, so equal shapes are compared in name order
+        final String[] annotationNames = annotations.keySet().toArray(new String[0]);
+        Arrays.sort(annotationNames);
+        final int[] levelMasks = new int[annotationNames.length];
+        for (int i = 0; i < annotationNames.length; i++) {
+            levelMasks[i] =
+                    AnnotationLevel.toMask(
+                            annotations.get(annotationNames[i]).getAnnotationLevels());
+        }
+        shapes.computeIfAbsent(new Shape(annotationNames, levelMasks), shape -> new ArrayList<>())
+                .add(classAnnotationInfo);
+        classCount++;
+    }
+
+    @Override
+    public void close() throws IOException {
+        output.append("\nshapes: ")
+                .append(String.valueOf(shapes.size()))
+                .append("\nclasses: ")
+                .append(String.valueOf(classCount));
+        final StringBuilder className = new StringBuilder();
+        int shapeNumber = 0;
+        for (final Map.Entry<Shape, List<ClassAnnotationInfo>> entry : shapes.entrySet()) {
+            output.append("\n- shape: ").append(String.valueOf(++shapeNumber));
+            final Shape shape = entry.getKey();
+            for (int i = 0; i < shape.annotationNames.length; i++) {
+                output.append("\n\t - ").append(shape.annotationNames[i]).append("\n\t\t - [");
+                appendLevels(shape.levelMasks[i]);
+                output.append(']');
+            }
+            output.append("\n\t - classes: ").append(String.valueOf(entry.getValue().size()));
+            for (final ClassAnnotationInfo classAnnotationInfo : entry.getValue()) {
+                className.setLength(0);
+                output.append("\n\t\t - ").append(classAnnotationInfo.appendClassName(className));
+            }
+        }
+        output.append('\n').close();
+    }
+
+    private void appendLevels(final int levelMask) throws IOException {
+        boolean first = true;
+        for (final AnnotationLevel level : AnnotationLevel.fromMask(levelMask)) {
+            if (!first) {
+                output.append(", ");
+            }
+            output.append(level.name());
+            first = false;
+        }
+    }
+
+    /**
+     * The sorted annotation names of a class and the mask of the levels each is used at.
+     */
+    private static final class Shape {
+        @NotNull private final String[] annotationNames;
+        @NotNull private final int[] levelMasks;
+        private final int hash;
+
+        Shape(@NotNull final String[] annotationNames, @NotNull final int[] levelMasks) {
+            this.annotationNames = annotationNames;
+            this.levelMasks = levelMasks;
+            this.hash = 31 * Arrays.hashCode(annotationNames) + Arrays.hashCode(levelMasks);
+        }
+
+        @Override
+        public boolean equals(final Object other) {
+            return other instanceof Shape shape
+                    && hash == shape.hash
+                    && Arrays.equals(levelMasks, shape.levelMasks)
+                    && Arrays.equals(annotationNames, shape.annotationNames);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
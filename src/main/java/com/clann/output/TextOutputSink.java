@@ -0,0 +1,55 @@
+package com.clann.output;
+
+import com.clann.visitor.AnnotationLevel;
+import com.clann.visitor.ClassAnnotationInfo;
+import java.io.IOException;
+import java.util.Map;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Writes the report of {@link com.clann.JarAnalyzer#getClassAnnotationUsageReport(java.util.List)}, followed by a
+ * line break like the report printed on standard output, without building it as one string.
+ */
+final class TextOutputSink implements OutputSink {
+    @NotNull private final Utf8Output output;
+    @NotNull private final StringBuilder className = new StringBuilder();
+
+    TextOutputSink(@NotNull final Utf8Output output) {
+        this.output = output;
+    }
+
+    @Override
+    @SuppressWarnings("PMD.OnlyOneReturn")
+    public void write(@NotNull final ClassAnnotationInfo classAnnotationInfo) throws IOException {
+        if (classAnnotationInfo.getAnnotations().isEmpty()
+                && classAnnotationInfo.getFacts().isEmpty()) {
+            return;
+        }
+        className.setLength(0);
+        output.append("\n- class: ").append(classAnnotationInfo.appendClassName(className));
+        for (final Map.Entry<String, ClassAnnotationInfo.AnnotationDetails> entry :
+                classAnnotationInfo.getAnnotations().entrySet()) {
+            output.append("\n\t - ").append(entry.getKey()).append("\n\t\t - [");
+            boolean first = true;
+            for (final AnnotationLevel level : entry.getValue().getAnnotationLevels()) {
+                if (!first) {
+                    output.append(", ");
+                }
+                output.append(level.name());
+                first = false;
+            }
+            output.append(']');
+        }
+        for (final Map.Entry<String, Object> fact : classAnnotationInfo.getFacts().entrySet()) {
+            output.append("\n\t - ")
+                    .append(fact.getKey())
+                    .append(": ")
+                    .append(String.valueOf(fact.getValue()));
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        output.append('\n').close();
+    }
+}
@@ -0,0 +1,181 @@
+package com.clann.output;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Writes text as UTF-8 to a byte stream through a buffer. Characters are encoded directly into the buffer, so
+ * writing a name neither creates a string nor goes through a {@link java.nio.charset.CharsetEncoder}.
+ * <p>
+ * Unpaired surrogates, which cannot be encoded, are written as {@code ?}, like {@link String#getBytes} does.
+ */
+final class Utf8Output implements Closeable {
+    private static final int BUFFER_BYTES = 64 * 1024;
+
+    /**
+     * The most bytes one character, or a surrogate pair, is encoded as.
+     */
+    private static final int MAX_CHAR_BYTES = 4;
+
+    @NotNull private final OutputStream out;
+    private final boolean closeStream;
+    @NotNull private final byte[] buffer = new byte[Utf8Output.BUFFER_BYTES];
+    private int position;
+
+    /**
+     * Creates an output that writes to a stream.
+     *
+     * @param out         The stream to write to.
+     * @param closeStream Whether closing this output closes the stream, which should be {@code false} for
+     *                    {@link System#out}.
+     */
+    Utf8Output(@NotNull final OutputStream out, final boolean closeStream) {
+        this.out = out;
+        this.closeStream = closeStream;
+    }
+
+    /**
+     * Write some text.
+     *
+     * @param text The text.
+     * @return this output.
+     * @throws IOException If the stream cannot be written.
+     */
+    @NotNull
+    Utf8Output append(@NotNull final CharSequence text) throws IOException {
+        final int length = text.length();
+        for (int i = 0; i < length; i++) {
+            final char c = text.charAt(i);
+            if (Character.isHighSurrogate(c)
+                    && i + 1 < length
+                    && Character.isLowSurrogate(text.charAt(i + 1))) {
+                appendCodePoint(Character.toCodePoint(c, text.charAt(++i)));
+            } else {
+                append(c);
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Write a character, other than half of a surrogate pair.
+     *
+     * @param c The character.
+     * @return this output.
+     * @throws IOException If the stream cannot be written.
+     */
+    @NotNull
+    Utf8Output append(final char c) throws IOException {
+        if (position + Utf8Output.MAX_CHAR_BYTES > buffer.length) {
+            flushBuffer();
+        }
+        if (c < 0x80) {
+            buffer[position++] = (byte) c;
+        } else if (c < 0x800) {
+            buffer[position++] = (byte) (0xC0 | c >>> 6);
+            buffer[position++] = (byte) (0x80 | c & 0x3F);
+        } else if (Character.isSurrogate(c)) {
+            buffer[position++] = '?';
+        } else {
+            buffer[position++] = (byte) (0xE0 | c >>> 12);
+            buffer[position++] = (byte) (0x80 | c >>> 6 & 0x3F);
+            buffer[position++] = (byte) (0x80 | c & 0x3F);
+        }
+        return this;
+    }
+
+    /**
+     * Write text as a JSON string, in quotes and with quotes, backslashes and control characters escaped.
+     *
+     * @param text The text.
+     * @return this output.
+     * @throws IOException If the stream cannot be written.
+     */
+    @NotNull
+    Utf8Output appendJsonString(@NotNull final CharSequence text) throws IOException {
+        append('"');
+        final int length = text.length();
+        int start = 0;
+        for (int i = 0; i < length; i++) {
+            final char c = text.charAt(i);
+            if (c == '"' || c == '\\' || c < 0x20) {
+                append(text.subSequence(start, i));
+                Utf8Output.appendJsonEscape(this, c);
+                start = i + 1;
+            }
+        }
+        return append(start == 0 ? text : text.subSequence(start, length)).append('"');
+    }
+
+    /**
+     * Write text as a CSV field, in quotes with quotes doubled if it contains a separator, a quote or a line
+     * break, as described by RFC 4180.
+     *
+     * @param text The text.
+     * @return this output.
+     * @throws IOException If the stream cannot be written.
+     */
+    @NotNull
+    @SuppressWarnings("PMD.OnlyOneReturn")
+    Utf8Output appendCsvField(@NotNull final CharSequence text) throws IOException {
+        boolean quoted = false;
+        for (int i = 0; i < text.length() && !quoted; i++) {
+            final char c = text.charAt(i);
+            quoted = c == ',' || c == '"' || c == '\r' || c == '\n';
+        }
+        if (!quoted) {
+            return append(text);
+        }
+        // Each quote ends a segment and starts the next one, so it is written twice
+        append('"');
+        int start = 0;
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) == '"') {
+                append(text.subSequence(start, i + 1));
+                start = i;
+            }
+        }
+        return append(text.subSequence(start, text.length())).append('"');
+    }
+
+    @Override
+    public void close() throws IOException {
+        flushBuffer();
+        if (closeStream) {
+            out.close();
+        } else {
+            out.flush();
+        }
+    }
+
+    private static void appendJsonEscape(@NotNull final Utf8Output output, final char c)
+            throws IOException {
+        switch (c) {
+            case '"' -> output.append("\\\"");
+            case '\\' -> output.append("\\\\");
+            case '\n' -> output.append("\\n");
+            case '\r' -> output.append("\\r");
+            case '\t' -> output.append("\\t");
+            case '\b' -> output.append("\\b");
+            case '\f' -> output.append("\\f");
+            default -> output.append(String.format("\\u%04x", (int) c));
+        }
+    }
+
+    private void appendCodePoint(final int codePoint) throws IOException {
+        if (position + Utf8Output.MAX_CHAR_BYTES > buffer.length) {
+            flushBuffer();
+        }
+        buffer[position++] = (byte) (0xF0 | codePoint >>> 18);
+        buffer[position++] = (byte) (0x80 | codePoint >>> 12 & 0x3F);
+        buffer[position++] = (byte) (0x80 | codePoint >>> 6 & 0x3F);
+        buffer[position++] = (byte) (0x80 | codePoint & 0x3F);
+    }
+
+    private void flushBuffer() throws IOException {
+        out.write(buffer, 0, position);
+        position = 0;
+    }
+}
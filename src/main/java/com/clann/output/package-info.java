@@ -0,0 +1,5 @@
+/**
+ * Groups classes that write scan results to several output sinks, such as text reports, JSON Lines and CSV feeds
+ * and annotation indexes, from one scan.
+ */
+package com.clann.output;
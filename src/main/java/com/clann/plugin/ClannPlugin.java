@@ -0,0 +1,47 @@
+package com.clann.plugin;
+
+import com.clann.visitor.ClassAnnotationInfo;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.Opcodes;
+
+/**
+ * An analysis that runs in the same pass over each class file as the annotation visitors of clann, so that several
+ * analyses share one read, decompression and parse of each class.
+ * <p>
+ * Plugins are discovered with {@link java.util.ServiceLoader}: a JAR file on the classpath lists its
+ * implementations in {@code META-INF/services/com.clann.plugin.ClannPlugin}, and each plugin is enabled by name
+ * with {@code --plugin <name>}. Implementations must have a public no-argument constructor and be thread-safe, as
+ * classes are parsed on many threads.
+ */
+public interface ClannPlugin {
+    /**
+     * The ASM API version that the visitors of plugins must use.
+     */
+    int ASM_API_VERSION = Opcodes.ASM9;
+
+    /**
+     * Returns the name of the plugin, used to enable it and as the prefix of the names of its facts.
+     *
+     * @return the name of the plugin, such as {@code classfile}.
+     */
+    @NotNull
+    String getName();
+
+    /**
+     * Creates the visitor that analyzes one class file.
+     * <p>
+     * The visitor must pass every event on to {@code next}, usually by calling the {@code super} method of
+     * {@link ClassVisitor}, and wrap the field and method visitors returned by {@code next} in the same way, so
+     * that the plugins after it in the chain see every event too. It contributes its results with
+     * {@link ClassAnnotationInfo#putFact(String, Object)}.
+     *
+     * @param next      The visitor of the next plugin, or {@code null} if this plugin is the last one.
+     * @param classInfo The annotation information of the class, to contribute facts to.
+     * @return the visitor.
+     */
+    @NotNull
+    ClassVisitor createClassVisitor(
+            @Nullable ClassVisitor next, @NotNull ClassAnnotationInfo classInfo);
+}
@@ -0,0 +1,66 @@
+package com.clann.plugin;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.ServiceLoader;
+import java.util.stream.Collectors;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Discovers and selects {@link ClannPlugin}s.
+ * <p>
+ * The selected plugins are given to a scan with {@link com.clann.ScanLimits#withPlugins(List)}, so scans in the
+ * same JVM each run their own plugins.
+ */
+public final class ClannPlugins {
+    /**
+     * Prevents instantiation of utility class with a private constructor.
+     */
+    private ClannPlugins() {}
+
+    /**
+     * Discover the plugins registered with {@link ServiceLoader} in a class loader.
+     *
+     * @param classLoader The class loader.
+     * @return the plugins, in discovery order.
+     * @throws java.util.ServiceConfigurationError If a registered plugin cannot be instantiated.
+     */
+    @NotNull
+    public static List<ClannPlugin> discover(@NotNull final ClassLoader classLoader) {
+        final List<ClannPlugin> plugins = new ArrayList<>();
+        ServiceLoader.load(ClannPlugin.class, classLoader).forEach(plugins::add);
+        return plugins;
+    }
+
+    /**
+     * Select plugins by name.
+     *
+     * @param plugins The available plugins.
+     * @param names   The names of the plugins to select, in the order they should run.
+     * @return the selected plugins.
+     * @throws IllegalArgumentException If no available plugin has one of the names.
+     */
+    @NotNull
+    public static List<ClannPlugin> select(
+            @NotNull final List<ClannPlugin> plugins, @NotNull final List<String> names) {
+        final List<ClannPlugin> selected = new ArrayList<>();
+        for (final String name : names) {
+            final ClannPlugin plugin =
+                    plugins.stream()
+                            .filter(candidate -> candidate.getName().equals(name))
+                            .findFirst()
+                            .orElse(null);
+            if (plugin == null) {
+                throw new IllegalArgumentException(
+                        "Unknown plugin "
+                                + name
+                                + ", available plugins: "
+                                + plugins.stream()
+                                        .map(ClannPlugin::getName)
+                                        .collect(Collectors.joining(", ")));
+            }
+            selected.add(plugin);
+        }
+        return selected;
+    }
+}
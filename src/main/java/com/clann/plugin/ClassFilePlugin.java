@@ -0,0 +1,80 @@
+package com.clann.plugin;
+
+import com.clann.visitor.ClassAnnotationInfo;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+
+/**
+ * Reports facts about the class file itself, named {@code classfile}:
+ * <ul>
+ *     <li>{@code classfile.version}, the major version of the class file, such as 61 for Java 17,</li>
+ *     <li>{@code classfile.syntheticMethods} and {@code classfile.bridgeMethods}, the number of methods
+ *     generated by the compiler, and</li>
+ *     <li>{@code classfile.serializable}, whether the class directly implements {@link java.io.Serializable}.
+ *     Classes that only inherit it are not resolved, as that needs their superclasses.</li>
+ * </ul>
+ */
+public final class ClassFilePlugin implements ClannPlugin {
+    private static final String SERIALIZABLE = "java/io/Serializable";
+
+    @NotNull
+    @Override
+    public String getName() {
+        return "classfile";
+    }
+
+    @NotNull
+    @Override
+    public ClassVisitor createClassVisitor(
+            @Nullable final ClassVisitor next, @NotNull final ClassAnnotationInfo classInfo) {
+        return new ClassVisitor(ClannPlugin.ASM_API_VERSION, next) {
+            private int syntheticMethods;
+            private int bridgeMethods;
+
+            @Override
+            public void visit(
+                    final int version,
+                    final int access,
+                    final String name,
+                    final String signature,
+                    final String superName,
+                    final String[] interfaces) {
+                classInfo.putFact("classfile.version", version & 0xFFFF);
+                boolean serializable = false;
+                if (interfaces != null) {
+                    for (final String interfaceName : interfaces) {
+                        serializable |= ClassFilePlugin.SERIALIZABLE.equals(interfaceName);
+                    }
+                }
+                classInfo.putFact("classfile.serializable", serializable);
+                super.visit(version, access, name, signature, superName, interfaces);
+            }
+
+            @Override
+            public MethodVisitor visitMethod(
+                    final int access,
+                    final String name,
+                    final String descriptor,
+                    final String signature,
+                    final String[] exceptions) {
+                if ((access & Opcodes.ACC_SYNTHETIC) != 0) {
+                    syntheticMethods++;
+                }
+                if ((access & Opcodes.ACC_BRIDGE) != 0) {
+                    bridgeMethods++;
+                }
+                return super.visitMethod(access, name, descriptor, signature, exceptions);
+            }
+
+            @Override
+            public void visitEnd() {
+                classInfo.putFact("classfile.syntheticMethods", syntheticMethods);
+                classInfo.putFact("classfile.bridgeMethods", bridgeMethods);
+                super.visitEnd();
+            }
+        };
+    }
+}
@@ -0,0 +1,5 @@
+/**
+ * Groups the service provider interface of analysis plugins, which run their own bytecode visitors in the same
+ * pass over each class file as the annotation visitors, and the plugins that ship with clann.
+ */
+package com.clann.plugin;
@@ -0,0 +1,182 @@
+package com.clann.query;
+
+import com.clann.visitor.AnnotationLevel;
+import com.clann.visitor.ClassAnnotationInfo;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * An inverted index from annotations to the classes that use them, for answering {@link AnnotationQuery}
+ * queries over scan results.
+ * <p>
+ * Each scanned class is assigned a dense id, its position in the scan results. For each annotation, and for each
+ * pair of annotation and {@link AnnotationLevel}, the ids of the classes using it are stored in a
+ * {@link CompressedBitmap}. The index is built in a single pass over the scan results, and queries then combine
+ * whole bitmaps instead of visiting classes, so they take microseconds even over millions of classes.
+ * <p>
+ * Instances are immutable and thread-safe.
+ */
+public final class AnnotationBitmapIndex {
+    @NotNull private final List<String> classNames;
+    @NotNull private final CompressedBitmap allClasses;
+    @NotNull private final Map<String, CompressedBitmap> annotationBitmaps;
+    @NotNull private final Map<String, Map<AnnotationLevel, CompressedBitmap>> levelBitmaps;
+
+    /**
+     * Mapping from simple annotation names, such as {@code @Entity}, to the annotation names that have them.
+     */
+    @NotNull private final Map<String, List<String>> annotationsBySimpleName;
+
+    private AnnotationBitmapIndex(
+            @NotNull final List<String> classNames,
+            @NotNull final Map<String, CompressedBitmap> annotationBitmaps,
+            @NotNull final Map<String, Map<AnnotationLevel, CompressedBitmap>> levelBitmaps) {
+        this.classNames = List.copyOf(classNames);
+        this.allClasses = CompressedBitmap.range(classNames.size());
+        this.annotationBitmaps = Map.copyOf(annotationBitmaps);
+        this.levelBitmaps = Map.copyOf(levelBitmaps);
+        final Map<String, List<String>> bySimpleName = new HashMap<>();
+        for (final String annotationName : annotationBitmaps.keySet()) {
+            bySimpleName
+                    .computeIfAbsent(
+                            AnnotationBitmapIndex.simpleName(annotationName),
+                            k -> new ArrayList<>())
+                    .add(annotationName);
+        }
+        this.annotationsBySimpleName = Map.copyOf(bySimpleName);
+    }
+
+    /**
+     * Returns the simple name of the given annotation name, keeping the leading {@code @}. An annotation in the default
+     * package, such as {@code @Foo}, is its own simple name.
+     *
+     * @param annotationName The friendly annotation name, for example {@code @jakarta.persistence.Entity}.
+     * @return the simple annotation name, for example {@code @Entity}.
+     */
+    @NotNull
+    private static String simpleName(@NotNull final String annotationName) {
+        final String qualifiedName =
+                annotationName.startsWith("@") ? annotationName.substring(1) : annotationName;
+        return "@" + qualifiedName.substring(qualifiedName.lastIndexOf('.') + 1);
+    }
+
+    /**
+     * Build the index of the given scan results. The id of each class is its position in the list.
+     *
+     * @param classAnnotationInfos The annotation information of the scanned classes.
+     * @return the index.
+     */
+    @NotNull
+    public static AnnotationBitmapIndex build(
+            @NotNull final List<? extends ClassAnnotationInfo> classAnnotationInfos) {
+        final List<String> classNames = new ArrayList<>(classAnnotationInfos.size());
+        final Map<String, CompressedBitmap.Builder> annotationBuilders = new HashMap<>();
+        final Map<String, Map<AnnotationLevel, CompressedBitmap.Builder>> levelBuilders =
+                new HashMap<>();
+
+        for (int classId = 0; classId < classAnnotationInfos.size(); classId++) {
+            final ClassAnnotationInfo classAnnotationInfo = classAnnotationInfos.get(classId);
+            classNames.add(classAnnotationInfo.getClassName());
+            for (final Map.Entry<String, ClassAnnotationInfo.AnnotationDetails> entry :
+                    classAnnotationInfo.getAnnotations().entrySet()) {
+                annotationBuilders
+                        .computeIfAbsent(entry.getKey(), k -> new CompressedBitmap.Builder())
+                        .add(classId);
+                final Map<AnnotationLevel, CompressedBitmap.Builder> builders =
+                        levelBuilders.computeIfAbsent(
+                                entry.getKey(), k -> new EnumMap<>(AnnotationLevel.class));
+                for (final AnnotationLevel level : entry.getValue().getAnnotationLevels()) {
+                    builders.computeIfAbsent(level, k -> new CompressedBitmap.Builder())
+                            .add(classId);
+                }
+            }
+        }
+
+        final Map<String, CompressedBitmap> annotationBitmaps = new HashMap<>();
+        annotationBuilders.forEach((name, builder) -> annotationBitmaps.put(name, builder.build()));
+        final Map<String, Map<AnnotationLevel, CompressedBitmap>> levelBitmaps = new HashMap<>();
+        levelBuilders.forEach(
+                (name, builders) -> {
+                    final Map<AnnotationLevel, CompressedBitmap> bitmaps =
+                            new EnumMap<>(AnnotationLevel.class);
+                    builders.forEach((level, builder) -> bitmaps.put(level, builder.build()));
+                    levelBitmaps.put(name, bitmaps);
+                });
+        return new AnnotationBitmapIndex(classNames, annotationBitmaps, levelBitmaps);
+    }
+
+    /**
+     * Returns the ids of all indexed classes.
+     *
+     * @return the ids of all indexed classes.
+     */
+    @NotNull
+    public CompressedBitmap getAllClasses() {
+        return allClasses;
+    }
+
+    /**
+     * Returns the ids of the classes using the given annotation at any level.
+     *
+     * @param annotationName The friendly annotation name, for example {@code @java.lang.Deprecated}.
+     * @return the ids of the classes using the annotation.
+     */
+    @NotNull
+    public CompressedBitmap getClasses(@NotNull final String annotationName) {
+        return annotationBitmaps.getOrDefault(annotationName, CompressedBitmap.EMPTY);
+    }
+
+    /**
+     * Returns the ids of the classes using the given annotation at the given level.
+     *
+     * @param annotationName The friendly annotation name, for example {@code @java.lang.Deprecated}.
+     * @param level          The annotation level.
+     * @return the ids of the classes using the annotation at the level.
+     */
+    @NotNull
+    public CompressedBitmap getClasses(
+            @NotNull final String annotationName, @NotNull final AnnotationLevel level) {
+        return levelBitmaps
+                .getOrDefault(annotationName, Map.of())
+                .getOrDefault(level, CompressedBitmap.EMPTY);
+    }
+
+    /**
+     * Returns the indexed annotation names with the given simple name.
+     *
+     * @param simpleName The simple annotation name, for example {@code @Entity}.
+     * @return the indexed annotation names with the simple name, for example {@code @jakarta.persistence.Entity}.
+     */
+    @NotNull
+    public List<String> getAnnotationNames(@NotNull final String simpleName) {
+        return annotationsBySimpleName.getOrDefault(simpleName, List.of());
+    }
+
+    /**
+     * Returns all indexed annotation names.
+     *
+     * @return all indexed annotation names.
+     */
+    @NotNull
+    public Set<String> getAnnotationNames() {
+        return annotationBitmaps.keySet();
+    }
+
+    /**
+     * Returns the names of the classes with the given ids, in ascending order of id.
+     *
+     * @param classIds The class ids.
+     * @return the class names.
+     */
+    @NotNull
+    public List<String> getClassNames(@NotNull final CompressedBitmap classIds) {
+        final List<String> names = new ArrayList<>(classIds.cardinality());
+        classIds.forEach(classId -> names.add(classNames.get(classId)));
+        return names;
+    }
+}
@@ -0,0 +1,279 @@
+package com.clann.query;
+
+import com.clann.visitor.AnnotationLevel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * A boolean query over the annotations used by classes, evaluated against an {@link AnnotationBitmapIndex}.
+ * <p>
+ * The syntax is:
+ * <pre>
+ * query      := and (("OR" | "||") and)*
+ * and        := not (("AND" | "&amp;&amp;") not)*
+ * not        := ("NOT" | "!") not | "(" query ")" | annotation [":" level]
+ * annotation := "@" name
+ * </pre>
+ * Keywords are case-insensitive. A qualified annotation name, such as {@code @jakarta.persistence.Entity},
+ * matches that annotation only, while a simple name, such as {@code @Entity}, matches every annotation with that
+ * simple name. Without a level, an annotation matches classes using it at any {@link AnnotationLevel}. For
+ * example, classes with {@code @Entity} at class level but no {@code @Table}, and with {@code @Id} on a field:
+ * <pre>
+ * &#64;Entity:CLASS AND NOT &#64;Table AND &#64;Id:FIELD
+ * </pre>
+ */
+public final class AnnotationQuery {
+    @NotNull private final String text;
+    @NotNull private final Node root;
+
+    private AnnotationQuery(@NotNull final String text, @NotNull final Node root) {
+        this.text = text;
+        this.root = root;
+    }
+
+    /**
+     * Parse a query.
+     *
+     * @param text The query text.
+     * @return the parsed query.
+     * @throws IllegalArgumentException If the query is not valid, with the position of the error.
+     */
+    @NotNull
+    public static AnnotationQuery parse(@NotNull final String text) {
+        return new AnnotationQuery(text, new Parser(text).parse());
+    }
+
+    /**
+     * Evaluate this query.
+     *
+     * @param index The index of the scanned classes.
+     * @return the ids of the classes matching this query.
+     */
+    @NotNull
+    public CompressedBitmap evaluate(@NotNull final AnnotationBitmapIndex index) {
+        return root.evaluate(index);
+    }
+
+    @Override
+    public String toString() {
+        return text;
+    }
+
+    /**
+     * A node of the syntax tree of a query.
+     */
+    private sealed interface Node {
+        @NotNull
+        CompressedBitmap evaluate(@NotNull AnnotationBitmapIndex index);
+    }
+
+    private record Or(@NotNull Node left, @NotNull Node right) implements Node {
+        @Override
+        @NotNull
+        public CompressedBitmap evaluate(@NotNull final AnnotationBitmapIndex index) {
+            return left.evaluate(index).or(right.evaluate(index));
+        }
+    }
+
+    private record And(@NotNull Node left, @NotNull Node right) implements Node {
+        @Override
+        @NotNull
+        public CompressedBitmap evaluate(@NotNull final AnnotationBitmapIndex index) {
+            // Intersecting with a negation is a difference, which avoids materializing the complement
+            final CompressedBitmap result;
+            if (right instanceof Not not) {
+                result = left.evaluate(index).andNot(not.operand().evaluate(index));
+            } else if (left instanceof Not not) {
+                result = right.evaluate(index).andNot(not.operand().evaluate(index));
+            } else {
+                result = left.evaluate(index).and(right.evaluate(index));
+            }
+            return result;
+        }
+    }
+
+    private record Not(@NotNull Node operand) implements Node {
+        @Override
+        @NotNull
+        public CompressedBitmap evaluate(@NotNull final AnnotationBitmapIndex index) {
+            return index.getAllClasses().andNot(operand.evaluate(index));
+        }
+    }
+
+    private record Term(@NotNull String annotationName, @Nullable AnnotationLevel level)
+            implements Node {
+        @Override
+        @NotNull
+        public CompressedBitmap evaluate(@NotNull final AnnotationBitmapIndex index) {
+            final List<String> annotationNames =
+                    annotationName.indexOf('.') < 0
+                            ? index.getAnnotationNames(annotationName)
+                            : List.of(annotationName);
+            CompressedBitmap result = null;
+            for (final String name : annotationNames) {
+                final CompressedBitmap classes =
+                        level == null ? index.getClasses(name) : index.getClasses(name, level);
+                result = result == null ? classes : result.or(classes);
+            }
+            return result == null ? CompressedBitmap.EMPTY : result;
+        }
+    }
+
+    /**
+     * A recursive descent parser of the query syntax.
+     */
+    private static final class Parser {
+        @NotNull private final String text;
+        @NotNull private final List<Token> tokens;
+        private int position;
+
+        Parser(@NotNull final String text) {
+            this.text = text;
+            this.tokens = Parser.tokenize(text);
+        }
+
+        @NotNull
+        Node parse() {
+            final Node node = parseOr();
+            if (position < tokens.size()) {
+                throw error(tokens.get(position).offset(), "unexpected '" + peek() + "'");
+            }
+            return node;
+        }
+
+        @NotNull
+        private Node parseOr() {
+            Node node = parseAnd();
+            while (accept("OR") || accept("||")) {
+                node = new Or(node, parseAnd());
+            }
+            return node;
+        }
+
+        @NotNull
+        private Node parseAnd() {
+            Node node = parseNot();
+            while (accept("AND") || accept("&&")) {
+                node = new And(node, parseNot());
+            }
+            return node;
+        }
+
+        @NotNull
+        private Node parseNot() {
+            final Node node;
+            if (accept("NOT") || accept("!")) {
+                node = new Not(parseNot());
+            } else if (accept("(")) {
+                node = parseOr();
+                expect(")");
+            } else {
+                node = parseTerm();
+            }
+            return node;
+        }
+
+        @NotNull
+        private Node parseTerm() {
+            final int offset = currentOffset();
+            final String annotationName = peek();
+            if (annotationName == null
+                    || annotationName.length() < 2
+                    || annotationName.charAt(0) != '@') {
+                throw error(offset, "expected an annotation name such as @Deprecated");
+            }
+            position++;
+
+            AnnotationLevel level = null;
+            if (accept(":")) {
+                final int levelOffset = currentOffset();
+                final String levelName = peek();
+                try {
+                    level =
+                            AnnotationLevel.valueOf(
+                                    String.valueOf(levelName).toUpperCase(Locale.ROOT));
+                } catch (final IllegalArgumentException e) {
+                    throw error(levelOffset, "unknown annotation level '" + levelName + "'");
+                }
+                position++;
+            }
+            return new Term(annotationName, level);
+        }
+
+        private boolean accept(@NotNull final String token) {
+            final String next = peek();
+            final boolean accepted = next != null && next.equalsIgnoreCase(token);
+            if (accepted) {
+                position++;
+            }
+            return accepted;
+        }
+
+        private void expect(@NotNull final String token) {
+            if (!accept(token)) {
+                throw error(currentOffset(), "expected '" + token + "'");
+            }
+        }
+
+        @Nullable
+        private String peek() {
+            return position < tokens.size() ? tokens.get(position).text() : null;
+        }
+
+        private int currentOffset() {
+            return position < tokens.size() ? tokens.get(position).offset() : text.length();
+        }
+
+        @NotNull
+        private IllegalArgumentException error(final int offset, @NotNull final String message) {
+            return new IllegalArgumentException(
+                    "Invalid query at position " + offset + ": " + message + ": " + text);
+        }
+
+        @NotNull
+        private static List<Token> tokenize(@NotNull final String text) {
+            final List<Token> tokens = new ArrayList<>();
+            int offset = 0;
+            while (offset < text.length()) {
+                final char c = text.charAt(offset);
+                if (Character.isWhitespace(c)) {
+                    offset++;
+                } else if (text.startsWith("&&", offset) || text.startsWith("||", offset)) {
+                    tokens.add(new Token(text.substring(offset, offset + 2), offset));
+                    offset += 2;
+                } else if (c == '(' || c == ')' || c == '!' || c == ':') {
+                    tokens.add(new Token(String.valueOf(c), offset));
+                    offset++;
+                } else {
+                    final int start = offset;
+                    while (offset < text.length() && Parser.isWordPart(text.charAt(offset))) {
+                        offset++;
+                    }
+                    if (offset == start) {
+                        throw new IllegalArgumentException(
+                                "Invalid query at position "
+                                        + offset
+                                        + ": unexpected character '"
+                                        + c
+                                        + "': "
+                                        + text);
+                    }
+                    tokens.add(new Token(text.substring(start, offset), start));
+                }
+            }
+            return tokens;
+        }
+
+        private static boolean isWordPart(final char c) {
+            return c == '@' || c == '.' || c == '$' || Character.isJavaIdentifierPart(c);
+        }
+    }
+
+    /**
+     * A token of the query text and its offset in the text.
+     */
+    private record Token(@NotNull String text, int offset) {}
+}
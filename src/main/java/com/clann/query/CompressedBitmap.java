@@ -0,0 +1,510 @@
+package com.clann.query;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * An immutable, compressed set of non-negative integers, such as the dense ids of the classes using an
+ * annotation.
+ * <p>
+ * The layout follows roaring bitmaps: integers are partitioned by their upper 16 bits into chunks of 65536, and
+ * each non-empty chunk stores its lower 16 bits either as a sorted {@code char[]} of at most
+ * {@value #ARRAY_MAX_SIZE} values or, when denser, as a {@code long[]} of 1024 words with one bit per value.
+ * Sparse annotations therefore cost two bytes per class and dense ones at most one bit per class, and the
+ * boolean operations work a chunk at a time with merges or word-wise operations instead of per integer.
+ */
+public final class CompressedBitmap {
+    /**
+     * The largest number of values stored in an array container. Beyond this, a bitmap container is smaller.
+     */
+    static final int ARRAY_MAX_SIZE = 4096;
+
+    private static final int BITMAP_WORDS = 1024;
+
+    /**
+     * The empty bitmap.
+     */
+    public static final CompressedBitmap EMPTY =
+            new CompressedBitmap(new char[0], new Object[0], 0);
+
+    /**
+     * The upper 16 bits of the values in each container, in ascending order.
+     */
+    @NotNull private final char[] keys;
+
+    /**
+     * The containers, each either a {@code char[]} array container or a {@code long[]} bitmap container.
+     */
+    @NotNull private final Object[] containers;
+
+    private final int size;
+
+    private CompressedBitmap(
+            @NotNull final char[] keys, @NotNull final Object[] containers, final int count) {
+        this.keys = Arrays.copyOf(keys, count);
+        this.containers = Arrays.copyOf(containers, count);
+        int cardinality = 0;
+        for (final Object container : this.containers) {
+            cardinality += CompressedBitmap.cardinality(container);
+        }
+        this.size = cardinality;
+    }
+
+    /**
+     * Returns a bitmap of all integers from zero, inclusive, to the given bound, exclusive.
+     *
+     * @param end The exclusive upper bound.
+     * @return the bitmap of the range.
+     */
+    @NotNull
+    public static CompressedBitmap range(final int end) {
+        final Builder builder = new Builder();
+        for (int value = 0; value < end; value++) {
+            builder.add(value);
+        }
+        return builder.build();
+    }
+
+    /**
+     * Returns a bitmap of the given integers.
+     *
+     * @param values The integers, in any order.
+     * @return the bitmap of the integers.
+     */
+    @NotNull
+    public static CompressedBitmap of(final int... values) {
+        final int[] sorted = values.clone();
+        Arrays.sort(sorted);
+        final Builder builder = new Builder();
+        for (final int value : sorted) {
+            builder.add(value);
+        }
+        return builder.build();
+    }
+
+    /**
+     * Returns the number of integers in this bitmap.
+     *
+     * @return the number of integers in this bitmap.
+     */
+    public int cardinality() {
+        return size;
+    }
+
+    /**
+     * Returns whether this bitmap contains the given integer.
+     *
+     * @param value The integer.
+     * @return whether this bitmap contains the integer.
+     */
+    public boolean contains(final int value) {
+        final int index = Arrays.binarySearch(keys, (char) (value >>> 16));
+        final char low = (char) value;
+        return value >= 0
+                && index >= 0
+                && (containers[index] instanceof char[] array
+                        ? Arrays.binarySearch(array, low) >= 0
+                        : (((long[]) containers[index])[low >>> 6] & 1L << low) != 0);
+    }
+
+    /**
+     * Pass each integer in this bitmap to the given consumer in ascending order.
+     *
+     * @param consumer The consumer of the integers.
+     */
+    public void forEach(@NotNull final IntConsumer consumer) {
+        for (int i = 0; i < keys.length; i++) {
+            final int high = keys[i] << 16;
+            if (containers[i] instanceof char[] array) {
+                for (final char low : array) {
+                    consumer.accept(high | low);
+                }
+            } else {
+                final long[] words = (long[]) containers[i];
+                for (int word = 0; word < words.length; word++) {
+                    long bits = words[word];
+                    while (bits != 0) {
+                        consumer.accept(high | word << 6 | Long.numberOfTrailingZeros(bits));
+                        bits &= bits - 1;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the integers in this bitmap in ascending order.
+     *
+     * @return the integers in this bitmap in ascending order.
+     */
+    @NotNull
+    public int[] toArray() {
+        final int[] values = new int[size];
+        final int[] index = new int[1];
+        forEach(value -> values[index[0]++] = value);
+        return values;
+    }
+
+    /**
+     * Returns the intersection of this bitmap and the given bitmap.
+     *
+     * @param other The other bitmap.
+     * @return the integers in both bitmaps.
+     */
+    @NotNull
+    public CompressedBitmap and(@NotNull final CompressedBitmap other) {
+        final int capacity = Math.min(keys.length, other.keys.length);
+        final char[] resultKeys = new char[capacity];
+        final Object[] resultContainers = new Object[capacity];
+        int count = 0;
+        int i = 0;
+        int j = 0;
+        while (i < keys.length && j < other.keys.length) {
+            if (keys[i] < other.keys[j]) {
+                i++;
+            } else if (keys[i] > other.keys[j]) {
+                j++;
+            } else {
+                final Object container =
+                        CompressedBitmap.and(containers[i], other.containers[j]);
+                if (container != null) {
+                    resultKeys[count] = keys[i];
+                    resultContainers[count++] = container;
+                }
+                i++;
+                j++;
+            }
+        }
+        return new CompressedBitmap(resultKeys, resultContainers, count);
+    }
+
+    /**
+     * Returns the union of this bitmap and the given bitmap.
+     *
+     * @param other The other bitmap.
+     * @return the integers in either bitmap.
+     */
+    @NotNull
+    public CompressedBitmap or(@NotNull final CompressedBitmap other) {
+        final int capacity = keys.length + other.keys.length;
+        final char[] resultKeys = new char[capacity];
+        final Object[] resultContainers = new Object[capacity];
+        int count = 0;
+        int i = 0;
+        int j = 0;
+        while (i < keys.length || j < other.keys.length) {
+            if (j == other.keys.length || i < keys.length && keys[i] < other.keys[j]) {
+                resultKeys[count] = keys[i];
+                resultContainers[count++] = containers[i++];
+            } else if (i == keys.length || keys[i] > other.keys[j]) {
+                resultKeys[count] = other.keys[j];
+                resultContainers[count++] = other.containers[j++];
+            } else {
+                resultKeys[count] = keys[i];
+                resultContainers[count++] =
+                        CompressedBitmap.or(containers[i++], other.containers[j++]);
+            }
+        }
+        return new CompressedBitmap(resultKeys, resultContainers, count);
+    }
+
+    /**
+     * Returns the difference of this bitmap and the given bitmap.
+     *
+     * @param other The other bitmap.
+     * @return the integers in this bitmap that are not in the other bitmap.
+     */
+    @NotNull
+    public CompressedBitmap andNot(@NotNull final CompressedBitmap other) {
+        final char[] resultKeys = new char[keys.length];
+        final Object[] resultContainers = new Object[keys.length];
+        int count = 0;
+        int j = 0;
+        for (int i = 0; i < keys.length; i++) {
+            while (j < other.keys.length && other.keys[j] < keys[i]) {
+                j++;
+            }
+            final Object container =
+                    j < other.keys.length && other.keys[j] == keys[i]
+                            ? CompressedBitmap.andNot(containers[i], other.containers[j])
+                            : containers[i];
+            if (container != null) {
+                resultKeys[count] = keys[i];
+                resultContainers[count++] = container;
+            }
+        }
+        return new CompressedBitmap(resultKeys, resultContainers, count);
+    }
+
+    @Override
+    public boolean equals(final Object other) {
+        return this == other
+                || other instanceof CompressedBitmap bitmap
+                        && size == bitmap.size
+                        && Arrays.equals(toArray(), bitmap.toArray());
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(toArray());
+    }
+
+    @Override
+    public String toString() {
+        return Arrays.toString(toArray());
+    }
+
+    private static int cardinality(@NotNull final Object container) {
+        int cardinality = 0;
+        if (container instanceof char[] array) {
+            cardinality = array.length;
+        } else {
+            for (final long word : (long[]) container) {
+                cardinality += Long.bitCount(word);
+            }
+        }
+        return cardinality;
+    }
+
+    /**
+     * Returns the intersection of two containers, or {@code null} if it is empty.
+     */
+    @Nullable
+    private static Object and(@NotNull final Object left, @NotNull final Object right) {
+        final Object result;
+        if (left instanceof char[] leftArray && right instanceof char[] rightArray) {
+            final char[] values = new char[Math.min(leftArray.length, rightArray.length)];
+            int count = 0;
+            int i = 0;
+            int j = 0;
+            while (i < leftArray.length && j < rightArray.length) {
+                if (leftArray[i] < rightArray[j]) {
+                    i++;
+                } else if (leftArray[i] > rightArray[j]) {
+                    j++;
+                } else {
+                    values[count++] = leftArray[i++];
+                    j++;
+                }
+            }
+            result = Arrays.copyOf(values, count);
+        } else if (left instanceof char[] array) {
+            result = CompressedBitmap.filter(array, (long[]) right, true);
+        } else if (right instanceof char[] array) {
+            result = CompressedBitmap.filter(array, (long[]) left, true);
+        } else {
+            final long[] leftWords = (long[]) left;
+            final long[] rightWords = (long[]) right;
+            final long[] words = new long[CompressedBitmap.BITMAP_WORDS];
+            for (int i = 0; i < words.length; i++) {
+                words[i] = leftWords[i] & rightWords[i];
+            }
+            result = CompressedBitmap.optimize(words);
+        }
+        return CompressedBitmap.cardinality(result) == 0 ? null : result;
+    }
+
+    @NotNull
+    private static Object or(@NotNull final Object left, @NotNull final Object right) {
+        final Object result;
+        if (left instanceof char[] leftArray && right instanceof char[] rightArray) {
+            final char[] values = new char[leftArray.length + rightArray.length];
+            int count = 0;
+            int i = 0;
+            int j = 0;
+            while (i < leftArray.length || j < rightArray.length) {
+                if (j == rightArray.length
+                        || i < leftArray.length && leftArray[i] < rightArray[j]) {
+                    values[count++] = leftArray[i++];
+                } else if (i == leftArray.length || leftArray[i] > rightArray[j]) {
+                    values[count++] = rightArray[j++];
+                } else {
+                    values[count++] = leftArray[i++];
+                    j++;
+                }
+            }
+            result =
+                    count <= CompressedBitmap.ARRAY_MAX_SIZE
+                            ? Arrays.copyOf(values, count)
+                            : CompressedBitmap.toWords(Arrays.copyOf(values, count));
+        } else if (left instanceof char[] array) {
+            final long[] words = ((long[]) right).clone();
+            CompressedBitmap.setAll(words, array);
+            result = words;
+        } else if (right instanceof char[] array) {
+            final long[] words = ((long[]) left).clone();
+            CompressedBitmap.setAll(words, array);
+            result = words;
+        } else {
+            final long[] leftWords = (long[]) left;
+            final long[] rightWords = (long[]) right;
+            final long[] words = new long[CompressedBitmap.BITMAP_WORDS];
+            for (int i = 0; i < words.length; i++) {
+                words[i] = leftWords[i] | rightWords[i];
+            }
+            result = words;
+        }
+        return result;
+    }
+
+    /**
+     * Returns the difference of two containers, or {@code null} if it is empty.
+     */
+    @Nullable
+    private static Object andNot(@NotNull final Object left, @NotNull final Object right) {
+        final Object result;
+        if (left instanceof char[] leftArray && right instanceof char[] rightArray) {
+            final char[] values = new char[leftArray.length];
+            int count = 0;
+            int j = 0;
+            for (final char value : leftArray) {
+                while (j < rightArray.length && rightArray[j] < value) {
+                    j++;
+                }
+                if (j == rightArray.length || rightArray[j] != value) {
+                    values[count++] = value;
+                }
+            }
+            result = Arrays.copyOf(values, count);
+        } else if (left instanceof char[] array) {
+            result = CompressedBitmap.filter(array, (long[]) right, false);
+        } else {
+            final long[] words = ((long[]) left).clone();
+            if (right instanceof char[] array) {
+                for (final char value : array) {
+                    words[value >>> 6] &= ~(1L << value);
+                }
+            } else {
+                final long[] rightWords = (long[]) right;
+                for (int i = 0; i < words.length; i++) {
+                    words[i] &= ~rightWords[i];
+                }
+            }
+            result = CompressedBitmap.optimize(words);
+        }
+        return CompressedBitmap.cardinality(result) == 0 ? null : result;
+    }
+
+    /**
+     * Returns the values of an array container whose bit in a bitmap container is set, or is not set.
+     */
+    @NotNull
+    private static char[] filter(
+            @NotNull final char[] array, @NotNull final long[] words, final boolean keepSet) {
+        final char[] values = new char[array.length];
+        int count = 0;
+        for (final char value : array) {
+            if ((words[value >>> 6] & 1L << value) != 0 == keepSet) {
+                values[count++] = value;
+            }
+        }
+        return Arrays.copyOf(values, count);
+    }
+
+    private static void setAll(@NotNull final long[] words, @NotNull final char[] values) {
+        for (final char value : values) {
+            words[value >>> 6] |= 1L << value;
+        }
+    }
+
+    @NotNull
+    private static long[] toWords(@NotNull final char[] values) {
+        final long[] words = new long[CompressedBitmap.BITMAP_WORDS];
+        CompressedBitmap.setAll(words, values);
+        return words;
+    }
+
+    /**
+     * Converts a bitmap container to an array container if that is smaller.
+     */
+    @NotNull
+    private static Object optimize(@NotNull final long[] words) {
+        final int cardinality = CompressedBitmap.cardinality(words);
+        Object result = words;
+        if (cardinality <= CompressedBitmap.ARRAY_MAX_SIZE) {
+            final char[] values = new char[cardinality];
+            int count = 0;
+            for (int word = 0; word < words.length; word++) {
+                long bits = words[word];
+                while (bits != 0) {
+                    values[count++] = (char) (word << 6 | Long.numberOfTrailingZeros(bits));
+                    bits &= bits - 1;
+                }
+            }
+            result = values;
+        }
+        return result;
+    }
+
+    /**
+     * Builds a bitmap from integers added in ascending order. A builder builds one bitmap and must not be used
+     * after {@link #build()}. Instances are not thread-safe.
+     */
+    public static final class Builder {
+        private char[] keys = new char[4];
+        private Object[] containers = new Object[4];
+        private int count;
+        private char[] array = new char[16];
+        private long[] words;
+        private int arraySize;
+        private int currentKey = -1;
+        private int last = -1;
+
+        /**
+         * Add an integer that is greater than all integers added before.
+         *
+         * @param value The non-negative integer to add.
+         * @throws IllegalArgumentException If the integer is negative or not greater than the previous integer.
+         */
+        public void add(final int value) {
+            if (value <= last) {
+                throw new IllegalArgumentException(
+                        "Values must be non-negative and added in ascending order: " + value);
+            }
+            last = value;
+            final int key = value >>> 16;
+            if (key != currentKey) {
+                flush();
+                currentKey = key;
+            }
+            final char low = (char) value;
+            if (words != null) {
+                words[low >>> 6] |= 1L << low;
+            } else if (arraySize == CompressedBitmap.ARRAY_MAX_SIZE) {
+                words = CompressedBitmap.toWords(Arrays.copyOf(array, arraySize));
+                words[low >>> 6] |= 1L << low;
+            } else {
+                if (arraySize == array.length) {
+                    array = Arrays.copyOf(array, arraySize * 2);
+                }
+                array[arraySize++] = low;
+            }
+        }
+
+        private void flush() {
+            if (currentKey >= 0) {
+                if (count == keys.length) {
+                    keys = Arrays.copyOf(keys, count * 2);
+                    containers = Arrays.copyOf(containers, count * 2);
+                }
+                keys[count] = (char) currentKey;
+                containers[count++] = words != null ? words : Arrays.copyOf(array, arraySize);
+                words = null;
+                arraySize = 0;
+            }
+        }
+
+        /**
+         * Returns the bitmap of the integers added so far.
+         *
+         * @return the bitmap of the integers added so far.
+         */
+        @NotNull
+        public CompressedBitmap build() {
+            flush();
+            return new CompressedBitmap(keys, containers, count);
+        }
+    }
+}
@@ -0,0 +1,5 @@
+/**
+ * Groups classes that answer boolean queries over the annotation usage of scanned classes with compressed
+ * bitmap indexes.
+ */
+package com.clann.query;
@@ -0,0 +1,227 @@
+package com.clann.resolve;
+
+import com.clann.JarAnalyzer;
+import com.clann.ScanLimits;
+import com.clann.visitor.AnnotationCollector;
+import com.clann.visitor.ClassAnnotationInfo;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Resolves which archive on a classpath defines each annotation type, and its retention policy.
+ * <p>
+ * The index is filled while archives are scanned, from the classes those scans parse anyway, so resolving an
+ * annotation type is a map lookup and never re-opens an archive. Archives can be registered concurrently. When
+ * several archives define the same class, the archive that comes first on the classpath wins, as it would for a
+ * class loader, regardless of the order in which the scans finish. Annotation types that no archive defines are
+ * looked up among the classes of the Java platform.
+ * <p>
+ * Instances are thread-safe.
+ */
+public final class AnnotationOriginIndex {
+    private static final String DEFAULT_RETENTION = RetentionPolicy.CLASS.name();
+
+    /**
+     * Mapping from class names to the first archive on the classpath that defines them.
+     */
+    @NotNull private final Map<String, Definition> definitions = new ConcurrentHashMap<>();
+
+    /**
+     * Returns a consumer registering the classes parsed from the given archive, for passing to a scan such as
+     * {@link JarAnalyzer#scanJar(java.io.File, ScanLimits, Consumer)}.
+     *
+     * @param archive The JAR file or class directory the classes are parsed from.
+     * @param order   The position of the archive on the classpath. Lower positions take precedence.
+     * @return the consumer registering classes.
+     */
+    @NotNull
+    public Consumer<ClassAnnotationInfo> registrar(@NotNull final Path archive, final int order) {
+        return classAnnotationInfo -> register(archive, order, classAnnotationInfo);
+    }
+
+    /**
+     * Register the classes parsed from the given archive.
+     *
+     * @param archive              The JAR file or class directory the classes are parsed from.
+     * @param order                The position of the archive on the classpath. Lower positions take precedence.
+     * @param classAnnotationInfos The annotation information of the parsed classes.
+     */
+    public void registerAll(
+            @NotNull final Path archive,
+            final int order,
+            @NotNull final Collection<? extends ClassAnnotationInfo> classAnnotationInfos) {
+        classAnnotationInfos.forEach(
+                classAnnotationInfo -> register(archive, order, classAnnotationInfo));
+    }
+
+    /**
+     * Scan a classpath entry that is not analyzed otherwise and register its classes.
+     *
+     * @param entry  The JAR file or class directory. Entries that do not exist are ignored.
+     * @param order  The position of the entry on the classpath. Lower positions take precedence.
+     * @param limits The limits to enforce while scanning a JAR file.
+     * @throws IOException If the entry cannot be read.
+     */
+    public void index(@NotNull final Path entry, final int order, @NotNull final ScanLimits limits)
+            throws IOException {
+        final Consumer<ClassAnnotationInfo> registrar = registrar(entry, order);
+        if (Files.isRegularFile(entry)) {
+            JarAnalyzer.scanJar(entry.toFile(), limits, registrar);
+        } else if (Files.isDirectory(entry)) {
+            try (Stream<Path> paths = Files.walk(entry)) {
+                paths.filter(path -> path.toString().endsWith(".class"))
+                        .filter(Files::isRegularFile)
+                        .forEach(
+                                classFile ->
+                                        AnnotationOriginIndex.indexClassFile(classFile, registrar));
+            } catch (final UncheckedIOException e) {
+                throw e.getCause();
+            }
+        }
+    }
+
+    /**
+     * Resolve the origin of an annotation type.
+     *
+     * @param annotationName The friendly annotation name, for example {@code @java.lang.Deprecated}.
+     * @return the origin of the annotation type, which has no archive if it is not found.
+     */
+    @NotNull
+    @SuppressWarnings("PMD.OnlyOneReturn")
+    public AnnotationOrigin resolve(@NotNull final String annotationName) {
+        final String className =
+                annotationName.startsWith("@") ? annotationName.substring(1) : annotationName;
+        final Definition definition = definitions.get(className);
+        if (definition != null) {
+            return new AnnotationOrigin(
+                    annotationName, definition.archive().toString(), definition.retention());
+        }
+
+        try {
+            final Class<?> platformClass =
+                    Class.forName(className, false, ClassLoader.getPlatformClassLoader());
+            if (!platformClass.isAnnotation()) {
+                return new AnnotationOrigin(annotationName, null, null);
+            }
+            final Retention retention = platformClass.getAnnotation(Retention.class);
+            return new AnnotationOrigin(
+                    annotationName,
+                    "jrt:/" + platformClass.getModule().getName(),
+                    retention == null
+                            ? AnnotationOriginIndex.DEFAULT_RETENTION
+                            : retention.value().name());
+        } catch (final ClassNotFoundException | LinkageError e) {
+            return new AnnotationOrigin(annotationName, null, null);
+        }
+    }
+
+    /**
+     * Resolve the origins of the annotation types used by the given classes.
+     *
+     * @param classAnnotationInfos The annotation information of the analyzed classes.
+     * @return the origin of each annotation type used, sorted by annotation name.
+     */
+    @NotNull
+    public List<AnnotationOrigin> resolveAll(
+            @NotNull final Collection<? extends ClassAnnotationInfo> classAnnotationInfos) {
+        return classAnnotationInfos.parallelStream()
+                .flatMap(
+                        classAnnotationInfo ->
+                                classAnnotationInfo.getAnnotations().keySet().stream())
+                .distinct()
+                .sorted()
+                .map(this::resolve)
+                .toList();
+    }
+
+    /**
+     * Returns a YAML-like report of the given origins.
+     *
+     * @param origins The origins of annotation types.
+     * @return the report.
+     */
+    @NotNull
+    public static String getReport(@NotNull final List<AnnotationOrigin> origins) {
+        final StringBuilder stringBuilder = new StringBuilder("\nannotationOrigins:");
+        origins.forEach(origin -> stringBuilder.append(origin.format()));
+        return stringBuilder.toString();
+    }
+
+    private void register(
+            @NotNull final Path archive,
+            final int order,
+            @NotNull final ClassAnnotationInfo classAnnotationInfo) {
+        final String className = classAnnotationInfo.getClassName();
+        if (className != null) {
+            definitions.merge(
+                    className,
+                    new Definition(order, archive, classAnnotationInfo.getRetention()),
+                    (existing, added) -> added.order() < existing.order() ? added : existing);
+        }
+    }
+
+    private static void indexClassFile(
+            @NotNull final Path classFile, @NotNull final Consumer<ClassAnnotationInfo> registrar) {
+        try {
+            registrar.accept(AnnotationCollector.collectAnnotations(Files.readAllBytes(classFile)));
+        } catch (final AnnotationCollector.ClannClassReaderException e) {
+            // Invalid class files cannot define annotation types and are skipped like in JAR files
+        } catch (final IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * The archive defining a class, and the retention of the class if it is an annotation type.
+     */
+    private record Definition(int order, @NotNull Path archive, @Nullable String retention) {}
+
+    /**
+     * The origin of an annotation type.
+     *
+     * @param annotationName The friendly annotation name, for example {@code @java.lang.Deprecated}.
+     * @param origin         The archive defining the annotation type, such as the path of a JAR file or
+     *                       {@code jrt:/java.base}, or {@code null} if the annotation type is missing.
+     * @param retention      The retention policy of the annotation type, or {@code null} if it is missing or the
+     *                       class is not an annotation type.
+     */
+    public record AnnotationOrigin(
+            @NotNull String annotationName, @Nullable String origin, @Nullable String retention) {
+        /**
+         * Returns whether no archive on the classpath defines the annotation type.
+         *
+         * @return whether the annotation type is missing.
+         */
+        public boolean isMissing() {
+            return origin == null;
+        }
+
+        /**
+         * Returns a YAML-like representation of this origin.
+         *
+         * @return the representation.
+         */
+        @NotNull
+        public String format() {
+            final StringBuilder stringBuilder = new StringBuilder();
+            stringBuilder.append("\n- annotation: ").append(annotationName);
+            stringBuilder.append("\n\t - origin: ").append(isMissing() ? "MISSING" : origin);
+            if (retention != null) {
+                stringBuilder.append("\n\t - retention: ").append(retention);
+            }
+            return stringBuilder.toString();
+        }
+    }
+}
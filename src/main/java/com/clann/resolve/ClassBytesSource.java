@@ -0,0 +1,22 @@
+package com.clann.resolve;
+
+import java.io.IOException;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Locates the bytes of compiled Java classes by class name.
+ */
+@FunctionalInterface
+public interface ClassBytesSource {
+
+    /**
+     * Find the bytes of the compiled Java class with the given name.
+     *
+     * @param className The dot-separated binary class name, for example {@code java.util.Map$Entry}.
+     * @return the bytes of the compiled Java class or {@code null} if the class cannot be found.
+     * @throws IOException If the class was found but could not be read.
+     */
+    @Nullable
+    byte[] findClassBytes(@NotNull String className) throws IOException;
+}
@@ -0,0 +1,91 @@
+package com.clann.resolve;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Locates compiled Java classes on a classpath made of JAR files and class directories, falling back to the
+ * classes of the Java platform.
+ * <p>
+ * JAR files are opened once up front and use their central directory for lookups, so finding a class never
+ * re-opens or scans an archive. Instances are thread-safe.
+ */
+public final class ClasspathClassBytesSource implements ClassBytesSource, Closeable {
+    @NotNull private final List<ZipFile> archives = new ArrayList<>();
+    @NotNull private final List<Path> directories = new ArrayList<>();
+
+    /**
+     * Creates a source over the given classpath entries.
+     *
+     * @param classpath JAR files and class directories in lookup order. Entries that do not exist are ignored.
+     * @throws IOException If a JAR file cannot be opened.
+     */
+    @SuppressWarnings("PMD.CloseResource")
+    public ClasspathClassBytesSource(@NotNull final List<Path> classpath) throws IOException {
+        try {
+            for (final Path entry : classpath) {
+                if (Files.isDirectory(entry)) {
+                    directories.add(entry);
+                } else if (Files.isRegularFile(entry)) {
+                    archives.add(new ZipFile(entry.toFile()));
+                }
+            }
+        } catch (final IOException e) {
+            close();
+            throw e;
+        }
+    }
+
+    @Override
+    @Nullable
+    @SuppressWarnings("PMD.OnlyOneReturn")
+    public byte[] findClassBytes(@NotNull final String className) throws IOException {
+        final String resourceName = className.replace('.', '/') + ".class";
+
+        for (final ZipFile archive : archives) {
+            final ZipEntry entry = archive.getEntry(resourceName);
+            if (entry != null) {
+                try (InputStream inputStream = archive.getInputStream(entry)) {
+                    return inputStream.readAllBytes();
+                }
+            }
+        }
+        for (final Path directory : directories) {
+            final Path classFile = directory.resolve(resourceName);
+            if (Files.isRegularFile(classFile)) {
+                return Files.readAllBytes(classFile);
+            }
+        }
+
+        // Class files in named modules are not encapsulated, so the platform class loader finds
+        // the classes of the Java runtime image without exposing the classpath of clann itself
+        try (InputStream inputStream =
+                ClassLoader.getPlatformClassLoader().getResourceAsStream(resourceName)) {
+            return inputStream == null ? null : inputStream.readAllBytes();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        IOException exception = null;
+        for (final ZipFile archive : archives) {
+            try {
+                archive.close();
+            } catch (final IOException e) {
+                exception = e;
+            }
+        }
+        if (exception != null) {
+            throw exception;
+        }
+    }
+}
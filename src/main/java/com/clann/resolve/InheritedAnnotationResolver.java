@@ -0,0 +1,213 @@
+package com.clann.resolve;
+
+import com.clann.visitor.AnnotationCollector;
+import com.clann.visitor.AnnotationLevel;
+import com.clann.visitor.ClassAnnotationInfo;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Resolves annotations that classes inherit from their superclasses because the annotation type is
+ * meta-annotated with {@code @java.lang.annotation.Inherited}, and reports them at
+ * {@link AnnotationLevel#CLASS_INHERITED}.
+ * <p>
+ * The superclass edges recorded during the scan form a forest. Every type in it is assigned its depth, the
+ * inheritable annotations of each type are computed exactly once from those of its superclass, and all types
+ * of the same depth are processed in parallel because they only depend on types of smaller depth.
+ * <p>
+ * Superclasses that are not part of the scan, such as classes of the Java platform, are read from a
+ * {@link ClassBytesSource} once and cached, no matter how many scanned classes extend them. As required by the
+ * Java language, annotations on interfaces are never inherited.
+ */
+public final class InheritedAnnotationResolver {
+    private static final Logger LOGGER =
+            LoggerFactory.getLogger(InheritedAnnotationResolver.class.getSimpleName());
+
+    private static final String INHERITED = "@java.lang.annotation.Inherited";
+
+    @NotNull private final ClassBytesSource classBytesSource;
+    @NotNull private final MetaAnnotationResolver metaAnnotationResolver;
+
+    /**
+     * Types outside the scan that have been read from the source, keyed by class name.
+     */
+    @NotNull
+    private final Map<String, ClassAnnotationInfo> externalTypes = new ConcurrentHashMap<>();
+
+    /**
+     * Names of types outside the scan that could not be found or parsed.
+     */
+    @NotNull private final Set<String> missingTypes = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Creates a resolver.
+     *
+     * @param classBytesSource       Locates superclasses that are not part of the scan.
+     * @param metaAnnotationResolver Determines which annotation types are {@code @Inherited}. It caches the
+     *                               annotations of each annotation type, so sharing it avoids re-reading them.
+     */
+    public InheritedAnnotationResolver(
+            @NotNull final ClassBytesSource classBytesSource,
+            @NotNull final MetaAnnotationResolver metaAnnotationResolver) {
+        this.classBytesSource = classBytesSource;
+        this.metaAnnotationResolver = metaAnnotationResolver;
+    }
+
+    /**
+     * Add the annotations that each of the given classes inherits from its superclasses at
+     * {@link AnnotationLevel#CLASS_INHERITED}.
+     *
+     * @param classAnnotationInfos The annotation information of the scanned classes.
+     */
+    public void resolve(
+            @NotNull final Collection<? extends ClassAnnotationInfo> classAnnotationInfos) {
+        // Class names are rendered from their packages on each call, so each is rendered once
+        final List<String> classNames = new ArrayList<>(classAnnotationInfos.size());
+        final Map<String, ClassAnnotationInfo> types = new HashMap<>();
+        for (final ClassAnnotationInfo classAnnotationInfo : classAnnotationInfos) {
+            final String className = classAnnotationInfo.getClassName();
+            classNames.add(className);
+            types.putIfAbsent(className, classAnnotationInfo);
+            metaAnnotationResolver.register(className, classAnnotationInfo);
+        }
+
+        // Group all types reachable through superclass edges by their depth in the hierarchy
+        final Map<String, Integer> depths = new HashMap<>();
+        for (final String className : classNames) {
+            computeDepths(className, types, depths);
+        }
+        final TreeMap<Integer, List<String>> typesByDepth = new TreeMap<>();
+        depths.forEach(
+                (name, depth) ->
+                        typesByDepth.computeIfAbsent(depth, k -> new ArrayList<>()).add(name));
+
+        // Each type depends only on its superclass, which has a smaller depth, so all types of the
+        // same depth can be processed in parallel
+        final Map<String, Set<String>> inheritable = new ConcurrentHashMap<>();
+        for (final List<String> level : typesByDepth.values()) {
+            level.parallelStream()
+                    .forEach(
+                            name ->
+                                    inheritable.put(
+                                            name,
+                                            computeInheritable(types.get(name), inheritable)));
+        }
+
+        classAnnotationInfos.parallelStream()
+                .forEach(
+                        classAnnotationInfo ->
+                                addInheritedAnnotations(classAnnotationInfo, inheritable));
+    }
+
+    private static void addInheritedAnnotations(
+            @NotNull final ClassAnnotationInfo classAnnotationInfo,
+            @NotNull final Map<String, Set<String>> inheritable) {
+        final String superClassName = classAnnotationInfo.getSuperClassName();
+        if (superClassName != null) {
+            final Set<String> ownAnnotations =
+                    MetaAnnotationResolver.classLevelAnnotations(classAnnotationInfo);
+            for (final String annotationName :
+                    inheritable.getOrDefault(superClassName, Set.of())) {
+                if (!ownAnnotations.contains(annotationName)) {
+                    classAnnotationInfo.addAnnotationByName(
+                            annotationName, AnnotationLevel.CLASS_INHERITED);
+                }
+            }
+        }
+    }
+
+    /**
+     * Walk up the superclass chain from the given type until a type of known depth, a root or a missing type is
+     * reached, then assign depths to the types walked. Types outside the scan are loaded on the way.
+     */
+    private void computeDepths(
+            @NotNull final String className,
+            @NotNull final Map<String, ClassAnnotationInfo> types,
+            @NotNull final Map<String, Integer> depths) {
+        final List<String> chain = new ArrayList<>();
+        final Set<String> visited = new HashSet<>();
+        String current = className;
+        int baseDepth = 0;
+
+        while (current != null && visited.add(current)) {
+            final Integer knownDepth = depths.get(current);
+            if (knownDepth != null) {
+                baseDepth = knownDepth + 1;
+                break;
+            }
+            final ClassAnnotationInfo type = findType(current, types);
+            if (type == null) {
+                break;
+            }
+            chain.add(current);
+            current = type.getSuperClassName();
+        }
+
+        for (int i = chain.size() - 1; i >= 0; i--) {
+            depths.put(chain.get(i), baseDepth + chain.size() - 1 - i);
+        }
+    }
+
+    @Nullable
+    private ClassAnnotationInfo findType(
+            @NotNull final String className,
+            @NotNull final Map<String, ClassAnnotationInfo> types) {
+        ClassAnnotationInfo type = types.get(className);
+        if (type == null && !missingTypes.contains(className)) {
+            type = externalTypes.computeIfAbsent(className, this::readType);
+            if (type == null) {
+                missingTypes.add(className);
+            } else {
+                types.put(className, type);
+            }
+        }
+        return type;
+    }
+
+    @Nullable
+    @SuppressWarnings("PMD.OnlyOneReturn")
+    private ClassAnnotationInfo readType(@NotNull final String className) {
+        try {
+            final byte[] classBytes = classBytesSource.findClassBytes(className);
+            if (classBytes == null) {
+                InheritedAnnotationResolver.LOGGER.debug("superclass not found: {}", className);
+                return null;
+            }
+            return AnnotationCollector.collectAnnotations(classBytes);
+        } catch (final IOException | AnnotationCollector.ClannClassReaderException e) {
+            InheritedAnnotationResolver.LOGGER.warn("Failed to read superclass: {}", className, e);
+            return null;
+        }
+    }
+
+    @NotNull
+    private Set<String> computeInheritable(
+            @NotNull final ClassAnnotationInfo type,
+            @NotNull final Map<String, Set<String>> inheritable) {
+        final Set<String> annotationNames = new HashSet<>();
+        final String superClassName = type.getSuperClassName();
+        if (superClassName != null) {
+            annotationNames.addAll(inheritable.getOrDefault(superClassName, Set.of()));
+        }
+        for (final String annotationName : MetaAnnotationResolver.classLevelAnnotations(type)) {
+            if (metaAnnotationResolver
+                    .getDirectMetaAnnotations(annotationName)
+                    .contains(InheritedAnnotationResolver.INHERITED)) {
+                annotationNames.add(annotationName);
+            }
+        }
+        return Set.copyOf(annotationNames);
+    }
+}
@@ -0,0 +1,224 @@
+package com.clann.resolve;
+
+import com.clann.visitor.AnnotationCollector;
+import com.clann.visitor.AnnotationLevel;
+import com.clann.visitor.ClassAnnotationInfo;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import org.jetbrains.annotations.NotNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Resolves the meta-annotations of annotation types so that classes annotated with, for example, Spring's
+ * {@code @Service} are also reported as using {@code @Component} at {@link AnnotationLevel#CLASS_META}.
+ * <p>
+ * The direct meta-annotations of each annotation type are read at most once, either from the results of the scan
+ * itself via {@link #register(ClassAnnotationInfo)} or from a {@link ClassBytesSource}. The transitive closure of
+ * each annotation type is memoized as well. Both caches are concurrent so that classes can be resolved in
+ * parallel. Cycles, such as annotation types that annotate each other, are handled by the breadth-first traversal
+ * that computes the closure.
+ * <p>
+ * The annotation types of {@code java.lang.annotation}, such as {@code @Retention} and {@code @Documented}, are
+ * part of almost every closure and are therefore not reported as meta-annotations.
+ * <p>
+ * Annotations that a class inherits at {@link AnnotationLevel#CLASS_INHERITED} apply to the class itself as well,
+ * so a class that inherits {@code @Service} is also reported as using {@code @Component}. Inherited annotations
+ * must therefore be resolved before meta-annotations.
+ */
+public final class MetaAnnotationResolver {
+    private static final Logger LOGGER =
+            LoggerFactory.getLogger(MetaAnnotationResolver.class.getSimpleName());
+
+    private static final String EXCLUDED_PACKAGE_PREFIX = "@java.lang.annotation.";
+
+    @NotNull private final ClassBytesSource classBytesSource;
+
+    /**
+     * Mapping from annotation names to the names of the annotations applied directly to the annotation type.
+     */
+    @NotNull
+    private final Map<String, Set<String>> directMetaAnnotations = new ConcurrentHashMap<>();
+
+    /**
+     * Mapping from annotation names to the names of all annotations that meta-annotate the annotation type.
+     */
+    @NotNull
+    private final Map<String, Set<String>> metaAnnotationClosures = new ConcurrentHashMap<>();
+
+    /**
+     * Creates a resolver that locates annotation types with the given source.
+     *
+     * @param classBytesSource Locates annotation types that were not registered from the scan.
+     */
+    public MetaAnnotationResolver(@NotNull final ClassBytesSource classBytesSource) {
+        this.classBytesSource = classBytesSource;
+    }
+
+    /**
+     * Register a scanned class so that, if it is an annotation type, it does not need to be read again.
+     *
+     * @param classAnnotationInfo The annotation information of a scanned class.
+     */
+    public void register(@NotNull final ClassAnnotationInfo classAnnotationInfo) {
+        // Checked before the name is rendered, as most scanned classes are not annotation types
+        if (classAnnotationInfo.isAnnotationType()) {
+            register(classAnnotationInfo.getClassName(), classAnnotationInfo);
+        }
+    }
+
+    /**
+     * Register a scanned class whose name the caller has already rendered, if it is an annotation type.
+     *
+     * @param className           The name of the class.
+     * @param classAnnotationInfo The annotation information of the class.
+     */
+    void register(
+            @NotNull final String className,
+            @NotNull final ClassAnnotationInfo classAnnotationInfo) {
+        if (classAnnotationInfo.isAnnotationType()) {
+            directMetaAnnotations.putIfAbsent(
+                    "@" + className,
+                    MetaAnnotationResolver.classLevelAnnotations(classAnnotationInfo));
+        }
+    }
+
+    /**
+     * Add the meta-annotations of the class-level and inherited annotations of each of the given classes at
+     * {@link AnnotationLevel#CLASS_META}.
+     * <p>
+     * All classes are registered first, so annotation types defined alongside the classes that use them are never
+     * read again. Classes are then resolved in parallel.
+     *
+     * @param classAnnotationInfos The annotation information of the scanned classes.
+     */
+    public void resolve(
+            @NotNull final Collection<? extends ClassAnnotationInfo> classAnnotationInfos) {
+        classAnnotationInfos.forEach(this::register);
+        classAnnotationInfos.parallelStream().forEach(this::addMetaAnnotations);
+    }
+
+    /**
+     * Add the meta-annotations of the class-level and inherited annotations of the given class at
+     * {@link AnnotationLevel#CLASS_META}.
+     *
+     * @param classAnnotationInfo The annotation information of a scanned class.
+     */
+    public void addMetaAnnotations(@NotNull final ClassAnnotationInfo classAnnotationInfo) {
+        final Set<String> metaAnnotations = new HashSet<>();
+        for (final String annotationName :
+                MetaAnnotationResolver.annotationsAt(
+                        classAnnotationInfo,
+                        AnnotationLevel.CLASS,
+                        AnnotationLevel.CLASS_INHERITED)) {
+            if (!MetaAnnotationResolver.isExcluded(annotationName)) {
+                metaAnnotations.addAll(getMetaAnnotations(annotationName));
+            }
+        }
+        metaAnnotations.forEach(
+                metaAnnotation ->
+                        classAnnotationInfo.addAnnotationByName(
+                                metaAnnotation, AnnotationLevel.CLASS_META));
+    }
+
+    /**
+     * Returns the names of all annotations that meta-annotate the given annotation type, directly or transitively.
+     *
+     * @param annotationName The friendly annotation name, for example {@code @org.example.Service}.
+     * @return The names of the meta-annotations, excluding those in {@code java.lang.annotation}.
+     */
+    @NotNull
+    public Set<String> getMetaAnnotations(@NotNull final String annotationName) {
+        return metaAnnotationClosures.computeIfAbsent(annotationName, this::computeClosure);
+    }
+
+    /**
+     * Returns the names of the annotations applied directly to the given annotation type, reading the
+     * annotation type on first use.
+     *
+     * @param annotationName The friendly annotation name.
+     * @return The names of the annotations applied directly to the annotation type,
+     *         or an empty set if the annotation type cannot be found or parsed.
+     */
+    @NotNull
+    public Set<String> getDirectMetaAnnotations(@NotNull final String annotationName) {
+        return directMetaAnnotations.computeIfAbsent(
+                annotationName, this::readDirectMetaAnnotations);
+    }
+
+    @NotNull
+    private Set<String> computeClosure(@NotNull final String annotationName) {
+        final Set<String> closure = new HashSet<>();
+        final Deque<String> queue = new ArrayDeque<>(List.of(annotationName));
+
+        while (!queue.isEmpty()) {
+            for (final String metaAnnotation : getDirectMetaAnnotations(queue.poll())) {
+                if (!MetaAnnotationResolver.isExcluded(metaAnnotation)
+                        && !metaAnnotation.equals(annotationName)
+                        && closure.add(metaAnnotation)) {
+                    queue.add(metaAnnotation);
+                }
+            }
+        }
+        return Set.copyOf(closure);
+    }
+
+    @NotNull
+    @SuppressWarnings("PMD.OnlyOneReturn")
+    private Set<String> readDirectMetaAnnotations(@NotNull final String annotationName) {
+        final String className = annotationName.substring(1);
+        try {
+            final byte[] classBytes = classBytesSource.findClassBytes(className);
+            if (classBytes == null) {
+                MetaAnnotationResolver.LOGGER.debug("annotation type not found: {}", className);
+                return Set.of();
+            }
+            return MetaAnnotationResolver.classLevelAnnotations(
+                    AnnotationCollector.collectAnnotations(classBytes));
+        } catch (final IOException | AnnotationCollector.ClannClassReaderException e) {
+            MetaAnnotationResolver.LOGGER.warn("Failed to read annotation type: {}", className, e);
+            return Set.of();
+        }
+    }
+
+    private static boolean isExcluded(@NotNull final String annotationName) {
+        return annotationName.startsWith(MetaAnnotationResolver.EXCLUDED_PACKAGE_PREFIX);
+    }
+
+    /**
+     * Returns the names of the annotations that apply to the given class itself.
+     *
+     * @param classAnnotationInfo The annotation information of a class.
+     * @return the names of the annotations seen at {@link AnnotationLevel#CLASS}.
+     */
+    @NotNull
+    static Set<String> classLevelAnnotations(
+            @NotNull final ClassAnnotationInfo classAnnotationInfo) {
+        return MetaAnnotationResolver.annotationsAt(classAnnotationInfo, AnnotationLevel.CLASS);
+    }
+
+    @NotNull
+    private static Set<String> annotationsAt(
+            @NotNull final ClassAnnotationInfo classAnnotationInfo,
+            @NotNull final AnnotationLevel... levels) {
+        final Set<String> annotationNames = new HashSet<>();
+        classAnnotationInfo
+                .getAnnotations()
+                .forEach(
+                        (annotationName, details) -> {
+                            for (final AnnotationLevel level : levels) {
+                                if (details.getAnnotationLevels().contains(level)) {
+                                    annotationNames.add(annotationName);
+                                }
+                            }
+                        });
+        return Set.copyOf(annotationNames);
+    }
+}
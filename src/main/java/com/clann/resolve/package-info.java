@@ -0,0 +1,5 @@
+/**
+ * Groups classes that resolve information about types referenced by scanned classes, such as the
+ * meta-annotations of annotation types, by locating and analyzing those types on a classpath.
+ */
+package com.clann.resolve;
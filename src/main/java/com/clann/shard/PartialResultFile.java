@@ -0,0 +1,143 @@
+package com.clann.shard;
+
+import com.clann.visitor.AnnotationLevel;
+import com.clann.visitor.ClassAnnotationInfo;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Reads and writes the compact binary file in which a worker JVM stores the scan results of its shard.
+ * <p>
+ * The file starts with a magic number and a version, followed by a table of the distinct annotation names and by
+ * the classes that use at least one annotation. Each class is stored as its name and, for each of its annotations,
+ * the position of the annotation name in the table and a bit mask of the levels it is used at. Names are therefore
+ * stored once per shard instead of once per occurrence, and the coordinator merges partial files by streaming them
+ * into the report without rebuilding any object per class.
+ */
+public final class PartialResultFile {
+    /**
+     * The first four bytes of a partial result file, {@code CLNP}.
+     */
+    private static final int MAGIC = 0x434C4E50;
+
+    private static final int VERSION = 1;
+    private static final int BUFFER_BYTES = 64 * 1024;
+
+    /**
+     * Prevents instantiation of utility class with a private constructor.
+     */
+    private PartialResultFile() {}
+
+    /**
+     * Write the annotation information of some classes to a partial result file. The file is written to a
+     * temporary file first and then moved into place, so a worker that dies while writing never leaves a partial
+     * file that looks complete.
+     *
+     * @param file                 The partial result file to write.
+     * @param classAnnotationInfos The annotation information of the classes, in report order.
+     * @throws IOException If the file cannot be written.
+     */
+    public static void write(
+            @NotNull final Path file,
+            @NotNull final List<? extends ClassAnnotationInfo> classAnnotationInfos)
+            throws IOException {
+        final Map<String, Integer> annotationIds = new LinkedHashMap<>();
+        final List<ClassAnnotationInfo> annotatedClasses = new ArrayList<>();
+        for (final ClassAnnotationInfo classAnnotationInfo : classAnnotationInfos) {
+            if (!classAnnotationInfo.getAnnotations().isEmpty()) {
+                annotatedClasses.add(classAnnotationInfo);
+                classAnnotationInfo
+                        .getAnnotations()
+                        .keySet()
+                        .forEach(name -> annotationIds.putIfAbsent(name, annotationIds.size()));
+            }
+        }
+
+        final Path directory = file.toAbsolutePath().getParent();
+        final Path tempFile =
+                Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+        try {
+            try (DataOutputStream out =
+                    new DataOutputStream(
+                            new BufferedOutputStream(
+                                    Files.newOutputStream(tempFile),
+                                    PartialResultFile.BUFFER_BYTES))) {
+                out.writeInt(PartialResultFile.MAGIC);
+                out.writeInt(PartialResultFile.VERSION);
+                out.writeInt(annotationIds.size());
+                for (final String annotationName : annotationIds.keySet()) {
+                    out.writeUTF(annotationName);
+                }
+                out.writeInt(annotatedClasses.size());
+                for (final ClassAnnotationInfo classAnnotationInfo : annotatedClasses) {
+                    out.writeUTF(classAnnotationInfo.getClassName());
+                    out.writeInt(classAnnotationInfo.getAnnotations().size());
+                    for (final Map.Entry<String, ClassAnnotationInfo.AnnotationDetails> entry :
+                            classAnnotationInfo.getAnnotations().entrySet()) {
+                        out.writeInt(annotationIds.get(entry.getKey()));
+                        out.writeInt(
+                                AnnotationLevel.toMask(
+                                        entry.getValue().getAnnotationLevels()));
+                    }
+                }
+            }
+            Files.move(
+                    tempFile,
+                    file,
+                    StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+    }
+
+    /**
+     * Append the classes of a partial result file to a report, in the same format as
+     * {@link com.clann.JarAnalyzer#getClassAnnotationUsageReport(List)}.
+     *
+     * @param file   The partial result file to read.
+     * @param report The report to append to.
+     * @throws IOException If the file cannot be read or is not a complete partial result file.
+     */
+    public static void appendReport(@NotNull final Path file, @NotNull final Appendable report)
+            throws IOException {
+        try (DataInputStream in =
+                new DataInputStream(
+                        new BufferedInputStream(
+                                Files.newInputStream(file), PartialResultFile.BUFFER_BYTES))) {
+            if (in.readInt() != PartialResultFile.MAGIC) {
+                throw new IOException("Not a partial result file: " + file);
+            }
+            final int version = in.readInt();
+            if (version != PartialResultFile.VERSION) {
+                throw new IOException(
+                        "Unsupported partial result file version " + version + ": " + file);
+            }
+            final String[] annotationNames = new String[in.readInt()];
+            for (int i = 0; i < annotationNames.length; i++) {
+                annotationNames[i] = in.readUTF();
+            }
+            final int classCount = in.readInt();
+            for (int i = 0; i < classCount; i++) {
+                report.append("\n- class: ").append(in.readUTF());
+                final int annotationCount = in.readInt();
+                for (int j = 0; j < annotationCount; j++) {
+                    report.append("\n\t - ").append(annotationNames[in.readInt()]);
+                    report.append("\n\t\t - ")
+                            .append(AnnotationLevel.fromMask(in.readInt()).toString());
+                }
+            }
+        }
+    }
+}
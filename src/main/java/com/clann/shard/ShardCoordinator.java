@@ -0,0 +1,326 @@
+package com.clann.shard;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Scans JAR files in several local worker JVMs, each running clann on one shard of the JAR files, and merges their
+ * partial results into a single report.
+ * <p>
+ * Each worker has its own heap and garbage collector, so a scan of many JAR files can use all cores of a machine
+ * instead of being bound by the heap of a single JVM. The JAR files are split into contiguous shards of similar
+ * total size, and each worker writes the results of its shard to a {@link PartialResultFile}. A shard whose worker
+ * exits with an error or without writing its partial file is run again, up to a maximum number of attempts. The
+ * partial files are merged in shard order, so the report lists classes in the same order as a scan in one JVM. A
+ * worker that has not finished within the shard timeout is killed, and its shard is run again like a failed one.
+ * <p>
+ * Workers run the {@code com.clann.Main} class of the current classpath with the Java runtime of the current JVM
+ * and an explicit maximum heap size, so that the workers together cannot claim more memory than intended. Their
+ * arguments are passed in an argument file, so the number of JAR files is not limited by the maximum length of a
+ * command line, and their output is written to a log file per shard.
+ */
+public final class ShardCoordinator {
+    /**
+     * The default maximum number of times the worker of a shard is run.
+     */
+    public static final int DEFAULT_MAX_ATTEMPTS = 3;
+
+    /**
+     * The default time after which the worker of a shard is killed.
+     */
+    public static final Duration DEFAULT_SHARD_TIMEOUT = Duration.ofHours(1);
+
+    /**
+     * The smallest maximum heap size of a worker chosen by {@link #getDefaultWorkerHeapSize(int)}, in MiB.
+     */
+    private static final long MIN_DEFAULT_WORKER_HEAP_MIB = 256;
+
+    /**
+     * A heap size as accepted by the {@code -Xmx} option of the {@code java} launcher, such as {@code 2g}.
+     */
+    private static final Pattern HEAP_SIZE = Pattern.compile("[1-9][0-9]*[kKmMgG]?");
+
+    private static final org.slf4j.Logger LOGGER =
+            LoggerFactory.getLogger(ShardCoordinator.class.getSimpleName());
+
+    private final int shardCount;
+    private final int maxAttempts;
+    @NotNull private final Duration shardTimeout;
+    @NotNull private final String workerHeapSize;
+    @NotNull private final List<String> workerOptions;
+    @Nullable private final List<Path> classpath;
+
+    /**
+     * Creates a coordinator.
+     *
+     * @param shardCount     The number of shards, and thus of worker JVMs running at the same time.
+     * @param maxAttempts    The maximum number of times the worker of a shard is run.
+     * @param shardTimeout   The time after which the worker of a shard is killed and the attempt counts as failed.
+     * @param workerHeapSize The maximum heap size of each worker, in the format of the {@code -Xmx} option of the
+     *                       {@code java} launcher, such as {@code 2g}.
+     * @param workerOptions  The options passed to every worker in addition to its JAR files, such as
+     *                       {@code --meta-annotations}.
+     * @param classpath      The classpath that workers resolve annotation types and superclasses against, after the
+     *                       JAR files of their own shard, or {@code null} if they do not resolve them.
+     * @throws IllegalArgumentException If the shard count, the maximum number of attempts or the shard timeout is
+     *                                  not positive, or if the heap size is not valid.
+     */
+    public ShardCoordinator(
+            final int shardCount,
+            final int maxAttempts,
+            @NotNull final Duration shardTimeout,
+            @NotNull final String workerHeapSize,
+            @NotNull final List<String> workerOptions,
+            @Nullable final List<Path> classpath) {
+        if (shardCount <= 0) {
+            throw new IllegalArgumentException("The shard count must be positive: " + shardCount);
+        }
+        if (maxAttempts <= 0) {
+            throw new IllegalArgumentException(
+                    "The maximum number of attempts must be positive: " + maxAttempts);
+        }
+        if (shardTimeout.isNegative() || shardTimeout.isZero()) {
+            throw new IllegalArgumentException(
+                    "The shard timeout must be positive: " + shardTimeout);
+        }
+        if (!ShardCoordinator.HEAP_SIZE.matcher(workerHeapSize).matches()) {
+            throw new IllegalArgumentException(
+                    "The worker heap size must be a number of bytes, optionally followed by k, m or"
+                            + " g: "
+                            + workerHeapSize);
+        }
+        this.shardCount = shardCount;
+        this.maxAttempts = maxAttempts;
+        this.shardTimeout = shardTimeout;
+        this.workerHeapSize = workerHeapSize;
+        this.workerOptions = List.copyOf(workerOptions);
+        this.classpath = classpath == null ? null : List.copyOf(classpath);
+    }
+
+    /**
+     * Scan JAR files in worker JVMs and append the merged report to the given report, in the same format as
+     * {@link com.clann.JarAnalyzer#getClassAnnotationUsageReport(List)}.
+     *
+     * @param jarFiles The JAR files to scan, in report order.
+     * @param report   The report to append to.
+     * @throws IOException          If a shard still fails or times out after the maximum number of attempts, or if
+     *                              a partial result file cannot be read. The work directory with the log of each
+     *                              shard is kept in that case.
+     * @throws InterruptedException If the current thread is interrupted while waiting for the workers, which are
+     *                              then destroyed.
+     */
+    public void scan(@NotNull final List<Path> jarFiles, @NotNull final Appendable report)
+            throws IOException, InterruptedException {
+        final List<List<Path>> shards = ShardCoordinator.split(jarFiles, shardCount);
+        final Path workDir = Files.createTempDirectory("clann-shards");
+        final List<Path> partialFiles = new ArrayList<>();
+        List<Integer> pending = new ArrayList<>();
+        for (int shard = 0; shard < shards.size(); shard++) {
+            partialFiles.add(workDir.resolve("shard-" + shard + ".bin"));
+            pending.add(shard);
+        }
+
+        for (int attempt = 1; attempt <= maxAttempts && !pending.isEmpty(); attempt++) {
+            final List<Process> processes = new ArrayList<>();
+            try {
+                for (final int shard : pending) {
+                    final Path partialFile = partialFiles.get(shard);
+                    processes.add(startWorker(workDir, shard, shards.get(shard), partialFile));
+                }
+                // All workers of an attempt start together, so they share one deadline
+                final long deadline = System.nanoTime() + shardTimeout.toNanos();
+                final List<Integer> failed = new ArrayList<>();
+                for (int i = 0; i < pending.size(); i++) {
+                    final int shard = pending.get(i);
+                    final Process process = processes.get(i);
+                    if (!process.waitFor(deadline - System.nanoTime(), TimeUnit.NANOSECONDS)) {
+                        // Wait for the kill, so that the next attempt does not share the partial file with
+                        // this worker, and drop what it may have written of it
+                        process.destroyForcibly().waitFor();
+                        Files.deleteIfExists(partialFiles.get(shard));
+                        ShardCoordinator.LOGGER.warn(
+                                "Shard {} timed out after {} on attempt {} of {}, see {}",
+                                shard,
+                                shardTimeout,
+                                attempt,
+                                maxAttempts,
+                                ShardCoordinator.getLogFile(workDir, shard));
+                        failed.add(shard);
+                    } else if (process.exitValue() != 0
+                            || !Files.isRegularFile(partialFiles.get(shard))) {
+                        ShardCoordinator.LOGGER.warn(
+                                "Shard {} failed with exit code {} on attempt {} of {}, see {}",
+                                shard,
+                                process.exitValue(),
+                                attempt,
+                                maxAttempts,
+                                ShardCoordinator.getLogFile(workDir, shard));
+                        failed.add(shard);
+                    }
+                }
+                pending = failed;
+            } finally {
+                processes.forEach(Process::destroyForcibly);
+            }
+        }
+        if (!pending.isEmpty()) {
+            throw new IOException(
+                    "Shards "
+                            + pending
+                            + " failed after "
+                            + maxAttempts
+                            + " attempts, see the logs in "
+                            + workDir);
+        }
+
+        for (final Path partialFile : partialFiles) {
+            PartialResultFile.appendReport(partialFile, report);
+        }
+        ShardCoordinator.deleteRecursively(workDir);
+    }
+
+    /**
+     * Split JAR files into contiguous shards of similar total file size, so that concatenating the results of the
+     * shards in order gives the results of the JAR files in order.
+     *
+     * @param jarFiles   The JAR files to split.
+     * @param shardCount The maximum number of shards. Fewer shards are returned if there are fewer JAR files.
+     * @return the non-empty shards, in order.
+     * @throws IOException If the size of a JAR file cannot be read.
+     */
+    @NotNull
+    public static List<List<Path>> split(
+            @NotNull final List<Path> jarFiles, final int shardCount) throws IOException {
+        final int count = Math.min(shardCount, jarFiles.size());
+        final long[] sizes = new long[jarFiles.size()];
+        long totalSize = 0;
+        for (int i = 0; i < sizes.length; i++) {
+            // Empty files still take a worker some time to open
+            sizes[i] = Math.max(1, Files.size(jarFiles.get(i)));
+            totalSize += sizes[i];
+        }
+
+        final List<List<Path>> shards = new ArrayList<>();
+        List<Path> current = new ArrayList<>();
+        long accumulatedSize = 0;
+        for (int i = 0; i < sizes.length; i++) {
+            current.add(jarFiles.get(i));
+            accumulatedSize += sizes[i];
+            final int remainingShards = count - shards.size() - 1;
+            final int remainingJarFiles = sizes.length - i - 1;
+            // Close the shard once it reaches its share of the total size, or when each of the remaining
+            // shards needs one of the remaining JAR files
+            if (remainingShards > 0
+                    && (accumulatedSize * count >= totalSize * (shards.size() + 1)
+                            || remainingJarFiles == remainingShards)) {
+                shards.add(current);
+                current = new ArrayList<>();
+            }
+        }
+        if (!current.isEmpty()) {
+            shards.add(current);
+        }
+        return shards;
+    }
+
+    /**
+     * Returns the default maximum heap size of each worker: the maximum heap size of this JVM, which the runtime
+     * sizes against the memory of the machine, divided by the number of shards, but at least 256 MiB.
+     *
+     * @param shardCount The number of shards.
+     * @return the heap size, in the format of the {@code -Xmx} option of the {@code java} launcher.
+     */
+    @NotNull
+    public static String getDefaultWorkerHeapSize(final int shardCount) {
+        final long heapMib = Runtime.getRuntime().maxMemory() / Math.max(1, shardCount) >> 20;
+        return Math.max(ShardCoordinator.MIN_DEFAULT_WORKER_HEAP_MIB, heapMib) + "m";
+    }
+
+    /**
+     * Returns the classpath that the worker of a shard uses to resolve annotation types and superclasses: the JAR
+     * files of its shard, followed by the given classpath.
+     *
+     * @param jarFiles  The JAR files of the shard.
+     * @param classpath The additional classpath.
+     * @return the classpath, joined with the path separator of the platform.
+     */
+    @NotNull
+    public static String getWorkerClasspath(
+            @NotNull final List<Path> jarFiles, @NotNull final List<Path> classpath) {
+        return Stream.concat(jarFiles.stream(), classpath.stream())
+                .map(Path::toString)
+                .collect(Collectors.joining(File.pathSeparator));
+    }
+
+    @NotNull
+    private Process startWorker(
+            @NotNull final Path workDir,
+            final int shard,
+            @NotNull final List<Path> jarFiles,
+            @NotNull final Path partialFile)
+            throws IOException {
+        final List<String> arguments = new ArrayList<>(workerOptions);
+        arguments.add("--shard-output");
+        arguments.add(partialFile.toString());
+        if (classpath != null) {
+            arguments.add("--classpath");
+            arguments.add(ShardCoordinator.getWorkerClasspath(jarFiles, classpath));
+        }
+        jarFiles.forEach(jarFile -> arguments.add(jarFile.toString()));
+        final Path argumentFile = workDir.resolve("shard-" + shard + ".args");
+        Files.write(
+                argumentFile,
+                arguments.stream().map(ShardCoordinator::quote).toList(),
+                StandardCharsets.UTF_8);
+
+        final Path javaExecutable =
+                Path.of(System.getProperty("java.home"), "bin", "java");
+        final Path logFile = ShardCoordinator.getLogFile(workDir, shard);
+        return new ProcessBuilder(
+                        javaExecutable.toString(),
+                        "-Xmx" + workerHeapSize,
+                        "-cp",
+                        System.getProperty("java.class.path"),
+                        "com.clann.Main",
+                        "@" + argumentFile)
+                .redirectErrorStream(true)
+                .redirectOutput(logFile.toFile())
+                .start();
+    }
+
+    @NotNull
+    private static Path getLogFile(@NotNull final Path workDir, final int shard) {
+        return workDir.resolve("shard-" + shard + ".log");
+    }
+
+    /**
+     * Quote an argument for an argument file, in which backslashes and double quotes within double quotes are
+     * escaped with a backslash.
+     */
+    @NotNull
+    private static String quote(@NotNull final String argument) {
+        return '"' + argument.replace("\\", "\\\\").replace("\"", "\\\"") + '"';
+    }
+
+    private static void deleteRecursively(@NotNull final Path directory) throws IOException {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            for (final Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(path);
+            }
+        }
+    }
+}
@@ -0,0 +1,4 @@
+/**
+ * Groups classes that split a scan across several worker JVMs and merge their partial results.
+ */
+package com.clann.shard;
@@ -0,0 +1,243 @@
+package com.clann.stats;
+
+import com.clann.ClassBytesBuffer;
+import com.clann.ScanLimits;
+import com.clann.visitor.AnnotationCollector;
+import com.clann.visitor.ClassAnnotationInfo;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Estimates annotation usage across many JAR files by analyzing a random fraction of their class files.
+ * <p>
+ * Class files are selected from the central directory of each JAR file, so the skipped entries are never
+ * inflated. Selection is coordinated across JAR files: an entry is selected if and only if a seeded hash of its
+ * name falls below the sampling fraction. A class that is packaged in many JAR files is therefore either always
+ * or never selected, which keeps the HyperLogLog estimates of distinct classes per annotation unbiased after
+ * dividing by the sampling fraction.
+ * <p>
+ * Because the copies of a class are selected together, the sample is a cluster sample of distinct classes rather
+ * than a sample of independent class files. The confidence intervals of proportions therefore use the number of
+ * distinct sampled classes as the sample size, so that duplicated classes, such as the shaded copies in fat JAR
+ * files, do not make the intervals narrower than the sample supports.
+ * <p>
+ * JAR files may be sampled concurrently; the results of each JAR file are merged under a lock.
+ */
+public final class AnnotationSampler {
+    private final double fraction;
+    private final long seed;
+    @NotNull private final ScanLimits limits;
+
+    private long totalClassFiles;
+    private long sampledClassFiles;
+    private long failedClassFiles;
+    @NotNull private final HyperLogLog distinctClasses = new HyperLogLog();
+    @NotNull private final HyperLogLog sampledDistinctClasses = new HyperLogLog();
+    @NotNull private final Map<String, AnnotationSample> annotationSamples = new HashMap<>();
+
+    /**
+     * Creates a sampler.
+     *
+     * @param fraction The fraction of class files to analyze, greater than 0 and at most 1.
+     * @param seed     The seed that determines which class files are selected.
+     * @param limits   The per-entry limits to enforce for selected class files.
+     * @throws IllegalArgumentException If the fraction is out of range.
+     */
+    public AnnotationSampler(
+            final double fraction, final long seed, @NotNull final ScanLimits limits) {
+        if (!(fraction > 0 && fraction <= 1)) {
+            throw new IllegalArgumentException(
+                    "Sampling fraction must be greater than 0 and at most 1: " + fraction);
+        }
+        this.fraction = fraction;
+        this.seed = seed;
+        this.limits = limits;
+    }
+
+    /**
+     * Sample the class files of a JAR file and merge the results into this sampler.
+     *
+     * @param jarPath The JAR file to sample.
+     * @throws IOException If there is an I/O or ZIP file error when reading the JAR file.
+     */
+    @SuppressWarnings("PMD.AvoidInstantiatingObjectsInLoops")
+    public void sampleJar(@NotNull final Path jarPath) throws IOException {
+        final JarSample jarSample = new JarSample();
+        final ClassBytesBuffer buffer = ClassBytesBuffer.forCurrentThread();
+        final int maxLength = (int) Math.min(limits.maxEntryBytes(), Integer.MAX_VALUE - 8);
+
+        try (ZipFile zipFile = new ZipFile(jarPath.toFile())) {
+            final Enumeration<? extends ZipEntry> entries = zipFile.entries();
+            while (entries.hasMoreElements()) {
+                final ZipEntry entry = entries.nextElement();
+                final String entryName = entry.getName();
+                if (!entryName.endsWith(".class")) {
+                    continue;
+                }
+                jarSample.totalClassFiles++;
+                jarSample.distinctClasses.add(entryName);
+                if (!isSelected(entryName)) {
+                    continue;
+                }
+
+                final int length;
+                try (InputStream inputStream = zipFile.getInputStream(entry)) {
+                    length = buffer.readFully(inputStream, entry.getSize(), maxLength);
+                }
+                try {
+                    if (length < 0) {
+                        jarSample.failedClassFiles++;
+                    } else {
+                        jarSample.add(
+                                AnnotationCollector.collectAnnotations(
+                                        buffer.array(),
+                                        0,
+                                        length,
+                                        limits.maxEntryParseTime().toNanos()));
+                    }
+                } catch (final AnnotationCollector.ClannClassReaderException e) {
+                    jarSample.failedClassFiles++;
+                }
+            }
+        }
+
+        merge(jarSample);
+    }
+
+    /**
+     * Returns whether the class file with the given entry name is part of the sample.
+     *
+     * @param entryName The name of the JAR entry.
+     * @return whether the class file is part of the sample.
+     */
+    boolean isSelected(@NotNull final String entryName) {
+        final long hash = HyperLogLog.mix64(HyperLogLog.hash64(entryName) ^ seed);
+        // The top 53 bits give a uniformly distributed double in [0, 1)
+        return (hash >>> 11) * 0x1.0p-53 < fraction;
+    }
+
+    private synchronized void merge(@NotNull final JarSample jarSample) {
+        totalClassFiles += jarSample.totalClassFiles;
+        sampledClassFiles += jarSample.sampledClassFiles;
+        failedClassFiles += jarSample.failedClassFiles;
+        distinctClasses.merge(jarSample.distinctClasses);
+        sampledDistinctClasses.merge(jarSample.sampledDistinctClasses);
+        jarSample.annotationSamples.forEach(
+                (annotationName, sample) ->
+                        annotationSamples
+                                .computeIfAbsent(annotationName, k -> new AnnotationSample())
+                                .merge(sample));
+    }
+
+    /**
+     * Produce the estimates from the class files sampled so far.
+     *
+     * @return the sampling report.
+     */
+    @NotNull
+    public synchronized SamplingReport toReport() {
+        final Map<String, SamplingReport.AnnotationEstimate> estimates = new HashMap<>();
+        if (sampledClassFiles > 0) {
+            // The distinct sampled classes are the independent units of the cluster sample
+            final long sampleSize =
+                    Math.min(sampledClassFiles, Math.max(1, sampledDistinctClasses.estimate()));
+            annotationSamples.forEach(
+                    (annotationName, sample) ->
+                            estimates.put(
+                                    annotationName,
+                                    sample.estimate(
+                                            fraction,
+                                            sampledClassFiles,
+                                            sampleSize,
+                                            totalClassFiles)));
+        }
+        return new SamplingReport(
+                fraction,
+                totalClassFiles,
+                sampledClassFiles,
+                failedClassFiles,
+                distinctClasses.estimate(),
+                estimates);
+    }
+
+    /**
+     * Accumulates the sample of one JAR file without locking.
+     */
+    private static final class JarSample {
+        private long totalClassFiles;
+        private long sampledClassFiles;
+        private long failedClassFiles;
+        @NotNull private final HyperLogLog distinctClasses = new HyperLogLog();
+        @NotNull private final HyperLogLog sampledDistinctClasses = new HyperLogLog();
+        @NotNull private final Map<String, AnnotationSample> annotationSamples = new HashMap<>();
+
+        void add(@NotNull final ClassAnnotationInfo classAnnotationInfo) {
+            sampledClassFiles++;
+            final String className = classAnnotationInfo.getClassName();
+            sampledDistinctClasses.add(className);
+            for (final String annotationName : classAnnotationInfo.getAnnotations().keySet()) {
+                final AnnotationSample sample =
+                        annotationSamples.computeIfAbsent(
+                                annotationName, k -> new AnnotationSample());
+                sample.classFiles++;
+                sample.distinctClasses.add(className);
+            }
+        }
+    }
+
+    /**
+     * Accumulates the sampled class files that use one annotation.
+     */
+    private static final class AnnotationSample {
+        private long classFiles;
+        @NotNull private final HyperLogLog distinctClasses = new HyperLogLog();
+
+        void merge(@NotNull final AnnotationSample other) {
+            classFiles += other.classFiles;
+            distinctClasses.merge(other.distinctClasses);
+        }
+
+        /**
+         * Estimate the usage of the annotation in the whole population.
+         *
+         * @param fraction          The sampling fraction.
+         * @param sampledClassFiles The number of sampled class files, including copies of the same class.
+         * @param sampleSize        The number of independent units in the sample, which is the number of distinct
+         *                          sampled classes as the copies of a class are selected together.
+         * @param totalClassFiles   The number of class files in the population.
+         */
+        @NotNull
+        SamplingReport.AnnotationEstimate estimate(
+                final double fraction,
+                final long sampledClassFiles,
+                final long sampleSize,
+                final long totalClassFiles) {
+            final Estimate proportion =
+                    Estimate.ofProportion(
+                            (double) classFiles / sampledClassFiles, sampleSize, fraction);
+
+            // The sampled distinct count is binomial with the sampling fraction as probability,
+            // so its relative variance is (1 - fraction) / (fraction * distinct), to which we add
+            // the error of the HyperLogLog estimate itself
+            final double sampledDistinct = distinctClasses.estimate();
+            final double relativeError =
+                    Math.sqrt(
+                            Math.pow(HyperLogLog.relativeStandardError(), 2)
+                                    + (1 - fraction) / Math.max(1, sampledDistinct));
+            final double distinct = sampledDistinct / fraction;
+            final double margin = Estimate.Z_95 * relativeError * distinct;
+
+            return new SamplingReport.AnnotationEstimate(
+                    proportion.scale(totalClassFiles),
+                    proportion,
+                    new Estimate(distinct, Math.max(0, distinct - margin), distinct + margin));
+        }
+    }
+}
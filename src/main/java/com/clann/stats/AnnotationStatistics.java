@@ -0,0 +1,353 @@
+package com.clann.stats;
+
+import com.clann.visitor.AnnotationLevel;
+import com.clann.visitor.ClassAnnotationInfo;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Aggregates, for each annotation, how many classes and packages use it at each {@link AnnotationLevel}.
+ * <p>
+ * This is the inverse of the per-class annotation usage report. Classes are counted as they are scanned, so the
+ * summary of a scan of any size is produced without retaining any {@link ClassAnnotationInfo}. Annotation and
+ * package names are interned to dense integer ids once, and counts are kept in {@link LongAdder} counters, which are
+ * striped internally, so that many scanning threads can accept classes concurrently without contending on locks.
+ * Distinct packages are tracked as sets of packed integer ids.
+ * <p>
+ * Statistics counted from separate parts of a scan can be merged, and saved and restored in a compact binary form,
+ * so that a long scan can be checkpointed and resumed.
+ */
+public final class AnnotationStatistics implements Consumer<ClassAnnotationInfo> {
+    private static final AnnotationLevel[] LEVELS = AnnotationLevel.values();
+
+    @NotNull private final LongAdder classCount = new LongAdder();
+    @NotNull private final Map<String, Integer> packageIds = new ConcurrentHashMap<>();
+    @NotNull private final AtomicInteger nextPackageId = new AtomicInteger();
+
+    /**
+     * Mapping from annotation names to dense annotation ids, which index {@link #countersById}.
+     */
+    @NotNull private final Map<String, Integer> annotationIds = new ConcurrentHashMap<>();
+
+    /**
+     * Counters indexed by annotation id. The array is only replaced, under the lock of this object, when a new
+     * annotation is interned, and an id is only published after its counters, so reads need no lock.
+     */
+    @SuppressWarnings("PMD.AvoidUsingVolatile")
+    private volatile AnnotationCounters[] countersById = new AnnotationCounters[64];
+
+    private int annotationCount;
+
+    /**
+     * Count the annotations used by a class. This method is thread-safe.
+     *
+     * @param classAnnotationInfo The annotation information of a scanned class.
+     */
+    @Override
+    @SuppressWarnings("PMD.OnlyOneReturn")
+    public void accept(@NotNull final ClassAnnotationInfo classAnnotationInfo) {
+        classCount.increment();
+        if (classAnnotationInfo.getAnnotations().isEmpty()) {
+            return;
+        }
+
+        final int packageId =
+                packageIds.computeIfAbsent(
+                        classAnnotationInfo.getPackageName(),
+                        k -> nextPackageId.getAndIncrement());
+        classAnnotationInfo
+                .getAnnotations()
+                .forEach(
+                        (annotationName, details) -> {
+                            final int annotationId =
+                                    annotationIds.computeIfAbsent(
+                                            annotationName, this::internAnnotation);
+                            countersById[annotationId].add(
+                                    packageId, details.getAnnotationLevels());
+                        });
+    }
+
+    private synchronized int internAnnotation(@NotNull final String annotationName) {
+        if (annotationCount == countersById.length) {
+            countersById = Arrays.copyOf(countersById, annotationCount * 2);
+        }
+        final int annotationId = annotationCount++;
+        countersById[annotationId] = new AnnotationCounters(annotationName);
+        return annotationId;
+    }
+
+    /**
+     * Add the counts of other statistics to these, as if their classes had been accepted by these statistics.
+     * Packages are matched by name, so the distinct package counts are those of the union of both scans. This method
+     * is thread-safe, but the other statistics must not change while they are merged.
+     *
+     * @param other The statistics to add.
+     */
+    public void merge(@NotNull final AnnotationStatistics other) {
+        classCount.add(other.getClassCount());
+        final int[] packageIdMap = new int[other.nextPackageId.get()];
+        other.packageIds.forEach(
+                (packageName, otherId) ->
+                        packageIdMap[otherId] =
+                                packageIds.computeIfAbsent(
+                                        packageName, k -> nextPackageId.getAndIncrement()));
+        final AnnotationCounters[] otherCounters;
+        synchronized (other) {
+            otherCounters = Arrays.copyOf(other.countersById, other.annotationCount);
+        }
+        for (final AnnotationCounters counters : otherCounters) {
+            final int annotationId =
+                    annotationIds.computeIfAbsent(counters.annotationName, this::internAnnotation);
+            countersById[annotationId].merge(counters, packageIdMap);
+        }
+    }
+
+    /**
+     * Write the statistics in a compact binary form that {@link #readFrom(DataInput)} restores. The statistics must
+     * not change while they are written.
+     *
+     * @param out The output to write to.
+     * @throws IOException If the output cannot be written.
+     */
+    public void writeTo(@NotNull final DataOutput out) throws IOException {
+        out.writeLong(getClassCount());
+        final String[] packageNames = new String[nextPackageId.get()];
+        packageIds.forEach((packageName, packageId) -> packageNames[packageId] = packageName);
+        out.writeInt(packageNames.length);
+        for (final String packageName : packageNames) {
+            out.writeUTF(packageName);
+        }
+        final AnnotationCounters[] counters;
+        synchronized (this) {
+            counters = Arrays.copyOf(countersById, annotationCount);
+        }
+        out.writeInt(AnnotationStatistics.LEVELS.length);
+        out.writeInt(counters.length);
+        for (final AnnotationCounters annotationCounters : counters) {
+            annotationCounters.writeTo(out);
+        }
+    }
+
+    /**
+     * Read statistics written by {@link #writeTo(DataOutput)}.
+     *
+     * @param in The input to read from.
+     * @return the statistics.
+     * @throws IOException If the input cannot be read or was written with other annotation levels.
+     */
+    @NotNull
+    public static AnnotationStatistics readFrom(@NotNull final DataInput in) throws IOException {
+        final AnnotationStatistics statistics = new AnnotationStatistics();
+        statistics.classCount.add(in.readLong());
+        final int packageCount = in.readInt();
+        for (int i = 0; i < packageCount; i++) {
+            statistics.packageIds.put(in.readUTF(), statistics.nextPackageId.getAndIncrement());
+        }
+        final int levelCount = in.readInt();
+        if (levelCount != AnnotationStatistics.LEVELS.length) {
+            throw new IOException(
+                    "Statistics written with " + levelCount + " annotation levels, expected "
+                            + AnnotationStatistics.LEVELS.length);
+        }
+        final int annotationCount = in.readInt();
+        for (int i = 0; i < annotationCount; i++) {
+            final String annotationName = in.readUTF();
+            final int annotationId =
+                    statistics.annotationIds.computeIfAbsent(
+                            annotationName, statistics::internAnnotation);
+            statistics.countersById[annotationId].readFrom(in);
+        }
+        return statistics;
+    }
+
+    /**
+     * Returns the number of classes counted.
+     *
+     * @return the number of classes counted.
+     */
+    public long getClassCount() {
+        return classCount.sum();
+    }
+
+    /**
+     * Returns a snapshot of the statistics, sorted by the number of classes using each annotation in descending
+     * order and then by annotation name.
+     *
+     * @return the statistics of each annotation.
+     */
+    @NotNull
+    public List<AnnotationSummary> getAnnotationSummaries() {
+        final AnnotationCounters[] counters;
+        synchronized (this) {
+            counters = Arrays.copyOf(countersById, annotationCount);
+        }
+        return Arrays.stream(counters)
+                .map(AnnotationCounters::summarize)
+                .sorted(
+                        Comparator.comparingLong(AnnotationSummary::classes)
+                                .reversed()
+                                .thenComparing(AnnotationSummary::annotationName))
+                .toList();
+    }
+
+    /**
+     * Produce a report of the statistics of each annotation, sorted by frequency.
+     * <p>
+     * A simple YAML-like format is manually constructed, like the per-class annotation usage report.
+     *
+     * @return The report.
+     */
+    @NotNull
+    public String getReport() {
+        final StringBuilder stringBuilder = new StringBuilder(128);
+        stringBuilder.append("\nclasses: ").append(getClassCount()).append("\nannotations:");
+        for (final AnnotationSummary summary : getAnnotationSummaries()) {
+            stringBuilder.append("\n- annotation: ").append(summary.annotationName());
+            stringBuilder.append("\n\t - classes: ").append(summary.classes());
+            stringBuilder.append("\n\t - packages: ").append(summary.packages());
+            summary.levels()
+                    .forEach(
+                            (level, levelSummary) ->
+                                    stringBuilder
+                                            .append("\n\t - ")
+                                            .append(level)
+                                            .append(": classes=")
+                                            .append(levelSummary.classes())
+                                            .append(" packages=")
+                                            .append(levelSummary.packages()));
+        }
+        return stringBuilder.toString();
+    }
+
+    /**
+     * The statistics of one annotation.
+     *
+     * @param annotationName The annotation name.
+     * @param classes        The number of classes using the annotation at any level.
+     * @param packages       The number of packages with classes using the annotation at any level.
+     * @param levels         The statistics per level at which the annotation is used, in level order.
+     */
+    public record AnnotationSummary(
+            @NotNull String annotationName,
+            long classes,
+            long packages,
+            @NotNull Map<AnnotationLevel, LevelSummary> levels) {}
+
+    /**
+     * The statistics of one annotation at one level.
+     *
+     * @param classes  The number of classes using the annotation at the level.
+     * @param packages The number of packages with classes using the annotation at the level.
+     */
+    public record LevelSummary(long classes, long packages) {}
+
+    /**
+     * Counters of one annotation. Each counter and set is individually thread-safe.
+     */
+    private static final class AnnotationCounters {
+        @NotNull private final String annotationName;
+        @NotNull private final LongAdder classes = new LongAdder();
+        @NotNull
+        private final LongAdder[] levelClasses = new LongAdder[AnnotationStatistics.LEVELS.length];
+        @NotNull private final Set<Integer> packages = ConcurrentHashMap.newKeySet();
+
+        /**
+         * Packed pairs of package ids and level ordinals: {@code packageId << 8 | ordinal}.
+         */
+        @NotNull private final Set<Long> levelPackages = ConcurrentHashMap.newKeySet();
+
+        AnnotationCounters(@NotNull final String annotationName) {
+            this.annotationName = annotationName;
+            for (int i = 0; i < levelClasses.length; i++) {
+                levelClasses[i] = new LongAdder();
+            }
+        }
+
+        void add(final int packageId, @NotNull final Set<AnnotationLevel> levels) {
+            classes.increment();
+            packages.add(packageId);
+            for (final AnnotationLevel level : levels) {
+                levelClasses[level.ordinal()].increment();
+                levelPackages.add((long) packageId << 8 | level.ordinal());
+            }
+        }
+
+        void merge(
+                @NotNull final AnnotationCounters other, @NotNull final int[] packageIdMap) {
+            classes.add(other.classes.sum());
+            for (int i = 0; i < levelClasses.length; i++) {
+                levelClasses[i].add(other.levelClasses[i].sum());
+            }
+            for (final int packageId : other.packages) {
+                packages.add(packageIdMap[packageId]);
+            }
+            for (final long levelPackage : other.levelPackages) {
+                final int packageId = packageIdMap[(int) (levelPackage >>> 8)];
+                levelPackages.add((long) packageId << 8 | levelPackage & 0xff);
+            }
+        }
+
+        void writeTo(@NotNull final DataOutput out) throws IOException {
+            out.writeUTF(annotationName);
+            out.writeLong(classes.sum());
+            for (final LongAdder levelClassCount : levelClasses) {
+                out.writeLong(levelClassCount.sum());
+            }
+            out.writeInt(packages.size());
+            for (final int packageId : packages) {
+                out.writeInt(packageId);
+            }
+            out.writeInt(levelPackages.size());
+            for (final long levelPackage : levelPackages) {
+                out.writeLong(levelPackage);
+            }
+        }
+
+        void readFrom(@NotNull final DataInput in) throws IOException {
+            classes.add(in.readLong());
+            for (final LongAdder levelClassCount : levelClasses) {
+                levelClassCount.add(in.readLong());
+            }
+            final int packageCount = in.readInt();
+            for (int i = 0; i < packageCount; i++) {
+                packages.add(in.readInt());
+            }
+            final int levelPackageCount = in.readInt();
+            for (int i = 0; i < levelPackageCount; i++) {
+                levelPackages.add(in.readLong());
+            }
+        }
+
+        @NotNull
+        AnnotationSummary summarize() {
+            final long[] levelPackageCounts = new long[levelClasses.length];
+            for (final long levelPackage : levelPackages) {
+                levelPackageCounts[(int) (levelPackage & 0xff)]++;
+            }
+
+            final Map<AnnotationLevel, LevelSummary> levels =
+                    new EnumMap<>(AnnotationLevel.class);
+            for (final AnnotationLevel level : AnnotationStatistics.LEVELS) {
+                final long levelClassCount = levelClasses[level.ordinal()].sum();
+                if (levelClassCount > 0) {
+                    levels.put(
+                            level,
+                            new LevelSummary(levelClassCount, levelPackageCounts[level.ordinal()]));
+                }
+            }
+            return new AnnotationSummary(annotationName, classes.sum(), packages.size(), levels);
+        }
+    }
+}
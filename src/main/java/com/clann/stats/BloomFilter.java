@@ -0,0 +1,130 @@
+package com.clann.stats;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Tests whether a string may be in a set of strings using a fixed amount of memory, without false negatives.
+ * <p>
+ * The filter is sized for an expected number of strings with a false positive rate of about 1%, which takes about
+ * ten bits per string. The bit positions of a string are derived from the two halves of its
+ * {@link HyperLogLog#hash64(CharSequence)} hash by double hashing, so a string is hashed only once.
+ * <p>
+ * Instances are not thread-safe.
+ */
+public final class BloomFilter {
+    /**
+     * The number of bit positions set for each string, the best for ten bits per string.
+     */
+    private static final int HASH_COUNT = 7;
+
+    /**
+     * The number of bits per expected string.
+     */
+    private static final int BITS_PER_STRING = 10;
+
+    @NotNull private final long[] words;
+
+    private BloomFilter(@NotNull final long[] words) {
+        this.words = words;
+    }
+
+    /**
+     * Creates an empty filter sized for an expected number of strings.
+     *
+     * @param expectedStrings The number of strings expected to be added.
+     */
+    public BloomFilter(final int expectedStrings) {
+        this(new long[BloomFilter.toWordCount(expectedStrings)]);
+    }
+
+    /**
+     * Add a string to the set.
+     *
+     * @param value The string to add.
+     */
+    public void add(@NotNull final CharSequence value) {
+        final long hash = HyperLogLog.hash64(value);
+        final long bitCount = getBitCount();
+        for (int i = 0; i < BloomFilter.HASH_COUNT; i++) {
+            final long bit = BloomFilter.bitIndex(hash, i, bitCount);
+            words[(int) (bit >>> 6)] |= 1L << bit;
+        }
+    }
+
+    /**
+     * Returns whether a string may have been added: {@code false} if it certainly was not, and {@code true} if it
+     * was or, rarely, if it was not.
+     *
+     * @param value The string to test.
+     * @return whether the string may have been added.
+     */
+    @SuppressWarnings("PMD.OnlyOneReturn")
+    public boolean mightContain(@NotNull final CharSequence value) {
+        final long hash = HyperLogLog.hash64(value);
+        final long bitCount = getBitCount();
+        for (int i = 0; i < BloomFilter.HASH_COUNT; i++) {
+            final long bit = BloomFilter.bitIndex(hash, i, bitCount);
+            if ((words[(int) (bit >>> 6)] & 1L << bit) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the number of bits of the filter.
+     *
+     * @return the number of bits.
+     */
+    public long getBitCount() {
+        return (long) words.length * Long.SIZE;
+    }
+
+    /**
+     * Write the filter in a compact binary form that {@link #readFrom(DataInput)} restores.
+     *
+     * @param out The output to write to.
+     * @throws IOException If the output cannot be written.
+     */
+    public void writeTo(@NotNull final DataOutput out) throws IOException {
+        out.writeInt(words.length);
+        for (final long word : words) {
+            out.writeLong(word);
+        }
+    }
+
+    /**
+     * Read a filter written by {@link #writeTo(DataOutput)}.
+     *
+     * @param in The input to read from.
+     * @return the filter.
+     * @throws IOException If the input cannot be read or does not hold a filter.
+     */
+    @NotNull
+    public static BloomFilter readFrom(@NotNull final DataInput in) throws IOException {
+        final int wordCount = in.readInt();
+        if (wordCount <= 0) {
+            throw new IOException("Invalid Bloom filter size: " + wordCount);
+        }
+        final long[] words = new long[wordCount];
+        for (int i = 0; i < wordCount; i++) {
+            words[i] = in.readLong();
+        }
+        return new BloomFilter(words);
+    }
+
+    private static int toWordCount(final int expectedStrings) {
+        final long bits = (long) Math.max(0, expectedStrings) * BloomFilter.BITS_PER_STRING;
+        return (int) Math.max(1, (bits + Long.SIZE - 1) / Long.SIZE);
+    }
+
+    /**
+     * Returns the i-th bit position of a hash, combining its two halves as described by Kirsch and Mitzenmacher.
+     */
+    private static long bitIndex(final long hash, final int i, final long bitCount) {
+        return ((hash >>> 32) + i * (hash & 0xFFFFFFFFL)) % bitCount;
+    }
+}
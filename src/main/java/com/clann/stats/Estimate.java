@@ -0,0 +1,111 @@
+package com.clann.stats;
+
+import java.util.Locale;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * A point estimate with the bounds of its 95% confidence interval.
+ *
+ * @param value      The point estimate.
+ * @param lowerBound The lower bound of the 95% confidence interval.
+ * @param upperBound The upper bound of the 95% confidence interval.
+ */
+public record Estimate(double value, double lowerBound, double upperBound) {
+    /**
+     * The standard normal quantile for a two-sided 95% confidence interval.
+     */
+    static final double Z_95 = 1.959964;
+
+    /**
+     * Estimate a proportion from a random sample using the Wilson score interval, which behaves well for
+     * proportions close to zero or one and for small samples, unlike the normal approximation.
+     * <p>
+     * The finite population correction is applied by widening the sample size to {@code n / (1 - f)} for the
+     * interval, so that the interval collapses to the exact proportion when every item has been sampled.
+     *
+     * @param successes        The number of sampled items with the property.
+     * @param sampleSize       The number of sampled items. Must be positive.
+     * @param samplingFraction The fraction of the population that was sampled.
+     * @return the estimated proportion.
+     */
+    @NotNull
+    public static Estimate ofProportion(
+            final long successes, final long sampleSize, final double samplingFraction) {
+        return Estimate.ofProportion((double) successes / sampleSize, sampleSize, samplingFraction);
+    }
+
+    /**
+     * Estimate a proportion observed in a sample of the given size with the Wilson score interval, see
+     * {@link #ofProportion(long, long, double)}.
+     * <p>
+     * This allows the sample size to differ from the number of observed items, for example for a cluster sample
+     * whose independent units are the clusters rather than the items.
+     *
+     * @param proportion       The proportion of the sampled items with the property.
+     * @param sampleSize       The number of independent units in the sample. Must be positive.
+     * @param samplingFraction The fraction of the population that was sampled.
+     * @return the estimated proportion.
+     */
+    @NotNull
+    @SuppressWarnings("PMD.OnlyOneReturn")
+    public static Estimate ofProportion(
+            final double proportion, final long sampleSize, final double samplingFraction) {
+        if (samplingFraction >= 1) {
+            return new Estimate(proportion, proportion, proportion);
+        }
+
+        final double effectiveSize = sampleSize / (1 - samplingFraction);
+        final double zSquared = Estimate.Z_95 * Estimate.Z_95;
+        final double denominator = 1 + zSquared / effectiveSize;
+        final double center = (proportion + zSquared / (2.0 * effectiveSize)) / denominator;
+        final double halfWidth =
+                Estimate.Z_95
+                        / denominator
+                        * Math.sqrt(
+                                proportion * (1 - proportion) / effectiveSize
+                                        + zSquared / (4.0 * effectiveSize * effectiveSize));
+        return new Estimate(
+                proportion, Math.max(0, center - halfWidth), Math.min(1, center + halfWidth));
+    }
+
+    /**
+     * Returns this estimate with the value and bounds multiplied by the given factor.
+     *
+     * @param factor The factor to multiply by.
+     * @return the scaled estimate.
+     */
+    @NotNull
+    public Estimate scale(final double factor) {
+        return new Estimate(value * factor, lowerBound * factor, upperBound * factor);
+    }
+
+    /**
+     * Formats the estimate as whole numbers, for example {@code 120 [95% CI: 90, 160]}.
+     *
+     * @return the formatted estimate.
+     */
+    @NotNull
+    public String formatCount() {
+        return String.format(
+                Locale.ROOT,
+                "%d [95%% CI: %d, %d]",
+                Math.round(value),
+                Math.round(lowerBound),
+                Math.round(upperBound));
+    }
+
+    /**
+     * Formats the estimate as percentages, for example {@code 22.0% [95% CI: 16.5%, 29.3%]}.
+     *
+     * @return the formatted estimate.
+     */
+    @NotNull
+    public String formatPercentage() {
+        return String.format(
+                Locale.ROOT,
+                "%.1f%% [95%% CI: %.1f%%, %.1f%%]",
+                value * 100,
+                lowerBound * 100,
+                upperBound * 100);
+    }
+}
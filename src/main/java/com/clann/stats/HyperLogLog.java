@@ -0,0 +1,134 @@
+package com.clann.stats;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Estimates the number of distinct strings added to it using a fixed amount of memory.
+ * <p>
+ * This is the HyperLogLog algorithm of Flajolet et al. with the linear counting correction for small
+ * cardinalities. With {@value #PRECISION} bits of precision it uses {@value #REGISTER_COUNT} one-byte registers
+ * and has a relative standard error of about {@code 1.04 / sqrt(REGISTER_COUNT)}, that is 1.6%.
+ * <p>
+ * Instances are not thread-safe but can be combined with {@link #merge(HyperLogLog)}.
+ */
+public final class HyperLogLog {
+    /**
+     * The number of hash bits used to select a register.
+     */
+    static final int PRECISION = 12;
+
+    /**
+     * The number of registers.
+     */
+    static final int REGISTER_COUNT = 1 << HyperLogLog.PRECISION;
+
+    private static final double ALPHA = 0.7213 / (1 + 1.079 / HyperLogLog.REGISTER_COUNT);
+
+    private final byte[] registers = new byte[HyperLogLog.REGISTER_COUNT];
+
+    /**
+     * Add a string to the set of strings whose distinct count is estimated.
+     *
+     * @param value The string to add.
+     */
+    public void add(@NotNull final CharSequence value) {
+        addHash(HyperLogLog.hash64(value));
+    }
+
+    /**
+     * Add a 64-bit hash to the set of hashes whose distinct count is estimated.
+     *
+     * @param hash A well-mixed 64-bit hash such as one returned by {@link #hash64(CharSequence)}.
+     */
+    public void addHash(final long hash) {
+        final int index = (int) (hash >>> (Long.SIZE - HyperLogLog.PRECISION));
+        final long remainder = hash << HyperLogLog.PRECISION;
+        final int rank =
+                Math.min(
+                        Long.numberOfLeadingZeros(remainder) + 1,
+                        Long.SIZE - HyperLogLog.PRECISION + 1);
+        if (rank > registers[index]) {
+            registers[index] = (byte) rank;
+        }
+    }
+
+    /**
+     * Add all strings added to the given estimator to this estimator.
+     *
+     * @param other The estimator to merge into this one.
+     */
+    public void merge(@NotNull final HyperLogLog other) {
+        for (int i = 0; i < HyperLogLog.REGISTER_COUNT; i++) {
+            if (other.registers[i] > registers[i]) {
+                registers[i] = other.registers[i];
+            }
+        }
+    }
+
+    /**
+     * Returns the estimated number of distinct strings added.
+     *
+     * @return the estimated number of distinct strings added.
+     */
+    public long estimate() {
+        double sum = 0;
+        int zeroRegisters = 0;
+        for (final byte register : registers) {
+            sum += 1.0 / (1L << register);
+            if (register == 0) {
+                zeroRegisters++;
+            }
+        }
+
+        final double registerCount = HyperLogLog.REGISTER_COUNT;
+        double estimate = HyperLogLog.ALPHA * registerCount * registerCount / sum;
+        // Linear counting is more accurate for small cardinalities
+        if (estimate <= 2.5 * registerCount && zeroRegisters > 0) {
+            estimate = registerCount * Math.log(registerCount / zeroRegisters);
+        }
+        return Math.round(estimate);
+    }
+
+    /**
+     * Returns the relative standard error of the estimates of this estimator.
+     *
+     * @return the relative standard error of the estimates.
+     */
+    public static double relativeStandardError() {
+        return 1.04 / Math.sqrt(HyperLogLog.REGISTER_COUNT);
+    }
+
+    /**
+     * Compute a well-mixed 64-bit hash of a string.
+     * <p>
+     * The characters are combined with FNV-1a and the result is mixed with the finalizer of MurmurHash3 so that
+     * all bits depend on all characters, which the register selection and rank computation rely on.
+     *
+     * @param value The string to hash.
+     * @return a 64-bit hash of the string.
+     */
+    public static long hash64(@NotNull final CharSequence value) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < value.length(); i++) {
+            hash ^= value.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return HyperLogLog.mix64(hash);
+    }
+
+    /**
+     * Mix the bits of a 64-bit value with the finalizer of MurmurHash3.
+     *
+     * @param value The value to mix.
+     * @return the mixed value.
+     */
+    public static long mix64(final long value) {
+        long mixed = value;
+        mixed ^= mixed >>> 33;
+        mixed *= 0xff51afd7ed558ccdL;
+        mixed ^= mixed >>> 33;
+        mixed *= 0xc4ceb9fe1a85ec53L;
+        mixed ^= mixed >>> 33;
+        return mixed;
+    }
+}
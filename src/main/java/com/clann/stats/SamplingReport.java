@@ -0,0 +1,90 @@
+package com.clann.stats;
+
+import java.util.Comparator;
+import java.util.Map;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Estimates of annotation usage produced by an {@link AnnotationSampler}.
+ *
+ * @param fraction                 The fraction of class files that was selected for analysis.
+ * @param totalClassFiles          The exact number of class files in the sampled JAR files.
+ * @param sampledClassFiles        The number of selected class files that were successfully analyzed.
+ * @param failedClassFiles         The number of selected class files that failed to parse.
+ * @param estimatedDistinctClasses The estimated number of distinct class names in the sampled JAR files.
+ * @param annotationEstimates      Mapping from annotation names to usage estimates.
+ */
+public record SamplingReport(
+        double fraction,
+        long totalClassFiles,
+        long sampledClassFiles,
+        long failedClassFiles,
+        long estimatedDistinctClasses,
+        @NotNull Map<String, AnnotationEstimate> annotationEstimates) {
+
+    /**
+     * Copies the annotation estimates.
+     */
+    public SamplingReport {
+        annotationEstimates = Map.copyOf(annotationEstimates);
+    }
+
+    /**
+     * Estimates of the usage of one annotation.
+     *
+     * @param classFiles        The estimated number of class files using the annotation.
+     * @param classFileFraction The estimated fraction of class files using the annotation.
+     * @param distinctClasses   The estimated number of distinct classes using the annotation.
+     */
+    public record AnnotationEstimate(
+            @NotNull Estimate classFiles,
+            @NotNull Estimate classFileFraction,
+            @NotNull Estimate distinctClasses) {}
+
+    /**
+     * Produce a report of the estimates, with annotations sorted by their estimated number of class files.
+     * <p>
+     * A simple YAML-like format is manually constructed, like the per-class annotation usage report.
+     *
+     * @return The report.
+     */
+    @NotNull
+    public String format() {
+        final StringBuilder stringBuilder = new StringBuilder(128);
+        stringBuilder
+                .append("\nsampleFraction: ")
+                .append(fraction)
+                .append("\ntotalClassFiles: ")
+                .append(totalClassFiles)
+                .append("\nsampledClassFiles: ")
+                .append(sampledClassFiles)
+                .append("\nfailedClassFiles: ")
+                .append(failedClassFiles)
+                .append("\nestimatedDistinctClasses: ")
+                .append(estimatedDistinctClasses)
+                .append("\nannotations:");
+
+        annotationEstimates.entrySet().stream()
+                .sorted(
+                        Comparator.comparing(
+                                        (Map.Entry<String, AnnotationEstimate> entry) ->
+                                                entry.getValue().classFiles().value())
+                                .reversed()
+                                .thenComparing(Map.Entry::getKey))
+                .forEach(
+                        entry -> {
+                            final AnnotationEstimate estimate = entry.getValue();
+                            stringBuilder.append("\n- annotation: ").append(entry.getKey());
+                            stringBuilder
+                                    .append("\n\t - classFiles: ")
+                                    .append(estimate.classFiles().formatCount());
+                            stringBuilder
+                                    .append("\n\t - classFileFraction: ")
+                                    .append(estimate.classFileFraction().formatPercentage());
+                            stringBuilder
+                                    .append("\n\t - distinctClasses: ")
+                                    .append(estimate.distinctClasses().formatCount());
+                        });
+        return stringBuilder.toString();
+    }
+}
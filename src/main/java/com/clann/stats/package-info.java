@@ -0,0 +1,5 @@
+/**
+ * Groups classes that compute statistics over annotation usage, such as estimates from a random sample of
+ * class files.
+ */
+package com.clann.stats;
@@ -0,0 +1,412 @@
+package com.clann.store;
+
+import com.clann.visitor.AnnotationLevel;
+import com.clann.visitor.ClassAnnotationInfo;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.function.Consumer;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Stores scan results in columns outside the Java heap, so that scans producing tens of millions of annotation
+ * occurrences do not fill the heap with {@link ClassAnnotationInfo} objects and cause long garbage collection
+ * pauses.
+ * <p>
+ * Each class is a row of the class columns: the offset and length of its UTF-8 name in a byte column, and the
+ * index of its first occurrence row. Each use of an annotation by a class is a row of the occurrence columns: the
+ * annotation id and a bitmask of the {@link AnnotationLevel}s it is used at. The occurrences of a class are stored
+ * contiguously, so the class id of an occurrence is implied by the first occurrence rows. Only the annotation
+ * names, of which there are few, are kept on the heap. The columns live in direct buffers, or in memory-mapped
+ * files that the operating system can page out.
+ * <p>
+ * Classes are appended as they are scanned, by passing the store as the consumer of a scan. Appending is
+ * thread-safe. Iterating yields a single flyweight {@link ClassView} that is moved from class to class, so reading
+ * the results allocates nothing per class unless names are decoded. Iterate only once appending has finished.
+ */
+public final class ColumnarResultStore
+        implements Consumer<ClassAnnotationInfo>,
+                Closeable,
+                Iterable<ColumnarResultStore.ClassView> {
+    /**
+     * The default size of the chunks the columns are allocated in.
+     */
+    public static final int DEFAULT_CHUNK_BYTES = 4 << 20;
+
+    private static final int COLUMN_COUNT = 6;
+
+    @NotNull private final OffHeapColumn classNameOffsets;
+    @NotNull private final OffHeapColumn classNameLengths;
+    @NotNull private final OffHeapColumn classFirstOccurrences;
+    @NotNull private final OffHeapColumn classNameBytes;
+    @NotNull private final OffHeapColumn occurrenceAnnotationIds;
+    @NotNull private final OffHeapColumn occurrenceLevelMasks;
+    @NotNull private final List<FileChannel> channels;
+    @NotNull private final List<Path> files;
+
+    @NotNull private final Map<String, Integer> annotationIds = new HashMap<>();
+    @NotNull private final List<String> annotationNames = new ArrayList<>();
+    private int classCount;
+    private int occurrenceCount;
+
+    private ColumnarResultStore(
+            @NotNull final List<OffHeapColumn.ChunkAllocator> allocators,
+            final int chunkBytes,
+            @NotNull final List<FileChannel> channels,
+            @NotNull final List<Path> files) {
+        this.classNameOffsets = new OffHeapColumn(allocators.get(0), chunkBytes);
+        this.classNameLengths = new OffHeapColumn(allocators.get(1), chunkBytes);
+        this.classFirstOccurrences = new OffHeapColumn(allocators.get(2), chunkBytes);
+        this.classNameBytes = new OffHeapColumn(allocators.get(3), chunkBytes);
+        this.occurrenceAnnotationIds = new OffHeapColumn(allocators.get(4), chunkBytes);
+        this.occurrenceLevelMasks = new OffHeapColumn(allocators.get(5), chunkBytes);
+        this.channels = channels;
+        this.files = files;
+    }
+
+    /**
+     * Create a store whose columns are allocated in direct buffers.
+     *
+     * @return the store.
+     */
+    @NotNull
+    public static ColumnarResultStore allocateDirect() {
+        return ColumnarResultStore.allocateDirect(ColumnarResultStore.DEFAULT_CHUNK_BYTES);
+    }
+
+    /**
+     * Create a store whose columns are allocated in direct buffers of the given chunk size.
+     *
+     * @param chunkBytes The size of the chunks the columns are allocated in, a positive multiple of 8.
+     * @return the store.
+     * @throws IllegalArgumentException If the chunk size is not a positive multiple of 8.
+     */
+    @NotNull
+    public static ColumnarResultStore allocateDirect(final int chunkBytes) {
+        ColumnarResultStore.checkChunkBytes(chunkBytes);
+        final List<OffHeapColumn.ChunkAllocator> allocators = new ArrayList<>();
+        for (int i = 0; i < ColumnarResultStore.COLUMN_COUNT; i++) {
+            allocators.add((chunkIndex, bytes) -> ByteBuffer.allocateDirect(bytes));
+        }
+        return new ColumnarResultStore(allocators, chunkBytes, List.of(), List.of());
+    }
+
+    /**
+     * Create a store whose columns are memory-mapped from temporary files in the given directory. The files are
+     * deleted when the store is closed.
+     *
+     * @param directory The directory for the column files.
+     * @return the store.
+     * @throws IOException If the column files cannot be created.
+     */
+    @NotNull
+    public static ColumnarResultStore map(@NotNull final Path directory) throws IOException {
+        return ColumnarResultStore.map(directory, ColumnarResultStore.DEFAULT_CHUNK_BYTES);
+    }
+
+    /**
+     * Create a store whose columns are memory-mapped, in chunks of the given size, from temporary files in the
+     * given directory. The files are deleted when the store is closed.
+     *
+     * @param directory  The directory for the column files.
+     * @param chunkBytes The size of the chunks the columns are mapped in, a positive multiple of 8.
+     * @return the store.
+     * @throws IOException              If the column files cannot be created.
+     * @throws IllegalArgumentException If the chunk size is not a positive multiple of 8.
+     */
+    @NotNull
+    @SuppressWarnings("PMD.CloseResource")
+    public static ColumnarResultStore map(@NotNull final Path directory, final int chunkBytes)
+            throws IOException {
+        ColumnarResultStore.checkChunkBytes(chunkBytes);
+        Files.createDirectories(directory);
+        final List<OffHeapColumn.ChunkAllocator> allocators = new ArrayList<>();
+        final List<FileChannel> channels = new ArrayList<>();
+        final List<Path> files = new ArrayList<>();
+        try {
+            for (int i = 0; i < ColumnarResultStore.COLUMN_COUNT; i++) {
+                final Path file = Files.createTempFile(directory, "clann-column-", ".bin");
+                files.add(file);
+                final FileChannel channel =
+                        FileChannel.open(
+                                file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+                channels.add(channel);
+                // Mapping past the end of the file grows it
+                allocators.add(
+                        (chunkIndex, bytes) ->
+                                channel.map(
+                                        FileChannel.MapMode.READ_WRITE,
+                                        (long) chunkIndex * bytes,
+                                        bytes));
+            }
+        } catch (final IOException e) {
+            ColumnarResultStore.release(channels, files);
+            throw e;
+        }
+        return new ColumnarResultStore(allocators, chunkBytes, channels, files);
+    }
+
+    /**
+     * Append the annotation information of a class.
+     *
+     * @param classAnnotationInfo The annotation information of the class.
+     * @throws UncheckedIOException If a column cannot grow.
+     */
+    @Override
+    public synchronized void accept(@NotNull final ClassAnnotationInfo classAnnotationInfo) {
+        try {
+            final byte[] className =
+                    String.valueOf(classAnnotationInfo.getClassName())
+                            .getBytes(StandardCharsets.UTF_8);
+            classNameOffsets.appendLong(classNameBytes.size());
+            classNameLengths.appendInt(className.length);
+            classNameBytes.appendBytes(className);
+            classFirstOccurrences.appendInt(occurrenceCount);
+            for (final Map.Entry<String, ClassAnnotationInfo.AnnotationDetails> entry :
+                    classAnnotationInfo.getAnnotations().entrySet()) {
+                occurrenceAnnotationIds.appendInt(
+                        annotationIds.computeIfAbsent(entry.getKey(), this::addAnnotationName));
+                occurrenceLevelMasks.appendInt(
+                        AnnotationLevel.toMask(entry.getValue().getAnnotationLevels()));
+                occurrenceCount++;
+            }
+            classCount++;
+        } catch (final IOException e) {
+            throw new UncheckedIOException("Error growing the result store", e);
+        }
+    }
+
+    /**
+     * Returns the number of classes stored.
+     *
+     * @return the number of classes stored.
+     */
+    public synchronized int getClassCount() {
+        return classCount;
+    }
+
+    /**
+     * Returns the number of annotation occurrences stored, that is the sum over the classes of the number of
+     * annotations each uses.
+     *
+     * @return the number of annotation occurrences stored.
+     */
+    public synchronized int getOccurrenceCount() {
+        return occurrenceCount;
+    }
+
+    /**
+     * Returns the name of the annotation with the given id.
+     *
+     * @param annotationId The annotation id, as returned by {@link ClassView#getAnnotationId(int)}.
+     * @return the friendly annotation name, for example {@code @java.lang.Deprecated}.
+     */
+    @NotNull
+    public synchronized String getAnnotationName(final int annotationId) {
+        return annotationNames.get(annotationId);
+    }
+
+    /**
+     * Returns an iterator over the stored classes in the order they were appended. Every call to
+     * {@link Iterator#next()} returns the same {@link ClassView}, moved to the next class.
+     *
+     * @return the iterator.
+     */
+    @NotNull
+    @Override
+    public synchronized Iterator<ClassView> iterator() {
+        final int count = classCount;
+        final ClassView view = new ClassView(List.copyOf(annotationNames), occurrenceCount);
+        return new Iterator<>() {
+            private int nextClassId;
+
+            @Override
+            public boolean hasNext() {
+                return nextClassId < count;
+            }
+
+            @NotNull
+            @Override
+            public ClassView next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                view.moveTo(nextClassId++, nextClassId < count);
+                return view;
+            }
+        };
+    }
+
+    /**
+     * Releases the columns, and closes and deletes the column files of a memory-mapped store.
+     *
+     * @throws IOException If a column file cannot be closed or deleted.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        classNameOffsets.clear();
+        classNameLengths.clear();
+        classFirstOccurrences.clear();
+        classNameBytes.clear();
+        occurrenceAnnotationIds.clear();
+        occurrenceLevelMasks.clear();
+        classCount = 0;
+        occurrenceCount = 0;
+        ColumnarResultStore.release(channels, files);
+    }
+
+    @NotNull
+    private Integer addAnnotationName(@NotNull final String annotationName) {
+        annotationNames.add(annotationName);
+        return annotationNames.size() - 1;
+    }
+
+    private static void checkChunkBytes(final int chunkBytes) {
+        if (chunkBytes <= 0 || chunkBytes % Long.BYTES != 0) {
+            throw new IllegalArgumentException(
+                    "Chunk size must be a positive multiple of 8: " + chunkBytes);
+        }
+    }
+
+    private static void release(
+            @NotNull final List<FileChannel> channels, @NotNull final List<Path> files)
+            throws IOException {
+        IOException exception = null;
+        for (final FileChannel channel : channels) {
+            try {
+                channel.close();
+            } catch (final IOException e) {
+                exception = e;
+            }
+        }
+        // Mapped chunks stay valid after their file is deleted until they are garbage collected
+        for (final Path file : files) {
+            try {
+                Files.deleteIfExists(file);
+            } catch (final IOException e) {
+                exception = e;
+            }
+        }
+        if (exception != null) {
+            throw exception;
+        }
+    }
+
+    /**
+     * A view of one stored class, which is moved from class to class while iterating over the store. Its values
+     * are only valid until the iterator moves it to the next class.
+     */
+    public final class ClassView {
+        @NotNull private final List<String> annotationNames;
+        private final int occurrenceCount;
+        private int classId;
+        private int firstOccurrence;
+        private int annotationCount;
+
+        private ClassView(@NotNull final List<String> annotationNames, final int occurrenceCount) {
+            this.annotationNames = annotationNames;
+            this.occurrenceCount = occurrenceCount;
+        }
+
+        private void moveTo(final int classId, final boolean hasNextClass) {
+            this.classId = classId;
+            this.firstOccurrence = classFirstOccurrences.getInt(classId);
+            final int endOccurrence =
+                    hasNextClass ? classFirstOccurrences.getInt(classId + 1L) : occurrenceCount;
+            this.annotationCount = endOccurrence - firstOccurrence;
+        }
+
+        /**
+         * Returns the id of the class, its position in the order classes were appended.
+         *
+         * @return the class id.
+         */
+        public int getClassId() {
+            return classId;
+        }
+
+        /**
+         * Decodes the class name.
+         *
+         * @return the class name.
+         */
+        @NotNull
+        public String getClassName() {
+            final byte[] bytes = new byte[classNameLengths.getInt(classId)];
+            classNameBytes.getBytes(classNameOffsets.getLong(classId), bytes, bytes.length);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        /**
+         * Returns the number of annotations the class uses.
+         *
+         * @return the number of annotations.
+         */
+        public int getAnnotationCount() {
+            return annotationCount;
+        }
+
+        /**
+         * Returns the id of an annotation the class uses.
+         *
+         * @param index The index of the annotation, less than {@link #getAnnotationCount()}.
+         * @return the annotation id.
+         */
+        public int getAnnotationId(final int index) {
+            return occurrenceAnnotationIds.getInt(occurrence(index));
+        }
+
+        /**
+         * Returns the name of an annotation the class uses.
+         *
+         * @param index The index of the annotation, less than {@link #getAnnotationCount()}.
+         * @return the friendly annotation name, for example {@code @java.lang.Deprecated}.
+         */
+        @NotNull
+        public String getAnnotationName(final int index) {
+            return annotationNames.get(getAnnotationId(index));
+        }
+
+        /**
+         * Returns the levels an annotation is used at as a bitmask with the bit {@code 1 << level.ordinal()} set
+         * for each {@link AnnotationLevel}.
+         *
+         * @param index The index of the annotation, less than {@link #getAnnotationCount()}.
+         * @return the bitmask of annotation levels.
+         */
+        public int getLevelMask(final int index) {
+            return occurrenceLevelMasks.getInt(occurrence(index));
+        }
+
+        /**
+         * Returns the levels an annotation is used at.
+         *
+         * @param index The index of the annotation, less than {@link #getAnnotationCount()}.
+         * @return the annotation levels, in sorted order.
+         */
+        @NotNull
+        public Set<AnnotationLevel> getAnnotationLevels(final int index) {
+            return AnnotationLevel.fromMask(getLevelMask(index));
+        }
+
+        private long occurrence(final int index) {
+            if (index < 0 || index >= annotationCount) {
+                throw new IndexOutOfBoundsException(index);
+            }
+            return (long) firstOccurrence + index;
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package com.clann.store;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.List;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * An append-only column of values stored outside the Java heap, in fixed-size chunks of direct or memory-mapped
+ * buffers.
+ * <p>
+ * Growing the column allocates a new chunk instead of copying the existing ones. A column holds values of a
+ * single width, and the chunk size is a multiple of 8 bytes, so {@code int} and {@code long} values never span two
+ * chunks. Byte arrays may span chunks. Values are read with absolute positions, so concurrent reads are safe once
+ * appending has finished.
+ */
+final class OffHeapColumn {
+    /**
+     * Allocates the chunks of a column.
+     */
+    @FunctionalInterface
+    interface ChunkAllocator {
+        /**
+         * Allocate a chunk of the column.
+         *
+         * @param chunkIndex The index of the chunk in the column.
+         * @param chunkBytes The size of the chunk in bytes.
+         * @return the chunk.
+         * @throws IOException If the chunk cannot be allocated.
+         */
+        @NotNull
+        ByteBuffer allocate(int chunkIndex, int chunkBytes) throws IOException;
+    }
+
+    @NotNull private final ChunkAllocator allocator;
+    private final int chunkBytes;
+    @NotNull private final List<ByteBuffer> chunks = new ArrayList<>();
+
+    /**
+     * The number of bytes appended to the column.
+     */
+    private long size;
+
+    OffHeapColumn(@NotNull final ChunkAllocator allocator, final int chunkBytes) {
+        this.allocator = allocator;
+        this.chunkBytes = chunkBytes;
+    }
+
+    /**
+     * Returns the number of bytes appended to the column.
+     *
+     * @return the number of bytes appended.
+     */
+    long size() {
+        return size;
+    }
+
+    void appendInt(final int value) throws IOException {
+        chunkForAppend().putInt(offsetInChunk(size), value);
+        size += Integer.BYTES;
+    }
+
+    void appendLong(final long value) throws IOException {
+        chunkForAppend().putLong(offsetInChunk(size), value);
+        size += Long.BYTES;
+    }
+
+    void appendBytes(@NotNull final byte[] bytes) throws IOException {
+        int copied = 0;
+        while (copied < bytes.length) {
+            final ByteBuffer chunk = chunkForAppend();
+            final int offset = offsetInChunk(size);
+            final int length = Math.min(bytes.length - copied, chunkBytes - offset);
+            chunk.put(offset, bytes, copied, length);
+            copied += length;
+            size += length;
+        }
+    }
+
+    int getInt(final long index) {
+        final long position = index * Integer.BYTES;
+        return chunks.get(chunkIndex(position)).getInt(offsetInChunk(position));
+    }
+
+    long getLong(final long index) {
+        final long position = index * Long.BYTES;
+        return chunks.get(chunkIndex(position)).getLong(offsetInChunk(position));
+    }
+
+    void getBytes(final long position, @NotNull final byte[] bytes, final int length) {
+        int copied = 0;
+        while (copied < length) {
+            final int offset = offsetInChunk(position + copied);
+            final int chunkLength = Math.min(length - copied, chunkBytes - offset);
+            chunks.get(chunkIndex(position + copied)).get(offset, bytes, copied, chunkLength);
+            copied += chunkLength;
+        }
+    }
+
+    /**
+     * Releases the chunks of the column. Direct buffers are freed once they are garbage collected.
+     */
+    void clear() {
+        chunks.clear();
+        size = 0;
+    }
+
+    @NotNull
+    private ByteBuffer chunkForAppend() throws IOException {
+        final int chunkIndex = chunkIndex(size);
+        if (chunkIndex == chunks.size()) {
+            chunks.add(allocator.allocate(chunkIndex, chunkBytes).order(ByteOrder.nativeOrder()));
+        }
+        return chunks.get(chunkIndex);
+    }
+
+    private int chunkIndex(final long position) {
+        return (int) (position / chunkBytes);
+    }
+
+    private int offsetInChunk(final long position) {
+        return (int) (position % chunkBytes);
+    }
+}
@@ -0,0 +1,4 @@
+/**
+ * Groups classes that store scan results outside the Java heap, for scans too large to keep as objects.
+ */
+package com.clann.store;
@@ -1,6 +1,8 @@
 package com.clann.visitor;
 
 import com.clann.ClannException;
+import com.clann.plugin.ClannPlugin;
+import java.util.List;
 import org.jetbrains.annotations.NotNull;
 import org.objectweb.asm.*;
 
@@ -28,15 +30,111 @@ public final class AnnotationCollector {
      * @return annotation information for the given compiled Java class.
      * @throws ClannClassReaderException If the class file bytes cannot be read and parsed.
      */
-    @SuppressWarnings("PMD.AvoidCatchingGenericException")
     @NotNull
     public static ClassAnnotationInfo collectAnnotations(@NotNull final byte[] classBytes)
             throws ClannClassReaderException {
+        return AnnotationCollector.collectAnnotations(classBytes, 0, classBytes.length);
+    }
+
+    /**
+     * Collect annotation information for the compiled Java class stored in a region of the given buffer.
+     * <p>
+     * This allows class files to be parsed straight out of a reusable buffer such as {@code ClassBytesBuffer}
+     * without first copying them into an exact-sized array.
+     *
+     * @param buffer The buffer containing the bytes representing the compiled Java class.
+     * @param offset The offset of the first byte of the compiled Java class in the buffer.
+     * @param length The number of bytes of the compiled Java class in the buffer.
+     * @return annotation information for the given compiled Java class.
+     * @throws ClannClassReaderException If the class file bytes cannot be read and parsed.
+     */
+    @NotNull
+    public static ClassAnnotationInfo collectAnnotations(
+            @NotNull final byte[] buffer, final int offset, final int length)
+            throws ClannClassReaderException {
+        return AnnotationCollector.collectAnnotations(buffer, offset, length, Long.MAX_VALUE);
+    }
+
+    /**
+     * Collect annotation information for the compiled Java class stored in a region of the given buffer,
+     * giving up if parsing takes longer than the given time limit.
+     *
+     * @param buffer         The buffer containing the bytes representing the compiled Java class.
+     * @param offset         The offset of the first byte of the compiled Java class in the buffer.
+     * @param length         The number of bytes of the compiled Java class in the buffer.
+     * @param timeLimitNanos The time limit for parsing in nanoseconds, or {@link Long#MAX_VALUE} for no limit.
+     * @return annotation information for the given compiled Java class.
+     * @throws ClannClassReaderException If the class file bytes cannot be read and parsed within the time limit.
+     */
+    @NotNull
+    public static ClassAnnotationInfo collectAnnotations(
+            @NotNull final byte[] buffer,
+            final int offset,
+            final int length,
+            final long timeLimitNanos)
+            throws ClannClassReaderException {
+        return AnnotationCollector.collectAnnotations(
+                buffer, offset, length, timeLimitNanos, List.of());
+    }
+
+    /**
+     * Collect annotation information for the compiled Java class stored in a region of the given buffer, and run
+     * the visitors of some analysis plugins in the same pass over the class file.
+     * <p>
+     * The visitor of each plugin is chained after the annotation visitors, in the order of the plugins, and
+     * contributes its results as facts of the returned {@link ClassAnnotationInfo}.
+     *
+     * @param buffer         The buffer containing the bytes representing the compiled Java class.
+     * @param offset         The offset of the first byte of the compiled Java class in the buffer.
+     * @param length         The number of bytes of the compiled Java class in the buffer.
+     * @param timeLimitNanos The time limit for parsing in nanoseconds, or {@link Long#MAX_VALUE} for no limit.
+     * @param plugins        The analysis plugins to run.
+     * @return annotation information and plugin facts for the given compiled Java class.
+     * @throws ClannClassReaderException If the class file bytes cannot be read and parsed within the time limit,
+     *                                   or a plugin fails.
+     */
+    @NotNull
+    public static ClassAnnotationInfo collectAnnotations(
+            @NotNull final byte[] buffer,
+            final int offset,
+            final int length,
+            final long timeLimitNanos,
+            @NotNull final List<ClannPlugin> plugins)
+            throws ClannClassReaderException {
+        return AnnotationCollector.collectAnnotations(
+                buffer, offset, length, timeLimitNanos, plugins, ClassNameTable.SHARED);
+    }
+
+    /**
+     * Collect annotation information for the compiled Java class stored in a region of the given buffer, run the
+     * visitors of some analysis plugins in the same pass, and store the package of the class in the given table.
+     *
+     * @param buffer         The buffer containing the bytes representing the compiled Java class.
+     * @param offset         The offset of the first byte of the compiled Java class in the buffer.
+     * @param length         The number of bytes of the compiled Java class in the buffer.
+     * @param timeLimitNanos The time limit for parsing in nanoseconds, or {@link Long#MAX_VALUE} for no limit.
+     * @param plugins        The analysis plugins to run.
+     * @param classNameTable The table that stores the package of the class.
+     * @return annotation information and plugin facts for the given compiled Java class.
+     * @throws ClannClassReaderException If the class file bytes cannot be read and parsed within the time limit,
+     *                                   or a plugin fails.
+     */
+    @SuppressWarnings("PMD.AvoidCatchingGenericException")
+    @NotNull
+    public static ClassAnnotationInfo collectAnnotations(
+            @NotNull final byte[] buffer,
+            final int offset,
+            final int length,
+            final long timeLimitNanos,
+            @NotNull final List<ClannPlugin> plugins,
+            @NotNull final ClassNameTable classNameTable)
+            throws ClannClassReaderException {
         final ClassAnnotationInfo annotations = new ClassAnnotationInfo();
+        final ParseWatchdog watchdog = ParseWatchdog.start(timeLimitNanos);
 
         final ClassReader reader;
         try {
-            reader = new ClassReader(classBytes);
+            reader = new ClassReader(buffer, offset, length);
             // We catch a broad Exception here to protect against exceptions raised in the asm
             // library which we do
             // not control
@@ -44,7 +142,21 @@ public final class AnnotationCollector {
             throw new ClannClassReaderException("Failed to parse class file content", e);
         }
 
-        reader.accept(new ClannClassVisitor(annotations), ClassReader.EXPAND_FRAMES);
+        try {
+            ClassVisitor next = null;
+            for (int i = plugins.size() - 1; i >= 0; i--) {
+                next = plugins.get(i).createClassVisitor(next, annotations);
+            }
+            reader.accept(
+                    new ClannClassVisitor(annotations, classNameTable, watchdog, next),
+                    ClassReader.EXPAND_FRAMES);
+        } catch (final ParseWatchdog.ParseTimeoutException e) {
+            throw new ClannClassReaderException("Timed out parsing class file content", e);
+        } catch (final Exception e) {
+            // The constructor only reads the constant pool. Malformed attributes or code are only
+            // detected while visiting so exceptions raised by asm here must be caught as well
+            throw new ClannClassReaderException("Failed to parse class file content", e);
+        }
 
         return annotations;
     }
@@ -1,5 +1,9 @@
 package com.clann.visitor;
 
+import java.util.EnumSet;
+import java.util.Set;
+import org.jetbrains.annotations.NotNull;
+
 /**
  * Indicates where (at what level) in the Java class structure an annotation appears and is applied.
  */
@@ -8,6 +12,17 @@ public enum AnnotationLevel {
      * Annotations that apply to the class itself.
      */
     CLASS,
+    /**
+     * Annotations that apply to the class indirectly because they meta-annotate, directly or transitively,
+     * an annotation that applies to the class itself. For example, {@code @Component} for a class annotated
+     * with {@code @Service}.
+     */
+    CLASS_META,
+    /**
+     * Annotations that apply to the class because a superclass is annotated with them and their annotation type
+     * is meta-annotated with {@code @java.lang.annotation.Inherited}.
+     */
+    CLASS_INHERITED,
     /**
      * Catch-all for type-use annotations at the class-level.
      */
@@ -79,5 +94,39 @@ public enum AnnotationLevel {
     /**
      * Annotations that apply to explicit receiver parameters in non-static methods of classes.
      */
-    METHOD_TYPE_USE_RECEIVER,
+    METHOD_TYPE_USE_RECEIVER;
+
+    private static final AnnotationLevel[] LEVELS = AnnotationLevel.values();
+
+    /**
+     * Returns the given levels as a bit mask with the bit {@code 1 << level.ordinal()} set for each level. There are
+     * fewer annotation levels than bits in an int.
+     *
+     * @param levels The annotation levels.
+     * @return the bit mask of the levels.
+     */
+    public static int toMask(@NotNull final Set<AnnotationLevel> levels) {
+        int mask = 0;
+        for (final AnnotationLevel level : levels) {
+            mask |= 1 << level.ordinal();
+        }
+        return mask;
+    }
+
+    /**
+     * Returns the levels of the given bit mask, the inverse of {@link #toMask(Set)}.
+     *
+     * @param mask The bit mask of the levels.
+     * @return the annotation levels, in sorted order.
+     */
+    @NotNull
+    public static Set<AnnotationLevel> fromMask(final int mask) {
+        final Set<AnnotationLevel> levels = EnumSet.noneOf(AnnotationLevel.class);
+        for (final AnnotationLevel level : AnnotationLevel.LEVELS) {
+            if ((mask & 1 << level.ordinal()) != 0) {
+                levels.add(level);
+            }
+        }
+        return levels;
+    }
 }
@@ -7,12 +7,31 @@ import org.slf4j.LoggerFactory;
 
 final class ClannClassVisitor extends ClassVisitor {
     private final ClassAnnotationInfo annotations;
+    private final ClassNameTable classNameTable;
+    private final ParseWatchdog watchdog;
     private static final Logger LOGGER =
             LoggerFactory.getLogger(AnnotationCollector.class.getSimpleName());
+    private static final String RETENTION_DESCRIPTOR = "Ljava/lang/annotation/Retention;";
+    private static final String DEFAULT_RETENTION = "CLASS";
 
-    ClannClassVisitor(final ClassAnnotationInfo annotations) {
-        super(AnnotationCollector.ASM_API_VERSION);
+    /**
+     * Creates a visitor that collects the annotations of a class and passes every event on to the next visitor,
+     * so that analysis plugins see the same events in the same pass.
+     *
+     * @param annotations    The annotation information to collect into.
+     * @param classNameTable The table that stores the package of the class.
+     * @param watchdog       The watchdog that bounds the parse time.
+     * @param next           The visitor of the first analysis plugin, or {@code null} if there is none.
+     */
+    ClannClassVisitor(
+            final ClassAnnotationInfo annotations,
+            final ClassNameTable classNameTable,
+            final ParseWatchdog watchdog,
+            final ClassVisitor next) {
+        super(AnnotationCollector.ASM_API_VERSION, next);
         this.annotations = annotations;
+        this.classNameTable = classNameTable;
+        this.watchdog = watchdog;
     }
 
     @Override
@@ -23,14 +42,38 @@ final class ClannClassVisitor extends ClassVisitor {
             final String signature,
             final String superName,
             final String[] interfaces) {
-        final String className = name.replace('/', '.');
-        annotations.setClassName(className);
+        annotations.setInternalClassName(classNameTable, name);
+
+        // Record the superclass edge so that inherited annotations can be resolved after the scan.
+        // Annotations are not inherited from interfaces, so their names are not kept.
+        if (superName != null) {
+            annotations.setInternalSuperClassName(classNameTable, superName);
+        }
+
+        // Annotation types without @Retention are retained in the class file only
+        if ((access & Opcodes.ACC_ANNOTATION) != 0) {
+            annotations.setRetention(ClannClassVisitor.DEFAULT_RETENTION);
+        }
+        super.visit(version, access, name, signature, superName, interfaces);
     }
 
     @Override
     public AnnotationVisitor visitAnnotation(
             @NotNull final String descriptor, final boolean visible) {
         annotations.addAnnotation(descriptor, AnnotationLevel.CLASS);
+        if (annotations.isAnnotationType()
+                && ClannClassVisitor.RETENTION_DESCRIPTOR.equals(descriptor)) {
+            return new AnnotationVisitor(
+                    AnnotationCollector.ASM_API_VERSION,
+                    super.visitAnnotation(descriptor, visible)) {
+                @Override
+                public void visitEnum(
+                        final String name, final String enumDescriptor, final String value) {
+                    annotations.setRetention(value);
+                    super.visitEnum(name, enumDescriptor, value);
+                }
+            };
+        }
         return super.visitAnnotation(descriptor, visible);
     }
 
@@ -70,8 +113,10 @@ final class ClannClassVisitor extends ClassVisitor {
             final String signature,
             final Object value) {
         ClannClassVisitor.LOGGER.trace("visiting field: {}", name);
+        watchdog.check();
 
-        return new ClannFieldVisitor(this.annotations);
+        return new ClannFieldVisitor(
+                this.annotations, super.visitField(access, name, descriptor, signature, value));
     }
 
     @NotNull
@@ -83,7 +128,12 @@ final class ClannClassVisitor extends ClassVisitor {
             final String signature,
             final String[] exceptions) {
         ClannClassVisitor.LOGGER.trace("visiting method: {}", name);
+        watchdog.check();
 
-        return new ClannMethodVisitor(this.annotations, name);
+        return new ClannMethodVisitor(
+                this.annotations,
+                name,
+                watchdog,
+                super.visitMethod(access, name, descriptor, signature, exceptions));
     }
 }
@@ -8,8 +8,8 @@ import org.objectweb.asm.TypePath;
 final class ClannFieldVisitor extends FieldVisitor {
     private final ClassAnnotationInfo annotations;
 
-    ClannFieldVisitor(final ClassAnnotationInfo annotations) {
-        super(AnnotationCollector.ASM_API_VERSION);
+    ClannFieldVisitor(final ClassAnnotationInfo annotations, final FieldVisitor next) {
+        super(AnnotationCollector.ASM_API_VERSION, next);
         this.annotations = annotations;
     }
 
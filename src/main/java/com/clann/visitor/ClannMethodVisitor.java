@@ -9,13 +9,29 @@ import org.slf4j.LoggerFactory;
 final class ClannMethodVisitor extends MethodVisitor {
     private final String name;
     private final ClassAnnotationInfo annotations;
+    private final ParseWatchdog watchdog;
     private static final Logger LOGGER =
             LoggerFactory.getLogger(AnnotationCollector.class.getSimpleName());
 
-    ClannMethodVisitor(final ClassAnnotationInfo annotations, final String name) {
-        super(AnnotationCollector.ASM_API_VERSION);
+    ClannMethodVisitor(
+            final ClassAnnotationInfo annotations,
+            final String name,
+            final ParseWatchdog watchdog,
+            final MethodVisitor next) {
+        super(AnnotationCollector.ASM_API_VERSION, next);
         this.annotations = annotations;
         this.name = name;
+        this.watchdog = watchdog;
+    }
+
+    /**
+     * Labels are visited throughout the code of a method, so checking the watchdog here bounds the time spent
+     * in methods with huge or pathological code attributes.
+     */
+    @Override
+    public void visitLabel(final Label label) {
+        watchdog.check();
+        super.visitLabel(label);
     }
 
     @Override
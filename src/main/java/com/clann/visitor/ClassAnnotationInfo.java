@@ -8,7 +8,24 @@ import org.jetbrains.annotations.NotNull;
  * Groups information about the annotations used in a class.
  */
 public class ClassAnnotationInfo {
-    private String className;
+    /**
+     * The package of the class in the {@link ClassNameTable} the class was named with, or {@code null} if the class
+     * name is not set.
+     */
+    private ClassNameTable.PackageNode classPackage;
+
+    /**
+     * The class name without its package, such as {@code Recycler$Handle}.
+     */
+    private String simpleName;
+
+    /**
+     * The direct superclass in the {@link ClassNameTable} the class was named with, shared by all classes with the
+     * same superclass, or {@code null} if it is not set.
+     */
+    private ClassNameTable.ClassNode superClass;
+
+    private String retention;
 
     /**
      * Mapping from annotation names to annotation details.
@@ -16,21 +33,160 @@ public class ClassAnnotationInfo {
     @NotNull private final Map<String, AnnotationDetails> annotations = new ConcurrentHashMap<>();
 
     /**
-     * Sets the class name.
+     * Facts contributed by analysis plugins, sorted by name, or {@code null} until a plugin contributes one so
+     * that scans without plugins retain no map.
+     */
+    private Map<String, Object> facts;
+
+    /**
+     * Sets the class name, storing its package in {@link ClassNameTable#SHARED}.
      *
      * @param className The class name.
      */
     public void setClassName(final String className) {
-        this.className = className;
+        setClassName(ClassNameTable.SHARED, className);
     }
 
     /**
-     * Returns the class name.
+     * Sets the class name, storing its package in the given table.
+     *
+     * @param classNameTable The table that stores the package of the class.
+     * @param className      The class name.
+     */
+    public void setClassName(
+            @NotNull final ClassNameTable classNameTable, final String className) {
+        if (className == null) {
+            this.classPackage = null;
+            this.simpleName = null;
+        } else {
+            final int lastDot = className.lastIndexOf('.');
+            this.classPackage =
+                    classNameTable.getPackage(
+                            lastDot < 0 ? "" : className.substring(0, lastDot).replace('.', '/'));
+            this.simpleName = className.substring(lastDot + 1);
+        }
+    }
+
+    /**
+     * Sets the class name from the internal name of the class, such as {@code io/netty/util/Recycler$Handle}, as
+     * found in class files, storing its package in {@link ClassNameTable#SHARED}.
+     *
+     * @param internalName The internal name of the class.
+     */
+    public void setInternalClassName(@NotNull final String internalName) {
+        setInternalClassName(ClassNameTable.SHARED, internalName);
+    }
+
+    /**
+     * Sets the class name from the internal name of the class, storing its package in the given table.
+     *
+     * @param classNameTable The table that stores the package of the class.
+     * @param internalName   The internal name of the class.
+     */
+    public void setInternalClassName(
+            @NotNull final ClassNameTable classNameTable, @NotNull final String internalName) {
+        final int lastSlash = internalName.lastIndexOf('/');
+        this.classPackage =
+                classNameTable.getPackage(
+                        lastSlash < 0 ? "" : internalName.substring(0, lastSlash));
+        this.simpleName = internalName.substring(lastSlash + 1);
+    }
+
+    /**
+     * Renders the class name. Each call builds a new string, so callers that use the name more than once should
+     * keep it. Prefer {@link #appendClassName(StringBuilder)} when writing output.
      *
      * @return the class name.
      */
     public String getClassName() {
-        return className;
+        if (classPackage == null || classPackage.isUnnamed()) {
+            return simpleName;
+        }
+        return appendClassName(new StringBuilder()).toString();
+    }
+
+    /**
+     * Append the class name to a string builder, without creating a string.
+     *
+     * @param stringBuilder The string builder to append to.
+     * @return the string builder.
+     */
+    @NotNull
+    public StringBuilder appendClassName(@NotNull final StringBuilder stringBuilder) {
+        if (classPackage != null && !classPackage.isUnnamed()) {
+            classPackage.appendTo(stringBuilder).append('.');
+        }
+        return stringBuilder.append(simpleName);
+    }
+
+    /**
+     * Renders the name of the package of the class.
+     *
+     * @return the package name, or an empty string for the unnamed package or if the class name is not set.
+     */
+    @NotNull
+    public String getPackageName() {
+        return classPackage == null ? "" : classPackage.getName();
+    }
+
+    /**
+     * Sets the name of the direct superclass, storing it in {@link ClassNameTable#SHARED}.
+     *
+     * @param superClassName The name of the direct superclass or {@code null} for {@code java.lang.Object}.
+     */
+    public void setSuperClassName(final String superClassName) {
+        this.superClass =
+                superClassName == null
+                        ? null
+                        : ClassNameTable.SHARED.getClassNode(superClassName.replace('.', '/'));
+    }
+
+    /**
+     * Sets the direct superclass from its internal name, as found in class files, storing it in the given table.
+     *
+     * @param classNameTable    The table that stores the superclass.
+     * @param superInternalName The internal name of the direct superclass.
+     */
+    public void setInternalSuperClassName(
+            @NotNull final ClassNameTable classNameTable, @NotNull final String superInternalName) {
+        this.superClass = classNameTable.getClassNode(superInternalName);
+    }
+
+    /**
+     * Renders the name of the direct superclass. Each call builds a new string.
+     *
+     * @return the name of the direct superclass or {@code null} for {@code java.lang.Object}.
+     */
+    public String getSuperClassName() {
+        return superClass == null ? null : superClass.getName();
+    }
+
+    /**
+     * Sets the retention policy of the class, which is an annotation type.
+     *
+     * @param retention The name of the {@code java.lang.annotation.RetentionPolicy} of the annotation type.
+     */
+    public void setRetention(final String retention) {
+        this.retention = retention;
+    }
+
+    /**
+     * Returns the retention policy of the class if it is an annotation type.
+     *
+     * @return the name of the {@code java.lang.annotation.RetentionPolicy} of the annotation type, such as
+     *         {@code RUNTIME}, or {@code null} if the class is not an annotation type.
+     */
+    public String getRetention() {
+        return retention;
+    }
+
+    /**
+     * Returns whether the class is an annotation type.
+     *
+     * @return whether the class is an annotation type.
+     */
+    public boolean isAnnotationType() {
+        return retention != null;
     }
 
     /**
@@ -43,6 +199,30 @@ public class ClassAnnotationInfo {
         return Collections.unmodifiableMap(annotations);
     }
 
+    /**
+     * Returns the facts that analysis plugins contributed about the class, such as its class file version.
+     *
+     * @return Mapping from fact names to values, sorted by name.
+     */
+    @NotNull
+    public Map<String, Object> getFacts() {
+        return facts == null ? Collections.emptyMap() : Collections.unmodifiableMap(facts);
+    }
+
+    /**
+     * Add a fact about the class, replacing any fact of the same name. Facts are named after the plugin that
+     * contributes them, such as {@code classfile.version}, so that plugins do not overwrite each other's facts.
+     *
+     * @param name  The name of the fact.
+     * @param value The value of the fact, which is rendered with {@link String#valueOf(Object)}.
+     */
+    public void putFact(@NotNull final String name, @NotNull final Object value) {
+        if (facts == null) {
+            facts = new TreeMap<>();
+        }
+        facts.put(name, value);
+    }
+
     /**
      * Add an annotation to the annotations used by this class.
      *
@@ -53,6 +233,18 @@ public class ClassAnnotationInfo {
             @NotNull final String annotationDescriptor, final AnnotationLevel annotationLevel) {
         final String annotationName =
                 ClassAnnotationInfo.annotationDescriptorToClassName(annotationDescriptor);
+        addAnnotationByName(annotationName, annotationLevel);
+    }
+
+    /**
+     * Add an annotation to the annotations used by this class given its friendly name,
+     * as returned as a key by {@link #getAnnotations()}.
+     *
+     * @param annotationName  The friendly annotation name, for example {@code @java.lang.Deprecated}.
+     * @param annotationLevel The usage levels that this annotation has been seen in.
+     */
+    public void addAnnotationByName(
+            @NotNull final String annotationName, final AnnotationLevel annotationLevel) {
         this.annotations.putIfAbsent(annotationName, new AnnotationDetails());
         this.annotations.get(annotationName).addAnnotationLevel(annotationLevel);
     }
@@ -95,6 +287,16 @@ public class ClassAnnotationInfo {
             annotationLevels.add(level);
         }
 
+        /**
+         * Returns the usage levels that this annotation has been seen in, in sorted order.
+         *
+         * @return The usage levels that this annotation has been seen in.
+         */
+        @NotNull
+        public Set<AnnotationLevel> getAnnotationLevels() {
+            return Collections.unmodifiableSet(annotationLevels);
+        }
+
         @Override
         public String toString() {
             return annotationLevels.toString();
@@ -0,0 +1,169 @@
+package com.clann.visitor;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Stores the packages of scanned classes once, as a trie of package segments, so that each
+ * {@link ClassAnnotationInfo} only holds a reference to its package and its simple name instead of a full class
+ * name.
+ * <p>
+ * A package is a node that holds its last segment and a reference to its parent, so {@code io.netty.util} and
+ * {@code io.netty.util.internal} share the nodes of {@code io}, {@code io.netty} and {@code io.netty.util}. Nodes
+ * are found through a map from internal package names, such as {@code io/netty/util}, so interning the package of
+ * a class retains no memory unless the package is new. Full names are rendered only when output needs them.
+ * <p>
+ * The {@link #SHARED} table is used by scans unless their {@code ScanLimits} give another table, so that results
+ * of different JAR files share their packages too. Superclasses are stored as nodes of their package and simple
+ * name, so the classes that extend the same class share one node. The table only grows with the number of distinct
+ * packages and superclasses, which is small next to the number of classes. A long-running service can give each
+ * scan its own table to release the packages with the results. This class is thread-safe.
+ */
+public final class ClassNameTable {
+    /**
+     * The table shared by the scans of the JVM that are not given their own table.
+     */
+    public static final ClassNameTable SHARED = new ClassNameTable();
+
+    @NotNull private final PackageNode unnamedPackage = new PackageNode(null, "");
+    @NotNull private final Map<String, PackageNode> packages = new ConcurrentHashMap<>();
+    @NotNull private final Map<String, ClassNode> classes = new ConcurrentHashMap<>();
+
+    /**
+     * Returns the node of a package, adding it and its missing parents to the table if needed.
+     *
+     * @param internalPackageName The internal name of the package, such as {@code io/netty/util}, or an empty
+     *                            string for the unnamed package.
+     * @return the node of the package.
+     */
+    @NotNull
+    @SuppressWarnings("PMD.OnlyOneReturn")
+    public PackageNode getPackage(@NotNull final String internalPackageName) {
+        if (internalPackageName.isEmpty()) {
+            return unnamedPackage;
+        }
+        final PackageNode existing = packages.get(internalPackageName);
+        if (existing != null) {
+            return existing;
+        }
+        // The parent is interned first, as a map must not be updated from its own computeIfAbsent
+        final int lastSlash = internalPackageName.lastIndexOf('/');
+        final PackageNode parent =
+                lastSlash < 0
+                        ? unnamedPackage
+                        : getPackage(internalPackageName.substring(0, lastSlash));
+        return packages.computeIfAbsent(
+                internalPackageName,
+                name -> new PackageNode(parent, name.substring(lastSlash + 1)));
+    }
+
+    /**
+     * Returns the node of a class that scanned classes refer to, such as their superclass, adding it and its package
+     * to the table if needed. Classes that refer to the same class share its node.
+     *
+     * @param internalName The internal name of the class, such as {@code io/netty/util/AbstractReferenceCounted}.
+     * @return the node of the class.
+     */
+    @NotNull
+    @SuppressWarnings("PMD.OnlyOneReturn")
+    public ClassNode getClassNode(@NotNull final String internalName) {
+        final ClassNode existing = classes.get(internalName);
+        if (existing != null) {
+            return existing;
+        }
+        // The package is interned first, as it is stored in another map
+        final int lastSlash = internalName.lastIndexOf('/');
+        final PackageNode classPackage =
+                getPackage(lastSlash < 0 ? "" : internalName.substring(0, lastSlash));
+        return classes.computeIfAbsent(
+                internalName, name -> new ClassNode(classPackage, name.substring(lastSlash + 1)));
+    }
+
+    /**
+     * Returns the number of named packages in the table.
+     *
+     * @return the number of packages.
+     */
+    public int getPackageCount() {
+        return packages.size();
+    }
+
+    /**
+     * A class in a {@link ClassNameTable}, held by its package and its simple name.
+     */
+    public static final class ClassNode {
+        @NotNull private final PackageNode classPackage;
+        @NotNull private final String simpleName;
+
+        private ClassNode(
+                @NotNull final PackageNode classPackage, @NotNull final String simpleName) {
+            this.classPackage = classPackage;
+            this.simpleName = simpleName;
+        }
+
+        /**
+         * Renders the name of the class.
+         *
+         * @return the binary name of the class, such as {@code io.netty.util.AbstractReferenceCounted}.
+         */
+        @NotNull
+        public String getName() {
+            final StringBuilder stringBuilder = new StringBuilder();
+            if (!classPackage.isUnnamed()) {
+                classPackage.appendTo(stringBuilder).append('.');
+            }
+            return stringBuilder.append(simpleName).toString();
+        }
+    }
+
+    /**
+     * A package in the trie of a {@link ClassNameTable}.
+     */
+    public static final class PackageNode {
+        private final PackageNode parent;
+        @NotNull private final String segment;
+
+        private PackageNode(final PackageNode parent, @NotNull final String segment) {
+            this.parent = parent;
+            this.segment = segment;
+        }
+
+        /**
+         * Returns whether this is the unnamed package.
+         *
+         * @return whether this is the unnamed package.
+         */
+        public boolean isUnnamed() {
+            return parent == null;
+        }
+
+        /**
+         * Renders the name of the package.
+         *
+         * @return the binary name of the package, such as {@code io.netty.util}, or an empty string for the
+         *         unnamed package.
+         */
+        @NotNull
+        public String getName() {
+            return appendTo(new StringBuilder()).toString();
+        }
+
+        /**
+         * Append the name of the package to a string builder, without creating a string.
+         *
+         * @param stringBuilder The string builder to append to.
+         * @return the string builder.
+         */
+        @NotNull
+        public StringBuilder appendTo(@NotNull final StringBuilder stringBuilder) {
+            if (parent != null) {
+                if (!parent.isUnnamed()) {
+                    parent.appendTo(stringBuilder).append('.');
+                }
+                stringBuilder.append(segment);
+            }
+            return stringBuilder;
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.clann.visitor;
+
+import java.io.Serial;
+
+/**
+ * Enforces a time limit on parsing a single class file.
+ * <p>
+ * ASM parses on the calling thread and cannot be interrupted, so the visitors check the deadline cooperatively
+ * each time ASM calls back into them. A class file that makes ASM spin without calling back into a visitor is
+ * still bounded by the per-entry size limit.
+ */
+final class ParseWatchdog {
+    /**
+     * A watchdog that never expires.
+     */
+    static final ParseWatchdog UNLIMITED = new ParseWatchdog(Long.MAX_VALUE);
+
+    private final long timeLimitNanos;
+    private final long startNanos;
+
+    private ParseWatchdog(final long timeLimitNanos) {
+        this.timeLimitNanos = timeLimitNanos;
+        this.startNanos = System.nanoTime();
+    }
+
+    /**
+     * Starts a watchdog that expires after the given time limit.
+     *
+     * @param timeLimitNanos The time limit in nanoseconds.
+     * @return a started watchdog.
+     */
+    static ParseWatchdog start(final long timeLimitNanos) {
+        return timeLimitNanos == Long.MAX_VALUE
+                ? ParseWatchdog.UNLIMITED
+                : new ParseWatchdog(timeLimitNanos);
+    }
+
+    /**
+     * Checks that the time limit has not been exceeded.
+     *
+     * @throws ParseTimeoutException If the time limit has been exceeded.
+     */
+    void check() {
+        if (timeLimitNanos != Long.MAX_VALUE && System.nanoTime() - startNanos > timeLimitNanos) {
+            throw new ParseTimeoutException(timeLimitNanos);
+        }
+    }
+
+    /**
+     * Unchecked exception used to unwind out of ASM when the time limit has been exceeded.
+     */
+    static final class ParseTimeoutException extends RuntimeException {
+        @Serial private static final long serialVersionUID = 4392315870526335541L;
+
+        ParseTimeoutException(final long timeLimitNanos) {
+            super("Parsing exceeded the time limit of " + timeLimitNanos / 1_000_000 + " ms");
+        }
+    }
+}
@@ -9,7 +9,9 @@ import com.clann.JarAnalyzer;
 import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.PrintStream;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.time.Duration;
 import java.util.Locale;
@@ -68,6 +70,44 @@ class AppTest {
                 });
     }
 
+    /**
+     * Check that running the app succeeds when the JAR file is piped to standard input with {@code -}.
+     */
+    @Test
+    void runSucceeds_WithJarFileOnStandardInput() throws IOException {
+        final Path testJarFilePath =
+                AppTest.TEST_DATA_PATH
+                        .resolve("realJarFiles")
+                        .resolve("netty-common-4.2.0.Final.jar");
+        final InputStream originalStdIn = System.in;
+
+        try (InputStream inputStream = Files.newInputStream(testJarFilePath)) {
+            System.setIn(inputStream);
+            final int exitCode = App.run("-");
+            assertEquals(0, exitCode);
+        } finally {
+            System.setIn(originalStdIn);
+        }
+
+        final String err = AppTest.ERR_CONTENT.toString();
+        assertThat(err)
+                .contains(
+                        "parsed annotations from class files"
+                                + " numberOfClassFilesSuccessfullyParsed=545");
+    }
+
+    /**
+     * Check that running the app fails with exit code 1 when standard input is given more than once.
+     */
+    @Test
+    void runFails_IfStandardInputIsGivenTwice() {
+        final int exitCode = App.run("-", "-");
+        assertEquals(1, exitCode);
+
+        final String err = AppTest.ERR_CONTENT.toString().toLowerCase(Locale.ROOT);
+        assertThat(err).contains("standard input can only be analyzed once");
+    }
+
     /**
      * Check that running the app fails with a non-zero exit code and the expected error message when a JAR file is
      * not provided in the first positional argument.
@@ -94,16 +134,324 @@ class AppTest {
     }
 
     /**
-     * Check that running the app fails with a non-zero exit code and the expected error message when too many
-     * positional arguments are given.
+     * Check that running the app fails with a non-zero exit code and the expected error message when any of
+     * several provided JAR file paths is not an existing file.
+     */
+    @Test
+    void runFails_IfAnyJarIsNotFound() {
+        final String testJarFilePath =
+                AppTest.TEST_DATA_PATH
+                        .resolve("realJarFiles")
+                        .resolve("netty-common-4.2.0.Final.jar")
+                        .toString();
+
+        final int exitCode = App.run(testJarFilePath, "non-existent-2.jar");
+        assertNotEquals(0, exitCode);
+
+        final String err = AppTest.ERR_CONTENT.toString().toLowerCase(Locale.ROOT);
+        assertThat(err).contains("jar file not found: non-existent-2.jar");
+    }
+
+    /**
+     * Check that running the app in sampling mode succeeds and reports estimates with confidence intervals.
+     */
+    @Test
+    void runSucceeds_WithSampleFraction() {
+        final String testJarFilePath =
+                AppTest.TEST_DATA_PATH
+                        .resolve("realJarFiles")
+                        .resolve("netty-common-4.2.0.Final.jar")
+                        .toString();
+
+        final int exitCode = App.run("--sample", "0.25", testJarFilePath);
+        assertEquals(0, exitCode);
+
+        final String out = AppTest.OUT_CONTENT.toString();
+        assertThat(out).contains("totalClassFiles: 545");
+        assertThat(out).contains("- annotation: @java.lang.Deprecated");
+        assertThat(out).contains("[95% CI: ");
+    }
+
+    /**
+     * Test that the app succeeds and reports per-annotation statistics with {@code --aggregate}.
+     */
+    @Test
+    void runSucceeds_WithAggregate() {
+        final String testJarFilePath =
+                AppTest.TEST_DATA_PATH
+                        .resolve("realJarFiles")
+                        .resolve("netty-common-4.2.0.Final.jar")
+                        .toString();
+
+        final int exitCode = App.run("--aggregate", testJarFilePath);
+        assertEquals(0, exitCode);
+
+        final String out = AppTest.OUT_CONTENT.toString();
+        assertThat(out).contains("classes: 545");
+        assertThat(out).contains("- annotation: @java.lang.Deprecated\n\t - classes: 42");
+    }
+
+    /**
+     * Test that the app fails with exit code 1 if {@code --aggregate} is combined with
+     * {@code --inherited-annotations}, which needs the whole class hierarchy.
+     */
+    @Test
+    void runFails_IfAggregateIsCombinedWithInheritedAnnotations() {
+        final String testJarFilePath =
+                AppTest.TEST_DATA_PATH
+                        .resolve("realJarFiles")
+                        .resolve("netty-common-4.2.0.Final.jar")
+                        .toString();
+
+        final int exitCode = App.run("--aggregate", "--inherited-annotations", testJarFilePath);
+        assertEquals(1, exitCode);
+    }
+
+    /**
+     * Test that the app fails with exit code 1 if {@code --shards} is combined with {@code --aggregate}, which
+     * the worker JVMs do not support.
+     */
+    @Test
+    void runFails_IfShardsAreCombinedWithAggregate() {
+        final String testJarFilePath =
+                AppTest.TEST_DATA_PATH
+                        .resolve("realJarFiles")
+                        .resolve("netty-common-4.2.0.Final.jar")
+                        .toString();
+
+        final int exitCode = App.run("--shards", "2", "--aggregate", testJarFilePath);
+        assertEquals(1, exitCode);
+    }
+
+    /**
+     * Test that the app fails with exit code 1 if {@code --write-index} is combined with {@code --aggregate}, which
+     * does not keep the classes that the index lists.
+     */
+    @Test
+    void runFails_IfWriteIndexIsCombinedWithAggregate() {
+        final String testJarFilePath =
+                AppTest.TEST_DATA_PATH
+                        .resolve("realJarFiles")
+                        .resolve("netty-common-4.2.0.Final.jar")
+                        .toString();
+
+        final int exitCode =
+                App.run("--write-index", "annotations.idx", "--aggregate", testJarFilePath);
+        assertEquals(1, exitCode);
+    }
+
+    /**
+     * Test that the app fails with exit code 1 if {@code --checkpoint} is used without {@code --aggregate}, the only
+     * scan that is checkpointed.
      */
     @Test
-    void runFails_IfTooManyArguments() {
-        final int exitCode = App.run("non-existent.jar", "non-existent-2.jar");
+    void runFails_IfCheckpointIsUsedWithoutAggregate() {
+        final String testJarFilePath =
+                AppTest.TEST_DATA_PATH
+                        .resolve("realJarFiles")
+                        .resolve("netty-common-4.2.0.Final.jar")
+                        .toString();
+
+        final int exitCode =
+                App.run("--checkpoint", "scan.checkpoint", "--resume", testJarFilePath);
+        assertEquals(1, exitCode);
+    }
+
+    /**
+     * Test that the app fails with exit code 1 if {@code --checkpoint}, and therefore {@code --aggregate}, is
+     * combined with {@code --off-heap}, which the aggregated scan would ignore.
+     */
+    @Test
+    void runFails_IfCheckpointIsCombinedWithOffHeap() {
+        final String testJarFilePath =
+                AppTest.TEST_DATA_PATH
+                        .resolve("realJarFiles")
+                        .resolve("netty-common-4.2.0.Final.jar")
+                        .toString();
+
+        final int exitCode =
+                App.run(
+                        "--aggregate",
+                        "--checkpoint",
+                        "scan.checkpoint",
+                        "--off-heap",
+                        testJarFilePath);
+        assertEquals(1, exitCode);
+    }
+
+    /**
+     * Test that the app fails with exit code 1 if {@code --sample} is combined with {@code --aggregate}, which the
+     * sampled scan would ignore.
+     */
+    @Test
+    void runFails_IfSampleIsCombinedWithAggregate() {
+        final String testJarFilePath =
+                AppTest.TEST_DATA_PATH
+                        .resolve("realJarFiles")
+                        .resolve("netty-common-4.2.0.Final.jar")
+                        .toString();
+
+        final int exitCode = App.run("--sample", "0.25", "--aggregate", testJarFilePath);
+        assertEquals(1, exitCode);
+    }
+
+    /**
+     * Test that the app fails with exit code 1 if {@code --lookup}, which reads index directories, is combined
+     * with {@code --aggregate}, which scans JAR files.
+     */
+    @Test
+    void runFails_IfLookupIsCombinedWithAggregate() {
+        final int exitCode =
+                App.run(
+                        "--lookup",
+                        "java.lang.Deprecated",
+                        "--aggregate",
+                        AppTest.TEST_DATA_PATH.toString());
+        assertEquals(1, exitCode);
+    }
+
+    /**
+     * Test that the app fails with exit code 1 if {@code --lookup} is combined with {@code --meta-annotations},
+     * which the index lookup would ignore.
+     */
+    @Test
+    void runFails_IfLookupIsCombinedWithMetaAnnotations() {
+        final int exitCode =
+                App.run(
+                        "--lookup",
+                        "java.lang.Deprecated",
+                        "--meta-annotations",
+                        AppTest.TEST_DATA_PATH.toString());
+        assertEquals(1, exitCode);
+    }
+
+    /**
+     * Test that the app fails with exit code 1 if {@code --plugin} is combined with {@code --off-heap}, whose
+     * result store does not keep the facts of plugins.
+     */
+    @Test
+    void runFails_IfPluginIsCombinedWithOffHeap() {
+        final String testJarFilePath =
+                AppTest.TEST_DATA_PATH
+                        .resolve("realJarFiles")
+                        .resolve("netty-common-4.2.0.Final.jar")
+                        .toString();
+
+        final int exitCode = App.run("--plugin", "classfile", "--off-heap", testJarFilePath);
+        assertEquals(1, exitCode);
+    }
+
+    /**
+     * Test that the app fails with exit code 1 if {@code --maven-index} is combined with {@code --off-heap}, which
+     * the repository indexer would ignore.
+     */
+    @Test
+    void runFails_IfMavenIndexIsCombinedWithOffHeap() {
+        final int exitCode =
+                App.run(
+                        "--maven-index",
+                        "maven.index",
+                        "--off-heap",
+                        AppTest.TEST_DATA_PATH.toString());
+        assertEquals(1, exitCode);
+    }
+
+    /**
+     * Test that the app fails with exit code 1 if more than one {@code --output} is standard output, whose formats
+     * would interleave.
+     */
+    @Test
+    void runFails_IfTwoOutputsAreStandardOutput() {
+        final String testJarFilePath =
+                AppTest.TEST_DATA_PATH
+                        .resolve("realJarFiles")
+                        .resolve("netty-common-4.2.0.Final.jar")
+                        .toString();
+
+        final int exitCode =
+                App.run("--output", "text=-", "--output", "jsonl=-", testJarFilePath);
+        assertEquals(1, exitCode);
+    }
+
+    /**
+     * Test that the app succeeds and reports the origin of each annotation type with
+     * {@code --annotation-origins}.
+     */
+    @Test
+    void runSucceeds_WithAnnotationOrigins() {
+        final String testJarFilePath =
+                AppTest.TEST_DATA_PATH
+                        .resolve("realJarFiles")
+                        .resolve("netty-common-4.2.0.Final.jar")
+                        .toString();
+
+        final int exitCode = App.run("--annotation-origins", testJarFilePath);
+        assertEquals(0, exitCode);
+
+        final String out = AppTest.OUT_CONTENT.toString();
+        assertThat(out)
+                .contains(
+                        "- annotation: @io.netty.util.SuppressForbidden\n\t - origin: "
+                                + testJarFilePath
+                                + "\n\t - retention: CLASS");
+        assertThat(out)
+                .contains(
+                        "- annotation: @java.lang.Deprecated\n\t - origin: jrt:/java.base"
+                                + "\n\t - retention: RUNTIME");
+        assertThat(out)
+                .contains("- annotation: @org.jetbrains.annotations.NotNull\n\t - origin: MISSING");
+    }
+
+    /**
+     * Test that the app succeeds and prints only the classes matching a {@code --query}.
+     */
+    @Test
+    void runSucceeds_WithQuery() {
+        final String testJarFilePath =
+                AppTest.TEST_DATA_PATH
+                        .resolve("realJarFiles")
+                        .resolve("netty-common-4.2.0.Final.jar")
+                        .toString();
+
+        final int exitCode = App.run("--query", "@Deprecated:CLASS", testJarFilePath);
+        assertEquals(0, exitCode);
+
+        final String out = AppTest.OUT_CONTENT.toString();
+        assertThat(out).contains("matches: 17");
+        assertThat(out).doesNotContain("\t - ");
+    }
+
+    /**
+     * Test that the app fails with exit code 1 if the {@code --query} is not valid.
+     */
+    @Test
+    void runFails_IfQueryIsInvalid() {
+        final String testJarFilePath =
+                AppTest.TEST_DATA_PATH
+                        .resolve("realJarFiles")
+                        .resolve("netty-common-4.2.0.Final.jar")
+                        .toString();
+
+        final int exitCode = App.run("--query", "@Deprecated AND", testJarFilePath);
+        assertEquals(1, exitCode);
+    }
+
+    /**
+     * Check that running the app in sampling mode fails with a non-zero exit code when the fraction is invalid.
+     */
+    @Test
+    void runFails_IfSampleFractionIsInvalid() {
+        final String testJarFilePath =
+                AppTest.TEST_DATA_PATH
+                        .resolve("realJarFiles")
+                        .resolve("netty-common-4.2.0.Final.jar")
+                        .toString();
+
+        final int exitCode = App.run("--sample", "1.5", testJarFilePath);
         assertNotEquals(0, exitCode);
 
         final String err = AppTest.ERR_CONTENT.toString().toLowerCase(Locale.ROOT);
-        assertThat(err).contains("unmatched argument");
+        assertThat(err).contains("invalid sampling fraction");
     }
 
     /**
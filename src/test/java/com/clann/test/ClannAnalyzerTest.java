@@ -0,0 +1,160 @@
+package com.clann.test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.clann.ClannAnalyzer;
+import com.clann.JarAnalyzer;
+import com.clann.ScanLimits;
+import com.clann.ScanProgress;
+import com.clann.ScanResult;
+import com.clann.ScanStatus;
+import com.clann.test.util.InMemoryJarCompiler;
+import java.io.File;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests the {@link ClannAnalyzer} class.
+ */
+@SuppressWarnings("PMD.MethodNamingConventions")
+class ClannAnalyzerTest {
+    private static final Path TEST_DATA_PATH = Path.of("src/test/java/com/clann/test/testdata");
+    private static final File NETTY_JAR =
+            ClannAnalyzerTest.TEST_DATA_PATH
+                    .resolve("realJarFiles")
+                    .resolve("netty-common-4.2.0.Final.jar")
+                    .toFile();
+
+    /**
+     * Check that an asynchronous scan produces the same result as a blocking scan and reports its final progress.
+     */
+    @Test
+    void analyze_MatchesBlockingScan_GivenRealJar() throws Exception {
+        final List<ScanProgress> progress = new CopyOnWriteArrayList<>();
+        final ScanResult result;
+        try (ClannAnalyzer analyzer = new ClannAnalyzer(2, ScanLimits.DEFAULT, Duration.ZERO)) {
+            result = analyzer.analyze(ClannAnalyzerTest.NETTY_JAR, null, progress::add).get();
+        }
+
+        final ScanResult expected =
+                JarAnalyzer.scanJar(ClannAnalyzerTest.NETTY_JAR, ScanLimits.DEFAULT);
+        assertThat(result.getStatus()).isEqualTo(ScanStatus.COMPLETE);
+        assertThat(result.getClassAnnotationInfos()).hasSize(545);
+        assertThat(result.getEntryCount()).isEqualTo(expected.getEntryCount());
+        final ScanProgress last = progress.get(progress.size() - 1);
+        assertThat(last.done()).isTrue();
+        assertThat(last.entryCount()).isEqualTo(result.getEntryCount());
+        assertThat(last.bytesRead()).isPositive();
+        assertThat(progress.subList(0, progress.size() - 1))
+                .allSatisfy(snapshot -> assertThat(snapshot.done()).isFalse());
+    }
+
+    /**
+     * Check that a scan whose deadline has passed fails with a {@link TimeoutException}.
+     */
+    @Test
+    void analyze_FailsWithTimeout_GivenZeroTimeout() {
+        try (ClannAnalyzer analyzer = new ClannAnalyzer(1, ScanLimits.DEFAULT, Duration.ZERO)) {
+            final CompletableFuture<ScanResult> future =
+                    analyzer.analyze(ClannAnalyzerTest.NETTY_JAR, Duration.ZERO, null);
+
+            assertThatThrownBy(future::get)
+                    .isInstanceOf(ExecutionException.class)
+                    .hasCauseInstanceOf(TimeoutException.class);
+        }
+    }
+
+    /**
+     * Check that a scan waiting for a worker fails with a {@link TimeoutException} when its deadline passes.
+     */
+    @Test
+    void analyze_FailsWithTimeout_GivenScanQueuedBehindBusyWorker() throws Exception {
+        final CountDownLatch timedOut = new CountDownLatch(1);
+        try (ClannAnalyzer analyzer = new ClannAnalyzer(1, ScanLimits.DEFAULT, Duration.ZERO)) {
+            final CompletableFuture<ScanResult> busy =
+                    analyzer.analyze(
+                            ClannAnalyzerTest.NETTY_JAR,
+                            null,
+                            snapshot -> ClannAnalyzerTest.await(timedOut));
+            final CompletableFuture<ScanResult> queued =
+                    analyzer.analyze(ClannAnalyzerTest.NETTY_JAR, Duration.ofMillis(100), null);
+
+            assertThatThrownBy(() -> queued.get(10, TimeUnit.SECONDS))
+                    .isInstanceOf(ExecutionException.class)
+                    .hasCauseInstanceOf(TimeoutException.class);
+            timedOut.countDown();
+            assertThat(busy.get().getClassAnnotationInfos()).hasSize(545);
+        }
+    }
+
+    /**
+     * Check that a cancelled scan stops processing entries.
+     */
+    @Test
+    void analyze_StopsScan_WhenCancelled() throws Exception {
+        final CountDownLatch cancelled = new CountDownLatch(1);
+        final AtomicInteger reports = new AtomicInteger();
+        try (ClannAnalyzer analyzer = new ClannAnalyzer(1, ScanLimits.DEFAULT, Duration.ZERO)) {
+            final CompletableFuture<ScanResult> future =
+                    analyzer.analyze(
+                            ClannAnalyzerTest.NETTY_JAR,
+                            null,
+                            snapshot -> {
+                                reports.incrementAndGet();
+                                ClannAnalyzerTest.await(cancelled);
+                            });
+            future.cancel(true);
+            cancelled.countDown();
+
+            // The single worker only runs the next scan once the cancelled scan has stopped
+            analyzer.analyze(ClannAnalyzerTest.NETTY_JAR).get();
+
+            assertThat(future).isCancelled();
+            assertThat(reports.get()).isLessThanOrEqualTo(1);
+        }
+    }
+
+    /**
+     * Check that a small scan submitted after a large scan does not wait for the large scan to complete.
+     */
+    @Test
+    void analyze_SharesWorkersFairly_GivenLargeAndSmallJars() throws Exception {
+        final byte[] smallJar =
+                InMemoryJarCompiler.createJar(
+                        ClannAnalyzerTest.TEST_DATA_PATH
+                                .resolve("sourceDirWithAllAnnotationLevels")
+                                .toString());
+        final CountDownLatch smallSubmitted = new CountDownLatch(1);
+        try (ClannAnalyzer analyzer = new ClannAnalyzer(1, ScanLimits.DEFAULT, Duration.ZERO)) {
+            final CompletableFuture<ScanResult> large =
+                    analyzer.analyze(
+                            ClannAnalyzerTest.NETTY_JAR,
+                            null,
+                            snapshot -> ClannAnalyzerTest.await(smallSubmitted));
+            final CompletableFuture<ScanResult> small = analyzer.analyze(smallJar, null, null);
+            smallSubmitted.countDown();
+
+            assertThat(small.get().getStatus()).isEqualTo(ScanStatus.COMPLETE);
+            assertThat(large).isNotDone();
+            assertThat(large.get().getClassAnnotationInfos()).hasSize(545);
+        }
+    }
+
+    private static void await(final CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.clann.test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.clann.ClassBytesBuffer;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests the {@link ClassBytesBuffer} class.
+ */
+@SuppressWarnings("PMD.MethodNamingConventions")
+class ClassBytesBufferTest {
+    private static final int ENTRY_SIZE = 40 * 1024;
+    private static final int ITERATIONS = 10_000;
+
+    /**
+     * Check that reading succeeds and yields the full stream contents for exact, missing and wrong size hints.
+     */
+    @Test
+    void readFully_Succeeds_GivenAnySizeHint() throws IOException {
+        final byte[] content = new byte[ClassBytesBufferTest.ENTRY_SIZE];
+        Arrays.fill(content, (byte) 7);
+
+        for (final long sizeHint : new long[] {content.length, -1, 1, content.length * 2L}) {
+            final ClassBytesBuffer buffer = new ClassBytesBuffer();
+            final int length = buffer.readFully(new ByteArrayInputStream(content), sizeHint);
+
+            assertThat(length).isEqualTo(content.length);
+            assertThat(buffer.length()).isEqualTo(content.length);
+            assertThat(Arrays.copyOf(buffer.array(), buffer.length())).isEqualTo(content);
+        }
+    }
+
+    /**
+     * Check that repeatedly reading entries into a warmed-up buffer does not allocate per entry.
+     */
+    @Test
+    void readFully_DoesNotAllocate_WhenBufferIsWarm() throws IOException {
+        final com.sun.management.ThreadMXBean threadMXBean =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        final ByteArrayInputStream inputStream =
+                new ByteArrayInputStream(new byte[ClassBytesBufferTest.ENTRY_SIZE]);
+        final ClassBytesBuffer buffer = ClassBytesBuffer.forCurrentThread();
+        buffer.readFully(inputStream, ClassBytesBufferTest.ENTRY_SIZE);
+
+        final long allocatedBefore = threadMXBean.getCurrentThreadAllocatedBytes();
+        for (int i = 0; i < ClassBytesBufferTest.ITERATIONS; i++) {
+            inputStream.reset();
+            buffer.readFully(inputStream, ClassBytesBufferTest.ENTRY_SIZE);
+        }
+        final long allocated = threadMXBean.getCurrentThreadAllocatedBytes() - allocatedBefore;
+
+        // A fresh array per entry would allocate ENTRY_SIZE * ITERATIONS (about 400 MB) here
+        assertThat(allocated).isLessThan(64 * 1024L);
+    }
+}
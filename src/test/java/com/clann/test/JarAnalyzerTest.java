@@ -2,19 +2,35 @@ package com.clann.test;
 
 import static com.diffplug.selfie.Selfie.expectSelfie;
 import static org.assertj.core.api.AssertionsForInterfaceTypes.assertThat;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
 
 import com.clann.JarAnalyzer;
+import com.clann.ScanLimits;
+import com.clann.ScanResult;
+import com.clann.ScanStatus;
 import com.clann.test.util.InMemoryJarCompiler;
 import com.clann.visitor.ClassAnnotationInfo;
+import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.GZIPOutputStream;
 import org.assertj.core.api.Assertions;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
 /**
  * Tests the {@link JarAnalyzer} utility class's public methods.
@@ -23,6 +39,8 @@ import org.junit.jupiter.api.Test;
 class JarAnalyzerTest {
     Path testDataPath = Path.of("src/test/java/com/clann/test/testdata");
 
+    @TempDir Path tempDir;
+
     private static final ByteArrayOutputStream OUT_CONTENT = new ByteArrayOutputStream();
     private static final PrintStream ORIGINAL_STD_OUT = System.out;
     private static final ByteArrayOutputStream ERR_CONTENT = new ByteArrayOutputStream();
@@ -99,4 +117,254 @@ class JarAnalyzerTest {
         final List<ClassAnnotationInfo> annotations = JarAnalyzer.analyzeJar(jarFilePath);
         assertThat(annotations).isEmpty();
     }
+
+    /**
+     * Tests that scanning a JAR file with an invalid class file reports a partial result with a sampled failure.
+     */
+    @Test
+    void scanJar_ReturnsPartialResult_GivenJarFileWithInvalidClassFile() throws java.io.IOException {
+        final File jarFile =
+                testDataPath.resolve("testJarFiles/with-invalid-class-file.jar").toFile();
+
+        final ScanResult result = JarAnalyzer.scanJar(jarFile, ScanLimits.DEFAULT);
+
+        assertThat(result.getStatus()).isEqualTo(ScanStatus.PARTIAL);
+        assertThat(result.getClassFileCount()).isEqualTo(1);
+        assertThat(result.getFailureCount()).isEqualTo(1);
+        assertThat(result.getSampledFailures())
+                .singleElement()
+                .asString()
+                .startsWith("io/netty/util/AbstractConstant.class: ");
+    }
+
+    /**
+     * Tests that scanning aborts early with a bounded failure sample once the failure budget is exhausted.
+     */
+    @Test
+    void scanJar_Aborts_WhenFailureBudgetIsExhausted() throws java.io.IOException {
+        final File jarFile =
+                testDataPath.resolve("realJarFiles/netty-common-4.2.0.Final.jar").toFile();
+        // Every class file in the netty JAR file is larger than 100 bytes
+        final ScanLimits limits = new ScanLimits(100, Duration.ofSeconds(10), 5, 1.0, 3);
+
+        final ScanResult result = JarAnalyzer.scanJar(jarFile, limits);
+
+        assertThat(result.getStatus()).isEqualTo(ScanStatus.ABORTED);
+        assertThat(result.getClassFileCount()).isEqualTo(6);
+        assertThat(result.getFailureCount()).isEqualTo(6);
+        assertThat(result.getSampledFailures()).hasSize(3);
+        assertThat(result.getClassAnnotationInfos()).isEmpty();
+
+        final String err = JarAnalyzerTest.ERR_CONTENT.toString().toLowerCase(Locale.ROOT);
+        Assertions.assertThat(err).contains("aborted scan early");
+    }
+
+    /**
+     * Tests that class files that take longer to parse than the time limit are recorded as failures.
+     */
+    @Test
+    void scanJar_RecordsFailures_WhenParseTimeLimitIsExceeded() throws java.io.IOException {
+        final File jarFile =
+                testDataPath.resolve("realJarFiles/netty-common-4.2.0.Final.jar").toFile();
+        final ScanLimits limits =
+                new ScanLimits(1024 * 1024, Duration.ZERO, Integer.MAX_VALUE, 1.0, 1);
+
+        final ScanResult result = JarAnalyzer.scanJar(jarFile, limits);
+
+        assertThat(result.getStatus()).isEqualTo(ScanStatus.PARTIAL);
+        assertThat(result.getFailureCount()).isPositive();
+        assertThat(result.getSampledFailures()).singleElement().asString().contains("Timed out");
+    }
+
+    /**
+     * Tests that a JAR file read from a stream is analyzed like the same JAR file read from disk, and that the
+     * stream is not closed.
+     */
+    @Test
+    void analyzeJar_MatchesFile_GivenInputStream() throws java.io.IOException {
+        final File jarFile =
+                testDataPath.resolve("realJarFiles/netty-common-4.2.0.Final.jar").toFile();
+        final AtomicBoolean closed = new AtomicBoolean();
+        final InputStream inputStream =
+                new ByteArrayInputStream(Files.readAllBytes(jarFile.toPath())) {
+                    @Override
+                    public void close() {
+                        closed.set(true);
+                    }
+                };
+
+        final List<ClassAnnotationInfo> classAnnotationInfos = JarAnalyzer.analyzeJar(inputStream);
+
+        assertThat(JarAnalyzer.getClassAnnotationUsageReport(classAnnotationInfos))
+                .isEqualTo(
+                        JarAnalyzer.getClassAnnotationUsageReport(JarAnalyzer.analyzeJar(jarFile)));
+        assertThat(closed.get()).isFalse();
+    }
+
+    /**
+     * Tests that scanning a stream enforces the limits and stops reading once the failure budget is exhausted.
+     */
+    @Test
+    void scanJar_Aborts_GivenInputStreamWhenFailureBudgetIsExhausted() throws java.io.IOException {
+        final File jarFile =
+                testDataPath.resolve("realJarFiles/netty-common-4.2.0.Final.jar").toFile();
+        final ScanLimits limits = new ScanLimits(100, Duration.ofSeconds(10), 5, 1.0, 3);
+
+        final ScanResult result;
+        try (InputStream inputStream = Files.newInputStream(jarFile.toPath())) {
+            result = JarAnalyzer.scanJar(inputStream, limits, classAnnotationInfo -> {});
+        }
+
+        assertThat(result.getStatus()).isEqualTo(ScanStatus.ABORTED);
+        assertThat(result.getClassFileCount()).isEqualTo(6);
+        assertThat(result.getFailureCount()).isEqualTo(6);
+    }
+
+    /**
+     * Tests that a stream that ends in the middle of the JAR file fails with an IOException.
+     */
+    @Test
+    void analyzeJar_Throws_GivenTruncatedInputStream() throws java.io.IOException {
+        final byte[] jarBytes =
+                Files.readAllBytes(
+                        testDataPath.resolve("realJarFiles/netty-common-4.2.0.Final.jar"));
+
+        Assertions.assertThatThrownBy(
+                        () ->
+                                JarAnalyzer.analyzeJar(
+                                        new ByteArrayInputStream(
+                                                Arrays.copyOf(jarBytes, jarBytes.length / 2))))
+                .isInstanceOf(java.io.IOException.class);
+    }
+
+    /**
+     * Tests that a stream of a signed JAR file whose content does not match its signature fails with the
+     * SecurityException of the JAR file verifier, like the same JAR file read from disk, instead of waiting forever
+     * for the inflater thread.
+     */
+    @Test
+    void analyzeJar_Throws_GivenInputStreamOfJarFileWithCorruptedSignature()
+            throws java.io.IOException {
+        final Path jarPath = testDataPath.resolve("testJarFiles/with-corrupted-signature.jar");
+
+        Assertions.assertThatThrownBy(() -> JarAnalyzer.analyzeJar(jarPath.toFile()))
+                .isInstanceOf(SecurityException.class);
+        try (InputStream inputStream = Files.newInputStream(jarPath)) {
+            assertTimeoutPreemptively(
+                    Duration.ofSeconds(10),
+                    () ->
+                            Assertions.assertThatThrownBy(
+                                            () -> JarAnalyzer.analyzeJar(inputStream))
+                                    .isInstanceOf(SecurityException.class)
+                                    .hasMessageContaining("com/example/Signed.class"));
+        }
+    }
+
+    /**
+     * Tests that the JAR files embedded in a tar.gz bundle are analyzed like the same JAR files read from disk, and
+     * that other entries are skipped.
+     */
+    @Test
+    void analyzeTarGz_MatchesFiles_GivenBundleWithTwoJarFiles() throws java.io.IOException {
+        final Path jarPath = testDataPath.resolve("realJarFiles/netty-common-4.2.0.Final.jar");
+        final byte[] jarBytes = Files.readAllBytes(jarPath);
+        final Path archive = tempDir.resolve("bundle.tar.gz");
+        JarAnalyzerTest.writeTarGz(
+                archive,
+                Map.of("README", "bundle".getBytes(StandardCharsets.UTF_8)),
+                Map.of("lib/a.jar", jarBytes),
+                Map.of("lib/b.jar", jarBytes));
+
+        final List<ClassAnnotationInfo> classAnnotationInfos =
+                JarAnalyzer.analyzeTarGz(archive.toFile());
+
+        final String jarReport =
+                JarAnalyzer.getClassAnnotationUsageReport(
+                        JarAnalyzer.analyzeJar(jarPath.toFile()));
+        assertThat(JarAnalyzer.isTarGz(archive.toFile())).isTrue();
+        assertThat(JarAnalyzer.getClassAnnotationUsageReport(classAnnotationInfos))
+                .isEqualTo(jarReport + jarReport);
+    }
+
+    /**
+     * Tests that the scan of a bundle goes on with the next JAR file after the scan of one ends early.
+     */
+    @Test
+    void scanTarGz_ScansNextJarFile_GivenScanThatEndsEarly() throws java.io.IOException {
+        final byte[] jarBytes =
+                Files.readAllBytes(
+                        testDataPath.resolve("realJarFiles/netty-common-4.2.0.Final.jar"));
+        final Path archive = tempDir.resolve("bundle.tgz");
+        JarAnalyzerTest.writeTarGz(
+                archive, Map.of("lib/a.jar", jarBytes), Map.of("lib/b.jar", jarBytes));
+        final ScanLimits limits = new ScanLimits(100, Duration.ofSeconds(10), 5, 1.0, 3);
+
+        final List<ScanResult> results =
+                JarAnalyzer.scanTarGz(archive.toFile(), limits, classAnnotationInfo -> {});
+
+        assertThat(results)
+                .extracting(ScanResult::getStatus, ScanResult::getClassFileCount)
+                .containsExactly(
+                        Assertions.tuple(ScanStatus.ABORTED, 6),
+                        Assertions.tuple(ScanStatus.ABORTED, 6));
+    }
+
+    /**
+     * Tests that a bundle that ends in the middle of an embedded JAR file fails with an IOException.
+     */
+    @Test
+    void analyzeTarGz_Throws_GivenTruncatedArchive() throws java.io.IOException {
+        final Path archive = tempDir.resolve("bundle.tgz");
+        JarAnalyzerTest.writeTarGz(
+                archive,
+                Map.of(
+                        "lib/a.jar",
+                        Files.readAllBytes(
+                                testDataPath.resolve(
+                                        "realJarFiles/netty-common-4.2.0.Final.jar"))));
+        final byte[] archiveBytes = Files.readAllBytes(archive);
+        Files.write(archive, Arrays.copyOf(archiveBytes, archiveBytes.length / 2));
+
+        Assertions.assertThatThrownBy(() -> JarAnalyzer.analyzeTarGz(archive.toFile()))
+                .isInstanceOf(java.io.IOException.class)
+                .hasMessage("Error scanning embedded JAR file: lib/a.jar");
+    }
+
+    /**
+     * Write a gzip-compressed tar archive with a ustar header for each entry, given as a map with one entry.
+     */
+    @SafeVarargs
+    private static void writeTarGz(final Path archive, final Map<String, byte[]>... entries)
+            throws java.io.IOException {
+        try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(archive))) {
+            for (final Map<String, byte[]> entry : entries) {
+                final String name = entry.keySet().iterator().next();
+                final byte[] content = entry.get(name);
+                final byte[] header = new byte[512];
+                JarAnalyzerTest.putField(header, 0, name);
+                JarAnalyzerTest.putField(header, 100, "0000644");
+                JarAnalyzerTest.putField(
+                        header, 124, String.format(Locale.ROOT, "%011o", content.length));
+                JarAnalyzerTest.putField(header, 148, "        ");
+                header[156] = '0';
+                JarAnalyzerTest.putField(header, 257, "ustar");
+                JarAnalyzerTest.putField(header, 263, "00");
+                int checksum = 0;
+                for (final byte b : header) {
+                    checksum += b & 0xFF;
+                }
+                JarAnalyzerTest.putField(
+                        header, 148, String.format(Locale.ROOT, "%06o", checksum));
+                out.write(header);
+                out.write(content);
+                out.write(new byte[(512 - content.length % 512) % 512]);
+            }
+            out.write(new byte[1024]);
+        }
+    }
+
+    private static void putField(final byte[] header, final int offset, final String value) {
+        final byte[] bytes = value.getBytes(StandardCharsets.US_ASCII);
+        System.arraycopy(bytes, 0, header, offset, bytes.length);
+    }
 }
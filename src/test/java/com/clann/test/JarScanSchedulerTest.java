@@ -0,0 +1,107 @@
+package com.clann.test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.clann.JarAnalyzer;
+import com.clann.JarScanScheduler;
+import com.clann.ScanLimits;
+import com.clann.ScanResult;
+import com.clann.ScanStatus;
+import com.clann.stats.AnnotationStatistics;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests the {@link JarScanScheduler} class.
+ */
+@SuppressWarnings("PMD.MethodNamingConventions")
+class JarScanSchedulerTest {
+    private static final Path TEST_DATA_PATH = Path.of("src/test/java/com/clann/test/testdata");
+    private static final File NETTY_JAR =
+            JarScanSchedulerTest.TEST_DATA_PATH
+                    .resolve("realJarFiles")
+                    .resolve("netty-common-4.2.0.Final.jar")
+                    .toFile();
+
+    /**
+     * Check that a JAR file split into ranges of entries yields the same statistics as a scan of the whole JAR
+     * file, merged into one result, and that the balance report accounts for every range.
+     */
+    @Test
+    void scan_MatchesWholeJarScan_GivenJarFileSplitIntoRanges() throws IOException {
+        final AnnotationStatistics expected = new AnnotationStatistics();
+        JarAnalyzer.scanJar(JarScanSchedulerTest.NETTY_JAR, ScanLimits.DEFAULT, expected);
+
+        final AnnotationStatistics statistics = new AnnotationStatistics();
+        final JarScanScheduler.ScheduledScan scheduledScan;
+        try (JarScanScheduler scheduler = new JarScanScheduler(4, ScanLimits.DEFAULT, 64 * 1024)) {
+            scheduledScan = scheduler.scan(List.of(JarScanSchedulerTest.NETTY_JAR), statistics);
+        }
+
+        assertThat(statistics.getReport()).isEqualTo(expected.getReport());
+        assertThat(scheduledScan.results()).hasSize(1);
+        final ScanResult result = scheduledScan.results().get(0);
+        assertThat(result.getStatus()).isEqualTo(ScanStatus.COMPLETE);
+        assertThat(result.getClassFileCount()).isEqualTo(545);
+        final long tasks =
+                scheduledScan.workerLoads().stream()
+                        .mapToLong(JarScanScheduler.WorkerLoad::tasks)
+                        .sum();
+        assertThat(tasks).isGreaterThan(1);
+        assertThat(scheduledScan.getBalanceReport())
+                .startsWith("\nscheduledTasks: " + tasks + "\nworkerImbalance: ")
+                .contains("\n- worker: clann-scheduler-");
+    }
+
+    /**
+     * Check that the ranges of a split JAR file share one failure budget, so that the JAR file is aborted after
+     * about as many failures as a scan of the whole JAR file instead of after as many per range.
+     */
+    @Test
+    void scan_SharesFailureBudget_GivenJarFileSplitIntoRanges() throws IOException {
+        final int parallelism = 2;
+        final ScanLimits limits = new ScanLimits(100, Duration.ofSeconds(10), 5, 1.0, 3);
+
+        final JarScanScheduler.ScheduledScan scheduledScan;
+        try (JarScanScheduler scheduler = new JarScanScheduler(parallelism, limits, 64 * 1024)) {
+            scheduledScan =
+                    scheduler.scan(
+                            List.of(JarScanSchedulerTest.NETTY_JAR), classAnnotationInfo -> {});
+        }
+
+        final ScanResult result = scheduledScan.results().get(0);
+        assertThat(result.getStatus()).isEqualTo(ScanStatus.ABORTED);
+        // Ranges that are parsing when the budget runs out may each record one more failure
+        assertThat(result.getFailureCount())
+                .isBetween(limits.maxFailures() + 1, limits.maxFailures() + parallelism);
+        assertThat(result.getSampledFailures()).hasSize(3);
+    }
+
+    /**
+     * Check that the scan fails with the name of a JAR file whose central directory cannot be read.
+     */
+    @Test
+    void scan_Throws_GivenInvalidJarFile() {
+        final File invalidJar =
+                JarScanSchedulerTest.TEST_DATA_PATH
+                        .resolve("testJarFiles")
+                        .resolve("invalid.jar")
+                        .toFile();
+
+        try (JarScanScheduler scheduler =
+                new JarScanScheduler(2, ScanLimits.DEFAULT, JarScanScheduler.DEFAULT_SPLIT_BYTES)) {
+            assertThatThrownBy(
+                            () ->
+                                    scheduler.scan(
+                                            List.of(JarScanSchedulerTest.NETTY_JAR, invalidJar),
+                                            classAnnotationInfo -> {}))
+                    .isInstanceOf(IOException.class)
+                    .hasMessage("Error analyzing JAR file: " + invalidJar);
+        }
+    }
+}
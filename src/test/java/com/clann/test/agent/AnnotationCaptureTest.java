@@ -0,0 +1,91 @@
+package com.clann.test.agent;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.clann.agent.AnnotationCapture;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.jar.JarEntry;
+import java.util.jar.JarInputStream;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests the {@link AnnotationCapture} class.
+ */
+@SuppressWarnings("PMD.MethodNamingConventions")
+class AnnotationCaptureTest {
+    private static final Path NETTY_JAR =
+            Path.of("src/test/java/com/clann/test/testdata")
+                    .resolve("realJarFiles")
+                    .resolve("netty-common-4.2.0.Final.jar");
+
+    /**
+     * Check that the classes passed to the transformer are captured on the collector thread and aggregated into
+     * the report, without transforming them.
+     */
+    @Test
+    void getReport_AggregatesLoadedClasses_GivenStartedCapture()
+            throws IOException, InterruptedException {
+        final AnnotationCapture capture = new AnnotationCapture(1024);
+        capture.start();
+
+        try (JarInputStream jarIn =
+                new JarInputStream(Files.newInputStream(AnnotationCaptureTest.NETTY_JAR))) {
+            JarEntry entry = jarIn.getNextJarEntry();
+            while (entry != null) {
+                if (entry.getName().endsWith(".class")) {
+                    final byte[] classBytes = jarIn.readAllBytes();
+                    assertThat(transform(capture, entry.getName(), classBytes)).isNull();
+                }
+                entry = jarIn.getNextJarEntry();
+            }
+        }
+
+        assertThat(capture.awaitIdle(Duration.ofSeconds(10))).isTrue();
+        assertThat(capture.getDroppedClassCount()).isZero();
+        assertThat(capture.getCapturedClassCount()).isEqualTo(545);
+        assertThat(capture.getReport())
+                .startsWith(
+                        "\nqueuedClasses: 545\ndroppedClasses: 0\ncapturedClasses: 545"
+                                + "\nfailedClasses: 0\nclasses: 545")
+                .contains("- annotation: @java.lang.Deprecated\n\t - classes: 42");
+    }
+
+    /**
+     * Check that classes are dropped and counted instead of blocking the class-loading thread when the queue is
+     * full, and that redefined classes and the classes of clann itself are ignored.
+     */
+    @Test
+    void transform_DropsClasses_GivenFullQueue() throws IOException {
+        final AnnotationCapture capture = new AnnotationCapture(2);
+        final byte[] classBytes;
+        try (InputStream inputStream =
+                String.class.getResourceAsStream("/java/lang/String.class")) {
+            classBytes = inputStream.readAllBytes();
+        }
+
+        for (int i = 0; i < 5; i++) {
+            transform(capture, "java/lang/String", classBytes);
+        }
+        capture.transform(null, "java/lang/String", String.class, null, classBytes);
+        transform(capture, "com/clann/App", classBytes);
+
+        assertThat(capture.getQueuedClassCount()).isEqualTo(2);
+        assertThat(capture.getDroppedClassCount()).isEqualTo(3);
+        assertThat(capture.getPendingClassCount()).isEqualTo(2);
+        assertThat(capture.getCapturedClassCount()).isZero();
+    }
+
+    private static byte[] transform(
+            final AnnotationCapture capture, final String entryName, final byte[] classBytes) {
+        return capture.transform(
+                AnnotationCaptureTest.class.getClassLoader(),
+                entryName.replace(".class", ""),
+                null,
+                null,
+                classBytes);
+    }
+}
@@ -0,0 +1,4 @@
+/**
+ * Tests for the agent package of clann.
+ */
+package com.clann.test.agent;
@@ -0,0 +1,131 @@
+package com.clann.test.checkpoint;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+
+import com.clann.JarScanScheduler;
+import com.clann.ScanLimits;
+import com.clann.ScanResult;
+import com.clann.ScanStatus;
+import com.clann.checkpoint.ScanCheckpoint;
+import com.clann.stats.AnnotationStatistics;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Tests the {@link ScanCheckpoint} class.
+ */
+@SuppressWarnings("PMD.MethodNamingConventions")
+class ScanCheckpointTest {
+    private static final Path NETTY_JAR =
+            Path.of("src/test/java/com/clann/test/testdata")
+                    .resolve("realJarFiles")
+                    .resolve("netty-common-4.2.0.Final.jar");
+
+    private static final long SPLIT_BYTES = 64 * 1024;
+
+    @TempDir Path tempDir;
+
+    /**
+     * Check that a resumed scan skips the ranges of the JAR file completed by the first scan, scans only the new
+     * JAR file, and reports the same statistics and results as a scan of both JAR files without a checkpoint.
+     */
+    @Test
+    void resume_SkipsCompletedRanges_GivenCheckpointOfFirstJarFile() throws IOException {
+        final File firstJar =
+                Files.copy(ScanCheckpointTest.NETTY_JAR, tempDir.resolve("a.jar")).toFile();
+        final File secondJar =
+                Files.copy(ScanCheckpointTest.NETTY_JAR, tempDir.resolve("b.jar")).toFile();
+        final Path file = tempDir.resolve("scan.checkpoint");
+        final AnnotationStatistics expected = new AnnotationStatistics();
+        final JarScanScheduler.ScheduledScan expectedScan;
+        try (JarScanScheduler scheduler = ScanCheckpointTest.newScheduler()) {
+            expectedScan = scheduler.scan(List.of(firstJar, secondJar), expected);
+        }
+
+        final ScanCheckpoint first =
+                ScanCheckpoint.start(file, "test", Duration.ZERO, classAnnotationInfo -> {});
+        try (first;
+                JarScanScheduler scheduler = ScanCheckpointTest.newScheduler()) {
+            scheduler.scan(List.of(firstJar), first);
+        }
+        final ScanCheckpoint resumed =
+                ScanCheckpoint.resume(
+                        file,
+                        List.of(firstJar, secondJar),
+                        "test",
+                        Duration.ZERO,
+                        classAnnotationInfo -> {});
+        final JarScanScheduler.ScheduledScan resumedScan;
+        try (resumed;
+                JarScanScheduler scheduler = ScanCheckpointTest.newScheduler()) {
+            resumedScan = scheduler.scan(List.of(firstJar, secondJar), resumed);
+        }
+
+        assertThat(resumed.getResumedRangeCount()).isGreaterThan(1);
+        assertThat(ScanCheckpointTest.countTasks(resumedScan))
+                .isEqualTo(
+                        ScanCheckpointTest.countTasks(expectedScan)
+                                - resumed.getResumedRangeCount());
+        assertThat(resumed.getStatistics().getReport()).isEqualTo(expected.getReport());
+        assertThat(resumedScan.results())
+                .extracting(ScanResult::getStatus, ScanResult::getClassFileCount)
+                .containsExactly(
+                        tuple(ScanStatus.COMPLETE, 545), tuple(ScanStatus.COMPLETE, 545));
+    }
+
+    /**
+     * Check that a checkpoint is not resumed by a scan with other options or without one of its JAR files.
+     */
+    @Test
+    void resume_Throws_GivenOtherOptionsOrJarFiles() throws IOException {
+        final File jarFile = ScanCheckpointTest.NETTY_JAR.toFile();
+        final Path file = tempDir.resolve("scan.checkpoint");
+        final ScanCheckpoint checkpoint =
+                ScanCheckpoint.start(file, "test", Duration.ZERO, classAnnotationInfo -> {});
+        try (checkpoint;
+                JarScanScheduler scheduler = ScanCheckpointTest.newScheduler()) {
+            scheduler.scan(List.of(jarFile), checkpoint);
+        }
+
+        assertThatThrownBy(
+                        () ->
+                                ScanCheckpoint.resume(
+                                        file,
+                                        List.of(jarFile),
+                                        "other",
+                                        Duration.ZERO,
+                                        classAnnotationInfo -> {}))
+                .isInstanceOf(IOException.class)
+                .hasMessage("The checkpoint was written with other scan options: " + file);
+        assertThatThrownBy(
+                        () ->
+                                ScanCheckpoint.resume(
+                                        file,
+                                        List.of(),
+                                        "test",
+                                        Duration.ZERO,
+                                        classAnnotationInfo -> {}))
+                .isInstanceOf(IOException.class)
+                .hasMessage(
+                        "The checkpoint includes a JAR file that is not scanned: "
+                                + jarFile.getAbsoluteFile());
+    }
+
+    private static long countTasks(final JarScanScheduler.ScheduledScan scheduledScan) {
+        return scheduledScan.workerLoads().stream()
+                .mapToLong(JarScanScheduler.WorkerLoad::tasks)
+                .sum();
+    }
+
+    private static JarScanScheduler newScheduler() {
+        return new JarScanScheduler(2, ScanLimits.DEFAULT, ScanCheckpointTest.SPLIT_BYTES);
+    }
+}
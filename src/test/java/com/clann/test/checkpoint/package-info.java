@@ -0,0 +1,4 @@
+/**
+ * Tests for the checkpoint package of clann.
+ */
+package com.clann.test.checkpoint;
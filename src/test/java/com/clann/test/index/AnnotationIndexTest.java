@@ -0,0 +1,125 @@
+package com.clann.test.index;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.clann.JarAnalyzer;
+import com.clann.index.AnnotationIndex;
+import com.clann.index.AnnotationIndexWriter;
+import com.clann.visitor.AnnotationLevel;
+import com.clann.visitor.ClassAnnotationInfo;
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Tests the {@link AnnotationIndex} and {@link AnnotationIndexWriter} classes.
+ */
+@SuppressWarnings("PMD.MethodNamingConventions")
+class AnnotationIndexTest {
+    private static final File NETTY_JAR =
+            Path.of("src/test/java/com/clann/test/testdata")
+                    .resolve("realJarFiles")
+                    .resolve("netty-common-4.2.0.Final.jar")
+                    .toFile();
+
+    @TempDir Path tempDir;
+
+    /**
+     * Check that every annotation of the netty test JAR file is found in the memory-mapped index, with the binary
+     * names of exactly the classes that use it.
+     */
+    @Test
+    void getClassNames_MatchesScan_GivenNettyIndex() throws IOException {
+        final List<ClassAnnotationInfo> classAnnotationInfos =
+                JarAnalyzer.analyzeJar(AnnotationIndexTest.NETTY_JAR);
+        final Map<String, TreeSet<String>> expected = new TreeMap<>();
+        for (final ClassAnnotationInfo classAnnotationInfo : classAnnotationInfos) {
+            for (final String annotationName : classAnnotationInfo.getAnnotations().keySet()) {
+                expected.computeIfAbsent(annotationName.substring(1), name -> new TreeSet<>())
+                        .add(classAnnotationInfo.getClassName());
+            }
+        }
+        final Path file = tempDir.resolve(AnnotationIndex.RESOURCE_NAME);
+
+        AnnotationIndexWriter.write(file, classAnnotationInfos);
+        final AnnotationIndex index = AnnotationIndex.open(file);
+
+        assertThat(index.getAnnotationNames()).containsExactlyElementsOf(expected.keySet());
+        expected.forEach(
+                (annotationName, classNames) ->
+                        assertThat(index.getClassNames(annotationName))
+                                .as(annotationName)
+                                .containsExactlyElementsOf(classNames));
+        assertThat(index.getClassNames(Deprecated.class))
+                .isEqualTo(index.getClassNames("java.lang.Deprecated"))
+                .isNotEmpty();
+        assertThat(index.getClassNames("java.lang.Missing")).isEmpty();
+    }
+
+    /**
+     * Check that filtering by level only returns the classes that use the annotation at that level.
+     */
+    @Test
+    void getClassNames_FiltersByLevel_GivenLevelName() throws IOException {
+        final List<ClassAnnotationInfo> classAnnotationInfos =
+                JarAnalyzer.analyzeJar(AnnotationIndexTest.NETTY_JAR);
+        final TreeSet<String> expected = new TreeSet<>();
+        for (final ClassAnnotationInfo classAnnotationInfo : classAnnotationInfos) {
+            final ClassAnnotationInfo.AnnotationDetails details =
+                    classAnnotationInfo.getAnnotations().get("@java.lang.Deprecated");
+            if (details != null && details.getAnnotationLevels().contains(AnnotationLevel.CLASS)) {
+                expected.add(classAnnotationInfo.getClassName());
+            }
+        }
+        final Path file = tempDir.resolve("annotations.idx");
+
+        AnnotationIndexWriter.write(file, classAnnotationInfos);
+        final AnnotationIndex index = AnnotationIndex.open(file);
+
+        assertThat(index.getLevelNames()).contains(AnnotationLevel.CLASS.name());
+        assertThat(index.getClassNames("java.lang.Deprecated", AnnotationLevel.CLASS.name()))
+                .containsExactlyElementsOf(expected)
+                .hasSizeLessThan(index.getClassNames("java.lang.Deprecated").size());
+    }
+
+    /**
+     * Check that the index resource of a class directory is found through a class loader.
+     */
+    @Test
+    void loadAll_FindsIndexResource_GivenClassDirectory() throws IOException {
+        final List<ClassAnnotationInfo> classAnnotationInfos =
+                JarAnalyzer.analyzeJar(AnnotationIndexTest.NETTY_JAR);
+        AnnotationIndexWriter.write(
+                tempDir.resolve(AnnotationIndex.RESOURCE_NAME), classAnnotationInfos);
+
+        try (URLClassLoader classLoader =
+                new URLClassLoader(new URL[] {tempDir.toUri().toURL()}, null)) {
+            final List<AnnotationIndex> indexes = AnnotationIndex.loadAll(classLoader);
+
+            assertThat(indexes).hasSize(1);
+            assertThat(indexes.get(0).getClassNames("java.lang.Deprecated")).isNotEmpty();
+        }
+    }
+
+    /**
+     * Check that opening a file that is not an annotation index fails.
+     */
+    @Test
+    void open_Throws_GivenOtherFile() throws IOException {
+        final Path file = Files.writeString(tempDir.resolve("annotations.idx"), "not an index");
+
+        assertThatThrownBy(() -> AnnotationIndex.open(file))
+                .isInstanceOf(IOException.class)
+                .hasMessage("Not a clann annotation index");
+    }
+}
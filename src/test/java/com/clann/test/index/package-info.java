@@ -0,0 +1,4 @@
+/**
+ * Tests for the index package of clann.
+ */
+package com.clann.test.index;
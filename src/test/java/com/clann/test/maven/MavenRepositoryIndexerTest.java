@@ -0,0 +1,218 @@
+package com.clann.test.maven;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.clann.ScanLimits;
+import com.clann.maven.Gav;
+import com.clann.maven.MavenRepositoryIndexer;
+import com.clann.test.util.InMemoryJarCompiler;
+import com.clann.visitor.AnnotationLevel;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Tests the {@link MavenRepositoryIndexer} and {@link Gav} classes.
+ */
+@SuppressWarnings("PMD.MethodNamingConventions")
+class MavenRepositoryIndexerTest {
+    private static final Path TEST_DATA_PATH = Path.of("src/test/java/com/clann/test/testdata");
+    private static final String NETTY_SHA1 = "0123456789abcdef0123456789abcdef01234567";
+
+    @TempDir Path tempDir;
+
+    /**
+     * Check that coordinates are derived from the repository layout.
+     */
+    @Test
+    void fromPath_DerivesCoordinates_GivenRepositoryLayout() {
+        final Path root = Path.of("repo");
+
+        assertThat(
+                        Gav.fromPath(
+                                root,
+                                root.resolve(
+                                        "io/netty/netty-common/4.2.0.Final/"
+                                                + "netty-common-4.2.0.Final.jar")))
+                .isEqualTo(new Gav("io.netty", "netty-common", "4.2.0.Final", null));
+        assertThat(
+                        Gav.fromPath(
+                                root,
+                                root.resolve(
+                                        "io/netty/netty-transport-native-epoll/4.2.0.Final/"
+                                                + "netty-transport-native-epoll-4.2.0.Final"
+                                                + "-linux-x86_64.jar")))
+                .hasToString("io.netty:netty-transport-native-epoll:4.2.0.Final:linux-x86_64");
+        assertThat(
+                        Gav.fromPath(
+                                root,
+                                root.resolve(
+                                        "org/example/lib/1.0-SNAPSHOT/"
+                                                + "lib-1.0-20250101.120000-3.jar")))
+                .isEqualTo(new Gav("org.example", "lib", "1.0-20250101.120000-3", null));
+        assertThat(
+                        Gav.fromPath(
+                                root,
+                                root.resolve(
+                                        "org/example/lib/1.0-SNAPSHOT/"
+                                                + "lib-1.0-20250101.120000-3-tests.jar")))
+                .isEqualTo(new Gav("org.example", "lib", "1.0-20250101.120000-3", "tests"));
+        assertThat(
+                        Gav.fromPath(
+                                root,
+                                root.resolve(
+                                        "org/example/lib/1.0-SNAPSHOT/"
+                                                + "lib-1.0-SNAPSHOT-tests.jar")))
+                .isEqualTo(new Gav("org.example", "lib", "1.0-SNAPSHOT", "tests"));
+        assertThat(Gav.fromPath(root, root.resolve("lib/other-1.0.jar"))).isNull();
+    }
+
+    /**
+     * Check that artifacts are indexed once and re-indexed only when their checksum changes.
+     */
+    @Test
+    void index_SkipsIndexedArtifacts_GivenUnchangedChecksums() throws IOException {
+        final Path repository = tempDir.resolve("repository");
+        final Path indexDir = tempDir.resolve("index");
+        final Path nettyJar =
+                copyArtifact(
+                        repository.resolve("io/netty/netty-common/4.2.0.Final"),
+                        "netty-common-4.2.0.Final.jar",
+                        Files.readAllBytes(
+                                MavenRepositoryIndexerTest.TEST_DATA_PATH
+                                        .resolve("realJarFiles")
+                                        .resolve("netty-common-4.2.0.Final.jar")));
+        Files.writeString(
+                nettyJar.resolveSibling("netty-common-4.2.0.Final.jar.sha1"),
+                MavenRepositoryIndexerTest.NETTY_SHA1 + "  netty-common-4.2.0.Final.jar\n");
+        // Without a .sha1 file the checksum is computed
+        copyArtifact(
+                repository.resolve("com/clann/test/levels/1.0"),
+                "levels-1.0.jar",
+                InMemoryJarCompiler.createJar(
+                        MavenRepositoryIndexerTest.TEST_DATA_PATH
+                                .resolve("sourceDirWithAllAnnotationLevels")
+                                .toString()));
+        copyArtifact(
+                repository.resolve("com/clann/test/levels/1.0"),
+                "levels-1.0-sources.jar",
+                new byte[0]);
+        final MavenRepositoryIndexer indexer =
+                new MavenRepositoryIndexer(repository, indexDir, ScanLimits.DEFAULT);
+
+        assertThat(indexer.index())
+                .isEqualTo(new MavenRepositoryIndexer.IndexSummary(2, 2, 0, 0));
+        final String nettyIndex = Files.readString(indexer.getIndexFile(nettyJar));
+        assertThat(nettyIndex)
+                .startsWith(
+                        "gav: io.netty:netty-common:4.2.0.Final\nsha1: "
+                                + MavenRepositoryIndexerTest.NETTY_SHA1
+                                + "\nstatus: COMPLETE")
+                .contains("- annotation: @java.lang.Deprecated\n\t - classes: 42");
+        assertThat(MavenRepositoryIndexer.findArtifactsUsing(indexDir, "@java.lang.Deprecated"))
+                .contains("io.netty:netty-common:4.2.0.Final");
+
+        assertThat(indexer.index())
+                .isEqualTo(new MavenRepositoryIndexer.IndexSummary(2, 0, 2, 0));
+
+        Files.writeString(
+                nettyJar.resolveSibling("netty-common-4.2.0.Final.jar.sha1"),
+                "fedcba9876543210fedcba9876543210fedcba98");
+        assertThat(indexer.index())
+                .isEqualTo(new MavenRepositoryIndexer.IndexSummary(2, 1, 1, 0));
+    }
+
+    /**
+     * Check that an artifact whose scan throws an unchecked exception, such as a signed JAR file with a corrupted
+     * signature, is counted as failed without stopping the other artifacts.
+     */
+    @Test
+    void index_CountsFailure_GivenArtifactWithCorruptedSignature() throws IOException {
+        final Path repository = tempDir.resolve("repository");
+        final Path indexDir = tempDir.resolve("index");
+        final Path signedJar =
+                copyArtifact(
+                        repository.resolve("com/example/signed/1.0"),
+                        "signed-1.0.jar",
+                        Files.readAllBytes(
+                                MavenRepositoryIndexerTest.TEST_DATA_PATH
+                                        .resolve("testJarFiles")
+                                        .resolve("with-corrupted-signature.jar")));
+        copyArtifact(
+                repository.resolve("io/netty/netty-common/4.2.0.Final"),
+                "netty-common-4.2.0.Final.jar",
+                Files.readAllBytes(
+                        MavenRepositoryIndexerTest.TEST_DATA_PATH
+                                .resolve("realJarFiles")
+                                .resolve("netty-common-4.2.0.Final.jar")));
+        final MavenRepositoryIndexer indexer =
+                new MavenRepositoryIndexer(repository, indexDir, ScanLimits.DEFAULT);
+
+        assertThat(indexer.index())
+                .isEqualTo(new MavenRepositoryIndexer.IndexSummary(2, 1, 0, 1));
+        assertThat(indexer.getIndexFile(signedJar)).doesNotExist();
+    }
+
+    /**
+     * Check that a lookup only reads the index files of artifacts whose filter may contain the annotation at the
+     * level, and that artifacts indexed without a filter file are still found and get one when indexed again.
+     */
+    @Test
+    void lookup_ReadsOnlyCandidateIndexFiles_GivenFilterFiles() throws IOException {
+        final Path repository = tempDir.resolve("repository");
+        final Path indexDir = tempDir.resolve("index");
+        final Path nettyJar =
+                copyArtifact(
+                        repository.resolve("io/netty/netty-common/4.2.0.Final"),
+                        "netty-common-4.2.0.Final.jar",
+                        Files.readAllBytes(
+                                MavenRepositoryIndexerTest.TEST_DATA_PATH
+                                        .resolve("realJarFiles")
+                                        .resolve("netty-common-4.2.0.Final.jar")));
+        copyArtifact(
+                repository.resolve("com/clann/test/levels/1.0"),
+                "levels-1.0.jar",
+                InMemoryJarCompiler.createJar(
+                        MavenRepositoryIndexerTest.TEST_DATA_PATH
+                                .resolve("sourceDirWithAllAnnotationLevels")
+                                .toString()));
+        final MavenRepositoryIndexer indexer =
+                new MavenRepositoryIndexer(repository, indexDir, ScanLimits.DEFAULT);
+        indexer.index();
+
+        // Both artifacts use @Deprecated, but only netty on methods and only the other on fields
+        assertThat(
+                        MavenRepositoryIndexer.lookup(
+                                indexDir, "@java.lang.Deprecated", AnnotationLevel.METHOD))
+                .isEqualTo(
+                        new MavenRepositoryIndexer.LookupResult(
+                                2, 1, List.of("io.netty:netty-common:4.2.0.Final")));
+        assertThat(MavenRepositoryIndexer.lookup(indexDir, "@java.lang.Missing", null))
+                .isEqualTo(new MavenRepositoryIndexer.LookupResult(2, 0, List.of()));
+
+        final Path nettyFilter =
+                indexer.getIndexFile(nettyJar)
+                        .resolveSibling(
+                                "netty-common-4.2.0.Final"
+                                        + MavenRepositoryIndexer.FILTER_FILE_EXTENSION);
+        Files.delete(nettyFilter);
+        assertThat(
+                        MavenRepositoryIndexer.lookup(
+                                indexDir, "@java.lang.Deprecated", AnnotationLevel.FIELD))
+                .isEqualTo(
+                        new MavenRepositoryIndexer.LookupResult(
+                                2, 2, List.of("com.clann.test:levels:1.0")));
+        assertThat(indexer.index())
+                .isEqualTo(new MavenRepositoryIndexer.IndexSummary(2, 1, 1, 0));
+        assertThat(nettyFilter).isRegularFile();
+    }
+
+    private static Path copyArtifact(
+            final Path directory, final String fileName, final byte[] bytes) throws IOException {
+        Files.createDirectories(directory);
+        return Files.write(directory.resolve(fileName), bytes);
+    }
+}
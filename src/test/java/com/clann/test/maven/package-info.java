@@ -0,0 +1,4 @@
+/**
+ * Tests for the maven package of clann.
+ */
+package com.clann.test.maven;
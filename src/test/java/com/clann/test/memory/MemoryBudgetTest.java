@@ -0,0 +1,163 @@
+package com.clann.test.memory;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import com.clann.JarAnalyzer;
+import com.clann.visitor.AnnotationCollector;
+import com.clann.visitor.ClassAnnotationInfo;
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.jar.JarEntry;
+import java.util.jar.JarInputStream;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Fails when the memory used to analyze the netty test JAR file exceeds a budget, so that regressions are caught
+ * before clann runs out of memory in a memory-capped container.
+ * <p>
+ * Allocated bytes are measured with the per-thread allocation counter of {@link com.sun.management.ThreadMXBean},
+ * after a warm-up so that the JIT compiler has settled, and retained bytes are measured as the growth of the used
+ * heap after garbage collection while many copies of the results are kept. Each budget defaults to about one and a
+ * half times the measured value and can be configured with a system property, for example
+ * {@code gradle test -Pclann.budget.retainedBytesPerClass=400}.
+ */
+@SuppressWarnings("PMD.MethodNamingConventions")
+class MemoryBudgetTest {
+    private static final File NETTY_JAR =
+            Path.of("src/test/java/com/clann/test/testdata")
+                    .resolve("realJarFiles")
+                    .resolve("netty-common-4.2.0.Final.jar")
+                    .toFile();
+
+    private static final long COLLECT_ALLOCATED_BYTES_PER_CLASS =
+            Long.getLong("clann.budget.collectAllocatedBytesPerClass", 14_000);
+    private static final long ANALYZE_ALLOCATED_BYTES_PER_CLASS =
+            Long.getLong("clann.budget.analyzeAllocatedBytesPerClass", 14_000);
+    private static final long RETAINED_BYTES_PER_CLASS =
+            Long.getLong("clann.budget.retainedBytesPerClass", 512);
+
+    private static final int WARM_UP_ROUNDS = 5;
+    private static final int RETAINED_COPIES = 20;
+    private static final int MEASUREMENTS = 3;
+    private static final int GC_ROUNDS = 3;
+
+    private static final List<byte[]> CLASS_FILES = new ArrayList<>();
+
+    @BeforeAll
+    static void readClassFiles() throws IOException {
+        try (JarInputStream jarIn =
+                new JarInputStream(Files.newInputStream(MemoryBudgetTest.NETTY_JAR.toPath()))) {
+            JarEntry entry = jarIn.getNextJarEntry();
+            while (entry != null) {
+                if (entry.getName().endsWith(".class")) {
+                    MemoryBudgetTest.CLASS_FILES.add(jarIn.readAllBytes());
+                }
+                entry = jarIn.getNextJarEntry();
+            }
+        }
+    }
+
+    /**
+     * Check that parsing a class file with {@link AnnotationCollector#collectAnnotations(byte[])} allocates no more
+     * than the budget per class.
+     */
+    @Test
+    void collectAnnotations_StaysWithinAllocationBudget_GivenNettyClassFiles()
+            throws AnnotationCollector.ClannClassReaderException {
+        final com.sun.management.ThreadMXBean threadMXBean = MemoryBudgetTest.getThreadMXBean();
+        for (int i = 0; i < MemoryBudgetTest.WARM_UP_ROUNDS; i++) {
+            MemoryBudgetTest.collectAll();
+        }
+
+        final long before = threadMXBean.getCurrentThreadAllocatedBytes();
+        MemoryBudgetTest.collectAll();
+        final long allocated = threadMXBean.getCurrentThreadAllocatedBytes() - before;
+
+        assertThat(allocated / MemoryBudgetTest.CLASS_FILES.size())
+                .as("allocated bytes per class of collectAnnotations")
+                .isLessThanOrEqualTo(MemoryBudgetTest.COLLECT_ALLOCATED_BYTES_PER_CLASS);
+    }
+
+    /**
+     * Check that analyzing the JAR file with {@link JarAnalyzer#analyzeJar(File)}, including reading and
+     * decompressing it, allocates no more than the budget per class.
+     */
+    @Test
+    void analyzeJar_StaysWithinAllocationBudget_GivenNettyJar() throws IOException {
+        final com.sun.management.ThreadMXBean threadMXBean = MemoryBudgetTest.getThreadMXBean();
+        for (int i = 0; i < MemoryBudgetTest.WARM_UP_ROUNDS; i++) {
+            JarAnalyzer.analyzeJar(MemoryBudgetTest.NETTY_JAR);
+        }
+
+        final long before = threadMXBean.getCurrentThreadAllocatedBytes();
+        final List<ClassAnnotationInfo> classAnnotationInfos =
+                JarAnalyzer.analyzeJar(MemoryBudgetTest.NETTY_JAR);
+        final long allocated = threadMXBean.getCurrentThreadAllocatedBytes() - before;
+
+        assertThat(allocated / classAnnotationInfos.size())
+                .as("allocated bytes per class of analyzeJar")
+                .isLessThanOrEqualTo(MemoryBudgetTest.ANALYZE_ALLOCATED_BYTES_PER_CLASS);
+    }
+
+    /**
+     * Check that each {@link ClassAnnotationInfo} returned by {@link JarAnalyzer#analyzeJar(File)} retains no
+     * more heap than the budget. The median of several measurements is used, as garbage collection makes a single
+     * measurement noisy.
+     */
+    @Test
+    void analyzeJar_StaysWithinRetainedHeapBudget_GivenNettyJar() throws IOException {
+        final List<Long> measurements = new ArrayList<>();
+        for (int i = 0; i < MemoryBudgetTest.MEASUREMENTS; i++) {
+            final List<List<ClassAnnotationInfo>> retained = new ArrayList<>();
+            final long before = MemoryBudgetTest.getUsedHeapAfterGc();
+            for (int j = 0; j < MemoryBudgetTest.RETAINED_COPIES; j++) {
+                retained.add(JarAnalyzer.analyzeJar(MemoryBudgetTest.NETTY_JAR));
+            }
+            final long after = MemoryBudgetTest.getUsedHeapAfterGc();
+            final int classCount = retained.stream().mapToInt(List::size).sum();
+            measurements.add((after - before) / classCount);
+        }
+        measurements.sort(null);
+
+        assertThat(measurements.get(measurements.size() / 2))
+                .as("retained bytes per ClassAnnotationInfo, measured %s", measurements)
+                .isLessThanOrEqualTo(MemoryBudgetTest.RETAINED_BYTES_PER_CLASS);
+    }
+
+    private static void collectAll() throws AnnotationCollector.ClannClassReaderException {
+        for (final byte[] classBytes : MemoryBudgetTest.CLASS_FILES) {
+            AnnotationCollector.collectAnnotations(classBytes);
+        }
+    }
+
+    private static com.sun.management.ThreadMXBean getThreadMXBean() {
+        final java.lang.management.ThreadMXBean threadMXBean =
+                ManagementFactory.getThreadMXBean();
+        assumeTrue(
+                threadMXBean instanceof com.sun.management.ThreadMXBean,
+                "The JVM does not count allocated bytes per thread");
+        final com.sun.management.ThreadMXBean allocationMXBean =
+                (com.sun.management.ThreadMXBean) threadMXBean;
+        assumeTrue(
+                allocationMXBean.isThreadAllocatedMemorySupported()
+                        && allocationMXBean.isThreadAllocatedMemoryEnabled(),
+                "The JVM does not count allocated bytes per thread");
+        return allocationMXBean;
+    }
+
+    @SuppressWarnings("PMD.DoNotCallGarbageCollectionExplicitly")
+    private static long getUsedHeapAfterGc() {
+        final Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < MemoryBudgetTest.GC_ROUNDS; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
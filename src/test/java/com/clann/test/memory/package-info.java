@@ -0,0 +1,4 @@
+/**
+ * Tests that guard the memory behaviour of clann against regressions.
+ */
+package com.clann.test.memory;
@@ -0,0 +1,119 @@
+package com.clann.test.module;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.clann.JarAnalyzer;
+import com.clann.ScanLimits;
+import com.clann.ScanStatus;
+import com.clann.module.ModuleScanResult;
+import com.clann.module.ModuleScanner;
+import com.clann.test.util.InMemoryJarCompiler;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Tests the {@link ModuleScanner} class.
+ */
+@SuppressWarnings("PMD.MethodNamingConventions")
+class ModuleScannerTest {
+    private static final String SOURCE_DIR =
+            "src/test/java/com/clann/test/testdata/sourceDirWithMetaAnnotations";
+
+    @TempDir Path tempDir;
+
+    /**
+     * Check that module sources are told apart from JAR files.
+     */
+    @Test
+    void isModuleSource_ReturnsTrue_GivenJrtPathsAndJmodFiles() {
+        assertThat(ModuleScanner.isModuleSource("jrt:")).isTrue();
+        assertThat(ModuleScanner.isModuleSource("jrt:/java.sql")).isTrue();
+        assertThat(ModuleScanner.isModuleSource("jmods/java.sql.jmod")).isTrue();
+        assertThat(ModuleScanner.isModuleSource("lib/app.jar")).isFalse();
+        assertThat(ModuleScanner.isModuleSource(tempDir.toString())).isFalse();
+    }
+
+    /**
+     * Check that a module of the current runtime image is scanned from the {@code jrt:/} file system and reported
+     * under its name.
+     */
+    @Test
+    void scan_ReportsModule_GivenJrtModule() throws IOException {
+        final List<ModuleScanResult> results =
+                ModuleScanner.scan(List.of("jrt:/java.sql"), ScanLimits.DEFAULT);
+
+        assertThat(results).hasSize(1);
+        final ModuleScanResult result = results.get(0);
+        assertThat(result.moduleName()).isEqualTo("java.sql");
+        assertThat(result.source()).isEqualTo("jrt:/java.sql");
+        assertThat(result.result().getStatus()).isEqualTo(ScanStatus.COMPLETE);
+        assertThat(result.getReport())
+                .startsWith("\nmodule: java.sql\nsource: jrt:/java.sql\nstatus: COMPLETE")
+                .contains("\n- class: java.sql.Date\n\t - @java.lang.Deprecated");
+    }
+
+    /**
+     * Check that the classes section of a JMOD file is scanned like a JAR file, and that its other sections are
+     * only counted.
+     */
+    @Test
+    void scan_MatchesJarFile_GivenJmodFile() throws IOException {
+        final Map<String, byte[]> classFiles =
+                InMemoryJarCompiler.compile(ModuleScannerTest.SOURCE_DIR);
+        final ByteArrayOutputStream jarBytes = new ByteArrayOutputStream();
+        final Path jmodFile = tempDir.resolve("com.example.jmod");
+        try (OutputStream jmodOut = Files.newOutputStream(jmodFile);
+                JarOutputStream jarOut = new JarOutputStream(jarBytes)) {
+            jmodOut.write(new byte[] {'J', 'M', 1, 0});
+            try (JarOutputStream sectionsOut = new JarOutputStream(jmodOut)) {
+                for (final Map.Entry<String, byte[]> entry : classFiles.entrySet()) {
+                    final String entryName = entry.getKey().replace('.', '/') + ".class";
+                    sectionsOut.putNextEntry(new JarEntry("classes/" + entryName));
+                    sectionsOut.write(entry.getValue());
+                    jarOut.putNextEntry(new JarEntry(entryName));
+                    jarOut.write(entry.getValue());
+                }
+                sectionsOut.putNextEntry(new JarEntry("legal/LICENSE"));
+                sectionsOut.write("license".getBytes(StandardCharsets.UTF_8));
+            }
+        }
+
+        final ModuleScanResult result =
+                ModuleScanner.scan(List.of(jmodFile.toString()), ScanLimits.DEFAULT).get(0);
+
+        assertThat(result.moduleName()).isEqualTo("com.example");
+        assertThat(result.result().getEntryCount()).isEqualTo(classFiles.size() + 1);
+        assertThat(result.result().getClassFileCount()).isEqualTo(classFiles.size());
+        assertThat(
+                        JarAnalyzer.getClassAnnotationUsageReport(
+                                result.result().getClassAnnotationInfos()))
+                .isEqualTo(
+                        JarAnalyzer.getClassAnnotationUsageReport(
+                                JarAnalyzer.analyzeJar(jarBytes.toByteArray())));
+    }
+
+    /**
+     * Check that a file named like a JMOD file without the JMOD header is rejected.
+     */
+    @Test
+    void scan_Throws_GivenFileWithoutJmodHeader() throws IOException {
+        final Path jmodFile = tempDir.resolve("broken.jmod");
+        Files.write(jmodFile, new byte[] {'P', 'K', 3, 4});
+
+        assertThatThrownBy(
+                        () -> ModuleScanner.scan(List.of(jmodFile.toString()), ScanLimits.DEFAULT))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("Not a JMOD file");
+    }
+}
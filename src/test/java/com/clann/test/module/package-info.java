@@ -0,0 +1,4 @@
+/**
+ * Tests for the module package of clann.
+ */
+package com.clann.test.module;
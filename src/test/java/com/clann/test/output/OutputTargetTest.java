@@ -0,0 +1,187 @@
+package com.clann.test.output;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.clann.JarAnalyzer;
+import com.clann.index.AnnotationIndex;
+import com.clann.output.OutputFormat;
+import com.clann.output.OutputTarget;
+import com.clann.visitor.AnnotationLevel;
+import com.clann.visitor.ClassAnnotationInfo;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Tests the {@link OutputTarget} class and the output sinks it opens.
+ */
+@SuppressWarnings("PMD.MethodNamingConventions")
+class OutputTargetTest {
+    private static final File NETTY_JAR =
+            Path.of("src/test/java/com/clann/test/testdata")
+                    .resolve("realJarFiles")
+                    .resolve("netty-common-4.2.0.Final.jar")
+                    .toFile();
+
+    @TempDir Path tempDir;
+
+    /**
+     * Check that all formats are written from one pass, with the text output identical to the printed report and
+     * one JSON line and one CSV row per class and annotation.
+     */
+    @Test
+    void writeAll_WritesEveryFormat_GivenNettyClasses() throws IOException {
+        final List<ClassAnnotationInfo> classAnnotationInfos =
+                JarAnalyzer.analyzeJar(OutputTargetTest.NETTY_JAR);
+        final long annotatedClasses =
+                classAnnotationInfos.stream()
+                        .filter(info -> !info.getAnnotations().isEmpty())
+                        .count();
+        final long annotationUses =
+                classAnnotationInfos.stream().mapToLong(info -> info.getAnnotations().size()).sum();
+
+        OutputTarget.writeAll(
+                List.of(
+                        OutputTarget.parse("text=" + tempDir.resolve("report.txt")),
+                        OutputTarget.parse("jsonl=" + tempDir.resolve("report.jsonl")),
+                        OutputTarget.parse("csv=" + tempDir.resolve("report.csv")),
+                        OutputTarget.parse("index=" + tempDir.resolve("annotations.idx"))),
+                classAnnotationInfos);
+
+        assertThat(tempDir.resolve("report.txt"))
+                .hasContent(JarAnalyzer.getClassAnnotationUsageReport(classAnnotationInfos) + "\n");
+        assertThat(Files.readAllLines(tempDir.resolve("report.jsonl")))
+                .hasSize((int) annotatedClasses)
+                .allMatch(line -> line.startsWith("{\"class\":\"io.netty.") && line.endsWith("]}"));
+        assertThat(Files.readAllLines(tempDir.resolve("report.csv")))
+                .hasSize((int) annotationUses + 1)
+                .startsWith("class,annotation,levels");
+        assertThat(AnnotationIndex.open(tempDir.resolve("annotations.idx")).getClassCount())
+                .isEqualTo((int) annotatedClasses);
+    }
+
+    /**
+     * Check that JSON strings are escaped, CSV fields are quoted and characters outside ASCII are encoded as
+     * UTF-8.
+     */
+    @Test
+    void writeAll_EscapesNames_GivenSpecialCharacters() throws IOException {
+        final ClassAnnotationInfo classAnnotationInfo = new ClassAnnotationInfo();
+        classAnnotationInfo.setClassName("com.example.Caf\u00e9\"1,2\"\t\uD83D\uDE00");
+        classAnnotationInfo.addAnnotationByName("@com.example.A", AnnotationLevel.CLASS);
+        classAnnotationInfo.addAnnotationByName("@com.example.A", AnnotationLevel.FIELD);
+
+        OutputTarget.writeAll(
+                List.of(
+                        OutputTarget.parse("jsonl=" + tempDir.resolve("report.jsonl")),
+                        OutputTarget.parse("csv=" + tempDir.resolve("report.csv"))),
+                List.of(classAnnotationInfo));
+
+        assertThat(Files.readString(tempDir.resolve("report.jsonl"), StandardCharsets.UTF_8))
+                .isEqualTo(
+                        "{\"class\":\"com.example.Caf\u00e9\\\"1,2\\\"\\t\uD83D\uDE00\","
+                                + "\"annotations\":[{\"name\":\"@com.example.A\","
+                                + "\"levels\":[\"CLASS\",\"FIELD\"]}]}\n");
+        assertThat(Files.readString(tempDir.resolve("report.csv"), StandardCharsets.UTF_8))
+                .isEqualTo(
+                        "class,annotation,levels\r\n"
+                                + "\"com.example.Caf\u00e9\"\"1,2\"\"\t\uD83D\uDE00\","
+                                + "@com.example.A,CLASS;FIELD\r\n");
+    }
+
+    /**
+     * Check that classes with the same annotations and levels, added in any order, share one shape that is
+     * written once with all their names.
+     */
+    @Test
+    void writeAll_WritesEachShapeOnce_GivenClassesWithSameAnnotations() throws IOException {
+        final ClassAnnotationInfo first = new ClassAnnotationInfo();
+        first.setClassName("com.example.First");
+        first.addAnnotationByName("@com.example.Generated", AnnotationLevel.CLASS);
+        first.addAnnotationByName("@java.lang.SuppressWarnings", AnnotationLevel.CLASS);
+        final ClassAnnotationInfo second = new ClassAnnotationInfo();
+        second.setClassName("com.example.Second");
+        second.addAnnotationByName("@java.lang.SuppressWarnings", AnnotationLevel.CLASS);
+        second.addAnnotationByName("@com.example.Generated", AnnotationLevel.CLASS);
+        final ClassAnnotationInfo other = new ClassAnnotationInfo();
+        other.setClassName("com.example.Other");
+        other.addAnnotationByName("@com.example.Generated", AnnotationLevel.CLASS);
+        other.addAnnotationByName("@com.example.Generated", AnnotationLevel.METHOD);
+
+        OutputTarget.writeAll(
+                List.of(OutputTarget.parse("shapes=" + tempDir.resolve("shapes.txt"))),
+                List.of(first, other, new ClassAnnotationInfo(), second));
+
+        assertThat(tempDir.resolve("shapes.txt"))
+                .hasContent(
+                        "\nshapes: 2"
+                                + "\nclasses: 3"
+                                + "\n- shape: 1"
+                                + "\n\t - @com.example.Generated"
+                                + "\n\t\t - [CLASS]"
+                                + "\n\t - @java.lang.SuppressWarnings"
+                                + "\n\t\t - [CLASS]"
+                                + "\n\t - classes: 2"
+                                + "\n\t\t - com.example.First"
+                                + "\n\t\t - com.example.Second"
+                                + "\n- shape: 2"
+                                + "\n\t - @com.example.Generated"
+                                + "\n\t\t - [CLASS, METHOD]"
+                                + "\n\t - classes: 1"
+                                + "\n\t\t - com.example.Other"
+                                + "\n");
+    }
+
+    /**
+     * Check that an output target is parsed into its format and file.
+     */
+    @Test
+    void parse_ReturnsTarget_GivenFormatAndFile() {
+        assertThat(OutputTarget.parse("jsonl=out/classes.jsonl"))
+                .isEqualTo(new OutputTarget(OutputFormat.JSONL, Path.of("out/classes.jsonl")));
+    }
+
+    /**
+     * Check that parsing fails for unknown formats, missing files and an index on standard output.
+     */
+    @Test
+    void parse_Throws_GivenInvalidTarget() {
+        assertThatThrownBy(() -> OutputTarget.parse("xml=report.xml"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage(
+                        "Unknown output format xml, expected one of text, jsonl, csv, index,"
+                                + " shapes");
+        assertThatThrownBy(() -> OutputTarget.parse("report.txt"))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> OutputTarget.parse("text="))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> OutputTarget.parse("index=-"))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    /**
+     * Check that several output targets are rejected if more than one is standard output, and accepted if only one
+     * is.
+     */
+    @Test
+    void checkStandardOutput_Throws_GivenTwoStandardOutputTargets() {
+        final List<OutputTarget> targets =
+                List.of(
+                        OutputTarget.parse("text=-"),
+                        OutputTarget.parse("csv=classes.csv"),
+                        OutputTarget.parse("jsonl=-"));
+
+        assertThatThrownBy(() -> OutputTarget.checkStandardOutput(targets))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Only one output can be standard output: text=-, jsonl=-");
+        assertThatThrownBy(() -> OutputTarget.writeAll(targets, List.of()))
+                .isInstanceOf(IllegalArgumentException.class);
+        OutputTarget.checkStandardOutput(targets.subList(0, 2));
+    }
+}
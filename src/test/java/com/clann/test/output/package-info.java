@@ -0,0 +1,4 @@
+/**
+ * Tests for the output package of clann.
+ */
+package com.clann.test.output;
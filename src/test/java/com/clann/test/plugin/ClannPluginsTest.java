@@ -0,0 +1,158 @@
+package com.clann.test.plugin;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.clann.JarAnalyzer;
+import com.clann.ScanLimits;
+import com.clann.plugin.ClannPlugin;
+import com.clann.plugin.ClannPlugins;
+import com.clann.plugin.ClassFilePlugin;
+import com.clann.visitor.AnnotationCollector;
+import com.clann.visitor.ClassAnnotationInfo;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.jar.JarFile;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.junit.jupiter.api.Test;
+import org.objectweb.asm.AnnotationVisitor;
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.MethodVisitor;
+
+/**
+ * Tests the {@link ClannPlugins} class and how {@link AnnotationCollector} runs plugins.
+ */
+@SuppressWarnings("PMD.MethodNamingConventions")
+class ClannPluginsTest {
+    private static final File NETTY_JAR =
+            Path.of("src/test/java/com/clann/test/testdata")
+                    .resolve("realJarFiles")
+                    .resolve("netty-common-4.2.0.Final.jar")
+                    .toFile();
+
+    /**
+     * Check that the plugins that ship with clann are discovered with the service loader.
+     */
+    @Test
+    void discover_FindsClassFilePlugin_GivenClannClassLoader() {
+        final List<ClannPlugin> plugins =
+                ClannPlugins.discover(ClannPlugin.class.getClassLoader());
+
+        assertThat(plugins).extracting(ClannPlugin::getName).contains("classfile");
+    }
+
+    /**
+     * Check that selecting a plugin that is not available fails with the names of the available plugins.
+     */
+    @Test
+    void select_Throws_GivenUnknownName() {
+        final List<ClannPlugin> plugins = List.of(new ClassFilePlugin());
+
+        assertThatThrownBy(() -> ClannPlugins.select(plugins, List.of("bytecode")))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Unknown plugin bytecode, available plugins: classfile");
+    }
+
+    /**
+     * Check that chained plugins see the events of the class file, including method annotations visited by the
+     * annotation visitors before them, and that the annotations collected are the same as without plugins.
+     */
+    @Test
+    void collectAnnotations_RunsPluginsInSamePass_GivenChainedPlugins()
+            throws IOException, AnnotationCollector.ClannClassReaderException {
+        final byte[] classBytes;
+        try (JarFile jarFile = new JarFile(ClannPluginsTest.NETTY_JAR);
+                InputStream inputStream =
+                        jarFile.getInputStream(
+                                jarFile.getEntry(
+                                        "io/netty/util/concurrent/"
+                                                + "AbstractScheduledEventExecutor.class"))) {
+            classBytes = inputStream.readAllBytes();
+        }
+
+        final ClassAnnotationInfo withPlugins =
+                AnnotationCollector.collectAnnotations(
+                        classBytes,
+                        0,
+                        classBytes.length,
+                        Long.MAX_VALUE,
+                        List.of(new MethodAnnotationCountPlugin(), new ClassFilePlugin()));
+        final ClassAnnotationInfo withoutPlugins =
+                AnnotationCollector.collectAnnotations(classBytes);
+
+        assertThat(withPlugins.getFacts())
+                .containsEntry("classfile.version", 52)
+                .containsEntry("classfile.serializable", false)
+                .containsKeys("classfile.syntheticMethods", "classfile.bridgeMethods");
+        assertThat((Integer) withPlugins.getFacts().get("test.methodAnnotations")).isPositive();
+        assertThat(withPlugins.getAnnotations())
+                .hasToString(withoutPlugins.getAnnotations().toString());
+        assertThat(withoutPlugins.getFacts()).isEmpty();
+    }
+
+    /**
+     * Check that the plugins given with the limits of a scan run in that scan only, and not in another scan of the
+     * same JVM.
+     */
+    @Test
+    void scanJar_ReportsFacts_GivenLimitsWithPlugin() throws IOException {
+        final List<ClassAnnotationInfo> classAnnotationInfos =
+                JarAnalyzer.scanJar(
+                                ClannPluginsTest.NETTY_JAR,
+                                ScanLimits.DEFAULT.withPlugins(List.of(new ClassFilePlugin())))
+                        .getClassAnnotationInfos();
+
+        assertThat(classAnnotationInfos)
+                .isNotEmpty()
+                .allMatch(info -> info.getFacts().containsKey("classfile.version"));
+        assertThat(JarAnalyzer.getClassAnnotationUsageReport(classAnnotationInfos))
+                .contains("\n\t - classfile.version: 52");
+        assertThat(JarAnalyzer.analyzeJar(ClannPluginsTest.NETTY_JAR))
+                .allMatch(info -> info.getFacts().isEmpty());
+    }
+
+    /**
+     * Counts the annotations of methods, to check that method events reach plugins.
+     */
+    private static final class MethodAnnotationCountPlugin implements ClannPlugin {
+        @NotNull
+        @Override
+        public String getName() {
+            return "test";
+        }
+
+        @NotNull
+        @Override
+        public ClassVisitor createClassVisitor(
+                @Nullable final ClassVisitor next, @NotNull final ClassAnnotationInfo classInfo) {
+            classInfo.putFact("test.methodAnnotations", 0);
+            return new ClassVisitor(ClannPlugin.ASM_API_VERSION, next) {
+                @Override
+                public MethodVisitor visitMethod(
+                        final int access,
+                        final String name,
+                        final String descriptor,
+                        final String signature,
+                        final String[] exceptions) {
+                    return new MethodVisitor(
+                            ClannPlugin.ASM_API_VERSION,
+                            super.visitMethod(access, name, descriptor, signature, exceptions)) {
+                        @Override
+                        public AnnotationVisitor visitAnnotation(
+                                final String descriptor, final boolean visible) {
+                            classInfo.putFact(
+                                    "test.methodAnnotations",
+                                    (Integer) classInfo.getFacts().get("test.methodAnnotations")
+                                            + 1);
+                            return super.visitAnnotation(descriptor, visible);
+                        }
+                    };
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,4 @@
+/**
+ * Tests for the plugin package of clann.
+ */
+package com.clann.test.plugin;
@@ -0,0 +1,146 @@
+package com.clann.test.query;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.clann.JarAnalyzer;
+import com.clann.query.AnnotationBitmapIndex;
+import com.clann.query.AnnotationQuery;
+import com.clann.visitor.AnnotationLevel;
+import com.clann.visitor.ClassAnnotationInfo;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests the {@link AnnotationQuery} and {@link AnnotationBitmapIndex} classes.
+ */
+@SuppressWarnings("PMD.MethodNamingConventions")
+class AnnotationQueryTest {
+    private static final List<ClassAnnotationInfo> CLASSES =
+            List.of(
+                    AnnotationQueryTest.newClass(
+                            "Order",
+                            "@jakarta.persistence.Entity",
+                            AnnotationLevel.CLASS,
+                            "@jakarta.persistence.Table",
+                            AnnotationLevel.CLASS,
+                            "@jakarta.persistence.Id",
+                            AnnotationLevel.FIELD),
+                    AnnotationQueryTest.newClass(
+                            "Customer",
+                            "@jakarta.persistence.Entity",
+                            AnnotationLevel.CLASS,
+                            "@jakarta.persistence.Id",
+                            AnnotationLevel.FIELD),
+                    AnnotationQueryTest.newClass(
+                            "LegacyItem",
+                            "@javax.persistence.Entity",
+                            AnnotationLevel.CLASS,
+                            "@javax.persistence.Id",
+                            AnnotationLevel.METHOD),
+                    AnnotationQueryTest.newClass(
+                            "OrderService", "@java.lang.Deprecated", AnnotationLevel.METHOD));
+
+    /**
+     * Check that AND, OR, NOT, parentheses, levels, simple names and qualified names are evaluated.
+     */
+    @Test
+    void evaluate_ReturnsMatchingClasses_GivenBooleanQueries() {
+        final AnnotationBitmapIndex index =
+                AnnotationBitmapIndex.build(AnnotationQueryTest.CLASSES);
+
+        assertThat(query(index, "@Entity:CLASS AND NOT @Table AND @Id:FIELD"))
+                .containsExactly("Customer");
+        assertThat(query(index, "@Entity")).containsExactly("Order", "Customer", "LegacyItem");
+        assertThat(query(index, "@javax.persistence.Entity")).containsExactly("LegacyItem");
+        assertThat(query(index, "@Id:field || @Deprecated"))
+                .containsExactly("Order", "Customer", "OrderService");
+        assertThat(query(index, "!(@Entity or @Deprecated:METHOD)")).isEmpty();
+        assertThat(query(index, "NOT @Entity")).containsExactly("OrderService");
+        assertThat(query(index, "@Unknown")).isEmpty();
+    }
+
+    /**
+     * Check that an annotation in the default package is found by its name, which is also its simple name.
+     */
+    @Test
+    void evaluate_ReturnsMatchingClasses_GivenAnnotationInDefaultPackage() {
+        final AnnotationBitmapIndex index =
+                AnnotationBitmapIndex.build(
+                        List.of(
+                                AnnotationQueryTest.newClass(
+                                        "Plain", "@Foo", AnnotationLevel.CLASS),
+                                AnnotationQueryTest.newClass(
+                                        "Qualified", "@com.example.Foo", AnnotationLevel.FIELD)));
+
+        assertThat(index.getAnnotationNames("@Foo"))
+                .containsExactlyInAnyOrder("@Foo", "@com.example.Foo");
+        assertThat(query(index, "@Foo")).containsExactly("Plain", "Qualified");
+        assertThat(query(index, "@Foo:CLASS")).containsExactly("Plain");
+        assertThat(index.getAnnotationNames("@@Foo")).isEmpty();
+    }
+
+    /**
+     * Check that invalid queries are rejected with the position of the error.
+     */
+    @Test
+    void parse_Fails_GivenInvalidQueries() {
+        assertThatThrownBy(() -> AnnotationQuery.parse("@Entity AND"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("position 11");
+        assertThatThrownBy(() -> AnnotationQuery.parse("(@Entity"))
+                .hasMessageContaining("expected ')'");
+        assertThatThrownBy(() -> AnnotationQuery.parse("@Entity:NOWHERE"))
+                .hasMessageContaining("unknown annotation level 'NOWHERE'");
+        assertThatThrownBy(() -> AnnotationQuery.parse("Entity"))
+                .hasMessageContaining("expected an annotation name");
+        assertThatThrownBy(() -> AnnotationQuery.parse("@Entity @Table"))
+                .hasMessageContaining("unexpected '@Table'");
+    }
+
+    /**
+     * Check that queries over a real JAR file agree with the scan results.
+     */
+    @Test
+    void evaluate_MatchesScanResults_GivenRealJar() throws IOException {
+        final List<ClassAnnotationInfo> classAnnotationInfos =
+                JarAnalyzer.analyzeJar(
+                        Path.of("src/test/java/com/clann/test/testdata/realJarFiles")
+                                .resolve("netty-common-4.2.0.Final.jar")
+                                .toFile());
+        final AnnotationBitmapIndex index = AnnotationBitmapIndex.build(classAnnotationInfos);
+
+        final List<String> expected =
+                classAnnotationInfos.stream()
+                        .filter(
+                                info ->
+                                        info.getAnnotations().containsKey("@java.lang.Deprecated")
+                                                && !info.getAnnotations()
+                                                        .get("@java.lang.Deprecated")
+                                                        .getAnnotationLevels()
+                                                        .contains(AnnotationLevel.CLASS))
+                        .map(ClassAnnotationInfo::getClassName)
+                        .toList();
+        assertThat(expected).isNotEmpty();
+        assertThat(query(index, "@Deprecated AND NOT @java.lang.Deprecated:CLASS"))
+                .isEqualTo(expected);
+        assertThat(index.getAllClasses().cardinality()).isEqualTo(classAnnotationInfos.size());
+    }
+
+    private static List<String> query(final AnnotationBitmapIndex index, final String query) {
+        return index.getClassNames(AnnotationQuery.parse(query).evaluate(index));
+    }
+
+    private static ClassAnnotationInfo newClass(
+            final String className, final Object... annotations) {
+        final ClassAnnotationInfo classAnnotationInfo = new ClassAnnotationInfo();
+        classAnnotationInfo.setClassName(className);
+        for (int i = 0; i < annotations.length; i += 2) {
+            classAnnotationInfo.addAnnotationByName(
+                    (String) annotations[i], (AnnotationLevel) annotations[i + 1]);
+        }
+        return classAnnotationInfo;
+    }
+}
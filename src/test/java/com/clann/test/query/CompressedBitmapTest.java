@@ -0,0 +1,83 @@
+package com.clann.test.query;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.clann.query.CompressedBitmap;
+import java.util.BitSet;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests the {@link CompressedBitmap} class against {@link BitSet}.
+ */
+@SuppressWarnings("PMD.MethodNamingConventions")
+class CompressedBitmapTest {
+    private static final int UNIVERSE = 300_000;
+
+    /**
+     * Check that the boolean operations agree with {@link BitSet} for sparse, dense and mixed chunks, which
+     * exercise every combination of array and bitmap containers.
+     */
+    @Test
+    void operations_MatchBitSet_GivenRandomBitmapsOfVaryingDensity() {
+        final Random random = new Random(42);
+        final double[] densities = {0.0001, 0.01, 0.05, 0.5, 0.99};
+        for (final double leftDensity : densities) {
+            for (final double rightDensity : densities) {
+                final BitSet left = CompressedBitmapTest.randomBitSet(random, leftDensity);
+                final BitSet right = CompressedBitmapTest.randomBitSet(random, rightDensity);
+                final CompressedBitmap leftBitmap = CompressedBitmapTest.toBitmap(left);
+                final CompressedBitmap rightBitmap = CompressedBitmapTest.toBitmap(right);
+
+                final BitSet and = (BitSet) left.clone();
+                and.and(right);
+                final BitSet or = (BitSet) left.clone();
+                or.or(right);
+                final BitSet andNot = (BitSet) left.clone();
+                andNot.andNot(right);
+
+                assertThat(leftBitmap.cardinality()).isEqualTo(left.cardinality());
+                assertThat(leftBitmap.and(rightBitmap).toArray())
+                        .isEqualTo(and.stream().toArray());
+                assertThat(leftBitmap.or(rightBitmap).toArray()).isEqualTo(or.stream().toArray());
+                assertThat(leftBitmap.andNot(rightBitmap).toArray())
+                        .isEqualTo(andNot.stream().toArray());
+            }
+        }
+    }
+
+    /**
+     * Check membership, ranges and the empty bitmap.
+     */
+    @Test
+    void contains_MatchesValues_GivenRangeAndEmptyBitmaps() {
+        final CompressedBitmap range = CompressedBitmap.range(70_000);
+
+        assertThat(range.cardinality()).isEqualTo(70_000);
+        assertThat(range.contains(0)).isTrue();
+        assertThat(range.contains(69_999)).isTrue();
+        assertThat(range.contains(70_000)).isFalse();
+        assertThat(range.contains(-1)).isFalse();
+        assertThat(range.andNot(range)).isEqualTo(CompressedBitmap.EMPTY);
+        assertThat(CompressedBitmap.of(5, 3, 65_536).toArray()).containsExactly(3, 5, 65_536);
+        assertThat(CompressedBitmap.EMPTY.or(CompressedBitmap.of(1)))
+                .isEqualTo(CompressedBitmap.of(1));
+    }
+
+    private static BitSet randomBitSet(final Random random, final double density) {
+        final BitSet bitSet = new BitSet(CompressedBitmapTest.UNIVERSE);
+        for (int i = 0; i < CompressedBitmapTest.UNIVERSE; i++) {
+            // Vary the density per chunk so that bitmaps mix array and bitmap containers
+            if (random.nextDouble() < ((i >>> 16) % 2 == 0 ? density : density / 10)) {
+                bitSet.set(i);
+            }
+        }
+        return bitSet;
+    }
+
+    private static CompressedBitmap toBitmap(final BitSet bitSet) {
+        final CompressedBitmap.Builder builder = new CompressedBitmap.Builder();
+        bitSet.stream().forEach(builder::add);
+        return builder.build();
+    }
+}
@@ -0,0 +1,4 @@
+/**
+ * Tests for the query package of clann.
+ */
+package com.clann.test.query;
@@ -0,0 +1,84 @@
+package com.clann.test.resolve;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.clann.JarAnalyzer;
+import com.clann.ScanLimits;
+import com.clann.resolve.AnnotationOriginIndex;
+import com.clann.test.util.InMemoryJarCompiler;
+import com.clann.visitor.ClassAnnotationInfo;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests the {@link AnnotationOriginIndex} class.
+ */
+@SuppressWarnings("PMD.MethodNamingConventions")
+class AnnotationOriginIndexTest {
+    private static final Path TEST_DATA_PATH = Path.of("src/test/java/com/clann/test/testdata");
+    private static final String PACKAGE =
+            "com.clann.test.testdata.sourceDirWithMetaAnnotations.";
+
+    /**
+     * Check that annotation types resolve to the archive defining them with their retention, to the Java
+     * platform, or to nothing if they are missing.
+     */
+    @Test
+    void resolve_ReturnsOrigin_GivenIndexedArchive() throws IOException {
+        final Path nettyJar =
+                AnnotationOriginIndexTest.TEST_DATA_PATH
+                        .resolve("realJarFiles")
+                        .resolve("netty-common-4.2.0.Final.jar");
+        final AnnotationOriginIndex index = new AnnotationOriginIndex();
+
+        index.index(nettyJar, 0, ScanLimits.DEFAULT);
+
+        assertThat(index.resolve("@io.netty.util.SuppressForbidden"))
+                .isEqualTo(
+                        new AnnotationOriginIndex.AnnotationOrigin(
+                                "@io.netty.util.SuppressForbidden",
+                                nettyJar.toString(),
+                                "CLASS"));
+        assertThat(index.resolve("@java.lang.Deprecated"))
+                .isEqualTo(
+                        new AnnotationOriginIndex.AnnotationOrigin(
+                                "@java.lang.Deprecated", "jrt:/java.base", "RUNTIME"));
+        final AnnotationOriginIndex.AnnotationOrigin missing =
+                index.resolve("@org.jetbrains.annotations.NotNull");
+        assertThat(missing.isMissing()).isTrue();
+        assertThat(missing.format())
+                .isEqualTo(
+                        "\n- annotation: @org.jetbrains.annotations.NotNull\n\t - origin: MISSING");
+    }
+
+    /**
+     * Check that the archive first on the classpath wins when several archives define an annotation type,
+     * whatever the order of registration.
+     */
+    @Test
+    void registerAll_KeepsFirstArchive_GivenDuplicateClasses() throws IOException {
+        final List<ClassAnnotationInfo> classAnnotationInfos =
+                JarAnalyzer.analyzeJar(
+                        InMemoryJarCompiler.createJar(
+                                AnnotationOriginIndexTest.TEST_DATA_PATH
+                                        .resolve("sourceDirWithMetaAnnotations")
+                                        .toString()));
+        final AnnotationOriginIndex index = new AnnotationOriginIndex();
+
+        index.registerAll(Path.of("second.jar"), 1, classAnnotationInfos);
+        index.registerAll(Path.of("first.jar"), 0, classAnnotationInfos);
+        index.registerAll(Path.of("third.jar"), 2, classAnnotationInfos);
+
+        assertThat(index.resolveAll(classAnnotationInfos))
+                .contains(
+                        new AnnotationOriginIndex.AnnotationOrigin(
+                                "@" + AnnotationOriginIndexTest.PACKAGE + "Component",
+                                Path.of("first.jar").toString(),
+                                "RUNTIME"))
+                .doesNotHaveDuplicates()
+                .isSortedAccordingTo(
+                        (left, right) -> left.annotationName().compareTo(right.annotationName()));
+    }
+}
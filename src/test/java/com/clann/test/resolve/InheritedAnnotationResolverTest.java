@@ -0,0 +1,126 @@
+package com.clann.test.resolve;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.clann.JarAnalyzer;
+import com.clann.resolve.ClassBytesSource;
+import com.clann.resolve.ClasspathClassBytesSource;
+import com.clann.resolve.InheritedAnnotationResolver;
+import com.clann.resolve.MetaAnnotationResolver;
+import com.clann.test.util.InMemoryJarCompiler;
+import com.clann.visitor.AnnotationLevel;
+import com.clann.visitor.ClassAnnotationInfo;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests the {@link InheritedAnnotationResolver} class.
+ */
+@SuppressWarnings("PMD.MethodNamingConventions")
+class InheritedAnnotationResolverTest {
+    private static final String SOURCE_DIR =
+            Path.of("src/test/java/com/clann/test/testdata/sourceDirWithInheritedAnnotations")
+                    .toString();
+    private static final String PACKAGE =
+            "com.clann.test.testdata.sourceDirWithInheritedAnnotations.";
+
+    /**
+     * Check that only {@code @Inherited} annotations are inherited, transitively through superclasses but not
+     * from interfaces, and that superclasses outside the scan are read only once.
+     */
+    @Test
+    void resolve_AddsInheritedAnnotations_GivenClassHierarchy() throws IOException {
+        final List<ClassAnnotationInfo> classAnnotationInfos =
+                JarAnalyzer.analyzeJar(
+                        InMemoryJarCompiler.createJar(InheritedAnnotationResolverTest.SOURCE_DIR));
+        final Map<String, AtomicInteger> lookups = new ConcurrentHashMap<>();
+
+        try (ClasspathClassBytesSource platform = new ClasspathClassBytesSource(List.of())) {
+            final ClassBytesSource source =
+                    className -> {
+                        lookups.computeIfAbsent(className, k -> new AtomicInteger())
+                                .incrementAndGet();
+                        return platform.findClassBytes(className);
+                    };
+            new InheritedAnnotationResolver(source, new MetaAnnotationResolver(source))
+                    .resolve(classAnnotationInfos);
+        }
+
+        final String inheritedMarker =
+                "@" + InheritedAnnotationResolverTest.PACKAGE + "InheritedMarker";
+        assertThat(inheritedAnnotations(classAnnotationInfos, "Middle"))
+                .containsExactly(inheritedMarker);
+        assertThat(inheritedAnnotations(classAnnotationInfos, "Leaf"))
+                .containsExactly(inheritedMarker);
+        assertThat(inheritedAnnotations(classAnnotationInfos, "Base")).isEmpty();
+        assertThat(inheritedAnnotations(classAnnotationInfos, "InterfaceImplementation"))
+                .isEmpty();
+        assertThat(lookups).containsKey("java.lang.Object");
+        assertThat(lookups.values()).allSatisfy(count -> assertThat(count.get()).isEqualTo(1));
+    }
+
+    /**
+     * Check that the meta-annotations of inherited annotations are resolved, so that a class inheriting an
+     * annotation also uses the annotations that meta-annotate it.
+     */
+    @Test
+    void resolve_AddsMetaAnnotationsOfInheritedAnnotations_GivenClassHierarchy()
+            throws IOException {
+        final List<ClassAnnotationInfo> classAnnotationInfos =
+                JarAnalyzer.analyzeJar(
+                        InMemoryJarCompiler.createJar(InheritedAnnotationResolverTest.SOURCE_DIR));
+
+        try (ClasspathClassBytesSource source = new ClasspathClassBytesSource(List.of())) {
+            final MetaAnnotationResolver metaAnnotationResolver =
+                    new MetaAnnotationResolver(source);
+            new InheritedAnnotationResolver(source, metaAnnotationResolver)
+                    .resolve(classAnnotationInfos);
+            metaAnnotationResolver.resolve(classAnnotationInfos);
+        }
+
+        final String componentMarker =
+                "@" + InheritedAnnotationResolverTest.PACKAGE + "ComponentMarker";
+        for (final String simpleName : List.of("Base", "Middle", "Leaf")) {
+            final ClassAnnotationInfo classAnnotationInfo =
+                    InheritedAnnotationResolverTest.findClass(classAnnotationInfos, simpleName);
+            assertThat(
+                            classAnnotationInfo
+                                    .getAnnotations()
+                                    .get(componentMarker)
+                                    .getAnnotationLevels())
+                    .containsExactly(AnnotationLevel.CLASS_META);
+        }
+        final ClassAnnotationInfo interfaceImplementation =
+                InheritedAnnotationResolverTest.findClass(
+                        classAnnotationInfos, "InterfaceImplementation");
+        assertThat(interfaceImplementation.getAnnotations()).doesNotContainKey(componentMarker);
+    }
+
+    private static List<String> inheritedAnnotations(
+            final List<ClassAnnotationInfo> classAnnotationInfos, final String simpleName) {
+        final ClassAnnotationInfo classAnnotationInfo =
+                InheritedAnnotationResolverTest.findClass(classAnnotationInfos, simpleName);
+        return classAnnotationInfo.getAnnotations().entrySet().stream()
+                .filter(
+                        entry ->
+                                entry.getValue()
+                                        .getAnnotationLevels()
+                                        .contains(AnnotationLevel.CLASS_INHERITED))
+                .map(Map.Entry::getKey)
+                .toList();
+    }
+
+    private static ClassAnnotationInfo findClass(
+            final List<ClassAnnotationInfo> classAnnotationInfos, final String simpleName) {
+        final String className = InheritedAnnotationResolverTest.PACKAGE + simpleName;
+        return classAnnotationInfos.stream()
+                .filter(info -> info.getClassName().equals(className))
+                .findFirst()
+                .orElseThrow();
+    }
+}
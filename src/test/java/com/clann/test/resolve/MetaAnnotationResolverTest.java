@@ -0,0 +1,152 @@
+package com.clann.test.resolve;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.clann.JarAnalyzer;
+import com.clann.resolve.ClassBytesSource;
+import com.clann.resolve.MetaAnnotationResolver;
+import com.clann.test.util.InMemoryJarCompiler;
+import com.clann.visitor.AnnotationCollector;
+import com.clann.visitor.AnnotationLevel;
+import com.clann.visitor.ClassAnnotationInfo;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests the {@link MetaAnnotationResolver} class.
+ */
+@SuppressWarnings("PMD.MethodNamingConventions")
+class MetaAnnotationResolverTest {
+    private static final String SOURCE_DIR =
+            Path.of("src/test/java/com/clann/test/testdata/sourceDirWithMetaAnnotations")
+                    .toString();
+    private static final String PACKAGE =
+            "com.clann.test.testdata.sourceDirWithMetaAnnotations.";
+
+    /**
+     * Check that classes are reported as using the transitive meta-annotations of their class-level annotations
+     * and that annotation types defined in the scanned JAR file are not read again.
+     */
+    @Test
+    void resolve_AddsTransitiveMetaAnnotations_GivenScannedAnnotationTypes() throws IOException {
+        final List<ClassAnnotationInfo> classAnnotationInfos =
+                JarAnalyzer.analyzeJar(
+                        InMemoryJarCompiler.createJar(MetaAnnotationResolverTest.SOURCE_DIR));
+        final AtomicInteger lookups = new AtomicInteger();
+        final ClassBytesSource source =
+                className -> {
+                    lookups.incrementAndGet();
+                    return null;
+                };
+
+        new MetaAnnotationResolver(source).resolve(classAnnotationInfos);
+
+        final ClassAnnotationInfo orderController = find(classAnnotationInfos, "OrderController");
+        assertThat(metaAnnotations(orderController))
+                .containsExactlyInAnyOrder(
+                        "@" + MetaAnnotationResolverTest.PACKAGE + "Controller",
+                        "@" + MetaAnnotationResolverTest.PACKAGE + "Component");
+        assertThat(metaAnnotations(find(classAnnotationInfos, "OrderService")))
+                .containsExactly("@" + MetaAnnotationResolverTest.PACKAGE + "Component");
+        // Only @java.lang.Deprecated is read from the source because it is not in the JAR file
+        assertThat(lookups.get()).isEqualTo(1);
+    }
+
+    /**
+     * Check that resolving terminates for annotation types that annotate each other.
+     */
+    @Test
+    void resolve_Terminates_GivenCyclicMetaAnnotations() throws IOException {
+        final List<ClassAnnotationInfo> classAnnotationInfos =
+                JarAnalyzer.analyzeJar(
+                        InMemoryJarCompiler.createJar(MetaAnnotationResolverTest.SOURCE_DIR));
+
+        new MetaAnnotationResolver(className -> null).resolve(classAnnotationInfos);
+
+        assertThat(metaAnnotations(find(classAnnotationInfos, "CyclicUser")))
+                .containsExactly("@" + MetaAnnotationResolverTest.PACKAGE + "CyclicB");
+    }
+
+    /**
+     * Check that each annotation type is read from the source at most once, no matter how many classes use it.
+     */
+    @Test
+    void addMetaAnnotations_ReadsEachAnnotationTypeOnce_GivenManyClasses() throws Exception {
+        final Map<String, byte[]> compiledClasses =
+                InMemoryJarCompiler.compile(MetaAnnotationResolverTest.SOURCE_DIR);
+        final Map<String, AtomicInteger> lookups = new ConcurrentHashMap<>();
+        final MetaAnnotationResolver resolver =
+                new MetaAnnotationResolver(
+                        className -> {
+                            lookups.computeIfAbsent(className, k -> new AtomicInteger())
+                                    .incrementAndGet();
+                            return compiledClasses.get(className);
+                        });
+        final byte[] orderController =
+                compiledClasses.get(MetaAnnotationResolverTest.PACKAGE + "OrderController");
+
+        for (int i = 0; i < 100; i++) {
+            final ClassAnnotationInfo classAnnotationInfo =
+                    AnnotationCollector.collectAnnotations(orderController);
+            resolver.addMetaAnnotations(classAnnotationInfo);
+            assertThat(metaAnnotations(classAnnotationInfo)).hasSize(2);
+        }
+
+        assertThat(lookups).isNotEmpty();
+        assertThat(lookups.values()).allSatisfy(count -> assertThat(count.get()).isEqualTo(1));
+    }
+
+    /**
+     * Check that only annotation types are registered, so classes that are not annotation types are not cached.
+     */
+    @Test
+    void register_SkipsClass_GivenClassThatIsNotAnnotationType() throws Exception {
+        final Map<String, byte[]> compiledClasses =
+                InMemoryJarCompiler.compile(MetaAnnotationResolverTest.SOURCE_DIR);
+        final Map<String, AtomicInteger> lookups = new ConcurrentHashMap<>();
+        final MetaAnnotationResolver resolver =
+                new MetaAnnotationResolver(
+                        className -> {
+                            lookups.computeIfAbsent(className, k -> new AtomicInteger())
+                                    .incrementAndGet();
+                            return compiledClasses.get(className);
+                        });
+        final String orderController = MetaAnnotationResolverTest.PACKAGE + "OrderController";
+        final String component = MetaAnnotationResolverTest.PACKAGE + "Component";
+
+        resolver.register(
+                AnnotationCollector.collectAnnotations(compiledClasses.get(orderController)));
+        resolver.register(AnnotationCollector.collectAnnotations(compiledClasses.get(component)));
+        resolver.getDirectMetaAnnotations("@" + orderController);
+        resolver.getDirectMetaAnnotations("@" + component);
+
+        assertThat(lookups).containsOnlyKeys(orderController);
+    }
+
+    private static ClassAnnotationInfo find(
+            final List<ClassAnnotationInfo> classAnnotationInfos, final String simpleName) {
+        return classAnnotationInfos.stream()
+                .filter(
+                        info ->
+                                info.getClassName()
+                                        .equals(MetaAnnotationResolverTest.PACKAGE + simpleName))
+                .findFirst()
+                .orElseThrow();
+    }
+
+    private static List<String> metaAnnotations(final ClassAnnotationInfo classAnnotationInfo) {
+        return classAnnotationInfo.getAnnotations().entrySet().stream()
+                .filter(
+                        entry ->
+                                entry.getValue()
+                                        .getAnnotationLevels()
+                                        .contains(AnnotationLevel.CLASS_META))
+                .map(Map.Entry::getKey)
+                .toList();
+    }
+}
@@ -0,0 +1,4 @@
+/**
+ * Tests for the resolve package of clann.
+ */
+package com.clann.test.resolve;
@@ -0,0 +1,63 @@
+package com.clann.test.shard;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.clann.JarAnalyzer;
+import com.clann.shard.PartialResultFile;
+import com.clann.visitor.ClassAnnotationInfo;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Tests the {@link PartialResultFile} class.
+ */
+@SuppressWarnings("PMD.MethodNamingConventions")
+class PartialResultFileTest {
+    private static final File NETTY_JAR =
+            Path.of("src/test/java/com/clann/test/testdata")
+                    .resolve("realJarFiles")
+                    .resolve("netty-common-4.2.0.Final.jar")
+                    .toFile();
+
+    @TempDir Path tempDir;
+
+    /**
+     * Check that the report appended from a partial result file is identical to the report produced from the
+     * scanned objects, and that no temporary file is left behind.
+     */
+    @Test
+    void appendReport_MatchesObjects_GivenWrittenFile() throws IOException {
+        final List<ClassAnnotationInfo> classAnnotationInfos =
+                JarAnalyzer.analyzeJar(PartialResultFileTest.NETTY_JAR);
+        final Path file = tempDir.resolve("shard-0.bin");
+
+        PartialResultFile.write(file, classAnnotationInfos);
+        final StringBuilder report = new StringBuilder();
+        PartialResultFile.appendReport(file, report);
+
+        assertThat(report.toString())
+                .isEqualTo(JarAnalyzer.getClassAnnotationUsageReport(classAnnotationInfos));
+        try (Stream<Path> files = Files.list(tempDir)) {
+            assertThat(files).containsExactly(file);
+        }
+    }
+
+    /**
+     * Check that reading a file that is not a partial result file fails.
+     */
+    @Test
+    void appendReport_Throws_GivenOtherFile() throws IOException {
+        final Path file = Files.writeString(tempDir.resolve("shard-0.bin"), "not a partial file");
+
+        assertThatThrownBy(() -> PartialResultFile.appendReport(file, new StringBuilder()))
+                .isInstanceOf(IOException.class)
+                .hasMessageStartingWith("Not a partial result file");
+    }
+}
@@ -0,0 +1,108 @@
+package com.clann.test.shard;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.clann.JarAnalyzer;
+import com.clann.shard.ShardCoordinator;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Tests the {@link ShardCoordinator} class.
+ */
+@SuppressWarnings("PMD.MethodNamingConventions")
+class ShardCoordinatorTest {
+    private static final Path TEST_DATA_PATH = Path.of("src/test/java/com/clann/test/testdata");
+    private static final Path NETTY_JAR =
+            ShardCoordinatorTest.TEST_DATA_PATH
+                    .resolve("realJarFiles")
+                    .resolve("netty-common-4.2.0.Final.jar");
+
+    @TempDir Path tempDir;
+
+    /**
+     * Check that JAR files are split into contiguous shards of similar total size, and that no shard is empty
+     * when there are fewer large files than shards.
+     */
+    @Test
+    void split_ReturnsContiguousBalancedShards_GivenFilesOfDifferentSizes() throws IOException {
+        final List<Path> jarFiles = new ArrayList<>();
+        for (final int size : new int[] {400, 100, 100, 100, 100, 1, 1}) {
+            jarFiles.add(Files.write(tempDir.resolve(jarFiles.size() + ".jar"), new byte[size]));
+        }
+
+        final List<List<Path>> shards = ShardCoordinator.split(jarFiles, 3);
+
+        assertThat(shards)
+                .containsExactly(
+                        jarFiles.subList(0, 1), jarFiles.subList(1, 3), jarFiles.subList(3, 7));
+        assertThat(ShardCoordinator.split(jarFiles.subList(0, 2), 3))
+                .containsExactly(jarFiles.subList(0, 1), jarFiles.subList(1, 2));
+    }
+
+    /**
+     * Check that the report merged from the partial results of the worker JVMs is identical to the report of a
+     * scan in this JVM, in the order of the JAR files.
+     */
+    @Test
+    void scan_MatchesSingleJvmReport_GivenTwoShards() throws IOException, InterruptedException {
+        final Path emptyJar =
+                ShardCoordinatorTest.TEST_DATA_PATH.resolve("testJarFiles").resolve("empty.jar");
+        final List<Path> jarFiles = List.of(ShardCoordinatorTest.NETTY_JAR, emptyJar);
+
+        final StringBuilder report = new StringBuilder();
+        new ShardCoordinator(
+                        2,
+                        ShardCoordinator.DEFAULT_MAX_ATTEMPTS,
+                        ShardCoordinator.DEFAULT_SHARD_TIMEOUT,
+                        ShardCoordinator.getDefaultWorkerHeapSize(2),
+                        List.of(),
+                        null)
+                .scan(jarFiles, report);
+
+        assertThat(report.toString())
+                .isEqualTo(
+                        JarAnalyzer.getClassAnnotationUsageReport(
+                                JarAnalyzer.analyzeJar(ShardCoordinatorTest.NETTY_JAR.toFile())));
+    }
+
+    /**
+     * Check that a worker that does not finish within the shard timeout is killed and that its shard fails once
+     * it has used up its attempts.
+     */
+    @Test
+    void scan_Throws_GivenShardTimeoutShorterThanWorker() {
+        final ShardCoordinator coordinator =
+                new ShardCoordinator(1, 1, Duration.ofMillis(1), "256m", List.of(), null);
+
+        assertThatThrownBy(
+                        () ->
+                                coordinator.scan(
+                                        List.of(ShardCoordinatorTest.NETTY_JAR),
+                                        new StringBuilder()))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("Shards [0] failed after 1 attempts");
+    }
+
+    /**
+     * Check that the classpath of the worker of a shard lists only the JAR files of its shard before the
+     * additional classpath.
+     */
+    @Test
+    void getWorkerClasspath_ListsShardJarFilesFirst_GivenClasspath() {
+        final Path dependency = tempDir.resolve("dependency.jar");
+
+        assertThat(
+                        ShardCoordinator.getWorkerClasspath(
+                                List.of(ShardCoordinatorTest.NETTY_JAR), List.of(dependency)))
+                .isEqualTo(ShardCoordinatorTest.NETTY_JAR + File.pathSeparator + dependency);
+    }
+}
@@ -0,0 +1,4 @@
+/**
+ * Tests for the shard package of clann.
+ */
+package com.clann.test.shard;
@@ -0,0 +1,123 @@
+package com.clann.test.stats;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+import com.clann.ScanLimits;
+import com.clann.stats.AnnotationSampler;
+import com.clann.stats.Estimate;
+import com.clann.stats.HyperLogLog;
+import com.clann.stats.SamplingReport;
+import java.io.IOException;
+import java.nio.file.Path;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests the {@link AnnotationSampler} and {@link HyperLogLog} classes.
+ */
+@SuppressWarnings("PMD.MethodNamingConventions")
+class AnnotationSamplerTest {
+    private static final Path NETTY_JAR =
+            Path.of("src/test/java/com/clann/test/testdata/realJarFiles")
+                    .resolve("netty-common-4.2.0.Final.jar");
+
+    /**
+     * Check that sampling every class file yields exact counts with collapsed confidence intervals.
+     */
+    @Test
+    void toReport_IsExact_GivenFractionOfOne() throws IOException {
+        final AnnotationSampler sampler = new AnnotationSampler(1.0, 0, ScanLimits.DEFAULT);
+        sampler.sampleJar(AnnotationSamplerTest.NETTY_JAR);
+
+        final SamplingReport report = sampler.toReport();
+
+        assertThat(report.totalClassFiles()).isEqualTo(545);
+        assertThat(report.sampledClassFiles()).isEqualTo(545);
+        final SamplingReport.AnnotationEstimate deprecated =
+                report.annotationEstimates().get("@java.lang.Deprecated");
+        assertThat(deprecated.classFiles().value()).isEqualTo(42);
+        assertThat(deprecated.classFiles().lowerBound()).isEqualTo(42);
+        assertThat(deprecated.classFiles().upperBound()).isEqualTo(42);
+    }
+
+    /**
+     * Check that sampling analyzes about the requested fraction of class files and that the same class packaged
+     * in several JAR files is either always or never selected.
+     */
+    @Test
+    void sampleJar_SelectsClassFilesConsistently_GivenRepeatedJarFile() throws IOException {
+        final AnnotationSampler sampler = new AnnotationSampler(0.25, 42, ScanLimits.DEFAULT);
+        sampler.sampleJar(AnnotationSamplerTest.NETTY_JAR);
+        final long sampledOnce = sampler.toReport().sampledClassFiles();
+        sampler.sampleJar(AnnotationSamplerTest.NETTY_JAR);
+
+        final SamplingReport report = sampler.toReport();
+
+        assertThat(report.totalClassFiles()).isEqualTo(2 * 545);
+        assertThat(report.sampledClassFiles()).isEqualTo(2 * sampledOnce);
+        assertThat((double) sampledOnce / 545).isCloseTo(0.25, within(0.08));
+        // Distinct classes are not double counted across JAR files
+        assertThat((double) report.estimatedDistinctClasses()).isCloseTo(545, within(30.0));
+    }
+
+    /**
+     * Check that the copies of a class packaged in many JAR files do not narrow the confidence interval, which
+     * still covers the true proportion, as the copies are selected together and add no independent information.
+     */
+    @Test
+    void toReport_CoversTrueProportion_GivenDuplicatedClassFiles() throws IOException {
+        final AnnotationSampler once = new AnnotationSampler(0.25, 42, ScanLimits.DEFAULT);
+        once.sampleJar(AnnotationSamplerTest.NETTY_JAR);
+        final AnnotationSampler duplicated = new AnnotationSampler(0.25, 42, ScanLimits.DEFAULT);
+        for (int i = 0; i < 10; i++) {
+            duplicated.sampleJar(AnnotationSamplerTest.NETTY_JAR);
+        }
+
+        final Estimate expected =
+                once.toReport()
+                        .annotationEstimates()
+                        .get("@java.lang.Deprecated")
+                        .classFileFraction();
+        final Estimate estimate =
+                duplicated
+                        .toReport()
+                        .annotationEstimates()
+                        .get("@java.lang.Deprecated")
+                        .classFileFraction();
+
+        assertThat(estimate.value()).isEqualTo(expected.value());
+        assertThat(estimate.lowerBound()).isCloseTo(expected.lowerBound(), within(0.001));
+        assertThat(estimate.upperBound()).isCloseTo(expected.upperBound(), within(0.001));
+        // 42 of the 545 classes of the JAR file are deprecated
+        assertThat(42.0 / 545).isBetween(estimate.lowerBound(), estimate.upperBound());
+    }
+
+    /**
+     * Check that the sampling fraction is validated.
+     */
+    @Test
+    void constructor_ThrowsException_GivenInvalidFraction() {
+        assertThatThrownBy(() -> new AnnotationSampler(0, 0, ScanLimits.DEFAULT))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new AnnotationSampler(1.5, 0, ScanLimits.DEFAULT))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    /**
+     * Check that the HyperLogLog estimate is within a few standard errors of the true distinct count.
+     */
+    @Test
+    void estimate_IsAccurate_GivenManyDistinctStrings() {
+        final HyperLogLog hyperLogLog = new HyperLogLog();
+        final HyperLogLog other = new HyperLogLog();
+        for (int i = 0; i < 100_000; i++) {
+            hyperLogLog.add("com.example.Class" + i);
+            // Duplicates do not change the estimate
+            other.add("com.example.Class" + (i % 50_000));
+        }
+        hyperLogLog.merge(other);
+
+        assertThat((double) hyperLogLog.estimate()).isCloseTo(100_000, within(5_000.0));
+    }
+}
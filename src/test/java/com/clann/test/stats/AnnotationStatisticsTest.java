@@ -0,0 +1,139 @@
+package com.clann.test.stats;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.clann.JarAnalyzer;
+import com.clann.ScanLimits;
+import com.clann.ScanResult;
+import com.clann.ScanStatus;
+import com.clann.stats.AnnotationStatistics;
+import com.clann.visitor.AnnotationLevel;
+import com.clann.visitor.ClassAnnotationInfo;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests the {@link AnnotationStatistics} class.
+ */
+@SuppressWarnings("PMD.MethodNamingConventions")
+class AnnotationStatisticsTest {
+    private static final File NETTY_JAR =
+            new File(
+                    "src/test/java/com/clann/test/testdata/realJarFiles",
+                    "netty-common-4.2.0.Final.jar");
+
+    /**
+     * Check that streaming a JAR file into the statistics counts the same classes as the per-class analysis.
+     */
+    @Test
+    void getAnnotationSummaries_MatchesPerClassAnalysis_GivenRealJar() throws IOException {
+        final AnnotationStatistics statistics = new AnnotationStatistics();
+
+        final ScanResult result =
+                JarAnalyzer.scanJar(
+                        AnnotationStatisticsTest.NETTY_JAR, ScanLimits.DEFAULT, statistics);
+
+        assertThat(result.getStatus()).isEqualTo(ScanStatus.COMPLETE);
+        assertThat(result.getClassAnnotationInfos()).isEmpty();
+        final List<ClassAnnotationInfo> classAnnotationInfos =
+                JarAnalyzer.analyzeJar(AnnotationStatisticsTest.NETTY_JAR);
+        assertThat(statistics.getClassCount()).isEqualTo(classAnnotationInfos.size());
+
+        final AnnotationStatistics.AnnotationSummary deprecated =
+                find(statistics, "@java.lang.Deprecated");
+        assertThat(deprecated.classes())
+                .isEqualTo(countClasses(classAnnotationInfos, "@java.lang.Deprecated", null));
+        assertThat(deprecated.levels().get(AnnotationLevel.CLASS).classes())
+                .isEqualTo(
+                        countClasses(
+                                classAnnotationInfos,
+                                "@java.lang.Deprecated",
+                                AnnotationLevel.CLASS));
+        assertThat(deprecated.packages()).isPositive().isLessThanOrEqualTo(deprecated.classes());
+    }
+
+    /**
+     * Check that counts are exact when many threads accept classes concurrently.
+     */
+    @Test
+    void accept_CountsExactly_GivenConcurrentThreads() throws IOException {
+        final List<ClassAnnotationInfo> classAnnotationInfos =
+                JarAnalyzer.analyzeJar(AnnotationStatisticsTest.NETTY_JAR);
+        final AnnotationStatistics single = new AnnotationStatistics();
+        classAnnotationInfos.forEach(single);
+        final AnnotationStatistics concurrent = new AnnotationStatistics();
+
+        IntStream.range(0, 8)
+                .parallel()
+                .forEach(i -> classAnnotationInfos.parallelStream().forEach(concurrent));
+
+        assertThat(concurrent.getClassCount()).isEqualTo(8L * single.getClassCount());
+        assertThat(concurrent.getAnnotationSummaries())
+                .hasSameSizeAs(single.getAnnotationSummaries());
+        for (final AnnotationStatistics.AnnotationSummary summary :
+                single.getAnnotationSummaries()) {
+            final AnnotationStatistics.AnnotationSummary concurrentSummary =
+                    find(concurrent, summary.annotationName());
+            assertThat(concurrentSummary.classes()).isEqualTo(8 * summary.classes());
+            // Distinct packages do not grow with repeated classes
+            assertThat(concurrentSummary.packages()).isEqualTo(summary.packages());
+        }
+    }
+
+    /**
+     * Check that statistics counted from two halves of the classes and merged after a round trip through their
+     * binary form report the same as statistics counted from all classes.
+     */
+    @Test
+    void merge_MatchesSingleCount_GivenHalvesRestoredFromBinaryForm() throws IOException {
+        final List<ClassAnnotationInfo> classAnnotationInfos =
+                JarAnalyzer.analyzeJar(AnnotationStatisticsTest.NETTY_JAR);
+        final AnnotationStatistics single = new AnnotationStatistics();
+        classAnnotationInfos.forEach(single);
+        final AnnotationStatistics firstHalf = new AnnotationStatistics();
+        final AnnotationStatistics secondHalf = new AnnotationStatistics();
+        final int middle = classAnnotationInfos.size() / 2;
+        classAnnotationInfos.subList(0, middle).forEach(firstHalf);
+        classAnnotationInfos.subList(middle, classAnnotationInfos.size()).forEach(secondHalf);
+
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            firstHalf.writeTo(out);
+        }
+        final AnnotationStatistics merged =
+                AnnotationStatistics.readFrom(
+                        new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+        merged.merge(secondHalf);
+
+        assertThat(merged.getReport()).isEqualTo(single.getReport());
+    }
+
+    private static long countClasses(
+            final List<ClassAnnotationInfo> classAnnotationInfos,
+            final String annotationName,
+            final AnnotationLevel level) {
+        return classAnnotationInfos.stream()
+                .map(info -> info.getAnnotations().get(annotationName))
+                .filter(
+                        details ->
+                                details != null
+                                        && (level == null
+                                                || details.getAnnotationLevels().contains(level)))
+                .count();
+    }
+
+    private static AnnotationStatistics.AnnotationSummary find(
+            final AnnotationStatistics statistics, final String annotationName) {
+        return statistics.getAnnotationSummaries().stream()
+                .filter(summary -> summary.annotationName().equals(annotationName))
+                .findFirst()
+                .orElseThrow();
+    }
+}
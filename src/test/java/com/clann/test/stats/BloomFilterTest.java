@@ -0,0 +1,47 @@
+package com.clann.test.stats;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.clann.stats.BloomFilter;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests the {@link BloomFilter} class.
+ */
+@SuppressWarnings("PMD.MethodNamingConventions")
+class BloomFilterTest {
+
+    /**
+     * Check that every added string is found after a round trip through the binary form, and that strings that
+     * were not added are rarely found.
+     */
+    @Test
+    void mightContain_HasNoFalseNegativesAndFewFalsePositives_GivenRestoredFilter()
+            throws IOException {
+        final BloomFilter filter = new BloomFilter(1000);
+        IntStream.range(0, 1000).forEach(i -> filter.add("@org.example.Added" + i));
+
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            filter.writeTo(out);
+        }
+        final BloomFilter restored =
+                BloomFilter.readFrom(
+                        new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+
+        assertThat(restored.getBitCount()).isEqualTo(filter.getBitCount()).isEqualTo(10_048);
+        assertThat(IntStream.range(0, 1000))
+                .allMatch(i -> restored.mightContain("@org.example.Added" + i));
+        final long falsePositives =
+                IntStream.range(0, 100_000)
+                        .filter(i -> restored.mightContain("@org.example.Missing" + i))
+                        .count();
+        assertThat(falsePositives).isLessThan(2_000);
+    }
+}
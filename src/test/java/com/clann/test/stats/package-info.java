@@ -0,0 +1,4 @@
+/**
+ * Tests for the stats package of clann.
+ */
+package com.clann.test.stats;
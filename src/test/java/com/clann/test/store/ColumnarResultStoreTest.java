@@ -0,0 +1,126 @@
+package com.clann.test.store;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.clann.JarAnalyzer;
+import com.clann.ScanLimits;
+import com.clann.store.ColumnarResultStore;
+import com.clann.visitor.AnnotationLevel;
+import com.clann.visitor.ClassAnnotationInfo;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Tests the {@link ColumnarResultStore} class.
+ */
+@SuppressWarnings("PMD.MethodNamingConventions")
+class ColumnarResultStoreTest {
+    private static final File NETTY_JAR =
+            Path.of("src/test/java/com/clann/test/testdata")
+                    .resolve("realJarFiles")
+                    .resolve("netty-common-4.2.0.Final.jar")
+                    .toFile();
+
+    @TempDir Path tempDir;
+
+    /**
+     * Check that the report produced from a store of direct buffers is identical to the report produced from
+     * the scanned objects.
+     */
+    @Test
+    void getClassAnnotationUsageReport_MatchesObjects_GivenDirectStore() throws IOException {
+        final List<ClassAnnotationInfo> classAnnotationInfos =
+                JarAnalyzer.analyzeJar(ColumnarResultStoreTest.NETTY_JAR);
+
+        try (ColumnarResultStore store = ColumnarResultStore.allocateDirect()) {
+            classAnnotationInfos.forEach(store);
+
+            assertThat(store.getClassCount()).isEqualTo(545);
+            assertThat(JarAnalyzer.getClassAnnotationUsageReport(store))
+                    .isEqualTo(JarAnalyzer.getClassAnnotationUsageReport(classAnnotationInfos));
+        }
+    }
+
+    /**
+     * Check that a memory-mapped store with chunks smaller than a class name returns the scanned values through
+     * a single flyweight view, and deletes its files when closed.
+     */
+    @Test
+    void iterator_ReturnsFlyweightViews_GivenMappedStoreWithSmallChunks() throws IOException {
+        final List<ClassAnnotationInfo> classAnnotationInfos =
+                JarAnalyzer.analyzeJar(ColumnarResultStoreTest.NETTY_JAR);
+
+        try (ColumnarResultStore store = ColumnarResultStore.map(tempDir, 24)) {
+            JarAnalyzer.scanJar(ColumnarResultStoreTest.NETTY_JAR, ScanLimits.DEFAULT, store);
+
+            final List<ColumnarResultStore.ClassView> views = new ArrayList<>();
+            int classId = 0;
+            for (final ColumnarResultStore.ClassView view : store) {
+                views.add(view);
+                final ClassAnnotationInfo expected = classAnnotationInfos.get(classId);
+                assertThat(view.getClassId()).isEqualTo(classId);
+                assertThat(view.getClassName()).isEqualTo(expected.getClassName());
+                assertThat(view.getAnnotationCount()).isEqualTo(expected.getAnnotations().size());
+                for (int i = 0; i < view.getAnnotationCount(); i++) {
+                    assertThat(view.getAnnotationLevels(i))
+                            .isEqualTo(
+                                    expected.getAnnotations()
+                                            .get(view.getAnnotationName(i))
+                                            .getAnnotationLevels());
+                }
+                classId++;
+            }
+            assertThat(classId).isEqualTo(classAnnotationInfos.size());
+            assertThat(views).containsOnly(views.get(0));
+        }
+        try (Stream<Path> files = Files.list(tempDir)) {
+            assertThat(files).isEmpty();
+        }
+    }
+
+    /**
+     * Check that the levels of an annotation are stored as a bitmask of their ordinals.
+     */
+    @Test
+    void getLevelMask_SetsBitPerLevel_GivenAnnotationAtSeveralLevels() throws IOException {
+        final ClassAnnotationInfo classAnnotationInfo = new ClassAnnotationInfo();
+        classAnnotationInfo.setClassName("com.example.Example");
+        classAnnotationInfo.addAnnotationByName("@java.lang.Deprecated", AnnotationLevel.CLASS);
+        classAnnotationInfo.addAnnotationByName("@java.lang.Deprecated", AnnotationLevel.FIELD);
+
+        try (ColumnarResultStore store = ColumnarResultStore.allocateDirect(8)) {
+            store.accept(classAnnotationInfo);
+            final ColumnarResultStore.ClassView view = store.iterator().next();
+
+            assertThat(view.getLevelMask(0))
+                    .isEqualTo(
+                            1 << AnnotationLevel.CLASS.ordinal()
+                                    | 1 << AnnotationLevel.FIELD.ordinal());
+            assertThat(view.getAnnotationLevels(0))
+                    .isEqualTo(Set.of(AnnotationLevel.CLASS, AnnotationLevel.FIELD));
+            assertThat(store.getAnnotationName(view.getAnnotationId(0)))
+                    .isEqualTo("@java.lang.Deprecated");
+            assertThatThrownBy(() -> view.getAnnotationId(1))
+                    .isInstanceOf(IndexOutOfBoundsException.class);
+        }
+    }
+
+    /**
+     * Check that chunk sizes that are not a positive multiple of 8 are rejected.
+     */
+    @Test
+    void allocateDirect_Throws_GivenInvalidChunkSize() {
+        assertThatThrownBy(() -> ColumnarResultStore.allocateDirect(12))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("multiple of 8");
+    }
+}
@@ -0,0 +1,4 @@
+/**
+ * Tests for the store package of clann.
+ */
+package com.clann.test.store;
@@ -0,0 +1,5 @@
+package com.clann.test.testdata.sourceDirWithInheritedAnnotations;
+
+// Annotations on interfaces are not inherited by implementing classes
+@InheritedMarker
+interface AnnotatedInterface {}
@@ -0,0 +1,5 @@
+package com.clann.test.testdata.sourceDirWithInheritedAnnotations;
+
+@InheritedMarker
+@NotInheritedMarker
+class Base {}
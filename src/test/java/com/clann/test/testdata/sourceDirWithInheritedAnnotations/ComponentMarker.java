@@ -0,0 +1,11 @@
+package com.clann.test.testdata.sourceDirWithInheritedAnnotations;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+// Meta-annotates InheritedMarker, so it applies to the classes that inherit InheritedMarker as well
+@Target(ElementType.ANNOTATION_TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+@interface ComponentMarker {}
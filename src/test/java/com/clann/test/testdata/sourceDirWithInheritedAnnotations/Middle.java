@@ -0,0 +1,3 @@
+package com.clann.test.testdata.sourceDirWithInheritedAnnotations;
+
+class Middle extends Base {}
@@ -0,0 +1,9 @@
+package com.clann.test.testdata.sourceDirWithMetaAnnotations;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+
+// Annotation types may annotate each other, which forms a cycle in the meta-annotation graph
+@Retention(RetentionPolicy.RUNTIME)
+@CyclicB
+@interface CyclicA {}
@@ -0,0 +1,8 @@
+package com.clann.test.testdata.sourceDirWithMetaAnnotations;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+
+@Retention(RetentionPolicy.RUNTIME)
+@CyclicA
+@interface CyclicB {}
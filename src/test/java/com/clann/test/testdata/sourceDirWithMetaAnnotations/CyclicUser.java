@@ -0,0 +1,4 @@
+package com.clann.test.testdata.sourceDirWithMetaAnnotations;
+
+@CyclicA
+class CyclicUser {}
@@ -0,0 +1,5 @@
+package com.clann.test.testdata.sourceDirWithMetaAnnotations;
+
+@RestController
+@Deprecated
+class OrderController {}
@@ -0,0 +1,4 @@
+package com.clann.test.testdata.sourceDirWithMetaAnnotations;
+
+@Service
+class OrderService {}
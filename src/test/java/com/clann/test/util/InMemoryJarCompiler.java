@@ -10,7 +10,8 @@ import javax.tools.*;
 import org.jetbrains.annotations.NotNull;
 
 /**
- * Test helper class providing static methods to create a Java JAR file in memory from a Java source files directory.
+ * Test helper class providing static methods to compile a Java source files directory in memory and to create a
+ * Java JAR file in memory from it.
  * Based on examples in https://docs.oracle.com/en/java/javase/21/docs/api/java.compiler/javax/tools/JavaCompiler.html.
  */
 public final class InMemoryJarCompiler {
@@ -28,6 +29,33 @@ public final class InMemoryJarCompiler {
      */
     @SuppressWarnings("PMD.AvoidInstantiatingObjectsInLoops")
     public static byte[] createJar(@NotNull final String sourceDirPath) throws IOException {
+        final ByteArrayOutputStream jarOutBytes = new ByteArrayOutputStream();
+
+        // Write compiled class files to an in-memory JAR
+        try (final JarOutputStream jarOut = new JarOutputStream(jarOutBytes)) {
+            for (final Map.Entry<String, byte[]> entry :
+                    InMemoryJarCompiler.compile(sourceDirPath).entrySet()) {
+                final String className = entry.getKey().replace('.', '/') + ".class";
+                final JarEntry jarEntry = new JarEntry(className);
+                jarOut.putNextEntry(jarEntry);
+                jarOut.write(entry.getValue());
+                jarOut.closeEntry();
+            }
+        }
+
+        return jarOutBytes.toByteArray();
+    }
+
+    /**
+     * Compile a Java source files directory in memory.
+     *
+     * @param sourceDirPath The path to the source directory to be compiled.
+     * @return A mapping from dot-separated binary class names to compiled class file bytes.
+     * @throws IOException On failure to read from the source directory.
+     */
+    @NotNull
+    public static Map<String, byte[]> compile(@NotNull final String sourceDirPath)
+            throws IOException {
         // Find the .java files in the source directory
         final Path sourceDir = Paths.get(sourceDirPath);
         final List<Path> javaFiles;
@@ -41,7 +69,6 @@ public final class InMemoryJarCompiler {
                 compiler.getStandardFileManager(null, null, null);
         final InMemoryFileManager fileManager = new InMemoryFileManager(stdFileManager);
 
-        final ByteArrayOutputStream jarOutBytes = new ByteArrayOutputStream();
         try (stdFileManager;
                 fileManager) {
             final Iterable<? extends JavaFileObject> compilationUnits =
@@ -51,21 +78,8 @@ public final class InMemoryJarCompiler {
             if (!success) {
                 throw new AssertionError("Compilation failed: sourceDirPath=" + sourceDirPath);
             }
-
-            // Write compiled class files to an in-memory JAR
-            try (final JarOutputStream jarOut = new JarOutputStream(jarOutBytes)) {
-                for (final Map.Entry<String, byte[]> entry :
-                        fileManager.getCompiledClasses().entrySet()) {
-                    final String className = entry.getKey().replace('.', '/') + ".class";
-                    final JarEntry jarEntry = new JarEntry(className);
-                    jarOut.putNextEntry(jarEntry);
-                    jarOut.write(entry.getValue());
-                    jarOut.closeEntry();
-                }
-            }
+            return fileManager.getCompiledClasses();
         }
-
-        return jarOutBytes.toByteArray();
     }
 
     private static class InMemoryFileManager extends ForwardingJavaFileManager<JavaFileManager> {
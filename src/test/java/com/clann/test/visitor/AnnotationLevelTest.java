@@ -0,0 +1,36 @@
+package com.clann.test.visitor;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.clann.visitor.AnnotationLevel;
+import java.util.EnumSet;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests the {@link AnnotationLevel} class.
+ */
+@SuppressWarnings("PMD.MethodNamingConventions")
+class AnnotationLevelTest {
+
+    /**
+     * Check that levels converted to a bit mask and back are unchanged, for no level, some levels and all levels.
+     */
+    @Test
+    void fromMask_ReturnsLevels_GivenMaskOfLevels() {
+        final Set<AnnotationLevel> some =
+                EnumSet.of(
+                        AnnotationLevel.CLASS,
+                        AnnotationLevel.FIELD,
+                        AnnotationLevel.METHOD_TYPE_USE_RECEIVER);
+
+        assertThat(AnnotationLevel.toMask(EnumSet.noneOf(AnnotationLevel.class))).isZero();
+        assertThat(AnnotationLevel.fromMask(0)).isEmpty();
+        assertThat(AnnotationLevel.toMask(Set.of(AnnotationLevel.CLASS_META))).isEqualTo(2);
+        assertThat(AnnotationLevel.fromMask(AnnotationLevel.toMask(some))).isEqualTo(some);
+        assertThat(
+                        AnnotationLevel.fromMask(
+                                AnnotationLevel.toMask(EnumSet.allOf(AnnotationLevel.class))))
+                .containsExactly(AnnotationLevel.values());
+    }
+}
@@ -0,0 +1,102 @@
+package com.clann.test.visitor;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.clann.JarAnalyzer;
+import com.clann.ScanLimits;
+import com.clann.ScanResult;
+import com.clann.visitor.ClassAnnotationInfo;
+import com.clann.visitor.ClassNameTable;
+import java.io.IOException;
+import java.nio.file.Path;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests the {@link ClassNameTable} class and how {@link ClassAnnotationInfo} stores class names in it.
+ */
+@SuppressWarnings("PMD.MethodNamingConventions")
+class ClassNameTableTest {
+
+    /**
+     * Check that a package and its parents are added once and that sub-packages share their parents.
+     */
+    @Test
+    void getPackage_SharesParents_GivenNestedPackages() {
+        final ClassNameTable table = new ClassNameTable();
+
+        final ClassNameTable.PackageNode internal = table.getPackage("io/netty/util/internal");
+        final ClassNameTable.PackageNode util = table.getPackage("io/netty/util");
+
+        assertThat(table.getPackage("io/netty/util/internal")).isSameAs(internal);
+        assertThat(table.getPackageCount()).isEqualTo(4);
+        assertThat(internal.getName()).isEqualTo("io.netty.util.internal");
+        assertThat(util.getName()).isEqualTo("io.netty.util");
+        assertThat(table.getPackage("").isUnnamed()).isTrue();
+        assertThat(table.getPackage("").getName()).isEmpty();
+    }
+
+    /**
+     * Check that class names set from internal names and from binary names render the same, and that classes of
+     * the same package share its node.
+     */
+    @Test
+    void getClassName_RendersName_GivenInternalOrBinaryName() {
+        final ClassAnnotationInfo fromInternalName = new ClassAnnotationInfo();
+        fromInternalName.setInternalClassName("io/netty/util/Recycler$Handle");
+        final ClassAnnotationInfo fromBinaryName = new ClassAnnotationInfo();
+        fromBinaryName.setClassName("io.netty.util.Recycler$Handle");
+        final ClassAnnotationInfo inUnnamedPackage = new ClassAnnotationInfo();
+        inUnnamedPackage.setInternalClassName("Main");
+
+        assertThat(fromInternalName.getClassName()).isEqualTo("io.netty.util.Recycler$Handle");
+        assertThat(fromBinaryName.getClassName()).isEqualTo("io.netty.util.Recycler$Handle");
+        assertThat(fromInternalName.appendClassName(new StringBuilder("class: ")))
+                .hasToString("class: io.netty.util.Recycler$Handle");
+        assertThat(fromInternalName.getPackageName()).isEqualTo("io.netty.util");
+        assertThat(inUnnamedPackage.getClassName()).isEqualTo("Main");
+        assertThat(inUnnamedPackage.getPackageName()).isEmpty();
+        assertThat(new ClassAnnotationInfo().getClassName()).isNull();
+    }
+
+    /**
+     * Check that classes with the same superclass share its node and render its binary name.
+     */
+    @Test
+    void getClassNode_SharesNode_GivenSameSuperclass() {
+        final ClassNameTable table = new ClassNameTable();
+        final ClassAnnotationInfo first = new ClassAnnotationInfo();
+        first.setInternalSuperClassName(table, "io/netty/util/AbstractReferenceCounted");
+        final ClassAnnotationInfo second = new ClassAnnotationInfo();
+        second.setInternalSuperClassName(table, "io/netty/util/AbstractReferenceCounted");
+
+        assertThat(table.getClassNode("io/netty/util/AbstractReferenceCounted"))
+                .isSameAs(table.getClassNode("io/netty/util/AbstractReferenceCounted"));
+        assertThat(first.getSuperClassName())
+                .isEqualTo("io.netty.util.AbstractReferenceCounted")
+                .isEqualTo(second.getSuperClassName());
+        assertThat(table.getPackageCount()).isEqualTo(3);
+        assertThat(table.getClassNode("Main").getName()).isEqualTo("Main");
+        assertThat(new ClassAnnotationInfo().getSuperClassName()).isNull();
+    }
+
+    /**
+     * Check that a scan given its own table stores the packages of its classes there.
+     */
+    @Test
+    void scanJar_StoresPackagesInGivenTable_GivenLimitsWithTable() throws IOException {
+        final ClassNameTable table = new ClassNameTable();
+        final ScanResult result =
+                JarAnalyzer.scanJar(
+                        Path.of("src/test/java/com/clann/test/testdata/realJarFiles")
+                                .resolve("netty-common-4.2.0.Final.jar")
+                                .toFile(),
+                        ScanLimits.DEFAULT.withClassNameTable(table));
+
+        final int packageCount = table.getPackageCount();
+        assertThat(result.getClassAnnotationInfos()).hasSize(545);
+        assertThat(packageCount).isPositive();
+        result.getClassAnnotationInfos()
+                .forEach(info -> table.getPackage(info.getPackageName().replace('.', '/')));
+        assertThat(table.getPackageCount()).isEqualTo(packageCount);
+    }
+}